@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.jmh;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Task that compares the JSON results of a JMH run with a previously stored baseline
+ * and fails if a benchmark got slower than the configured threshold.
+ * <p>A result only counts as a regression if the difference in score exceeds both the
+ * relative threshold and the combined score error of the two runs, so that noisy
+ * benchmarks do not fail the check on their own.
+ *
+ * @since 5.2.4
+ * @see JmhConventionsPlugin
+ */
+public class JmhBaselineCheck extends DefaultTask {
+
+	private File resultsFile;
+
+	private File baselineFile;
+
+	private double threshold;
+
+	@InputFile
+	public File getResultsFile() {
+		return this.resultsFile;
+	}
+
+	public void setResultsFile(File resultsFile) {
+		this.resultsFile = resultsFile;
+	}
+
+	@InputFile
+	public File getBaselineFile() {
+		return this.baselineFile;
+	}
+
+	public void setBaselineFile(File baselineFile) {
+		this.baselineFile = baselineFile;
+	}
+
+	@Input
+	public double getThreshold() {
+		return this.threshold;
+	}
+
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+
+	@TaskAction
+	public void check() {
+		Map<String, Score> baseline = readScores(this.baselineFile);
+		Map<String, Score> results = readScores(this.resultsFile);
+		List<String> regressions = new ArrayList<>();
+		results.forEach((key, current) -> {
+			Score previous = baseline.get(key);
+			if (previous == null) {
+				getLogger().lifecycle(String.format("%-80s %14.3f %-10s (new)", key, current.value, current.unit));
+				return;
+			}
+			if (!Double.isFinite(current.value) || !Double.isFinite(previous.value) || previous.value == 0) {
+				getLogger().lifecycle(String.format("%-80s %14.3f %-10s (skipped, no comparable score)",
+						key, current.value, current.unit));
+				return;
+			}
+			double change = (current.value - previous.value) / previous.value;
+			double delta = Math.abs(current.value - previous.value);
+			boolean slower = (current.higherIsBetter ? change < 0 : change > 0);
+			boolean regression = slower && Math.abs(change) > this.threshold && delta > current.error + previous.error;
+			String line = String.format("%-80s %14.3f %-10s %+8.2f%%", key, current.value, current.unit, change * 100);
+			getLogger().lifecycle(regression ? line + "  REGRESSION" : line);
+			if (regression) {
+				regressions.add(line);
+			}
+		});
+		if (!regressions.isEmpty()) {
+			throw new GradleException(regressions.size() + " benchmark(s) regressed by more than " +
+					Math.round(this.threshold * 100) + "% against " + this.baselineFile + ":\n" +
+					String.join("\n", regressions));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Score> readScores(File file) {
+		if (!file.isFile()) {
+			throw new GradleException("No JMH results found at " + file);
+		}
+		Map<String, Score> scores = new TreeMap<>();
+		List<Map<String, Object>> runs = (List<Map<String, Object>>) new JsonSlurper().parse(file);
+		for (Map<String, Object> run : runs) {
+			StringBuilder key = new StringBuilder(run.get("benchmark").toString());
+			Map<String, Object> params = (Map<String, Object>) run.get("params");
+			if (params != null) {
+				key.append(new TreeMap<>(params));
+			}
+			String mode = run.get("mode").toString();
+			Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+			scores.put(key.append(" (").append(mode).append(')').toString(), new Score(
+					toDouble(metric.get("score")), toError(metric.get("scoreError")),
+					metric.get("scoreUnit").toString(), mode.equals("thrpt")));
+		}
+		return scores;
+	}
+
+	private static double toDouble(Object value) {
+		// JMH reports "NaN" as a string for scores it could not compute
+		return (value instanceof Number ? ((Number) value).doubleValue() : Double.NaN);
+	}
+
+	private static double toError(Object value) {
+		// Single-iteration runs have no score error
+		double error = toDouble(value);
+		return (Double.isFinite(error) ? error : 0d);
+	}
+
+
+	private static class Score {
+
+		final double value;
+
+		final double error;
+
+		final String unit;
+
+		final boolean higherIsBetter;
+
+		Score(double value, double error, String unit, boolean higherIsBetter) {
+			this.value = value;
+			this.error = error;
+			this.unit = unit;
+			this.higherIsBetter = higherIsBetter;
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.jmh;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import me.champeau.gradle.JMHPlugin;
+import me.champeau.gradle.JMHPluginExtension;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.tasks.Copy;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+/**
+ * {@link Plugin} that applies the {@code "jmh-gradle-plugin"} with the conventions
+ * of the Spring Framework build: benchmarks live in a {@code "jmh"} source set,
+ * results are written as JSON to {@code "build/reports/jmh/results.json"} and can be
+ * compared against a locally stored baseline.
+ * <p>A typical regression check looks like this:
+ * <pre class="code">
+ * ./gradlew :spring-core:jmh :spring-core:jmhSaveBaseline     # on the reference commit
+ * ./gradlew :spring-core:jmh :spring-core:jmhCheck            # on the commit under test
+ * </pre>
+ * <p>Benchmarks can be filtered with {@code "-PjmhInclude=PathMatchingBenchmark"},
+ * the baseline location changed with {@code "-PjmhBaselineDir=/path/to/dir"} and the
+ * tolerated slowdown with {@code "-PjmhRegressionThreshold=0.05"}. Profilers such as
+ * {@code "gc"} for allocation rates can be enabled with {@code "-PjmhProfilers=gc"}.
+ *
+ * @since 5.2.4
+ */
+public class JmhConventionsPlugin implements Plugin<Project> {
+
+	public static final String JMH_VERSION = "1.23";
+
+	public static final String JMH_TASK_NAME = "jmh";
+
+	public static final String SAVE_BASELINE_TASK_NAME = "jmhSaveBaseline";
+
+	public static final String CHECK_TASK_NAME = "jmhCheck";
+
+	private static final String INCLUDE_PROPERTY = "jmhInclude";
+
+	private static final String PROFILERS_PROPERTY = "jmhProfilers";
+
+	private static final String BASELINE_DIR_PROPERTY = "jmhBaselineDir";
+
+	private static final String REGRESSION_THRESHOLD_PROPERTY = "jmhRegressionThreshold";
+
+	private static final double DEFAULT_REGRESSION_THRESHOLD = 0.10d;
+
+	@Override
+	public void apply(Project project) {
+		project.getPlugins().apply(JMHPlugin.class);
+		File resultsFile = new File(project.getBuildDir(), "reports/jmh/results.json");
+		File baselineFile = new File(getBaselineDir(project), project.getName() + ".json");
+
+		JMHPluginExtension jmh = project.getExtensions().getByType(JMHPluginExtension.class);
+		jmh.setJmhVersion(JMH_VERSION);
+		jmh.setDuplicateClassesStrategy(DuplicatesStrategy.EXCLUDE);
+		jmh.setResultFormat("JSON");
+		jmh.setResultsFile(resultsFile);
+		if (project.hasProperty(INCLUDE_PROPERTY)) {
+			jmh.setInclude(Arrays.asList(project.property(INCLUDE_PROPERTY).toString().split(",")));
+		}
+		else {
+			jmh.setInclude(Collections.singletonList(".*"));
+		}
+		if (project.hasProperty(PROFILERS_PROPERTY)) {
+			jmh.setProfilers(Arrays.asList(project.property(PROFILERS_PROPERTY).toString().split(",")));
+		}
+
+		project.getTasks().withType(JavaCompile.class)
+				.matching(compileTask -> compileTask.getName().equals("compileJmhJava"))
+				.configureEach(compileTask -> compileTask.getOptions().setEncoding("UTF-8"));
+
+		project.getTasks().register(SAVE_BASELINE_TASK_NAME, Copy.class, task -> {
+			task.setDescription("Stores the latest JMH results as the baseline for jmhCheck");
+			task.setGroup(JMH_TASK_NAME);
+			task.mustRunAfter(JMH_TASK_NAME);
+			task.from(resultsFile);
+			task.into(baselineFile.getParentFile());
+			task.rename(name -> baselineFile.getName());
+		});
+		project.getTasks().register(CHECK_TASK_NAME, JmhBaselineCheck.class, task -> {
+			task.setDescription("Compares the latest JMH results with the stored baseline");
+			task.setGroup(JMH_TASK_NAME);
+			task.mustRunAfter(JMH_TASK_NAME);
+			task.setResultsFile(resultsFile);
+			task.setBaselineFile(baselineFile);
+			task.setThreshold(project.hasProperty(REGRESSION_THRESHOLD_PROPERTY) ?
+					Double.parseDouble(project.property(REGRESSION_THRESHOLD_PROPERTY).toString()) :
+					DEFAULT_REGRESSION_THRESHOLD);
+		});
+	}
+
+	private File getBaselineDir(Project project) {
+		if (project.hasProperty(BASELINE_DIR_PROPERTY)) {
+			return project.file(project.property(BASELINE_DIR_PROPERTY));
+		}
+		return new File(project.getRootDir(), ".jmh-baselines");
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for reading and writing bean properties through a {@link BeanWrapperImpl},
+ * with reflective accessors and with {@link CachedIntrospectionResults#GENERATED_ACCESSORS_PROPERTY_NAME
+ * generated accessors}. The latter are enabled for the whole JVM and therefore run in a separate fork.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@Benchmark
+	public Object reflectiveAccessors(BenchmarkData data) {
+		return readAndWrite(data);
+	}
+
+	@Benchmark
+	@Fork(jvmArgsAppend = "-D" + CachedIntrospectionResults.GENERATED_ACCESSORS_PROPERTY_NAME + "=true")
+	public Object generatedAccessors(BenchmarkData data) {
+		return readAndWrite(data);
+	}
+
+	private Object readAndWrite(BenchmarkData data) {
+		BeanWrapper bw = new BeanWrapperImpl(data.bean);
+		bw.setPropertyValue("name", "spring");
+		bw.setPropertyValue("age", 42);
+		bw.setPropertyValue("nested.name", "nested");
+		bw.getPropertyValue("name");
+		bw.getPropertyValue("age");
+		return bw.getPropertyValue("nested.name");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public Person bean;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.bean = new Person();
+			this.bean.setNested(new Person());
+		}
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Person nested;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Person getNested() {
+			return this.nested;
+		}
+
+		public void setNested(Person nested) {
+			this.nested = nested;
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Benchmarks for retrieving beans by type from a {@link DefaultListableBeanFactory}
+ * holding a varying number of unrelated singletons.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class GetBeanByTypeBenchmark {
+
+	@Benchmark
+	public TargetService getBean(BenchmarkData data) {
+		return data.beanFactory.getBean(TargetService.class);
+	}
+
+	@Benchmark
+	public String[] getBeanNamesForType(BenchmarkData data) {
+		return data.beanFactory.getBeanNamesForType(TargetService.class);
+	}
+
+	@Benchmark
+	public String[] getBeanNamesForInterface(BenchmarkData data) {
+		return data.beanFactory.getBeanNamesForType(Runnable.class);
+	}
+
+	@Benchmark
+	public TargetService getBeanProviderIfAvailable(BenchmarkData data) {
+		ObjectProvider<TargetService> provider = data.beanFactory.getBeanProvider(TargetService.class);
+		return provider.getIfAvailable();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"100", "1000", "10000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				Class<?> beanClass = (i % 2 == 0 ? OtherService.class : RunnableService.class);
+				this.beanFactory.registerBeanDefinition("service" + i, new RootBeanDefinition(beanClass));
+			}
+			this.beanFactory.registerBeanDefinition("target", new RootBeanDefinition(TargetService.class));
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class TargetService {
+	}
+
+
+	public static class OtherService {
+	}
+
+
+	public static class RunnableService implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+}
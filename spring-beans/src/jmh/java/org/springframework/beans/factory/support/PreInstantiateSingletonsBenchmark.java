@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmarks for the pre-instantiation of non-lazy singletons in a
+ * {@link DefaultListableBeanFactory}, either serially or in parallel
+ * through a {@link DefaultListableBeanFactory#setBootstrapExecutor bootstrap Executor}.
+ * <p>Each singleton refers to a parent singleton through a constructor argument,
+ * forming a tree of dependencies, and consumes some CPU in its constructor.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PreInstantiateSingletonsBenchmark {
+
+	@Benchmark
+	public DefaultListableBeanFactory preInstantiateSingletons(BenchmarkData data) {
+		data.beanFactory.preInstantiateSingletons();
+		return data.beanFactory;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"1000", "5000", "20000"})
+		public int beanCount;
+
+		@Param({"serial", "parallel"})
+		public String mode;
+
+		@Param({"0", "1000"})
+		public long constructorCost;
+
+		public ExecutorService executor;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setupExecutor() {
+			if (this.mode.equals("parallel")) {
+				this.executor = new ForkJoinPool();
+			}
+		}
+
+		@Setup(Level.Invocation)
+		public void setupBeanFactory() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.setBootstrapExecutor(this.executor);
+			for (int i = 0; i < this.beanCount; i++) {
+				RootBeanDefinition bd = new RootBeanDefinition(Component.class);
+				bd.getConstructorArgumentValues().addIndexedArgumentValue(0, this.constructorCost);
+				if (i > 0) {
+					bd.getConstructorArgumentValues().addIndexedArgumentValue(1,
+							new RuntimeBeanReference("component" + ((i - 1) / 4)));
+				}
+				this.beanFactory.registerBeanDefinition("component" + i, bd);
+			}
+		}
+
+		@TearDown(Level.Invocation)
+		public void destroyBeanFactory() {
+			this.beanFactory.destroySingletons();
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdownExecutor() {
+			if (this.executor != null) {
+				this.executor.shutdown();
+			}
+		}
+	}
+
+
+	public static class Component {
+
+		private final Component parent;
+
+		public Component(long cost) {
+			this(cost, null);
+		}
+
+		public Component(long cost, Component parent) {
+			Blackhole.consumeCPU(cost);
+			this.parent = parent;
+		}
+
+		public Component getParent() {
+			return this.parent;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -227,8 +227,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Override
 	@Nullable
 	protected BeanPropertyHandler getLocalPropertyHandler(String propertyName) {
-		PropertyDescriptor pd = getCachedIntrospectionResults().getPropertyDescriptor(propertyName);
-		return (pd != null ? new BeanPropertyHandler(pd) : null);
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		PropertyDescriptor pd = cachedIntrospectionResults.getPropertyDescriptor(propertyName);
+		return (pd != null ? new BeanPropertyHandler(pd, cachedIntrospectionResults.getGeneratedAccessors()) : null);
 	}
 
 	@Override
@@ -265,9 +266,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		private final PropertyDescriptor pd;
 
-		public BeanPropertyHandler(PropertyDescriptor pd) {
+		@Nullable
+		private final GeneratedPropertyAccessors generatedAccessors;
+
+		public BeanPropertyHandler(PropertyDescriptor pd, @Nullable GeneratedPropertyAccessors generatedAccessors) {
 			super(pd.getPropertyType(), pd.getReadMethod() != null, pd.getWriteMethod() != null);
 			this.pd = pd;
+			this.generatedAccessors = generatedAccessors;
 		}
 
 		@Override
@@ -304,6 +309,12 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
+				if (this.generatedAccessors != null) {
+					int index = this.generatedAccessors.getIndex(readMethod);
+					if (index >= 0) {
+						return this.generatedAccessors.invoke(index, getWrappedInstance(), null);
+					}
+				}
 				ReflectionUtils.makeAccessible(readMethod);
 				return readMethod.invoke(getWrappedInstance(), (Object[]) null);
 			}
@@ -328,6 +339,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
+				if (this.generatedAccessors != null) {
+					int index = this.generatedAccessors.getIndex(writeMethod);
+					if (index >= 0) {
+						this.generatedAccessors.invoke(index, getWrappedInstance(), new Object[] {value});
+						return;
+					}
+				}
 				ReflectionUtils.makeAccessible(writeMethod);
 				writeMethod.invoke(getWrappedInstance(), value);
 			}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -92,10 +92,27 @@ public final class CachedIntrospectionResults {
 	 */
 	public static final String IGNORE_BEANINFO_PROPERTY_NAME = "spring.beaninfo.ignore";
 
+	/**
+	 * System property that instructs Spring to generate bytecode accessors for bean
+	 * properties: "spring.beaninfo.generate-accessors", with a value of "true" having
+	 * {@link BeanWrapperImpl} invoke public read and write methods through a generated
+	 * class per bean class instead of through reflection.
+	 * <p>The default is "false". Consider switching this flag to "true" for applications
+	 * with heavy data binding or row mapping, where property access is on the hot path.
+	 * Generation falls back to reflection where not possible, e.g. for non-public methods
+	 * or for bean classes in the bootstrap ClassLoader, as well as when running with
+	 * a SecurityManager.
+	 * @since 5.2.4
+	 */
+	public static final String GENERATED_ACCESSORS_PROPERTY_NAME = "spring.beaninfo.generate-accessors";
+
 
 	private static final boolean shouldIntrospectorIgnoreBeaninfoClasses =
 			SpringProperties.getFlag(IGNORE_BEANINFO_PROPERTY_NAME);
 
+	private static final boolean shouldGenerateAccessors =
+			SpringProperties.getFlag(GENERATED_ACCESSORS_PROPERTY_NAME);
+
 	/** Stores the BeanInfoFactory instances. */
 	private static List<BeanInfoFactory> beanInfoFactories = SpringFactoriesLoader.loadFactories(
 			BeanInfoFactory.class, CachedIntrospectionResults.class.getClassLoader());
@@ -258,6 +275,12 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Generated property accessors, if enabled and resolved already. */
+	@Nullable
+	private volatile GeneratedPropertyAccessors generatedAccessors;
+
+	private volatile boolean generatedAccessorsResolved = !shouldGenerateAccessors;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -381,4 +404,19 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return the generated property accessors for the bean class, if enabled
+	 * and possible for the bean class.
+	 * @see #GENERATED_ACCESSORS_PROPERTY_NAME
+	 */
+	@Nullable
+	GeneratedPropertyAccessors getGeneratedAccessors() {
+		if (!this.generatedAccessorsResolved) {
+			// Racing threads may generate twice; CGLIB returns the same class then.
+			this.generatedAccessors = GeneratedPropertyAccessors.forClass(getBeanClass());
+			this.generatedAccessorsResolved = true;
+		}
+		return this.generatedAccessors;
+	}
+
 }
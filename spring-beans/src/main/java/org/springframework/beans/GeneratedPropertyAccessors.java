@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cglib.core.SpringNamingPolicy;
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.lang.Nullable;
+
+/**
+ * Generated bytecode accessors for the properties of a specific bean class,
+ * invoking read and write methods through a CGLIB {@link FastClass} instead
+ * of through reflection.
+ *
+ * <p>Instances are held by {@link CachedIntrospectionResults} and therefore
+ * follow its caching rules. Methods that the generated class cannot invoke,
+ * e.g. non-public methods, are indicated as such and need to be invoked
+ * through reflection by the caller.
+ *
+ * @since 5.2.4
+ * @see CachedIntrospectionResults#GENERATED_ACCESSORS_PROPERTY_NAME
+ */
+final class GeneratedPropertyAccessors {
+
+	private static final Log logger = LogFactory.getLog(GeneratedPropertyAccessors.class);
+
+	private static final int NOT_INVOCABLE = -1;
+
+
+	private final FastClass fastClass;
+
+	private final Map<Method, Integer> methodIndexCache = new ConcurrentHashMap<>(16);
+
+
+	private GeneratedPropertyAccessors(FastClass fastClass) {
+		this.fastClass = fastClass;
+	}
+
+
+	/**
+	 * Return the index of the given property accessor method in the generated
+	 * class, or {@code -1} if it needs to be invoked through reflection.
+	 * @param method the read or write method of a property
+	 */
+	int getIndex(Method method) {
+		Integer index = this.methodIndexCache.get(method);
+		if (index == null) {
+			index = NOT_INVOCABLE;
+			if (Modifier.isPublic(method.getModifiers()) &&
+					method.getDeclaringClass().isAssignableFrom(this.fastClass.getJavaClass())) {
+				index = this.fastClass.getIndex(method.getName(), method.getParameterTypes());
+			}
+			this.methodIndexCache.put(method, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Invoke the method with the given index on the given target.
+	 * @param index the method index, as returned by {@link #getIndex}
+	 * @param target the bean instance
+	 * @param args the method arguments ({@code null} for a read method)
+	 * @return the method's return value
+	 * @throws InvocationTargetException if the method threw an exception
+	 */
+	@Nullable
+	Object invoke(int index, Object target, @Nullable Object[] args) throws InvocationTargetException {
+		return this.fastClass.invoke(index, target, args);
+	}
+
+
+	/**
+	 * Generate accessors for the given bean class.
+	 * @param beanClass the bean class to generate accessors for
+	 * @return the accessors, or {@code null} if generation is not possible
+	 * for the given class (e.g. for a class in the bootstrap ClassLoader)
+	 */
+	@Nullable
+	static GeneratedPropertyAccessors forClass(Class<?> beanClass) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || beanClass.isInterface()) {
+			return null;
+		}
+		try {
+			FastClass.Generator generator = new FastClass.Generator();
+			generator.setType(beanClass);
+			generator.setContextClass(beanClass);
+			generator.setClassLoader(classLoader);
+			generator.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+			return new GeneratedPropertyAccessors(generator.create());
+		}
+		catch (RuntimeException | LinkageError ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not generate property accessors for class [" + beanClass.getName() +
+						"] - falling back to reflection", ex);
+			}
+			return null;
+		}
+	}
+
+}
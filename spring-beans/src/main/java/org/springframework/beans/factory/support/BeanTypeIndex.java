@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Inverted index from types to the names of the bean definitions whose
+ * bean type is assignable to them, used by {@link DefaultListableBeanFactory}
+ * to narrow down the candidates for by-type lookups.
+ *
+ * <p>Entries are determined lazily, on the first lookup after a bean has
+ * been registered or invalidated, and are maintained per bean: registering,
+ * resetting or creating one bean only invalidates the entry of that bean.
+ * Beans whose type cannot be reliably determined upfront (e.g. factory beans)
+ * are not indexed and are returned as candidates for every type, just like
+ * beans with pending entries. The candidates are therefore always a superset
+ * of the matching beans and need to be checked by the caller.
+ *
+ * @since 5.2.4
+ * @see DefaultListableBeanFactory#getBeanNamesForType(org.springframework.core.ResolvableType, boolean, boolean)
+ */
+final class BeanTypeIndex {
+
+	/** Registration sequence per bean name, for returning candidates in registration order. */
+	private final Map<String, Long> registrationOrder = new HashMap<>(256);
+
+	/** Beans without a determined entry, with the modification count at the time of invalidation. */
+	private final Map<String, Long> pendingBeanNames = new HashMap<>(256);
+
+	/** Beans which cannot be indexed, i.e. which are candidates for every type. */
+	private final Set<String> unindexedBeanNames = new HashSet<>();
+
+	private final Map<String, Set<Class<?>>> typesByBeanName = new HashMap<>(256);
+
+	private final Map<Class<?>, Set<String>> beanNamesByType = new HashMap<>(256);
+
+	private long registrationCount;
+
+	private long modificationCount;
+
+
+	/**
+	 * Register the given bean, keeping its position in the registration order
+	 * if it is already registered, and invalidate its entry.
+	 * @param beanName the name of the bean definition
+	 */
+	synchronized void register(String beanName) {
+		if (!this.registrationOrder.containsKey(beanName)) {
+			this.registrationOrder.put(beanName, this.registrationCount++);
+		}
+		invalidate(beanName);
+	}
+
+	/**
+	 * Remove the given bean from the index.
+	 * @param beanName the name of the bean definition
+	 */
+	synchronized void remove(String beanName) {
+		invalidate(beanName);
+		this.pendingBeanNames.remove(beanName);
+		this.registrationOrder.remove(beanName);
+	}
+
+	/**
+	 * Invalidate the entry of the given bean, if registered, so that its
+	 * type gets determined again on the next lookup.
+	 * @param beanName the name of the bean
+	 */
+	synchronized void invalidate(String beanName) {
+		if (!this.registrationOrder.containsKey(beanName)) {
+			return;
+		}
+		this.pendingBeanNames.put(beanName, ++this.modificationCount);
+		this.unindexedBeanNames.remove(beanName);
+		Set<Class<?>> types = this.typesByBeanName.remove(beanName);
+		if (types != null) {
+			for (Class<?> type : types) {
+				Set<String> beanNames = this.beanNamesByType.get(type);
+				beanNames.remove(beanName);
+				if (beanNames.isEmpty()) {
+					this.beanNamesByType.remove(type);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Invalidate the entries of all registered beans.
+	 */
+	synchronized void invalidateAll() {
+		this.modificationCount++;
+		for (String beanName : this.registrationOrder.keySet()) {
+			this.pendingBeanNames.put(beanName, this.modificationCount);
+		}
+		this.unindexedBeanNames.clear();
+		this.typesByBeanName.clear();
+		this.beanNamesByType.clear();
+	}
+
+	/**
+	 * Return the names of the beans that may match the given type,
+	 * in registration order.
+	 * @param type the raw type to match
+	 * @param typeResolver the function determining the types of a pending bean:
+	 * its bean type with all of its superclasses and interfaces, an empty set
+	 * if it never matches, or {@code null} if it cannot be indexed
+	 * @return the candidate bean names
+	 */
+	List<String> getCandidateBeanNames(Class<?> type, Function<String, Set<Class<?>>> typeResolver) {
+		Map<String, Long> pending;
+		synchronized (this) {
+			pending = (this.pendingBeanNames.isEmpty() ? Collections.emptyMap() : new HashMap<>(this.pendingBeanNames));
+		}
+		if (!pending.isEmpty()) {
+			// Determine the types outside of the lock since type prediction may call
+			// back into the factory, publishing each entry unless invalidated meanwhile.
+			Map<String, Set<Class<?>>> resolved = new HashMap<>(pending.size());
+			pending.forEach((beanName, stamp) -> resolved.put(beanName, typeResolver.apply(beanName)));
+			synchronized (this) {
+				resolved.forEach((beanName, types) -> {
+					if (pending.get(beanName).equals(this.pendingBeanNames.get(beanName))) {
+						this.pendingBeanNames.remove(beanName);
+						add(beanName, types);
+					}
+				});
+			}
+		}
+		List<String> candidates;
+		synchronized (this) {
+			Set<String> beanNames = this.beanNamesByType.getOrDefault(type, Collections.emptySet());
+			candidates = new ArrayList<>(beanNames.size() +
+					this.unindexedBeanNames.size() + this.pendingBeanNames.size());
+			candidates.addAll(beanNames);
+			candidates.addAll(this.unindexedBeanNames);
+			candidates.addAll(this.pendingBeanNames.keySet());
+			candidates.sort(Comparator.comparing(this.registrationOrder::get));
+		}
+		return candidates;
+	}
+
+	private void add(String beanName, @Nullable Set<Class<?>> types) {
+		if (types == null) {
+			this.unindexedBeanNames.add(beanName);
+			return;
+		}
+		this.typesByBeanName.put(beanName, types);
+		for (Class<?> type : types) {
+			this.beanNamesByType.computeIfAbsent(type, key -> new HashSet<>()).add(beanName);
+		}
+	}
+
+
+	/**
+	 * Collect the given type with all of its superclasses and interfaces,
+	 * except for {@code Object}.
+	 * @param type the type to introspect
+	 * @param types the set to add the types to
+	 */
+	static void collectTypes(Class<?> type, Set<Class<?>> types) {
+		if (type != Object.class && types.add(type)) {
+			Class<?> superclass = type.getSuperclass();
+			if (superclass != null) {
+				collectTypes(superclass, types);
+			}
+			for (Class<?> ifc : type.getInterfaces()) {
+				collectTypes(ifc, types);
+			}
+		}
+	}
+
+}
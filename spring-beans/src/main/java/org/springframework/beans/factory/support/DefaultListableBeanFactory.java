@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,9 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -39,7 +41,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -73,6 +78,7 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.core.Conventions;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.MergedAnnotation;
@@ -123,6 +129,16 @@ import org.springframework.util.StringUtils;
 public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFactory
 		implements ConfigurableListableBeanFactory, BeanDefinitionRegistry, Serializable {
 
+	/**
+	 * Bean definition attribute that may indicate whether a singleton must not be
+	 * pre-instantiated in parallel with other singletons ({@code Boolean.TRUE}),
+	 * even if a {@link #setBootstrapExecutor bootstrap executor} has been specified.
+	 * Such singletons get pre-instantiated serially, before all other singletons.
+	 * @since 5.2.4
+	 */
+	public static final String SERIAL_INIT_ATTRIBUTE =
+			Conventions.getQualifiedAttributeName(DefaultListableBeanFactory.class, "serialInit");
+
 	@Nullable
 	private static Class<?> javaxInjectProviderClass;
 
@@ -156,6 +172,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Nullable
 	private Comparator<Object> dependencyComparator;
 
+	/** Optional Executor for pre-instantiating independent singletons in parallel. */
+	@Nullable
+	private Executor bootstrapExecutor;
+
 	/** Resolver to use for checking if a bean definition is an autowire candidate. */
 	private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
@@ -174,6 +194,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
+	/** Index of bean definition names by type, used once the configuration is frozen. */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
 	/** List of names of manually registered singletons, in registration order. */
 	private volatile Set<String> manualSingletonNames = new LinkedHashSet<>(16);
 
@@ -287,6 +310,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.dependencyComparator;
 	}
 
+	/**
+	 * Specify an {@link Executor} for pre-instantiating independent non-lazy
+	 * singletons in parallel, e.g. a {@link java.util.concurrent.ForkJoinPool}.
+	 * <p>Default is none: singletons get pre-instantiated one after the other,
+	 * in registration order. If an Executor is specified, the pre-instantiation
+	 * phase derives a dependency graph from the merged bean definitions and
+	 * creates each singleton once the singletons it refers to have been created.
+	 * Singletons which are part of a dependency cycle or which are marked
+	 * through the {@link #SERIAL_INIT_ATTRIBUTE} get pre-instantiated serially,
+	 * before all other singletons.
+	 * <p>Specifying an Executor implies {@link #setAllowConcurrentSingletonCreation
+	 * concurrent singleton creation}, so it needs to happen during the
+	 * configuration of this factory, before any singleton gets requested.
+	 * @since 5.2.4
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setBootstrapExecutor(@Nullable Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+		if (bootstrapExecutor != null) {
+			setAllowConcurrentSingletonCreation(true);
+		}
+	}
+
+	/**
+	 * Return the {@link Executor} for pre-instantiating independent
+	 * singletons in parallel, if any.
+	 * @since 5.2.4
+	 */
+	@Nullable
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 	/**
 	 * Set a custom autowire candidate resolver for this BeanFactory to use
 	 * when deciding whether a bean definition should be considered as a
@@ -324,6 +380,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
 					BeanUtils.instantiateClass(otherListableFactory.getAutowireCandidateResolver().getClass()));
@@ -506,8 +563,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions, or the candidates from the type index.
+		for (String beanName : getBeanDefinitionNamesToMatch(type)) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
@@ -585,6 +642,79 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Return the names of the bean definitions to check against the given type:
+	 * the candidates from the type index in case of a frozen configuration,
+	 * or all bean definition names otherwise.
+	 * @param type the type to match
+	 * @return the bean definition names, in registration order
+	 * @see #determineIndexedTypes
+	 */
+	private Collection<String> getBeanDefinitionNamesToMatch(ResolvableType type) {
+		Class<?> rawType = type.resolve();
+		if (!isConfigurationFrozen() || rawType == null || rawType == Object.class ||
+				rawType.isArray() || rawType.isPrimitive() || FactoryBean.class.isAssignableFrom(rawType) ||
+				getTempClassLoader() != null) {
+			return this.beanDefinitionNames;
+		}
+		return this.beanTypeIndex.getCandidateBeanNames(rawType, this::determineIndexedTypes);
+	}
+
+	/**
+	 * Determine the types that the given bean definition may match in
+	 * {@link #isTypeMatch}: its predicted type, the type of its singleton
+	 * instance if already created, and its defined target type, each with
+	 * all of their superclasses and interfaces.
+	 * @param beanName the name of the bean definition
+	 * @return the types, or {@code null} if the bean may match any type since
+	 * its type cannot be reliably determined upfront (e.g. for a factory bean,
+	 * or for a singleton currently in creation)
+	 */
+	@Nullable
+	private Set<Class<?>> determineIndexedTypes(String beanName) {
+		try {
+			if (isAlias(beanName) || isSingletonCurrentlyInCreation(beanName)) {
+				return null;
+			}
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract()) {
+				return Collections.emptySet();
+			}
+			// Post-processors may predict different types for non-singletons over time.
+			if (mbd.getDecoratedDefinition() != null ||
+					(!mbd.isSingleton() && hasInstantiationAwareBeanPostProcessors()) ||
+					(!mbd.hasBeanClass() && mbd.isLazyInit() && !isAllowEagerClassLoading()) ||
+					requiresEagerInitForType(mbd.getFactoryBeanName()) || isFactoryBean(beanName, mbd)) {
+				return null;
+			}
+			Class<?> predictedType = predictBeanType(beanName, mbd);
+			Object beanInstance = getSingleton(beanName, false);
+			if (predictedType == null || FactoryBean.class.isAssignableFrom(predictedType) ||
+					beanInstance instanceof FactoryBean) {
+				return null;
+			}
+			Set<Class<?>> types = new HashSet<>();
+			BeanTypeIndex.collectTypes(predictedType, types);
+			if (beanInstance != null) {
+				BeanTypeIndex.collectTypes(beanInstance.getClass(), types);
+			}
+			Class<?> targetType = mbd.getTargetType();
+			if (targetType != null) {
+				BeanTypeIndex.collectTypes(targetType, types);
+			}
+			ResolvableType definedType = (mbd.targetType != null ? mbd.targetType : mbd.factoryMethodReturnType);
+			Class<?> definedClass = (definedType != null ? definedType.resolve() : null);
+			if (definedClass != null) {
+				BeanTypeIndex.collectTypes(definedClass, types);
+			}
+			return types;
+		}
+		catch (BeansException ex) {
+			// Let the actual type check deal with it.
+			return null;
+		}
+	}
+
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
 		return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
 	}
@@ -815,9 +945,17 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return iterator;
 	}
 
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		// Post-processors may predict different bean types.
+		this.beanTypeIndex.invalidateAll();
+	}
+
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
+		this.beanTypeIndex.invalidateAll();
 		clearByTypeCache();
 	}
 
@@ -853,30 +991,14 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
+		if (this.bootstrapExecutor != null) {
+			preInstantiateSingletonsInParallel(beanNames, this.bootstrapExecutor);
+		}
+		else {
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
@@ -899,6 +1021,102 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Pre-instantiate the given non-lazy singleton, taking eager-init
+	 * {@link SmartFactoryBean SmartFactoryBeans} into account.
+	 * @param beanName the name of the singleton
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				final FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+									((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Pre-instantiate the non-lazy singletons among the given beans, creating
+	 * independent singletons in parallel through the given Executor.
+	 * @param beanNames the names of all bean definitions, in registration order
+	 * @param executor the Executor to create independent singletons with
+	 * @see SingletonDependencyGraph
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames, Executor executor) {
+		List<String> singletonNames = new ArrayList<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				singletonNames.add(beanName);
+			}
+		}
+		SingletonDependencyGraph graph = new SingletonDependencyGraph(this, singletonNames);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + graph.getParallelBeanNames().size() + " singletons in parallel, " +
+					graph.getSerialBeanNames().size() + " singletons serially");
+		}
+
+		// Cycles and unsafe singletons first, within the current thread...
+		for (String beanName : graph.getSerialBeanNames()) {
+			preInstantiateSingleton(beanName);
+		}
+
+		// Then all other singletons, each one as soon as its dependencies are available.
+		Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+		for (String beanName : graph.getParallelBeanNames()) {
+			List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+			for (String dependency : graph.getDependencies(beanName)) {
+				CompletableFuture<Void> dependencyFuture = futures.get(dependency);
+				if (dependencyFuture != null) {
+					dependencyFutures.add(dependencyFuture);
+				}
+			}
+			CompletableFuture<Void> future = (dependencyFutures.isEmpty() ?
+					CompletableFuture.runAsync(() -> preInstantiateSingleton(beanName), executor) :
+					CompletableFuture.allOf(dependencyFutures.toArray(new CompletableFuture<?>[0]))
+							.thenRunAsync(() -> preInstantiateSingleton(beanName), executor));
+			futures.put(beanName, future);
+		}
+
+		// Wait for all singletons, not leaving any creation behind in case of a failure.
+		Throwable failure = null;
+		for (CompletableFuture<Void> future : futures.values()) {
+			try {
+				future.join();
+			}
+			catch (CompletionException ex) {
+				if (failure == null) {
+					failure = (ex.getCause() != null ? ex.getCause() : ex);
+				}
+			}
+		}
+		if (failure instanceof BeansException) {
+			throw (BeansException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new BeanCreationException("Parallel singleton pre-instantiation failed", failure);
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -970,10 +1188,14 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			this.frozenBeanDefinitionNames = null;
 		}
+		this.beanTypeIndex.register(beanName);
 
 		if (existingDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
 		}
+		else if (isConfigurationFrozen()) {
+			clearByTypeCache();
+		}
 	}
 
 	@Override
@@ -1001,6 +1223,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex.remove(beanName);
 
 		resetBeanDefinition(beanName);
 	}
@@ -1019,6 +1242,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void resetBeanDefinition(String beanName) {
 		// Remove the merged bean definition for the given bean, if already created.
 		clearMergedBeanDefinition(beanName);
+		this.beanTypeIndex.invalidate(beanName);
 
 		// Remove corresponding bean from singleton cache, if any. Shouldn't usually
 		// be necessary, rather just meant for overriding a context's default beans
@@ -1074,6 +1298,26 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		// The exposed instance may implement further types than predicted.
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
+	@Override
+	protected void removeSingleton(String beanName) {
+		super.removeSingleton(beanName);
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
+	@Override
+	protected void beforeSingletonCreation(String beanName) {
+		super.beforeSingletonCreation(beanName);
+		// Early references to the singleton may be exposed during creation.
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
 	private void removeManualSingletonName(String beanName) {
 		updateManualSingletonNames(set -> set.remove(beanName), set -> set.contains(beanName));
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,9 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -61,6 +64,11 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>By default, singleton creation is serialized on the common
+ * {@link #getSingletonMutex() singleton mutex}. As of 5.2.4, this registry can
+ * alternatively create singletons with a lock per bean name, allowing independent
+ * singletons to be created in parallel: see {@link #setAllowConcurrentSingletonCreation}.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #registerSingleton
@@ -70,6 +78,9 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
 
+	/** Interval in milliseconds for re-checking a singleton creation wait for deadlocks. */
+	private static final long SINGLETON_CREATION_WAIT_INTERVAL = 100;
+
 	/** Cache of singleton objects: bean name to bean instance. */
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
 
@@ -77,7 +88,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
 
 	/** Cache of early singleton objects: bean name to bean instance. */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
 
 	/** Set of registered singletons, containing the bean names in registration order. */
 	private final Set<String> registeredSingletons = new LinkedHashSet<>(256);
@@ -95,7 +106,19 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private Set<Exception> suppressedExceptions;
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
+
+	/** Whether to create independent singletons concurrently, with a lock per bean name. */
+	private volatile boolean allowConcurrentSingletonCreation = false;
+
+	/** Mutex exposed to external collaborators, see {@link #getSingletonMutex()}. */
+	private volatile Object singletonMutex = this.singletonObjects;
+
+	/** Creation locks for concurrent singleton creation: bean name to lock. */
+	private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(256);
+
+	/** Threads waiting for a singleton in creation in another thread: thread to bean name. */
+	private final Map<Thread, String> singletonCreationWaits = new ConcurrentHashMap<>(16);
 
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
@@ -110,6 +133,38 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
 
+	/**
+	 * Set whether to allow for concurrent creation of independent singletons.
+	 * <p>Default is "false": singleton creation is serialized on the common
+	 * {@link #getSingletonMutex() singleton mutex}, that is, only one thread at a
+	 * time may create singletons in this registry. Switch this to "true" to guard
+	 * the creation of each singleton with a lock for its bean name instead, with
+	 * the singleton caches only being locked for short updates. Threads requesting
+	 * a singleton that is currently in creation in another thread wait for that
+	 * creation to complete, and do not get to see an early reference to it.
+	 * A circular reference across threads (each thread waiting for a singleton
+	 * currently in creation in the other) gets resolved through an early singleton
+	 * reference, analogous to a circular reference within a single thread.
+	 * <p>In this mode, {@link #getSingletonMutex()} exposes a dedicated mutex
+	 * for external collaborators which is not involved in singleton creation.
+	 * <p>This setting needs to be applied before any singleton gets requested.
+	 * @since 5.2.4
+	 * @see #getSingleton(String, ObjectFactory)
+	 */
+	public void setAllowConcurrentSingletonCreation(boolean allowConcurrentSingletonCreation) {
+		this.allowConcurrentSingletonCreation = allowConcurrentSingletonCreation;
+		this.singletonMutex = (allowConcurrentSingletonCreation ? new Object() : this.singletonObjects);
+	}
+
+	/**
+	 * Return whether to allow for concurrent creation of independent singletons.
+	 * @since 5.2.4
+	 */
+	public boolean isAllowConcurrentSingletonCreation() {
+		return this.allowConcurrentSingletonCreation;
+	}
+
+
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "Bean name must not be null");
@@ -176,6 +231,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			if (this.allowConcurrentSingletonCreation) {
+				// Only expose an early reference to the thread which is creating the singleton
+				SingletonCreationLock creationLock = this.singletonCreationLocks.get(beanName);
+				if (creationLock == null || !creationLock.isHeldByCurrentThread()) {
+					return null;
+				}
+				singletonObject = this.earlySingletonObjects.get(beanName);
+				if (singletonObject == null && allowEarlyReference) {
+					singletonObject = createEarlySingletonReference(beanName);
+				}
+				return singletonObject;
+			}
 			synchronized (this.singletonObjects) {
 				singletonObject = this.earlySingletonObjects.get(beanName);
 				if (singletonObject == null && allowEarlyReference) {
@@ -201,54 +268,248 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.allowConcurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
-				}
-				try {
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
-				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
+				singletonObject = createSingleton(beanName, singletonFactory);
+			}
+			return singletonObject;
+		}
+	}
+
+	/**
+	 * Return the (raw) singleton object registered under the given name,
+	 * creating it within the singleton's own creation lock if necessary.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton with
+	 * @return the registered singleton object
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		SingletonCreationLock creationLock =
+				this.singletonCreationLocks.computeIfAbsent(beanName, key -> new SingletonCreationLock());
+		if (!acquireSingletonCreationLock(beanName, creationLock)) {
+			// The creating thread waits for a singleton in creation in this thread:
+			// resolve this circular reference through an early singleton reference.
+			singletonObject = createEarlySingletonReference(beanName);
+			if (singletonObject == null) {
+				throw new BeanCurrentlyInCreationException(beanName);
+			}
+			return singletonObject;
+		}
+		try {
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = createSingleton(beanName, singletonFactory);
+			}
+			return singletonObject;
+		}
+		finally {
+			creationLock.unlock();
+		}
+	}
+
+	/**
+	 * Create the given singleton through the given factory and register it,
+	 * to be called within the singleton mutex or the singleton's creation lock.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to create the singleton with
+	 * @return the registered singleton object
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		if (this.singletonsCurrentlyInDestruction) {
+			throw new BeanCreationNotAllowedException(beanName,
+					"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+					"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+		}
+		beforeSingletonCreation(beanName);
+		Object singletonObject;
+		boolean newSingleton = false;
+		boolean recordSuppressedExceptions;
+		synchronized (this.singletonObjects) {
+			recordSuppressedExceptions = (this.suppressedExceptions == null);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions = new LinkedHashSet<>();
+			}
+		}
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				synchronized (this.singletonObjects) {
+					for (Exception suppressedException : this.suppressedExceptions) {
+						ex.addRelatedCause(suppressedException);
 					}
 				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
-					throw ex;
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				synchronized (this.singletonObjects) {
+					this.suppressedExceptions = null;
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+			}
+			afterSingletonCreation(beanName);
+		}
+		if (newSingleton) {
+			addSingleton(beanName, singletonObject);
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Obtain an early reference to the given singleton from its registered
+	 * singleton factory, invoking the factory outside of the singleton cache lock.
+	 * <p>Only to be called in concurrent creation mode, either by the thread which
+	 * is creating the singleton or while that thread waits for the current thread.
+	 * @param beanName the name of the bean
+	 * @return the early singleton reference, or {@code null} if none available
+	 */
+	@Nullable
+	private Object createEarlySingletonReference(String beanName) {
+		ObjectFactory<?> singletonFactory;
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				singletonObject = this.earlySingletonObjects.get(beanName);
+			}
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory == null) {
+				return null;
+			}
+		}
+		Object singletonObject = singletonFactory.getObject();
+		synchronized (this.singletonObjects) {
+			if (this.singletonFactories.remove(beanName, singletonFactory)) {
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				return singletonObject;
+			}
+			// Concurrently resolved or completed in the meantime
+			Object existingObject = this.singletonObjects.get(beanName);
+			if (existingObject == null) {
+				existingObject = this.earlySingletonObjects.get(beanName);
+			}
+			return (existingObject != null ? existingObject : singletonObject);
+		}
+	}
+
+	/**
+	 * Acquire the given singleton creation lock, waiting for another thread's
+	 * creation of the same singleton to complete if necessary.
+	 * @param beanName the name of the bean
+	 * @param creationLock the creation lock for the bean
+	 * @return {@code true} if the lock has been acquired, or {@code false} if
+	 * waiting would deadlock with the thread currently holding the lock
+	 */
+	private boolean acquireSingletonCreationLock(String beanName, SingletonCreationLock creationLock) {
+		if (creationLock.tryLock()) {
+			return true;
+		}
+		Thread currentThread = Thread.currentThread();
+		this.singletonCreationWaits.put(currentThread, beanName);
+		try {
+			while (!isWaitingForCurrentThread(beanName, currentThread)) {
+				try {
+					if (creationLock.tryLock(SINGLETON_CREATION_WAIT_INTERVAL, TimeUnit.MILLISECONDS)) {
+						return true;
 					}
-					afterSingletonCreation(beanName);
 				}
-				if (newSingleton) {
-					addSingleton(beanName, singletonObject);
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for singleton creation in another thread", ex);
 				}
 			}
-			return singletonObject;
+			return false;
+		}
+		finally {
+			this.singletonCreationWaits.remove(currentThread);
+		}
+	}
+
+	/**
+	 * Determine whether the thread creating the given singleton waits,
+	 * directly or transitively, for a singleton in creation in the current thread.
+	 * @param beanName the name of the bean that the current thread waits for
+	 * @param currentThread the current thread
+	 */
+	private boolean isWaitingForCurrentThread(String beanName, Thread currentThread) {
+		Set<Thread> seenThreads = null;
+		String awaitedBeanName = beanName;
+		while (awaitedBeanName != null) {
+			SingletonCreationLock creationLock = this.singletonCreationLocks.get(awaitedBeanName);
+			Thread creationThread = (creationLock != null ? creationLock.getCreationThread() : null);
+			if (creationThread == null) {
+				return false;
+			}
+			if (creationThread == currentThread) {
+				return true;
+			}
+			if (seenThreads == null) {
+				seenThreads = new HashSet<>();
+			}
+			if (!seenThreads.add(creationThread)) {
+				return false;
+			}
+			awaitedBeanName = this.singletonCreationWaits.get(creationThread);
+		}
+		return false;
+	}
+
+	/**
+	 * Perform an extended creation phase for the given singleton, e.g. obtaining
+	 * the object from a singleton FactoryBean: synchronized on the common
+	 * {@link #getSingletonMutex() singleton mutex} by default, or holding the
+	 * singleton's own creation lock in concurrent creation mode.
+	 * @param beanName the name of the bean
+	 * @param creationPhase the creation phase to perform
+	 * @return the result of the creation phase
+	 * @throws BeanCurrentlyInCreationException if the singleton is currently in
+	 * creation in another thread which in turn waits for the current thread
+	 * @since 5.2.4
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	protected <T> T doWithSingletonCreationLock(String beanName, Supplier<T> creationPhase) {
+		if (!this.allowConcurrentSingletonCreation) {
+			synchronized (this.singletonObjects) {
+				return creationPhase.get();
+			}
+		}
+		SingletonCreationLock creationLock =
+				this.singletonCreationLocks.computeIfAbsent(beanName, key -> new SingletonCreationLock());
+		if (!acquireSingletonCreationLock(beanName, creationLock)) {
+			throw new BeanCurrentlyInCreationException(beanName,
+					"Requested bean is currently in creation in another thread which waits for the current thread");
+		}
+		try {
+			return creationPhase.get();
+		}
+		finally {
+			creationLock.unlock();
 		}
 	}
 
@@ -269,7 +530,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Remove the bean with the given name from the singleton cache of this factory,
 	 * to be able to clean up eager registration of a singleton if creation failed.
 	 * @param beanName the name of the bean
-	 * @see #getSingletonMutex()
+	 * @see #getSingletonCacheMutex()
 	 */
 	protected void removeSingleton(String beanName) {
 		synchronized (this.singletonObjects) {
@@ -521,6 +782,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
+			this.singletonCreationLocks.clear();
 			this.singletonsCurrentlyInDestruction = false;
 		}
 	}
@@ -611,10 +873,41 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * any sort of extended singleton creation phase. In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>In concurrent creation mode, this is a dedicated mutex which is not
+	 * involved in singleton creation: subclasses should rather perform extended
+	 * creation phases through {@link #doWithSingletonCreationLock} then.
+	 * @see #setAllowConcurrentSingletonCreation
+	 * @see #getSingletonCacheMutex()
 	 */
 	@Override
 	public final Object getSingletonMutex() {
+		return this.singletonMutex;
+	}
+
+	/**
+	 * Expose the mutex that guards the singleton caches of this registry to
+	 * subclasses, for updates to their own caches to be atomic with the
+	 * registry's cache updates, e.g. in {@link #removeSingleton}.
+	 * <p>This is the {@link #getSingletonMutex() singleton mutex} by default,
+	 * but a different object in concurrent creation mode.
+	 * @since 5.2.4
+	 * @see #setAllowConcurrentSingletonCreation
+	 */
+	protected final Object getSingletonCacheMutex() {
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Creation lock for a specific singleton, exposing the creating thread.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		@Nullable
+		Thread getCreationThread() {
+			return getOwner();
+		}
+	}
+
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.lang.Nullable;
+
+/**
+ * Dependency graph between the non-lazy singletons of a
+ * {@link DefaultListableBeanFactory}, used for pre-instantiating
+ * independent singletons in parallel.
+ *
+ * <p>Edges are derived from the merged bean definitions: declared
+ * {@code depends-on} relationships, factory bean references, and bean
+ * references in constructor arguments and property values (including inner
+ * bean definitions and managed collections), with by-type references
+ * resolved against the autowire candidates in the factory. Dependencies
+ * which only get discovered at creation time, e.g. through annotation-driven
+ * injection, are not part of the graph: they are covered by the factory's
+ * concurrent singleton creation locks instead.
+ *
+ * <p>Singletons that are part of a dependency cycle, that depend on such
+ * a cycle, or that are marked via {@link DefaultListableBeanFactory#SERIAL_INIT_ATTRIBUTE}
+ * are not eligible for parallel pre-instantiation.
+ *
+ * @since 5.2.4
+ * @see DefaultListableBeanFactory#setBootstrapExecutor
+ */
+final class SingletonDependencyGraph {
+
+	private final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+
+	private final List<String> serialBeanNames = new ArrayList<>();
+
+	private final List<String> parallelBeanNames = new ArrayList<>();
+
+
+	/**
+	 * Build a dependency graph for the given singletons.
+	 * @param beanFactory the bean factory to resolve bean definitions against
+	 * @param beanNames the names of the singletons to pre-instantiate,
+	 * in registration order
+	 */
+	SingletonDependencyGraph(DefaultListableBeanFactory beanFactory, List<String> beanNames) {
+		Set<String> unsafeBeanNames = new LinkedHashSet<>();
+		for (String beanName : beanNames) {
+			this.dependencies.put(beanName, new LinkedHashSet<>());
+		}
+		for (String beanName : beanNames) {
+			RootBeanDefinition mbd = beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (Boolean.TRUE.equals(mbd.getAttribute(DefaultListableBeanFactory.SERIAL_INIT_ATTRIBUTE))) {
+				unsafeBeanNames.add(beanName);
+			}
+			Set<String> beanDependencies = this.dependencies.get(beanName);
+			for (String dependency : collectDependencies(beanFactory, mbd)) {
+				String canonicalName = beanFactory.transformedBeanName(dependency);
+				// Only singletons to be pre-instantiated are relevant for scheduling:
+				// other beans get created on demand in the dependent bean's thread.
+				if (this.dependencies.containsKey(canonicalName)) {
+					beanDependencies.add(canonicalName);
+				}
+			}
+		}
+		sort(beanNames, unsafeBeanNames);
+	}
+
+
+	/**
+	 * Return the names of the singletons which need to be pre-instantiated
+	 * one after the other, in registration order.
+	 */
+	List<String> getSerialBeanNames() {
+		return this.serialBeanNames;
+	}
+
+	/**
+	 * Return the names of the singletons which may be pre-instantiated
+	 * in parallel, in an order where each singleton comes after all of its
+	 * dependencies within this list.
+	 */
+	List<String> getParallelBeanNames() {
+		return this.parallelBeanNames;
+	}
+
+	/**
+	 * Return the dependencies of the given singleton among the singletons
+	 * to pre-instantiate.
+	 * @param beanName the name of the singleton
+	 */
+	Set<String> getDependencies(String beanName) {
+		Set<String> beanDependencies = this.dependencies.get(beanName);
+		return (beanDependencies != null ? beanDependencies : Collections.emptySet());
+	}
+
+
+	/**
+	 * Topologically sort the graph, separating the singletons which need to be
+	 * pre-instantiated serially: unsafe singletons as well as cycles and their dependents.
+	 */
+	private void sort(List<String> beanNames, Set<String> unsafeBeanNames) {
+		Map<String, Integer> inDegrees = new HashMap<>();
+		Map<String, List<String>> dependents = new HashMap<>();
+		for (String beanName : beanNames) {
+			Set<String> beanDependencies = this.dependencies.get(beanName);
+			inDegrees.put(beanName, beanDependencies.size());
+			for (String dependency : beanDependencies) {
+				dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(beanName);
+			}
+		}
+
+		Deque<String> ready = new ArrayDeque<>();
+		for (String beanName : beanNames) {
+			if (inDegrees.get(beanName) == 0) {
+				ready.add(beanName);
+			}
+		}
+		Set<String> sorted = new LinkedHashSet<>();
+		while (!ready.isEmpty()) {
+			String beanName = ready.poll();
+			sorted.add(beanName);
+			for (String dependent : dependents.getOrDefault(beanName, Collections.emptyList())) {
+				if (inDegrees.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+
+		// Anything not sorted is part of a cycle or depends on a cycle.
+		Set<String> serial = new LinkedHashSet<>(unsafeBeanNames);
+		for (String beanName : beanNames) {
+			if (!sorted.contains(beanName)) {
+				serial.add(beanName);
+			}
+		}
+		for (String beanName : beanNames) {
+			if (serial.contains(beanName)) {
+				this.serialBeanNames.add(beanName);
+			}
+		}
+		for (String beanName : sorted) {
+			if (!serial.contains(beanName)) {
+				this.parallelBeanNames.add(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Collect the names of the beans that the given bean definition refers to.
+	 */
+	private static Set<String> collectDependencies(DefaultListableBeanFactory beanFactory, BeanDefinition bd) {
+		Set<String> result = new LinkedHashSet<>();
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(result, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			result.add(bd.getFactoryBeanName());
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+				collectReferences(beanFactory, valueHolder.getValue(), result);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+				collectReferences(beanFactory, valueHolder.getValue(), result);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectReferences(beanFactory, pv.getValue(), result);
+			}
+		}
+		return result;
+	}
+
+	private static void collectReferences(
+			DefaultListableBeanFactory beanFactory, @Nullable Object value, Set<String> result) {
+
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (ref.isToParent()) {
+				return;
+			}
+			if (ref.getBeanType() != null) {
+				Collections.addAll(result, beanFactory.getBeanNamesForType(ref.getBeanType(), true, false));
+			}
+			else {
+				result.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			result.addAll(collectDependencies(beanFactory, ((BeanDefinitionHolder) value).getBeanDefinition()));
+		}
+		else if (value instanceof BeanDefinition) {
+			result.addAll(collectDependencies(beanFactory, (BeanDefinition) value));
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferences(beanFactory, element, result);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferences(beanFactory, entry.getKey(), result);
+				collectReferences(beanFactory, entry.getValue(), result);
+			}
+		}
+	}
+
+}
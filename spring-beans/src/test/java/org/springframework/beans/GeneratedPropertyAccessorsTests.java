@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link GeneratedPropertyAccessors}.
+ */
+public class GeneratedPropertyAccessorsTests {
+
+	@Test
+	public void readAndWriteThroughGeneratedAccessors() throws Exception {
+		GeneratedPropertyAccessors accessors = GeneratedPropertyAccessors.forClass(TestBean.class);
+		assertThat(accessors).isNotNull();
+
+		int writeIndex = accessors.getIndex(TestBean.class.getMethod("setAge", int.class));
+		int readIndex = accessors.getIndex(TestBean.class.getMethod("getAge"));
+		assertThat(writeIndex).isGreaterThanOrEqualTo(0);
+		assertThat(readIndex).isGreaterThanOrEqualTo(0);
+
+		TestBean tb = new TestBean();
+		accessors.invoke(writeIndex, tb, new Object[] {42});
+		assertThat(tb.getAge()).isEqualTo(42);
+		assertThat(accessors.invoke(readIndex, tb, null)).isEqualTo(42);
+	}
+
+	@Test
+	public void inheritedAccessors() throws Exception {
+		GeneratedPropertyAccessors accessors = GeneratedPropertyAccessors.forClass(DerivedBean.class);
+		assertThat(accessors).isNotNull();
+		int readIndex = accessors.getIndex(TestBean.class.getMethod("getName"));
+		assertThat(readIndex).isGreaterThanOrEqualTo(0);
+		assertThat(accessors.invoke(readIndex, new DerivedBean(), null)).isEqualTo("derived");
+	}
+
+	@Test
+	public void exceptionFromAccessor() throws Exception {
+		GeneratedPropertyAccessors accessors = GeneratedPropertyAccessors.forClass(DerivedBean.class);
+		int writeIndex = accessors.getIndex(DerivedBean.class.getMethod("setFailing", String.class));
+		assertThatExceptionOfType(InvocationTargetException.class).isThrownBy(() ->
+				accessors.invoke(writeIndex, new DerivedBean(), new Object[] {"value"}))
+			.withCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void nonPublicAccessorNotInvocable() throws Exception {
+		GeneratedPropertyAccessors accessors = GeneratedPropertyAccessors.forClass(DerivedBean.class);
+		Method method = DerivedBean.class.getDeclaredMethod("setHidden", String.class);
+		assertThat(accessors.getIndex(method)).isEqualTo(-1);
+	}
+
+	@Test
+	public void noAccessorsForBootstrapClass() {
+		assertThat(GeneratedPropertyAccessors.forClass(StringBuilder.class)).isNull();
+	}
+
+
+	public static class DerivedBean extends TestBean {
+
+		public DerivedBean() {
+			super("derived");
+		}
+
+		public void setFailing(String value) {
+			throw new IllegalStateException(value);
+		}
+
+		void setHidden(String value) {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,7 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -1423,6 +1424,103 @@ class DefaultListableBeanFactoryTests {
 			.withMessageContaining("'tb1'");
 	}
 
+	@Test
+	void parallelPreInstantiation() {
+		ForkJoinPool executor = new ForkJoinPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			assertThat(lbf.isAllowConcurrentSingletonCreation()).isTrue();
+			for (int i = 0; i < 100; i++) {
+				RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+				if (i % 10 != 0) {
+					bd.getPropertyValues().add("spouse", new RuntimeBeanReference("tb" + (i - 1)));
+				}
+				lbf.registerBeanDefinition("tb" + i, bd);
+			}
+			RootBeanDefinition serial = new RootBeanDefinition(TestBean.class);
+			serial.getPropertyValues().add("spouse", new RuntimeBeanReference("tb99"));
+			serial.setAttribute(DefaultListableBeanFactory.SERIAL_INIT_ATTRIBUTE, Boolean.TRUE);
+			lbf.registerBeanDefinition("serial", serial);
+			RootBeanDefinition lazy = new RootBeanDefinition(TestBean.class);
+			lazy.setLazyInit(true);
+			lbf.registerBeanDefinition("lazy", lazy);
+
+			lbf.preInstantiateSingletons();
+			assertThat(lbf.getSingletonCount()).isEqualTo(101);
+			assertThat(lbf.containsSingleton("lazy")).isFalse();
+			assertThat(lbf.getBean("tb55", TestBean.class).getSpouse()).isSameAs(lbf.getBean("tb54"));
+			assertThat(lbf.getBean("serial", TestBean.class).getSpouse()).isSameAs(lbf.getBean("tb99"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithCircularReference() {
+		ForkJoinPool executor = new ForkJoinPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+			lbf.registerBeanDefinition("tb1", bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb1"));
+			lbf.registerBeanDefinition("tb2", bd2);
+			lbf.registerBeanDefinition("tb3", new RootBeanDefinition(TestBean.class));
+
+			lbf.preInstantiateSingletons();
+			assertThat(lbf.getBean("tb1", TestBean.class).getSpouse()).isSameAs(lbf.getBean("tb2"));
+			assertThat(lbf.getBean("tb2", TestBean.class).getSpouse()).isSameAs(lbf.getBean("tb1"));
+			assertThat(lbf.containsSingleton("tb3")).isTrue();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithDependsOnCycle() {
+		ForkJoinPool executor = new ForkJoinPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.setDependsOn("tb2");
+			lbf.registerBeanDefinition("tb1", bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.setDependsOn("tb1");
+			lbf.registerBeanDefinition("tb2", bd2);
+			assertThatExceptionOfType(BeanCreationException.class).isThrownBy(
+					lbf::preInstantiateSingletons)
+				.withMessageContaining("Circular");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithFailure() {
+		ForkJoinPool executor = new ForkJoinPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("age", "not a number");
+			lbf.registerBeanDefinition("tb2", bd2);
+			RootBeanDefinition bd3 = new RootBeanDefinition(TestBean.class);
+			bd3.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+			lbf.registerBeanDefinition("tb3", bd3);
+			assertThatExceptionOfType(BeanCreationException.class).isThrownBy(
+					lbf::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("tb2"));
+			assertThat(lbf.containsSingleton("tb3")).isFalse();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	@Test
 	void getBeanByTypeWithNoneFound() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -1900,6 +1998,48 @@ class DefaultListableBeanFactoryTests {
 		assertThat(beanNames[0]).isEqualTo("&factoryBean");
 	}
 
+	@Test
+	void getBeanNamesForTypeWithFrozenConfiguration() {
+		lbf.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.registerBeanDefinition("factoryBean", new RootBeanDefinition(FactoryBeanThatShouldntBeCalled.class));
+		lbf.freezeConfiguration();
+		assertThat(lbf.getBeanNamesForType(ITestBean.class, true, false)).containsExactly("test", "derived");
+		assertThat(lbf.getBeanNamesForType(Runnable.class, true, false)).containsExactly("&factoryBean");
+
+		lbf.registerBeanDefinition("late", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("test", new RootBeanDefinition(NestedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(ITestBean.class, true, false)).containsExactly("derived", "late");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class, true, false)).containsExactly("test", "nested");
+
+		lbf.removeBeanDefinition("derived");
+		assertThat(lbf.getBeanNamesForType(ITestBean.class)).containsExactly("late");
+		assertThat(lbf.getBeanNamesForType(ResolvableType.forClass(ITestBean.class))).containsExactly("late");
+	}
+
+	@Test
+	void getBeanNamesForTypeWithFrozenConfigurationAndReplacedSingleton() {
+		lbf.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return new NestedTestBean(beanName);
+			}
+		});
+		lbf.freezeConfiguration();
+		assertThat(lbf.getBeanNamesForType(ITestBean.class, true, false)).containsExactly("test");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class, true, false)).isEmpty();
+
+		lbf.getBean("test");
+		assertThat(lbf.getBeanNamesForType(ITestBean.class, true, false)).isEmpty();
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class, true, false)).containsExactly("test");
+
+		lbf.destroySingleton("test");
+		assertThat(lbf.getBeanNamesForType(ITestBean.class, true, false)).containsExactly("test");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class, true, false)).isEmpty();
+	}
+
 	/**
 	 * Verifies that a dependency on a {@link FactoryBean} can <strong>not</strong>
 	 * be autowired <em>by name</em>, as &amp; is an illegal character in
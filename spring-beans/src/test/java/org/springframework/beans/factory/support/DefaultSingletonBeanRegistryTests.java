@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,13 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.BeansException;
@@ -101,4 +108,131 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+	@Test
+	public void testConcurrentSingletonCreation() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+
+		// Each factory waits for the other one to have started: would block with a common creation lock
+		CountDownLatch started = new CountDownLatch(2);
+		ObjectFactory<Object> factory = () -> {
+			started.countDown();
+			try {
+				assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return new TestBean();
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> tb1 = executor.submit(() -> beanRegistry.getSingleton("tb1", factory));
+			Future<Object> tb2 = executor.submit(() -> beanRegistry.getSingleton("tb2", factory));
+			assertThat(tb1.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb1"));
+			assertThat(tb2.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb2"));
+			assertThat(beanRegistry.getSingletonCount()).isEqualTo(2);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationForSameBean() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+
+		AtomicInteger creationCount = new AtomicInteger();
+		ObjectFactory<Object> factory = () -> {
+			creationCount.incrementAndGet();
+			try {
+				Thread.sleep(50);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return new TestBean();
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<?>[] futures = new Future<?>[4];
+			for (int i = 0; i < futures.length; i++) {
+				futures[i] = executor.submit(() -> beanRegistry.getSingleton("tb", factory));
+			}
+			for (Future<?> future : futures) {
+				assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(beanRegistry.getSingleton("tb"));
+			}
+			assertThat(creationCount.get()).isEqualTo(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationWithCircularReferenceAcrossThreads() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setAllowConcurrentSingletonCreation(true);
+
+		TestBean tb1 = new TestBean("tb1");
+		TestBean tb2 = new TestBean("tb2");
+		CountDownLatch exposed = new CountDownLatch(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> result1 = executor.submit(() -> beanRegistry.getSingleton("tb1", () -> {
+				beanRegistry.addSingletonFactory("tb1", () -> tb1);
+				awaitExposure(exposed);
+				tb1.setSpouse((TestBean) beanRegistry.getSingleton("tb2", TestBean::new));
+				return tb1;
+			}));
+			Future<Object> result2 = executor.submit(() -> beanRegistry.getSingleton("tb2", () -> {
+				beanRegistry.addSingletonFactory("tb2", () -> tb2);
+				awaitExposure(exposed);
+				tb2.setSpouse((TestBean) beanRegistry.getSingleton("tb1", TestBean::new));
+				return tb2;
+			}));
+			assertThat(result1.get(10, TimeUnit.SECONDS)).isSameAs(tb1);
+			assertThat(result2.get(10, TimeUnit.SECONDS)).isSameAs(tb2);
+			assertThat(tb1.getSpouse()).isSameAs(tb2);
+			assertThat(tb2.getSpouse()).isSameAs(tb1);
+			assertThat(beanRegistry.getSingleton("tb1")).isSameAs(tb1);
+			assertThat(beanRegistry.getSingleton("tb2")).isSameAs(tb2);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSingletonRemovalNotGuardedBySingletonMutexInConcurrentMode() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setAllowConcurrentSingletonCreation(true);
+		beanFactory.registerSingleton("tb", new TestBean());
+		assertThat(beanFactory.getSingletonCacheMutex()).isNotSameAs(beanFactory.getSingletonMutex());
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			synchronized (beanFactory.getSingletonMutex()) {
+				executor.submit(() -> beanFactory.destroySingleton("tb")).get(10, TimeUnit.SECONDS);
+			}
+			assertThat(beanFactory.containsSingleton("tb")).isFalse();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void awaitExposure(CountDownLatch exposed) {
+		exposed.countDown();
+		try {
+			assertThat(exposed.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 }
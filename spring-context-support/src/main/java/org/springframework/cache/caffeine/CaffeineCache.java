@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,14 @@
 package org.springframework.cache.caffeine;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
+import org.springframework.cache.AsyncCache;
 import org.springframework.cache.support.AbstractValueAdaptingCache;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -29,6 +33,11 @@ import org.springframework.util.Assert;
  * Spring {@link org.springframework.cache.Cache} adapter implementation
  * on top of a Caffeine {@link com.github.benmanes.caffeine.cache.Cache} instance.
  *
+ * <p>As of 5.2.4, this adapter may also be created on top of a Caffeine
+ * {@link com.github.benmanes.caffeine.cache.AsyncCache}, delegating the
+ * {@link AsyncCache} operations to it. Otherwise, asynchronous loading is
+ * performed in-process, sharing the loading future among concurrent callers.
+ *
  * <p>Requires Caffeine 2.1 or higher.
  *
  * @author Ben Manes
@@ -36,12 +45,15 @@ import org.springframework.util.Assert;
  * @author Stephane Nicoll
  * @since 4.3
  */
-public class CaffeineCache extends AbstractValueAdaptingCache {
+public class CaffeineCache extends AbstractValueAdaptingCache implements AsyncCache {
 
 	private final String name;
 
 	private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
 
+	@Nullable
+	private final com.github.benmanes.caffeine.cache.AsyncCache<Object, Object> asyncCache;
+
 
 	/**
 	 * Create a {@link CaffeineCache} instance with the specified name and the
@@ -69,6 +81,29 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		Assert.notNull(cache, "Cache must not be null");
 		this.name = name;
 		this.cache = cache;
+		this.asyncCache = null;
+	}
+
+	/**
+	 * Create a {@link CaffeineCache} instance with the specified name and the
+	 * given internal {@link com.github.benmanes.caffeine.cache.AsyncCache} to use,
+	 * with synchronous operations going through its
+	 * {@link com.github.benmanes.caffeine.cache.AsyncCache#synchronous() synchronous view}.
+	 * @param name the name of the cache
+	 * @param cache the backing Caffeine AsyncCache instance
+	 * @param allowNullValues whether to accept and convert {@code null}
+	 * values for this cache
+	 * @since 5.2.4
+	 */
+	public CaffeineCache(String name, com.github.benmanes.caffeine.cache.AsyncCache<Object, Object> cache,
+			boolean allowNullValues) {
+
+		super(allowNullValues);
+		Assert.notNull(name, "Name must not be null");
+		Assert.notNull(cache, "Cache must not be null");
+		this.name = name;
+		this.cache = cache.synchronous();
+		this.asyncCache = cache;
 	}
 
 
@@ -82,6 +117,16 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return this.cache;
 	}
 
+	/**
+	 * Return the underlying Caffeine AsyncCache, if this adapter has been
+	 * created on top of one.
+	 * @since 5.2.4
+	 */
+	@Nullable
+	public final com.github.benmanes.caffeine.cache.AsyncCache<Object, Object> getAsyncCache() {
+		return this.asyncCache;
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper get(Object key) {
@@ -99,6 +144,26 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return (T) fromStoreValue(this.cache.get(key, new LoadFunction(valueLoader)));
 	}
 
+	@Override
+	public CompletableFuture<ValueWrapper> retrieve(Object key) {
+		if (this.asyncCache == null) {
+			return CompletableFuture.completedFuture(get(key));
+		}
+		CompletableFuture<Object> result = (this.asyncCache instanceof AsyncLoadingCache ?
+				((AsyncLoadingCache<Object, Object>) this.asyncCache).get(key) : this.asyncCache.getIfPresent(key));
+		return (result != null ? result.thenApply(this::toValueWrapper) : CompletableFuture.completedFuture(null));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		if (this.asyncCache == null) {
+			return loadValue(key, valueLoader);
+		}
+		return this.asyncCache.get(key, (k, executor) -> valueLoader.get().thenApply(this::toStoreValue))
+				.thenApply(storeValue -> (T) fromStoreValue(storeValue));
+	}
+
 	@Override
 	@Nullable
 	protected Object lookup(Object key) {
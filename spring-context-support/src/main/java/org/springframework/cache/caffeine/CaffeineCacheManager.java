@@ -45,6 +45,12 @@ import org.springframework.util.ObjectUtils;
  * A {@link CaffeineSpec}-compliant expression value can also be applied
  * via the {@link #setCacheSpecification "cacheSpecification"} bean property.
  *
+ * <p>As of 5.2.4, caches may be backed by Caffeine's
+ * {@link com.github.benmanes.caffeine.cache.AsyncCache} through the
+ * {@link #setAsyncCacheMode "asyncCacheMode"} flag, delegating the
+ * {@link org.springframework.cache.AsyncCache} operations to Caffeine's
+ * native asynchronous loading.
+ *
  * <p>Requires Caffeine 2.1 or higher.
  *
  * @author Ben Manes
@@ -67,6 +73,8 @@ public class CaffeineCacheManager implements CacheManager {
 
 	private boolean allowNullValues = true;
 
+	private boolean asyncCacheMode = false;
+
 
 	/**
 	 * Construct a dynamic CaffeineCacheManager,
@@ -170,6 +178,33 @@ public class CaffeineCacheManager implements CacheManager {
 		return this.allowNullValues;
 	}
 
+	/**
+	 * Set the common cache type that this cache manager builds to async.
+	 * <p>Default is "false", building regular Caffeine caches. Switching this
+	 * to "true" builds a Caffeine {@link com.github.benmanes.caffeine.cache.AsyncCache}
+	 * (or {@link com.github.benmanes.caffeine.cache.AsyncLoadingCache} in case of
+	 * a {@link #setCacheLoader CacheLoader}) for each cache, exposing it for
+	 * non-blocking retrieval through {@link CaffeineCache#retrieve} while
+	 * regular {@link Cache} operations go through its synchronous view.
+	 * @since 5.2.4
+	 * @see #createAsyncCaffeineCache
+	 * @see com.github.benmanes.caffeine.cache.Caffeine#buildAsync()
+	 */
+	public void setAsyncCacheMode(boolean asyncCacheMode) {
+		if (this.asyncCacheMode != asyncCacheMode) {
+			this.asyncCacheMode = asyncCacheMode;
+			refreshKnownCaches();
+		}
+	}
+
+	/**
+	 * Return whether this cache manager builds async Caffeine caches.
+	 * @since 5.2.4
+	 */
+	public boolean isAsyncCacheMode() {
+		return this.asyncCacheMode;
+	}
+
 
 	@Override
 	public Collection<String> getCacheNames() {
@@ -189,7 +224,9 @@ public class CaffeineCacheManager implements CacheManager {
 	 * @return the Spring CaffeineCache adapter (or a decorator thereof)
 	 */
 	protected Cache createCaffeineCache(String name) {
-		return new CaffeineCache(name, createNativeCaffeineCache(name), isAllowNullValues());
+		return (isAsyncCacheMode() ?
+				new CaffeineCache(name, createAsyncCaffeineCache(name), isAllowNullValues()) :
+				new CaffeineCache(name, createNativeCaffeineCache(name), isAllowNullValues()));
 	}
 
 	/**
@@ -206,6 +243,22 @@ public class CaffeineCacheManager implements CacheManager {
 		}
 	}
 
+	/**
+	 * Create a native Caffeine AsyncCache instance for the specified cache name,
+	 * as used in {@link #setAsyncCacheMode "asyncCacheMode"}.
+	 * @param name the name of the cache
+	 * @return the native Caffeine AsyncCache instance
+	 * @since 5.2.4
+	 */
+	protected com.github.benmanes.caffeine.cache.AsyncCache<Object, Object> createAsyncCaffeineCache(String name) {
+		if (this.cacheLoader != null) {
+			return this.cacheBuilder.buildAsync(this.cacheLoader);
+		}
+		else {
+			return this.cacheBuilder.buildAsync();
+		}
+	}
+
 	private void doSetCaffeine(Caffeine<Object, Object> cacheBuilder) {
 		if (!ObjectUtils.nullSafeEquals(this.cacheBuilder, cacheBuilder)) {
 			this.cacheBuilder = cacheBuilder;
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.caffeine;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.CacheInvalidationChannel;
+import org.springframework.cache.support.CacheInvalidationEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Cache} implementation reading through a local cache (L1), typically a
+ * {@link CaffeineCache}, to a remote cache (L2) shared with other nodes, and
+ * writing through to both.
+ *
+ * <p>Changes to the remote cache are announced as {@link CacheInvalidationEvent}
+ * on the given {@link CacheInvalidationChannel}, if any, so that other nodes can
+ * invalidate their local copies through {@link #invalidateLocal}. Local entries
+ * populated from the remote cache are not announced, since they do not change
+ * the shared state; the local cache should therefore expire entries no later
+ * than the remote cache does.
+ *
+ * <p>An invalidation arriving while a local entry is being populated from the
+ * remote cache wins: each key maps onto an invalidation counter, and a local
+ * copy is discarded again if its counter changed since the remote lookup.
+ *
+ * <p>Hit and miss counts are kept per level: a local miss is followed by a
+ * remote lookup, counted as remote hit or miss.
+ *
+ * @since 5.2.4
+ * @see TwoLevelCacheManager
+ */
+public class TwoLevelCache implements Cache {
+
+	private static final int INVALIDATION_STRIPES = 64;
+
+	private final Cache localCache;
+
+	private final Cache remoteCache;
+
+	@Nullable
+	private final CacheInvalidationChannel invalidationChannel;
+
+	private final String origin;
+
+	private final AtomicLongArray keyInvalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+	private final AtomicLong clearInvalidations = new AtomicLong();
+
+	private final LongAdder localHitCount = new LongAdder();
+
+	private final LongAdder localMissCount = new LongAdder();
+
+	private final LongAdder remoteHitCount = new LongAdder();
+
+	private final LongAdder remoteMissCount = new LongAdder();
+
+
+	/**
+	 * Create a new TwoLevelCache without invalidation of other nodes.
+	 * @param localCache the local cache (L1)
+	 * @param remoteCache the remote cache (L2)
+	 */
+	public TwoLevelCache(Cache localCache, Cache remoteCache) {
+		this(localCache, remoteCache, null, "");
+	}
+
+	/**
+	 * Create a new TwoLevelCache.
+	 * @param localCache the local cache (L1)
+	 * @param remoteCache the remote cache (L2)
+	 * @param invalidationChannel the channel to announce changes on, if any
+	 * @param origin the identifier of this node, as exposed by the announced events
+	 */
+	public TwoLevelCache(Cache localCache, Cache remoteCache,
+			@Nullable CacheInvalidationChannel invalidationChannel, String origin) {
+
+		Assert.notNull(localCache, "Local Cache must not be null");
+		Assert.notNull(remoteCache, "Remote Cache must not be null");
+		Assert.notNull(origin, "Origin must not be null");
+		this.localCache = localCache;
+		this.remoteCache = remoteCache;
+		this.invalidationChannel = invalidationChannel;
+		this.origin = origin;
+	}
+
+
+	/**
+	 * Return the local cache (L1).
+	 */
+	public Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	/**
+	 * Return the remote cache (L2).
+	 */
+	public Cache getRemoteCache() {
+		return this.remoteCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.remoteCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.remoteCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper localValue = this.localCache.get(key);
+		if (localValue != null) {
+			this.localHitCount.increment();
+			return localValue;
+		}
+		this.localMissCount.increment();
+		long stamp = getInvalidationStamp(key);
+		ValueWrapper remoteValue = this.remoteCache.get(key);
+		if (remoteValue != null) {
+			this.remoteHitCount.increment();
+			putLocal(key, remoteValue.get(), stamp);
+		}
+		else {
+			this.remoteMissCount.increment();
+		}
+		return remoteValue;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		long stamp = getInvalidationStamp(key);
+		AtomicBoolean loaded = new AtomicBoolean();
+		T value = this.remoteCache.get(key, () -> {
+			loaded.set(true);
+			return valueLoader.call();
+		});
+		putLocal(key, value, stamp);
+		if (loaded.get()) {
+			// Other nodes may hold a local copy from before the value was loaded
+			publishInvalidation(key);
+		}
+		return value;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.remoteCache.put(key, value);
+		this.localCache.put(key, value);
+		publishInvalidation(key);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		long stamp = getInvalidationStamp(key);
+		ValueWrapper existingValue = this.remoteCache.putIfAbsent(key, value);
+		if (existingValue != null) {
+			putLocal(key, existingValue.get(), stamp);
+		}
+		else {
+			this.localCache.put(key, value);
+			publishInvalidation(key);
+		}
+		return existingValue;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.remoteCache.evict(key);
+		this.localCache.evict(key);
+		publishInvalidation(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		boolean evicted = this.remoteCache.evictIfPresent(key);
+		this.localCache.evict(key);
+		publishInvalidation(key);
+		return evicted;
+	}
+
+	@Override
+	public void clear() {
+		this.remoteCache.clear();
+		this.localCache.clear();
+		publishInvalidation(null);
+	}
+
+	@Override
+	public boolean invalidate() {
+		boolean invalidated = this.remoteCache.invalidate();
+		this.localCache.invalidate();
+		publishInvalidation(null);
+		return invalidated;
+	}
+
+	/**
+	 * Invalidate the local copy of the entry for the given key, or all local
+	 * entries if no key is given, e.g. after a change announced by another node.
+	 * The remote cache is not affected.
+	 * @param key the key of the changed entry, or {@code null} for all entries
+	 */
+	public void invalidateLocal(@Nullable Object key) {
+		// Count the invalidation before evicting, so that a concurrent
+		// populate step either sees the new count or has its entry evicted
+		if (key != null) {
+			this.keyInvalidations.incrementAndGet(getStripe(key));
+			this.localCache.evict(key);
+		}
+		else {
+			this.clearInvalidations.incrementAndGet();
+			this.localCache.clear();
+		}
+	}
+
+	/**
+	 * Store a value obtained from the remote cache in the local cache, unless
+	 * the entry has been invalidated since the given stamp was taken.
+	 */
+	private void putLocal(Object key, @Nullable Object value, long stamp) {
+		this.localCache.put(key, value);
+		if (getInvalidationStamp(key) != stamp) {
+			this.localCache.evict(key);
+		}
+	}
+
+	private long getInvalidationStamp(Object key) {
+		// Both counters only ever increase, so their sum changes with either
+		return this.clearInvalidations.get() + this.keyInvalidations.get(getStripe(key));
+	}
+
+	private static int getStripe(Object key) {
+		int hash = key.hashCode();
+		return (hash ^ (hash >>> 16)) & (INVALIDATION_STRIPES - 1);
+	}
+
+	private void publishInvalidation(@Nullable Object key) {
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.publish(new CacheInvalidationEvent(this.origin, getName(), key));
+		}
+	}
+
+
+	/**
+	 * Return the number of lookups served by the local cache.
+	 */
+	public long getLocalHitCount() {
+		return this.localHitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups not served by the local cache.
+	 */
+	public long getLocalMissCount() {
+		return this.localMissCount.sum();
+	}
+
+	/**
+	 * Return the number of local misses served by the remote cache.
+	 */
+	public long getRemoteHitCount() {
+		return this.remoteHitCount.sum();
+	}
+
+	/**
+	 * Return the number of local misses not served by the remote cache either.
+	 */
+	public long getRemoteMissCount() {
+		return this.remoteMissCount.sum();
+	}
+
+}
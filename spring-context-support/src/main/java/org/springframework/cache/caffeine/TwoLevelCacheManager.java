@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.caffeine;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.CacheInvalidationChannel;
+import org.springframework.cache.support.CacheInvalidationEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation layering the caches of a local
+ * {@link CacheManager} (L1), by default a bounded {@link CaffeineCacheManager}
+ * with {@linkplain #DEFAULT_LOCAL_MAXIMUM_SIZE at most 10,000 entries} per cache,
+ * expiring {@linkplain #DEFAULT_LOCAL_EXPIRATION 10 minutes} after write, on top
+ * of the caches of a remote {@link CacheManager} (L2), e.g. a
+ * {@link org.springframework.cache.jcache.JCacheCacheManager} for a shared store.
+ * Each cache is exposed as a {@link TwoLevelCache}, reading through the local
+ * cache and writing through to both.
+ *
+ * <p>In contrast to {@link org.springframework.cache.support.CompositeCacheManager},
+ * which returns the first cache found, caches are combined: the set of cache
+ * names is determined by the remote cache manager, with the corresponding
+ * local cache holding near copies of its entries.
+ *
+ * <p>Local copies held on other nodes are kept current through a
+ * {@link #setInvalidationChannel CacheInvalidationChannel}, which this manager
+ * publishes changes to and subscribes to for changes of other nodes.
+ * Without such a channel, local entries only go away through expiration,
+ * which is only appropriate for a single node or for data tolerating staleness.
+ *
+ * @since 5.2.4
+ * @see TwoLevelCache
+ * @see org.springframework.cache.support.InProcessCacheInvalidationChannel
+ * @see org.springframework.cache.support.ApplicationEventCacheInvalidationChannel
+ */
+public class TwoLevelCacheManager implements CacheManager, InitializingBean, DisposableBean {
+
+	/**
+	 * The maximum number of entries per cache of the default local CacheManager.
+	 */
+	public static final long DEFAULT_LOCAL_MAXIMUM_SIZE = 10_000;
+
+	/**
+	 * The time after write that entries of the default local CacheManager expire.
+	 */
+	public static final Duration DEFAULT_LOCAL_EXPIRATION = Duration.ofMinutes(10);
+
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+
+	private final String origin = UUID.randomUUID().toString();
+
+	private final Consumer<CacheInvalidationEvent> invalidationListener = this::onInvalidation;
+
+	private CacheManager localCacheManager = createDefaultLocalCacheManager();
+
+	@Nullable
+	private CacheManager remoteCacheManager;
+
+	@Nullable
+	private CacheInvalidationChannel invalidationChannel;
+
+
+	/**
+	 * Create a new TwoLevelCacheManager, setting the remote CacheManager
+	 * through the {@link #setRemoteCacheManager} bean property.
+	 */
+	public TwoLevelCacheManager() {
+	}
+
+	/**
+	 * Create a new TwoLevelCacheManager for the given remote CacheManager.
+	 * @param remoteCacheManager the remote CacheManager (L2)
+	 */
+	public TwoLevelCacheManager(CacheManager remoteCacheManager) {
+		Assert.notNull(remoteCacheManager, "Remote CacheManager must not be null");
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+
+	/**
+	 * Set the local CacheManager (L1) to obtain the local caches from.
+	 * <p>Default is a dynamic {@link CaffeineCacheManager} bounded to
+	 * {@link #DEFAULT_LOCAL_MAXIMUM_SIZE} entries per cache and expiring entries
+	 * {@link #DEFAULT_LOCAL_EXPIRATION} after write. A custom one should also
+	 * specify a bounded size and an expiration no longer than the one of the
+	 * remote caches, limiting how long a missed invalidation can leave a
+	 * stale local entry behind.
+	 */
+	public void setLocalCacheManager(CacheManager localCacheManager) {
+		Assert.notNull(localCacheManager, "Local CacheManager must not be null");
+		this.localCacheManager = localCacheManager;
+	}
+
+	/**
+	 * Return the local CacheManager (L1).
+	 */
+	public CacheManager getLocalCacheManager() {
+		return this.localCacheManager;
+	}
+
+	/**
+	 * Set the remote CacheManager (L2) to obtain the shared caches from.
+	 */
+	public void setRemoteCacheManager(CacheManager remoteCacheManager) {
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+	/**
+	 * Return the remote CacheManager (L2).
+	 */
+	@Nullable
+	public CacheManager getRemoteCacheManager() {
+		return this.remoteCacheManager;
+	}
+
+	/**
+	 * Set the channel to exchange {@link CacheInvalidationEvent CacheInvalidationEvents}
+	 * with other nodes through, subscribed to on {@link #afterPropertiesSet()}.
+	 */
+	public void setInvalidationChannel(@Nullable CacheInvalidationChannel invalidationChannel) {
+		this.invalidationChannel = invalidationChannel;
+	}
+
+	/**
+	 * Return the identifier of this node, as exposed by the events it publishes.
+	 */
+	public String getOrigin() {
+		return this.origin;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.remoteCacheManager == null) {
+			throw new IllegalArgumentException("Property 'remoteCacheManager' is required");
+		}
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.subscribe(this.invalidationListener);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.unsubscribe(this.invalidationListener);
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache != null) {
+			return cache;
+		}
+		Assert.state(this.remoteCacheManager != null, "No remote CacheManager set");
+		Cache remoteCache = this.remoteCacheManager.getCache(name);
+		if (remoteCache == null) {
+			return null;
+		}
+		Cache localCache = this.localCacheManager.getCache(name);
+		if (localCache == null) {
+			// No local cache configured for this name: use the remote cache as-is
+			return remoteCache;
+		}
+		Cache newCache = createTwoLevelCache(localCache, remoteCache);
+		cache = this.cacheMap.putIfAbsent(name, newCache);
+		return (cache != null ? cache : newCache);
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		Assert.state(this.remoteCacheManager != null, "No remote CacheManager set");
+		return this.remoteCacheManager.getCacheNames();
+	}
+
+	private static CacheManager createDefaultLocalCacheManager() {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		cacheManager.setCaffeine(Caffeine.newBuilder()
+				.maximumSize(DEFAULT_LOCAL_MAXIMUM_SIZE)
+				.expireAfterWrite(DEFAULT_LOCAL_EXPIRATION));
+		return cacheManager;
+	}
+
+	/**
+	 * Create a TwoLevelCache for the given local and remote cache.
+	 * @param localCache the local cache (L1)
+	 * @param remoteCache the remote cache (L2)
+	 * @return the TwoLevelCache (or a decorator thereof)
+	 */
+	protected Cache createTwoLevelCache(Cache localCache, Cache remoteCache) {
+		return new TwoLevelCache(localCache, remoteCache, this.invalidationChannel, this.origin);
+	}
+
+	/**
+	 * Invalidate local entries in response to the given event,
+	 * unless published by this node itself.
+	 * @param event the event received through the invalidation channel
+	 */
+	protected void onInvalidation(CacheInvalidationEvent event) {
+		if (!this.origin.equals(event.getOrigin())) {
+			Cache cache = this.cacheMap.get(event.getCacheName());
+			if (cache instanceof TwoLevelCache) {
+				((TwoLevelCache) cache).invalidateLocal(event.getKey());
+			}
+		}
+	}
+
+}
@@ -1,7 +1,8 @@
 /**
  * Support classes for the open source cache in
  * <a href="https://github.com/ben-manes/caffeine/">Caffeine</a> library,
- * allowing to set up Caffeine caches within Spring's cache abstraction.
+ * allowing to set up Caffeine caches within Spring's cache abstraction,
+ * also as local near caches in front of a shared remote cache.
  */
 @NonNullApi
 @NonNullFields
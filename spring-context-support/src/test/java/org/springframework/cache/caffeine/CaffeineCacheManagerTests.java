@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.CaffeineSpec;
@@ -194,6 +196,26 @@ public class CaffeineCacheManagerTests {
 			.withMessageContaining("I only know ping");
 	}
 
+	@Test
+	public void asyncCacheModeUseAsyncCache() throws Exception {
+		CaffeineCacheManager cm = new CaffeineCacheManager("c1");
+		Cache cache1 = cm.getCache("c1");
+		assertThat(((CaffeineCache) cache1).getAsyncCache()).isNull();
+
+		cm.setAsyncCacheMode(true);
+		assertThat(cm.isAsyncCacheMode()).isTrue();
+		CaffeineCache cache1x = (CaffeineCache) cm.getCache("c1");
+		assertThat(cache1x).isNotSameAs(cache1);
+		assertThat(cache1x.getAsyncCache()).isNotNull();
+
+		assertThat(cache1x.retrieve("key").get()).isNull();
+		assertThat(cache1x.retrieve("key", () -> CompletableFuture.completedFuture("value")).get())
+				.isEqualTo("value");
+		assertThat(cache1x.get("key", String.class)).isEqualTo("value");
+		cache1x.put("key", null);
+		assertThat(cache1x.retrieve("key").get().get()).isNull();
+	}
+
 	@SuppressWarnings("unchecked")
 	private CacheLoader<Object, Object> mockCacheLoader() {
 		return mock(CacheLoader.class);
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.caffeine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link Cacheable} on methods returning a reactive type,
+ * backed by a {@link CaffeineCacheManager} in async cache mode.
+ *
+ * @since 5.2.4
+ */
+public class CaffeineReactiveCachingTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	@AfterEach
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void asyncCacheLookupDeferredToSubscription() {
+		load(AsyncConfig.class);
+		ReactiveService service = this.context.getBean(ReactiveService.class);
+		Cache cache = this.context.getBean(CacheManager.class).getCache("test");
+
+		Mono<String> first = service.find("a");
+		assertThat(service.invocations.get()).isEqualTo(1);
+		assertThat(cache.get("a")).isNull();
+
+		assertThat(first.block()).isEqualTo("value-a");
+		assertThat(service.subscriptions.get()).isEqualTo(1);
+		assertThat(cache.get("a").get()).isEqualTo("value-a");
+
+		assertThat(service.find("a").block()).isEqualTo("value-a");
+		assertThat(service.subscriptions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void asyncLoadingCacheNotLoadedBeforeSubscription() {
+		load(AsyncLoadingConfig.class);
+		ReactiveService service = this.context.getBean(ReactiveService.class);
+		AsyncLoadingConfig config = this.context.getBean(AsyncLoadingConfig.class);
+
+		Mono<String> result = service.find("a");
+		assertThat(config.loads.get()).isEqualTo(0);
+
+		assertThat(result.block()).isEqualTo("loaded-a");
+		assertThat(config.loads.get()).isEqualTo(1);
+		assertThat(service.subscriptions.get()).isEqualTo(0);
+	}
+
+	private void load(Class<?> config) {
+		this.context = new AnnotationConfigApplicationContext(config, ReactiveService.class);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class AsyncConfig extends CachingConfigurerSupport {
+
+		@Bean
+		@Override
+		public CacheManager cacheManager() {
+			CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+			cacheManager.setAsyncCacheMode(true);
+			return cacheManager;
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class AsyncLoadingConfig extends CachingConfigurerSupport {
+
+		private final AtomicLong loads = new AtomicLong();
+
+		@Bean
+		@Override
+		public CacheManager cacheManager() {
+			CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+			cacheManager.setCacheLoader(key -> {
+				this.loads.incrementAndGet();
+				return "loaded-" + key;
+			});
+			cacheManager.setAsyncCacheMode(true);
+			return cacheManager;
+		}
+	}
+
+
+	@CacheConfig(cacheNames = "test")
+	public static class ReactiveService {
+
+		private final AtomicLong invocations = new AtomicLong();
+
+		private final AtomicLong subscriptions = new AtomicLong();
+
+		@Cacheable
+		public Mono<String> find(String key) {
+			this.invocations.incrementAndGet();
+			return Mono.fromCallable(() -> {
+				this.subscriptions.incrementAndGet();
+				return "value-" + key;
+			});
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.ApplicationEventCacheInvalidationChannel;
+import org.springframework.cache.support.CacheInvalidationChannel;
+import org.springframework.cache.support.InProcessCacheInvalidationChannel;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link TwoLevelCacheManager}.
+ */
+public class TwoLevelCacheManagerTests {
+
+	private final ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager();
+
+	private final InProcessCacheInvalidationChannel invalidationChannel = new InProcessCacheInvalidationChannel();
+
+	private TwoLevelCache cache1;
+
+	private TwoLevelCache cache2;
+
+
+	@BeforeEach
+	public void setUp() {
+		this.cache1 = (TwoLevelCache) createCacheManager(this.invalidationChannel).getCache("test");
+		this.cache2 = (TwoLevelCache) createCacheManager(this.invalidationChannel).getCache("test");
+	}
+
+
+	@Test
+	public void remoteCacheManagerIsRequired() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new TwoLevelCacheManager().afterPropertiesSet());
+	}
+
+	@Test
+	public void cachesFollowRemoteCacheManager() {
+		CacheManager remoteCacheManager = new ConcurrentMapCacheManager("test");
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(remoteCacheManager);
+		cacheManager.afterPropertiesSet();
+
+		Cache cache = cacheManager.getCache("test");
+		assertThat(cache).isInstanceOf(TwoLevelCache.class);
+		assertThat(cacheManager.getCache("test")).isSameAs(cache);
+		assertThat(((TwoLevelCache) cache).getLocalCache()).isInstanceOf(CaffeineCache.class);
+		assertThat(((TwoLevelCache) cache).getRemoteCache()).isSameAs(remoteCacheManager.getCache("test"));
+		assertThat(cacheManager.getCacheNames()).containsOnly("test");
+		assertThat(cacheManager.getCache("other")).isNull();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void defaultLocalCachesAreBoundedAndExpiring() {
+		com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+				(com.github.benmanes.caffeine.cache.Cache<Object, Object>) this.cache1.getLocalCache().getNativeCache();
+		assertThat(nativeCache.policy().eviction().get().getMaximum())
+				.isEqualTo(TwoLevelCacheManager.DEFAULT_LOCAL_MAXIMUM_SIZE);
+		assertThat(nativeCache.policy().expireAfterWrite().get().getExpiresAfter(TimeUnit.MINUTES))
+				.isEqualTo(TwoLevelCacheManager.DEFAULT_LOCAL_EXPIRATION.toMinutes());
+	}
+
+	@Test
+	public void invalidationDuringReadThroughDiscardsLocalCopy() {
+		AtomicReference<TwoLevelCache> cacheRef = new AtomicReference<>();
+		ConcurrentMapCache remoteCache = new ConcurrentMapCache("test") {
+			@Override
+			protected Object lookup(Object key) {
+				Object value = super.lookup(key);
+				// Invalidation from another node arriving before the local cache is populated
+				cacheRef.get().invalidateLocal(key);
+				return value;
+			}
+		};
+		remoteCache.put("key", "value");
+		TwoLevelCache cache = new TwoLevelCache(new CaffeineCache("test", Caffeine.newBuilder().build()), remoteCache);
+		cacheRef.set(cache);
+
+		assertThat(cache.get("key").get()).isEqualTo("value");
+		assertThat(cache.getLocalCache().get("key")).isNull();
+	}
+
+	@Test
+	public void readThroughPopulatesLocalCache() {
+		this.cache1.put("key", "value");
+		assertThat(this.cache2.getLocalCache().get("key")).isNull();
+
+		assertThat(this.cache2.get("key", String.class)).isEqualTo("value");
+		assertThat(this.cache2.getLocalMissCount()).isEqualTo(1);
+		assertThat(this.cache2.getRemoteHitCount()).isEqualTo(1);
+
+		assertThat(this.cache2.get("key", String.class)).isEqualTo("value");
+		assertThat(this.cache2.getLocalHitCount()).isEqualTo(1);
+		assertThat(this.cache2.getRemoteHitCount()).isEqualTo(1);
+
+		assertThat(this.cache2.get("other")).isNull();
+		assertThat(this.cache2.getLocalMissCount()).isEqualTo(2);
+		assertThat(this.cache2.getRemoteMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void valueLoaderWritesThroughToBothLevels() {
+		assertThat(this.cache1.get("key", () -> "value")).isEqualTo("value");
+		assertThat(this.cache1.getLocalCache().get("key").get()).isEqualTo("value");
+		assertThat(this.cache1.getRemoteCache().get("key").get()).isEqualTo("value");
+		assertThat(this.cache1.get("key", () -> "other")).isEqualTo("value");
+	}
+
+	@Test
+	public void valueLoaderInvalidatesLocalCacheOfOtherNodes() {
+		this.cache1.put("key", "value1");
+		assertThat(this.cache2.get("key").get()).isEqualTo("value1");
+
+		this.cache1.getRemoteCache().evict("key");
+		this.cache1.getLocalCache().evict("key");
+		assertThat(this.cache1.get("key", () -> "value2")).isEqualTo("value2");
+		assertThat(this.cache2.getLocalCache().get("key")).isNull();
+		assertThat(this.cache2.get("key").get()).isEqualTo("value2");
+	}
+
+	@Test
+	public void valueLoaderNotInvokedDoesNotInvalidateOtherNodes() {
+		this.cache1.put("key", "value");
+		assertThat(this.cache2.get("key").get()).isEqualTo("value");
+
+		this.cache1.getLocalCache().evict("key");
+		assertThat(this.cache1.get("key", () -> "other")).isEqualTo("value");
+		assertThat(this.cache2.getLocalCache().get("key")).isNotNull();
+	}
+
+	@Test
+	public void putInvalidatesLocalCacheOfOtherNodes() {
+		this.cache1.put("key", "value1");
+		assertThat(this.cache2.get("key").get()).isEqualTo("value1");
+
+		this.cache1.put("key", "value2");
+		assertThat(this.cache1.getLocalCache().get("key").get()).isEqualTo("value2");
+		assertThat(this.cache2.getLocalCache().get("key")).isNull();
+		assertThat(this.cache2.get("key").get()).isEqualTo("value2");
+	}
+
+	@Test
+	public void evictAndClearInvalidateLocalCacheOfOtherNodes() {
+		this.cache1.put("key1", "value1");
+		this.cache1.put("key2", "value2");
+		this.cache2.get("key1");
+		this.cache2.get("key2");
+
+		this.cache1.evict("key1");
+		assertThat(this.cache2.get("key1")).isNull();
+		assertThat(this.cache2.getLocalCache().get("key2")).isNotNull();
+
+		this.cache1.clear();
+		assertThat(this.cache2.getLocalCache().get("key2")).isNull();
+		assertThat(this.cache2.get("key2")).isNull();
+	}
+
+	@Test
+	public void applicationEventInvalidationChannel() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBean(ApplicationEventCacheInvalidationChannel.class);
+		context.refresh();
+		CacheInvalidationChannel channel = context.getBean(CacheInvalidationChannel.class);
+		TwoLevelCache appCache1 = (TwoLevelCache) createCacheManager(channel).getCache("test");
+		TwoLevelCache appCache2 = (TwoLevelCache) createCacheManager(channel).getCache("test");
+
+		appCache1.put("key", "value1");
+		assertThat(appCache2.get("key").get()).isEqualTo("value1");
+		appCache1.put("key", "value2");
+		assertThat(appCache2.getLocalCache().get("key")).isNull();
+		context.close();
+	}
+
+
+	private TwoLevelCacheManager createCacheManager(CacheInvalidationChannel invalidationChannel) {
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(this.remoteCacheManager);
+		cacheManager.setInvalidationChannel(invalidationChannel);
+		cacheManager.afterPropertiesSet();
+		return cacheManager;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Extension of the {@link Cache} interface for caches able to retrieve
+ * values without blocking the calling thread, e.g. caches backed by a
+ * remote store with an asynchronous client or in-process caches.
+ *
+ * <p>The caching aspect uses these operations for methods returning a
+ * reactive type such as {@code Mono} or {@code Flux}, so that cache
+ * lookups do not block reactive threads. Write operations such as
+ * {@link #put} are inherited from {@link Cache}, which explicitly
+ * allows for asynchronous or deferred registration.
+ *
+ * @since 5.2.4
+ * @see org.springframework.cache.interceptor.CacheAspectSupport
+ */
+public interface AsyncCache extends Cache {
+
+	/**
+	 * Retrieve the value to which this cache maps the specified key.
+	 * <p>This is the asynchronous counterpart of {@link #get(Object)}:
+	 * the returned future completes with {@code null} if the cache contains
+	 * no mapping for this key; otherwise with the cached value (which may be
+	 * {@code null} itself) in a {@link ValueWrapper}.
+	 * @param key the key whose associated value is to be returned
+	 * @return a future for the value wrapper, or for {@code null} if the
+	 * cache contains no mapping for this key
+	 * @see #get(Object)
+	 */
+	CompletableFuture<ValueWrapper> retrieve(Object key);
+
+	/**
+	 * Retrieve the value to which this cache maps the specified key, obtaining
+	 * that value from {@code valueLoader} if necessary.
+	 * <p>This is the asynchronous counterpart of {@link #get(Object, java.util.concurrent.Callable)}:
+	 * implementations should ensure that the {@code valueLoader} is only called
+	 * once in case of concurrent access on the same key, with all callers sharing
+	 * the future for the loaded value. If the future returned by the
+	 * {@code valueLoader} completes exceptionally, no value is cached and the
+	 * returned future completes exceptionally as well.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the supplier of a future for the value to cache
+	 * @return a future for the value to which this cache maps the specified key
+	 * @see #get(Object, java.util.concurrent.Callable)
+	 */
+	<T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader);
+
+}
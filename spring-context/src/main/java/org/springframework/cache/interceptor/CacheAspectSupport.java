@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,11 +25,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -40,10 +45,13 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
+import org.springframework.cache.AsyncCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -69,6 +77,13 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>Methods returning a reactive type such as {@code Mono} or {@code Flux} have
+ * the value they emit cached, rather than the publisher instance itself, with
+ * concurrent cache misses for the same key sharing a single subscription to
+ * the underlying publisher. This requires Reactor on the classpath. Caches
+ * implementing {@link AsyncCache} are looked up at subscription time, without
+ * blocking, for those methods.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -83,6 +98,10 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
@@ -100,6 +119,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	@Nullable
+	private final ReactiveCachingHandler reactiveCachingHandler = (reactorPresent ? new ReactiveCachingHandler() : null);
+
 	private boolean initialized = false;
 
 
@@ -371,12 +393,28 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		ReactiveCachingHandler reactiveCachingHandler = this.reactiveCachingHandler;
+		ReactiveAdapter adapter = (reactiveCachingHandler != null ? reactiveCachingHandler.getAdapter(method) : null);
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
+				if (reactiveCachingHandler != null && adapter != null) {
+					if (cache instanceof AsyncCache) {
+						return reactiveCachingHandler.retrieveValue((AsyncCache) cache, key, adapter,
+								() -> invokeOperation(invoker));
+					}
+					Cache.ValueWrapper cacheHit = doGet(cache, key);
+					if (cacheHit != null) {
+						return reactiveCachingHandler.wrapCacheValue(cacheHit.get(), adapter);
+					}
+					return reactiveCachingHandler.processResult(invokeOperation(invoker), adapter,
+							Collections.singletonList(new CachePutRequest(context, key)),
+							value -> {}, value -> doPut(cache, key, value));
+				}
 				try {
 					return wrapCacheValue(method, cache.get(key, () -> unwrapReturnValue(invokeOperation(invoker))));
 				}
@@ -398,7 +436,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				CacheOperationExpressionEvaluator.NO_RESULT);
 
 		// Check if we have a cached item matching the conditions
-		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
+		// (deferring lookups in an AsyncCache to subscription time for reactive types)
+		boolean reactive = (reactiveCachingHandler != null && adapter != null);
+		Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class), reactive);
 
 		// Collect puts from any @Cacheable miss, if no cached item is found
 		List<CachePutRequest> cachePutRequests = new LinkedList<>();
@@ -413,14 +453,31 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		if (cacheHit != null && !hasCachePut(contexts)) {
 			// If there are no put requests, just use the cache hit
 			cacheValue = cacheHit.get();
-			returnValue = wrapCacheValue(method, cacheValue);
+			returnValue = (reactiveCachingHandler != null && adapter != null ?
+					reactiveCachingHandler.wrapCacheValue(cacheValue, adapter) : wrapCacheValue(method, cacheValue));
 		}
 		else {
 			// Invoke the method if we don't have a cache hit
 			returnValue = invokeOperation(invoker);
+			if (reactive) {
+				// Defer the remaining cache operations until the value has been emitted,
+				// sharing the subscription with concurrent misses for the same key
+				List<CachePutRequest> lookups = (hasCachePut(contexts) ?
+						Collections.emptyList() : cachePutRequests);
+				return reactiveCachingHandler.processResult(returnValue, adapter, lookups,
+						value -> completeExecution(contexts, new LinkedList<>(), value),
+						value -> completeExecution(contexts, new LinkedList<>(cachePutRequests), value));
+			}
 			cacheValue = unwrapReturnValue(returnValue);
 		}
 
+		completeExecution(contexts, cachePutRequests, cacheValue);
+		return returnValue;
+	}
+
+	private void completeExecution(CacheOperationContexts contexts, List<CachePutRequest> cachePutRequests,
+			@Nullable Object cacheValue) {
+
 		// Collect any explicit @CachePuts
 		collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
 
@@ -431,8 +488,6 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		// Process any late evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
-
-		return returnValue;
 	}
 
 	@Nullable
@@ -507,16 +562,18 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	/**
 	 * Find a cached item only for {@link CacheableOperation} that passes the condition.
 	 * @param contexts the cacheable operations
+	 * @param skipAsyncCaches whether to skip caches implementing {@link AsyncCache},
+	 * to be looked up at subscription time instead
 	 * @return a {@link Cache.ValueWrapper} holding the cached item,
 	 * or {@code null} if none is found
 	 */
 	@Nullable
-	private Cache.ValueWrapper findCachedItem(Collection<CacheOperationContext> contexts) {
+	private Cache.ValueWrapper findCachedItem(Collection<CacheOperationContext> contexts, boolean skipAsyncCaches) {
 		Object result = CacheOperationExpressionEvaluator.NO_RESULT;
 		for (CacheOperationContext context : contexts) {
 			if (isConditionPassing(context, result)) {
 				Object key = generateKey(context, result);
-				Cache.ValueWrapper cached = findInCaches(context, key);
+				Cache.ValueWrapper cached = findInCaches(context, key, skipAsyncCaches);
 				if (cached != null) {
 					return cached;
 				}
@@ -549,8 +606,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 	@Nullable
-	private Cache.ValueWrapper findInCaches(CacheOperationContext context, Object key) {
+	private Cache.ValueWrapper findInCaches(CacheOperationContext context, Object key, boolean skipAsyncCaches) {
 		for (Cache cache : context.getCaches()) {
+			if (skipAsyncCaches && cache instanceof AsyncCache) {
+				continue;
+			}
 			Cache.ValueWrapper wrapper = doGet(cache, key);
 			if (wrapper != null) {
 				if (logger.isTraceEnabled()) {
@@ -824,6 +884,152 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private class ReactiveCachingHandler {
+
+		private final ReactiveAdapterRegistry registry = ReactiveAdapterRegistry.getSharedInstance();
+
+		private final Map<Object, Mono<Object>> inFlightResults = new ConcurrentHashMap<>(64);
+
+		/**
+		 * Return the adapter for the return type of the given method, if it is a
+		 * reactive type other than a {@link CompletionStage} (cached as-is).
+		 */
+		@Nullable
+		public ReactiveAdapter getAdapter(Method method) {
+			Class<?> returnType = method.getReturnType();
+			if (CompletionStage.class.isAssignableFrom(returnType)) {
+				return null;
+			}
+			return this.registry.getAdapter(returnType);
+		}
+
+		/**
+		 * Adapt a cached value, a single value or a {@code List} of values for a
+		 * multi-value type, to the reactive type of the method.
+		 */
+		public Object wrapCacheValue(@Nullable Object cacheValue, ReactiveAdapter adapter) {
+			return adapter.fromPublisher(toPublisher(Mono.justOrEmpty(cacheValue), adapter));
+		}
+
+		/**
+		 * Retrieve the value for the given key from the given {@link AsyncCache} at
+		 * subscription time, invoking the method and caching its resolved value
+		 * in case of a miss, without blocking on the cache.
+		 * @param cache the cache to retrieve the value from
+		 * @param key the key to retrieve the value for
+		 * @param adapter the adapter for the reactive type
+		 * @param invocation the invocation of the method, returning its reactive
+		 * type instance; any exception thrown by the method is expected to be
+		 * wrapped in a {@link CacheOperationInvoker.ThrowableWrapper} and is
+		 * emitted as is to subscribers
+		 */
+		public Object retrieveValue(AsyncCache cache, Object key, ReactiveAdapter adapter,
+				Supplier<Object> invocation) {
+
+			Mono<Object> source = Mono.defer(() -> Mono.fromFuture(
+					cache.retrieve(key, () -> invoke(invocation, adapter).toFuture())));
+			return adapter.fromPublisher(toPublisher(source, adapter));
+		}
+
+		/**
+		 * Adapt the publisher returned by the method to one caching the resolved value.
+		 * <p>If cache lookups are given, concurrent subscriptions share a single
+		 * subscription to the publisher until its value has been passed to the given
+		 * callback, and subscriptions check the caches of the lookups before subscribing
+		 * (without blocking in case of an {@link AsyncCache}).
+		 * @param returnValue the reactive type instance returned by the method
+		 * @param adapter the adapter for the reactive type
+		 * @param lookups the caches and keys to check at subscription time, the
+		 * first one also being the key to coalesce on
+		 * @param hitCallback the callback performing the cache operations for a
+		 * value found at subscription time
+		 * @param callback the callback performing the cache operations for the value
+		 * (a single value, or a {@code List} of values for a multi-value type)
+		 */
+		public Object processResult(@Nullable Object returnValue, ReactiveAdapter adapter,
+				List<CachePutRequest> lookups, Consumer<Object> hitCallback, Consumer<Object> callback) {
+
+			Mono<Object> source = resolve(returnValue, adapter).doOnSuccess(callback);
+			if (!lookups.isEmpty()) {
+				CachePutRequest first = lookups.get(0);
+				Object inFlightKey = new SimpleKey(first.context.getCaches().iterator().next(), first.key);
+				Mono<Object> coalescingSource = source;
+				source = Mono.defer(() -> {
+					Mono<Object> inFlight = this.inFlightResults.get(inFlightKey);
+					if (inFlight != null) {
+						return inFlight;
+					}
+					return lookup(lookups).flatMap(cacheHit -> cacheHit.isPresent() ?
+							Mono.justOrEmpty(cacheHit.get().get()).doOnSuccess(hitCallback) :
+							share(inFlightKey, coalescingSource));
+				});
+			}
+			return adapter.fromPublisher(toPublisher(source, adapter));
+		}
+
+		private Mono<Object> invoke(Supplier<Object> invocation, ReactiveAdapter adapter) {
+			Object returnValue;
+			try {
+				returnValue = invocation.get();
+			}
+			catch (CacheOperationInvoker.ThrowableWrapper ex) {
+				return Mono.error(ex.getOriginal());
+			}
+			return resolve(returnValue, adapter);
+		}
+
+		private Mono<Optional<Cache.ValueWrapper>> lookup(List<CachePutRequest> lookups) {
+			Mono<Optional<Cache.ValueWrapper>> result = Mono.just(Optional.empty());
+			for (CachePutRequest lookup : lookups) {
+				for (Cache cache : lookup.context.getCaches()) {
+					result = result.flatMap(cacheHit -> cacheHit.isPresent() ?
+							Mono.just(cacheHit) : lookup(cache, lookup.key));
+				}
+			}
+			return result;
+		}
+
+		private Mono<Optional<Cache.ValueWrapper>> lookup(Cache cache, Object key) {
+			if (!(cache instanceof AsyncCache)) {
+				return Mono.fromSupplier(() -> Optional.ofNullable(doGet(cache, key)));
+			}
+			return Mono.fromFuture(((AsyncCache) cache).retrieve(key))
+					.map(Optional::of)
+					.defaultIfEmpty(Optional.empty())
+					.onErrorResume(RuntimeException.class, ex -> {
+						getErrorHandler().handleCacheGetError(ex, cache, key);
+						return Mono.just(Optional.empty());
+					});
+		}
+
+		private Mono<Object> share(Object inFlightKey, Mono<Object> source) {
+			Mono<Object> candidate = source
+					.doFinally(signal -> this.inFlightResults.remove(inFlightKey))
+					.cache();
+			Mono<Object> inFlight = this.inFlightResults.putIfAbsent(inFlightKey, candidate);
+			return (inFlight != null ? inFlight : candidate);
+		}
+
+		private Mono<Object> resolve(@Nullable Object returnValue, ReactiveAdapter adapter) {
+			if (adapter.isMultiValue()) {
+				return Flux.from(adapter.toPublisher(returnValue)).collectList().cast(Object.class);
+			}
+			return Mono.from(adapter.toPublisher(returnValue));
+		}
+
+		private Publisher<?> toPublisher(Mono<Object> value, ReactiveAdapter adapter) {
+			if (adapter.isMultiValue()) {
+				return value.flatMapIterable(result -> (result instanceof Iterable ?
+						(Iterable<?>) result : Collections.singletonList(result)));
+			}
+			return value;
+		}
+	}
+
+
 	private static final class CacheOperationCacheKey implements Comparable<CacheOperationCacheKey> {
 
 		private final CacheOperation cacheOperation;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,6 +65,15 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		this.unavailableVariables.add(name);
 	}
 
+	/**
+	 * Return whether any variable has been marked as unavailable.
+	 * @since 5.2.4
+	 * @see #addUnavailableVariable(String)
+	 */
+	boolean hasUnavailableVariables() {
+		return !this.unavailableVariables.isEmpty();
+	}
+
 
 	/**
 	 * Load the param information only when needed.
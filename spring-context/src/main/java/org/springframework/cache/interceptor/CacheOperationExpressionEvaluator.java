@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,9 @@ import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
 
 /**
@@ -35,7 +38,8 @@ import org.springframework.lang.Nullable;
  * Meant to be used as a reusable, thread-safe component.
  *
  * <p>Performs internal caching for performance reasons
- * using {@link AnnotatedElementKey}.
+ * using {@link AnnotatedElementKey}. Expressions are compiled once they
+ * have been evaluated a number of times.
  *
  * @author Costin Leau
  * @author Phillip Webb
@@ -67,6 +71,16 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 	private final Map<ExpressionKey, Expression> unlessCache = new ConcurrentHashMap<>(64);
 
+	private final SpelExpressionParser interpretingParser =
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, null));
+
+	private final Map<Expression, Expression> interpretedExpressionCache = new ConcurrentHashMap<>(16);
+
+
+	CacheOperationExpressionEvaluator() {
+		super(createCompilingParser());
+	}
+
 
 	/**
 	 * Create an {@link EvaluationContext}.
@@ -87,6 +101,7 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 				caches, method, args, target, targetClass);
 		CacheEvaluationContext evaluationContext = new CacheEvaluationContext(
 				rootObject, targetMethod, args, getParameterNameDiscoverer());
+		evaluationContext.setPropertyAccessors(getPropertyAccessors());
 		if (result == RESULT_UNAVAILABLE) {
 			evaluationContext.addUnavailableVariable(RESULT_VARIABLE);
 		}
@@ -105,8 +120,15 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 	}
 
 	public boolean condition(String conditionExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
-		return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
-				evalContext, Boolean.class)));
+		Expression expression = getExpression(this.conditionCache, methodKey, conditionExpression);
+		if (evalContext instanceof CacheEvaluationContext &&
+				((CacheEvaluationContext) evalContext).hasUnavailableVariables()) {
+			// Likely to fail on purpose: keep it away from the compiled form,
+			// which would revert to interpreted mode on every failure
+			expression = this.interpretedExpressionCache.computeIfAbsent(expression,
+					expr -> this.interpretingParser.parseExpression(expr.getExpressionString()));
+		}
+		return (Boolean.TRUE.equals(expression.getValue(evalContext, Boolean.class)));
 	}
 
 	public boolean unless(String unlessExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
@@ -121,6 +143,7 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		this.keyCache.clear();
 		this.conditionCache.clear();
 		this.unlessCache.clear();
+		this.interpretedExpressionCache.clear();
 	}
 
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+/**
+ * Abstract base class for {@link CacheInvalidationChannel} implementations,
+ * managing the registered listeners.
+ *
+ * @since 5.2.4
+ */
+public abstract class AbstractCacheInvalidationChannel implements CacheInvalidationChannel {
+
+	private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+
+	@Override
+	public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+		Assert.notNull(listener, "Listener must not be null");
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public void unsubscribe(Consumer<CacheInvalidationEvent> listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Deliver the given event, as received by this channel, to all registered
+	 * listeners.
+	 * @param event the event to deliver
+	 */
+	protected void dispatch(CacheInvalidationEvent event) {
+		for (Consumer<CacheInvalidationEvent> listener : this.listeners) {
+			listener.accept(event);
+		}
+	}
+
+}
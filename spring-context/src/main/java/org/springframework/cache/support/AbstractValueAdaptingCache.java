@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,11 @@
 
 package org.springframework.cache.support;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
 import org.springframework.cache.Cache;
 import org.springframework.lang.Nullable;
 
@@ -35,6 +40,8 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 
 	private final boolean allowNullValues;
 
+	private final ConcurrentMap<Object, CompletableFuture<Object>> loadingFutures = new ConcurrentHashMap<>();
+
 
 	/**
 	 * Create an {@code AbstractValueAdaptingCache} with the given setting.
@@ -79,6 +86,68 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 	@Nullable
 	protected abstract Object lookup(Object key);
 
+	/**
+	 * Return the value for the given key, obtaining it from the given asynchronous
+	 * value loader if necessary and registering the loaded value through {@link #put}.
+	 * <p>Concurrent callers for the same key share the future of a single loading
+	 * operation, without blocking. This is an in-process implementation of
+	 * {@link org.springframework.cache.AsyncCache#retrieve(Object, Supplier)}
+	 * for subclasses without native support for asynchronous loading.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the supplier of a future for the value to cache
+	 * @return a future for the value to which this cache maps the specified key
+	 * @since 5.2.4
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> CompletableFuture<T> loadValue(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return CompletableFuture.completedFuture((T) fromStoreValue(storeValue));
+		}
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> existing = this.loadingFutures.putIfAbsent(key, future);
+		if (existing != null) {
+			// Already being loaded by another caller
+			return existing.thenApply(value -> (T) value);
+		}
+		storeValue = lookup(key);
+		if (storeValue != null) {
+			// Loaded by another caller before our future got registered
+			this.loadingFutures.remove(key, future);
+			future.complete(fromStoreValue(storeValue));
+		}
+		else {
+			try {
+				valueLoader.get().whenComplete((value, ex) -> completeLoading(key, future, value, ex));
+			}
+			catch (Throwable ex) {
+				completeLoading(key, future, null, ex);
+			}
+		}
+		return future.thenApply(value -> (T) value);
+	}
+
+	private void completeLoading(Object key, CompletableFuture<Object> future,
+			@Nullable Object value, @Nullable Throwable ex) {
+
+		Throwable failure = ex;
+		if (failure == null) {
+			try {
+				put(key, value);
+			}
+			catch (Throwable putEx) {
+				failure = putEx;
+			}
+		}
+		this.loadingFutures.remove(key, future);
+		if (failure != null) {
+			future.completeExceptionally(failure);
+		}
+		else {
+			future.complete(value);
+		}
+	}
+
 
 	/**
 	 * Convert the given value from the internal store to a user value
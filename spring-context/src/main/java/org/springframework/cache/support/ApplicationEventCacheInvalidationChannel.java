@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheInvalidationChannel} publishing events through the
+ * {@link ApplicationEventPublisher} of the containing application context,
+ * receiving them as {@link ApplicationListener}.
+ *
+ * <p>Events reach the nodes that the application event infrastructure spans,
+ * e.g. several contexts in a hierarchy or, with a custom
+ * {@link org.springframework.context.event.ApplicationEventMulticaster}
+ * bridging to a messaging system, several processes.
+ *
+ * @since 5.2.4
+ */
+public class ApplicationEventCacheInvalidationChannel extends AbstractCacheInvalidationChannel
+		implements ApplicationEventPublisherAware, ApplicationListener<CacheInvalidationEvent> {
+
+	@Nullable
+	private ApplicationEventPublisher applicationEventPublisher;
+
+
+	@Override
+	public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
+	@Override
+	public void publish(CacheInvalidationEvent event) {
+		Assert.state(this.applicationEventPublisher != null, "No ApplicationEventPublisher set");
+		this.applicationEventPublisher.publishEvent(event);
+	}
+
+	@Override
+	public void onApplicationEvent(CacheInvalidationEvent event) {
+		dispatch(event);
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.function.Consumer;
+
+/**
+ * Strategy for distributing {@link CacheInvalidationEvent CacheInvalidationEvents}
+ * among the nodes sharing a remote cache, so that near caches, e.g. the ones of
+ * an {@code org.springframework.cache.caffeine.TwoLevelCacheManager}, can drop
+ * stale entries from their local copies.
+ *
+ * <p>Implementations may deliver events asynchronously. Events are also
+ * expected to be delivered back to the publishing node, where they are
+ * ignored based on their {@link CacheInvalidationEvent#getOrigin() origin}.
+ *
+ * @since 5.2.4
+ * @see InProcessCacheInvalidationChannel
+ * @see ApplicationEventCacheInvalidationChannel
+ */
+public interface CacheInvalidationChannel {
+
+	/**
+	 * Publish the given event to all subscribers of this channel.
+	 * @param event the event to publish
+	 */
+	void publish(CacheInvalidationEvent event);
+
+	/**
+	 * Register the given listener for events published on this channel.
+	 * @param listener the listener to register
+	 */
+	void subscribe(Consumer<CacheInvalidationEvent> listener);
+
+	/**
+	 * Remove the given listener from this channel.
+	 * @param listener the listener to remove
+	 */
+	void unsubscribe(Consumer<CacheInvalidationEvent> listener);
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.lang.Nullable;
+
+/**
+ * Event signalling that an entry, or all entries, of a shared cache have
+ * changed, so that local copies held by near caches on other nodes
+ * need to be invalidated. The event source is the identifier of the node
+ * which performed the change.
+ *
+ * @since 5.2.4
+ * @see CacheInvalidationChannel
+ */
+@SuppressWarnings("serial")
+public class CacheInvalidationEvent extends ApplicationEvent {
+
+	private final String cacheName;
+
+	@Nullable
+	private final Object key;
+
+
+	/**
+	 * Create a new CacheInvalidationEvent.
+	 * @param origin the identifier of the node which performed the change
+	 * @param cacheName the name of the changed cache
+	 * @param key the key of the changed entry, or {@code null} if all
+	 * entries of the cache have been cleared
+	 */
+	public CacheInvalidationEvent(String origin, String cacheName, @Nullable Object key) {
+		super(origin);
+		this.cacheName = cacheName;
+		this.key = key;
+	}
+
+
+	/**
+	 * Return the identifier of the node which performed the change.
+	 */
+	public String getOrigin() {
+		return (String) getSource();
+	}
+
+	/**
+	 * Return the name of the changed cache.
+	 */
+	public String getCacheName() {
+		return this.cacheName;
+	}
+
+	/**
+	 * Return the key of the changed entry, or {@code null} if all entries
+	 * of the cache have been cleared.
+	 */
+	@Nullable
+	public Object getKey() {
+		return this.key;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [origin=" + getOrigin() + ", cacheName='" + this.cacheName +
+				"', key=" + (this.key != null ? this.key : "*") + "]";
+	}
+
+}
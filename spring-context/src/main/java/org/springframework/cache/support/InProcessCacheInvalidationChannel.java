@@ -0,0 +1,34 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+/**
+ * {@link CacheInvalidationChannel} delivering events synchronously to the
+ * listeners registered within the same process, e.g. for testing several
+ * {@code org.springframework.cache.caffeine.TwoLevelCacheManager} instances
+ * against a shared remote cache.
+ *
+ * @since 5.2.4
+ */
+public class InProcessCacheInvalidationChannel extends AbstractCacheInvalidationChannel {
+
+	@Override
+	public void publish(CacheInvalidationEvent event) {
+		dispatch(event);
+	}
+
+}
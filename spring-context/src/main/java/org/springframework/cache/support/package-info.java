@@ -1,6 +1,7 @@
 /**
  * Support classes for the org.springframework.cache package.
- * Provides abstract classes for cache managers and caches.
+ * Provides abstract classes for cache managers and caches,
+ * as well as channels for invalidating near caches across nodes.
  */
 @NonNullApi
 @NonNullFields
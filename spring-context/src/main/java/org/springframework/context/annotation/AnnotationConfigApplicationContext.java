@@ -23,6 +23,7 @@ import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.Resource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -176,6 +177,22 @@ public class AnnotationConfigApplicationContext extends GenericApplicationContex
 		this.scanner.scan(basePackages);
 	}
 
+	/**
+	 * Register the bean definitions from one or more snapshots written by
+	 * {@link BeanDefinitionSnapshotGenerator}, as a replacement for registering
+	 * and scanning the original component classes.
+	 * <p>Note that {@link #refresh()} must be called in order for the context
+	 * to fully process the new bean definitions.
+	 * @param snapshots the snapshot resources to load
+	 * @since 5.2.4
+	 * @see BeanDefinitionSnapshotReader
+	 * @see #refresh()
+	 */
+	public void registerSnapshot(Resource... snapshots) {
+		Assert.notEmpty(snapshots, "At least one snapshot must be specified");
+		new BeanDefinitionSnapshotReader(this).loadBeanDefinitions(snapshots);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Adapt superclass registerBean calls to AnnotatedBeanDefinitionReader
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+/**
+ * Constants for the binary bean definition snapshot format, shared between
+ * {@link BeanDefinitionSnapshotGenerator} and {@link BeanDefinitionSnapshotReader}.
+ *
+ * <p>A snapshot consists of a header (magic number and format version),
+ * the active and default profiles at generation time, the original component
+ * classes, the condition outcomes and {@code @PropertySource} declarations
+ * recorded at generation time, the bean definitions with their aliases, and
+ * the import registry entries for {@link ImportAware} support. Strings are written in modified
+ * UTF-8, values are prefixed with one of the value tags below.
+ *
+ * @since 5.2.4
+ */
+final class BeanDefinitionSnapshotFormat {
+
+	static final int MAGIC = 0x53504244;
+
+	static final int VERSION = 2;
+
+	static final byte GENERIC_BEAN_DEFINITION = 0;
+
+	static final byte ROOT_BEAN_DEFINITION = 1;
+
+	static final byte NULL_VALUE = 0;
+
+	static final byte STRING_VALUE = 1;
+
+	static final byte TYPED_STRING_VALUE = 2;
+
+	static final byte BEAN_REFERENCE_VALUE = 3;
+
+	static final byte BEAN_NAME_REFERENCE_VALUE = 4;
+
+	static final byte BOOLEAN_VALUE = 5;
+
+	static final byte INTEGER_VALUE = 6;
+
+	static final byte LONG_VALUE = 7;
+
+	static final byte CLASS_VALUE = 8;
+
+	static final byte BEAN_DEFINITION_HOLDER_VALUE = 9;
+
+	static final byte LIST_VALUE = 10;
+
+	static final byte SET_VALUE = 11;
+
+	static final byte MAP_VALUE = 12;
+
+	static final byte ARRAY_VALUE = 13;
+
+	static final byte AUTOWIRED_PROPERTY_MARKER_VALUE = 14;
+
+
+	private BeanDefinitionSnapshotFormat() {
+	}
+
+}
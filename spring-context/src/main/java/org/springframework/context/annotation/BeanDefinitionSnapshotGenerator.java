@@ -0,0 +1,504 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.AutowiredPropertyMarker;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Build-time generator for a binary snapshot of the bean definitions that
+ * result from processing a set of component classes: {@code @ComponentScan}
+ * scanning, {@code @Import} and {@code @Conditional} processing and
+ * {@code @Bean} method registration, as performed by
+ * {@link ConfigurationClassPostProcessor}.
+ *
+ * <p>Conditions are evaluated against the {@link ConfigurableEnvironment}
+ * given to this generator. The snapshot records the profiles at generation
+ * time as well as the outcome of every other {@code @Conditional} class or
+ * method, and {@link BeanDefinitionSnapshotReader} only uses it if the runtime
+ * profiles match and the conditions evaluate the same way; otherwise it falls
+ * back to registering the original component classes for regular processing.
+ * {@code @PropertySource} declarations are recorded as well, getting
+ * re-applied to the runtime environment when the snapshot is loaded.
+ *
+ * <p>Bean definitions need to be expressible through bean definition metadata:
+ * instance suppliers, method overrides, qualifier metadata and custom value
+ * types are rejected with an {@link IllegalStateException}. Other bean
+ * definition registry post-processors are not invoked at generation time;
+ * they run as usual on context refresh.
+ *
+ * <p>Typically invoked from the build through the {@link #main} method:
+ * {@code BeanDefinitionSnapshotGenerator <output file> <component class>...},
+ * with profiles specified through the {@code spring.profiles.active}
+ * system property.
+ *
+ * @since 5.2.4
+ * @see BeanDefinitionSnapshotReader
+ */
+public class BeanDefinitionSnapshotGenerator {
+
+	private final ConfigurableEnvironment environment;
+
+	@Nullable
+	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+
+	/**
+	 * Create a new generator for a {@link StandardEnvironment}.
+	 */
+	public BeanDefinitionSnapshotGenerator() {
+		this(new StandardEnvironment());
+	}
+
+	/**
+	 * Create a new generator for the given environment.
+	 * @param environment the environment to evaluate conditions against
+	 */
+	public BeanDefinitionSnapshotGenerator(ConfigurableEnvironment environment) {
+		Assert.notNull(environment, "Environment must not be null");
+		this.environment = environment;
+	}
+
+
+	/**
+	 * Specify the ClassLoader to load component classes and scan with.
+	 */
+	public void setBeanClassLoader(@Nullable ClassLoader beanClassLoader) {
+		this.beanClassLoader = beanClassLoader;
+	}
+
+
+	/**
+	 * Process the given component classes and write the snapshot of the
+	 * resulting bean definitions to the given stream.
+	 * @param out the stream to write to (not closed by this method)
+	 * @param componentClasses one or more component classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalStateException if a bean definition cannot be snapshotted
+	 */
+	public void generate(OutputStream out, Class<?>... componentClasses) throws IOException {
+		Assert.notEmpty(componentClasses, "At least one component class must be specified");
+		RecordingBeanFactory beanFactory = new RecordingBeanFactory();
+		beanFactory.setBeanClassLoader(this.beanClassLoader);
+		AnnotatedBeanDefinitionReader reader = new AnnotatedBeanDefinitionReader(beanFactory, this.environment);
+		Set<String> infrastructureBeanNames = new HashSet<>(Arrays.asList(beanFactory.getBeanDefinitionNames()));
+		reader.register(componentClasses);
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(this.environment);
+		postProcessor.setResourceLoader(new DefaultResourceLoader(this.beanClassLoader));
+		postProcessor.setBeanClassLoader(this.beanClassLoader);
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			if (!infrastructureBeanNames.contains(beanName)) {
+				beanDefinitions.put(beanName, beanFactory.getBeanDefinition(beanName));
+			}
+		}
+		ImportRegistry importRegistry = (ImportRegistry) beanFactory.getSingleton(
+				ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME);
+
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+		dos.writeInt(BeanDefinitionSnapshotFormat.MAGIC);
+		dos.writeInt(BeanDefinitionSnapshotFormat.VERSION);
+		writeStringArray(dos, this.environment.getActiveProfiles());
+		writeStringArray(dos, this.environment.getDefaultProfiles());
+		dos.writeInt(componentClasses.length);
+		for (Class<?> componentClass : componentClasses) {
+			dos.writeUTF(componentClass.getName());
+		}
+
+		dos.writeInt(beanFactory.conditionOutcomes.size());
+		for (ConditionOutcome outcome : beanFactory.conditionOutcomes.values()) {
+			dos.writeUTF(outcome.className);
+			writeNullableString(dos, outcome.methodName);
+			dos.writeUTF(outcome.phase.name());
+			dos.writeBoolean(outcome.skip);
+		}
+
+		dos.writeInt(beanFactory.propertySources.size());
+		for (AnnotationAttributes propertySource : beanFactory.propertySources) {
+			writeNullableString(dos, propertySource.getString("name"));
+			writeStringArray(dos, propertySource.getStringArray("value"));
+			dos.writeBoolean(propertySource.getBoolean("ignoreResourceNotFound"));
+			writeNullableString(dos, propertySource.getString("encoding"));
+			dos.writeUTF(propertySource.getClass("factory").getName());
+		}
+
+		dos.writeInt(beanDefinitions.size());
+		Map<String, String> importingClasses = new LinkedHashMap<>();
+		for (Map.Entry<String, BeanDefinition> entry : beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			BeanDefinition bd = entry.getValue();
+			dos.writeUTF(beanName);
+			writeStringArray(dos, beanFactory.getAliases(beanName));
+			writeBeanDefinition(dos, beanName, bd);
+			String className = bd.getBeanClassName();
+			if (importRegistry != null && className != null) {
+				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(className);
+				if (importingClass != null) {
+					importingClasses.put(className, importingClass.getClassName());
+				}
+			}
+		}
+
+		dos.writeInt(importingClasses.size());
+		for (Map.Entry<String, String> entry : importingClasses.entrySet()) {
+			dos.writeUTF(entry.getKey());
+			dos.writeUTF(entry.getValue());
+		}
+		dos.flush();
+	}
+
+	private void writeBeanDefinition(DataOutputStream dos, String beanName, BeanDefinition bd) throws IOException {
+		if (!(bd instanceof AbstractBeanDefinition)) {
+			throw new IllegalStateException("Cannot snapshot bean definition '" + beanName +
+					"' of type [" + bd.getClass().getName() + "]: not an AbstractBeanDefinition");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		if (abd.getInstanceSupplier() != null || abd.hasMethodOverrides() || !abd.getQualifiers().isEmpty()) {
+			throw new IllegalStateException("Cannot snapshot bean definition '" + beanName +
+					"': instance suppliers, method overrides and qualifiers are not supported");
+		}
+
+		boolean root = (abd instanceof RootBeanDefinition);
+		dos.writeByte(root ? BeanDefinitionSnapshotFormat.ROOT_BEAN_DEFINITION :
+				BeanDefinitionSnapshotFormat.GENERIC_BEAN_DEFINITION);
+		if (!root) {
+			writeNullableString(dos, abd.getParentName());
+		}
+		writeNullableString(dos, abd.getBeanClassName());
+		writeNullableString(dos, abd.getScope());
+		dos.writeBoolean(abd.isAbstract());
+		Boolean lazyInit = abd.getLazyInit();
+		dos.writeByte(lazyInit == null ? -1 : (lazyInit ? 1 : 0));
+		dos.writeInt(abd.getAutowireMode());
+		dos.writeInt(abd.getDependencyCheck());
+		writeStringArray(dos, abd.getDependsOn());
+		dos.writeBoolean(abd.isAutowireCandidate());
+		dos.writeBoolean(abd.isPrimary());
+		dos.writeBoolean(abd.isNonPublicAccessAllowed());
+		dos.writeBoolean(abd.isLenientConstructorResolution());
+		writeNullableString(dos, abd.getFactoryBeanName());
+		writeNullableString(dos, abd.getFactoryMethodName());
+		writeNullableString(dos, abd.getInitMethodName());
+		dos.writeBoolean(abd.isEnforceInitMethod());
+		writeNullableString(dos, abd.getDestroyMethodName());
+		dos.writeBoolean(abd.isEnforceDestroyMethod());
+		dos.writeBoolean(abd.isSynthetic());
+		dos.writeInt(abd.getRole());
+		writeNullableString(dos, abd.getDescription());
+		writeNullableString(dos, abd.getResourceDescription());
+
+		ConstructorArgumentValues cav = abd.getConstructorArgumentValues();
+		dos.writeInt(cav.getIndexedArgumentValues().size());
+		for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry :
+				cav.getIndexedArgumentValues().entrySet()) {
+			dos.writeInt(entry.getKey());
+			writeValueHolder(dos, beanName, entry.getValue());
+		}
+		List<ConstructorArgumentValues.ValueHolder> genericValues = cav.getGenericArgumentValues();
+		dos.writeInt(genericValues.size());
+		for (ConstructorArgumentValues.ValueHolder valueHolder : genericValues) {
+			writeValueHolder(dos, beanName, valueHolder);
+		}
+
+		PropertyValue[] pvs = abd.getPropertyValues().getPropertyValues();
+		dos.writeInt(pvs.length);
+		for (PropertyValue pv : pvs) {
+			dos.writeUTF(pv.getName());
+			writeValue(dos, beanName, pv.getValue());
+		}
+
+		String[] attributeNames = abd.attributeNames();
+		dos.writeInt(attributeNames.length);
+		for (String attributeName : attributeNames) {
+			dos.writeUTF(attributeName);
+			writeValue(dos, beanName, abd.getAttribute(attributeName));
+		}
+
+		if (root) {
+			RootBeanDefinition rbd = (RootBeanDefinition) abd;
+			BeanDefinitionHolder decoratedDefinition = rbd.getDecoratedDefinition();
+			dos.writeBoolean(decoratedDefinition != null);
+			if (decoratedDefinition != null) {
+				writeBeanDefinitionHolder(dos, decoratedDefinition);
+			}
+			Class<?> targetType = rbd.getTargetType();
+			writeNullableString(dos, targetType != null ? targetType.getName() : null);
+		}
+	}
+
+	private void writeBeanDefinitionHolder(DataOutputStream dos, BeanDefinitionHolder holder) throws IOException {
+		dos.writeUTF(holder.getBeanName());
+		writeStringArray(dos, holder.getAliases());
+		writeBeanDefinition(dos, holder.getBeanName(), holder.getBeanDefinition());
+	}
+
+	private void writeValueHolder(DataOutputStream dos, String beanName,
+			ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+
+		writeValue(dos, beanName, valueHolder.getValue());
+		writeNullableString(dos, valueHolder.getType());
+		writeNullableString(dos, valueHolder.getName());
+	}
+
+	private void writeValue(DataOutputStream dos, String beanName, @Nullable Object value) throws IOException {
+		if (value == null) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.NULL_VALUE);
+		}
+		else if (value instanceof String) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.STRING_VALUE);
+			dos.writeUTF((String) value);
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue typedValue = (TypedStringValue) value;
+			dos.writeByte(BeanDefinitionSnapshotFormat.TYPED_STRING_VALUE);
+			writeNullableString(dos, typedValue.getValue());
+			writeNullableString(dos, typedValue.getTargetTypeName());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (ref.getBeanType() != null) {
+				throw new IllegalStateException("Cannot snapshot by-type bean reference in bean definition '" +
+						beanName + "': " + ref);
+			}
+			dos.writeByte(BeanDefinitionSnapshotFormat.BEAN_REFERENCE_VALUE);
+			dos.writeUTF(ref.getBeanName());
+			dos.writeBoolean(ref.isToParent());
+		}
+		else if (value instanceof RuntimeBeanNameReference) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.BEAN_NAME_REFERENCE_VALUE);
+			dos.writeUTF(((RuntimeBeanNameReference) value).getBeanName());
+		}
+		else if (value instanceof Boolean) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.BOOLEAN_VALUE);
+			dos.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.INTEGER_VALUE);
+			dos.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.LONG_VALUE);
+			dos.writeLong((Long) value);
+		}
+		else if (value instanceof Class) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.CLASS_VALUE);
+			dos.writeUTF(((Class<?>) value).getName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.BEAN_DEFINITION_HOLDER_VALUE);
+			writeBeanDefinitionHolder(dos, (BeanDefinitionHolder) value);
+		}
+		else if (value instanceof ManagedArray) {
+			ManagedArray array = (ManagedArray) value;
+			dos.writeByte(BeanDefinitionSnapshotFormat.ARRAY_VALUE);
+			writeNullableString(dos, array.getElementTypeName());
+			writeCollection(dos, beanName, array, array.isMergeEnabled());
+		}
+		else if (value instanceof ManagedList) {
+			ManagedList<?> list = (ManagedList<?>) value;
+			dos.writeByte(BeanDefinitionSnapshotFormat.LIST_VALUE);
+			writeNullableString(dos, list.getElementTypeName());
+			writeCollection(dos, beanName, list, list.isMergeEnabled());
+		}
+		else if (value instanceof ManagedSet) {
+			ManagedSet<?> set = (ManagedSet<?>) value;
+			dos.writeByte(BeanDefinitionSnapshotFormat.SET_VALUE);
+			writeNullableString(dos, set.getElementTypeName());
+			writeCollection(dos, beanName, set, set.isMergeEnabled());
+		}
+		else if (value instanceof ManagedMap) {
+			ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+			dos.writeByte(BeanDefinitionSnapshotFormat.MAP_VALUE);
+			writeNullableString(dos, map.getKeyTypeName());
+			writeNullableString(dos, map.getValueTypeName());
+			dos.writeBoolean(map.isMergeEnabled());
+			dos.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(dos, beanName, entry.getKey());
+				writeValue(dos, beanName, entry.getValue());
+			}
+		}
+		else if (value == AutowiredPropertyMarker.INSTANCE) {
+			dos.writeByte(BeanDefinitionSnapshotFormat.AUTOWIRED_PROPERTY_MARKER_VALUE);
+		}
+		else {
+			throw new IllegalStateException("Cannot snapshot value of type [" + value.getClass().getName() +
+					"] in bean definition '" + beanName + "'");
+		}
+	}
+
+	private void writeCollection(DataOutputStream dos, String beanName, Collection<?> values, boolean mergeEnabled)
+			throws IOException {
+
+		dos.writeBoolean(mergeEnabled);
+		dos.writeInt(values.size());
+		for (Object element : values) {
+			writeValue(dos, beanName, element);
+		}
+	}
+
+	private static void writeNullableString(DataOutputStream dos, @Nullable String value) throws IOException {
+		dos.writeBoolean(value != null);
+		if (value != null) {
+			dos.writeUTF(value);
+		}
+	}
+
+	private static void writeStringArray(DataOutputStream dos, @Nullable String[] values) throws IOException {
+		if (ObjectUtils.isEmpty(values)) {
+			dos.writeInt(0);
+			return;
+		}
+		dos.writeInt(values.length);
+		for (String value : values) {
+			dos.writeUTF(value);
+		}
+	}
+
+
+	/**
+	 * Command-line entry point for build-time snapshot generation.
+	 * @param args the output file, followed by the names of the component classes
+	 * @throws Exception in case of generation errors
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: BeanDefinitionSnapshotGenerator <output file> <component class>...");
+			System.exit(1);
+		}
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		Class<?>[] componentClasses = new Class<?>[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			componentClasses[i - 1] = ClassUtils.forName(args[i], classLoader);
+		}
+		Path outputFile = Paths.get(args[0]);
+		if (outputFile.getParent() != null) {
+			Files.createDirectories(outputFile.getParent());
+		}
+		try (OutputStream out = Files.newOutputStream(outputFile)) {
+			new BeanDefinitionSnapshotGenerator().generate(out, componentClasses);
+		}
+	}
+
+
+	/**
+	 * Bean factory recording the outcome of condition evaluations and the
+	 * {@code @PropertySource} declarations encountered while processing
+	 * configuration classes against it.
+	 */
+	@SuppressWarnings("serial")
+	private static class RecordingBeanFactory extends DefaultListableBeanFactory
+			implements ConditionEvaluator.ConditionEvaluationListener, ConfigurationClassParser.PropertySourceListener {
+
+		final Map<String, ConditionOutcome> conditionOutcomes = new LinkedHashMap<>();
+
+		final List<AnnotationAttributes> propertySources = new ArrayList<>();
+
+		@Override
+		public void conditionEvaluated(AnnotatedTypeMetadata metadata, ConfigurationPhase phase, boolean skip) {
+			ConditionOutcome outcome;
+			if (metadata instanceof MethodMetadata) {
+				MethodMetadata methodMetadata = (MethodMetadata) metadata;
+				outcome = new ConditionOutcome(methodMetadata.getDeclaringClassName(),
+						methodMetadata.getMethodName(), phase, skip);
+			}
+			else if (metadata instanceof AnnotationMetadata) {
+				outcome = new ConditionOutcome(((AnnotationMetadata) metadata).getClassName(), null, phase, skip);
+			}
+			else {
+				throw new IllegalStateException("Cannot snapshot condition outcome for " + metadata);
+			}
+			this.conditionOutcomes.putIfAbsent(
+					outcome.className + "#" + outcome.methodName + ":" + phase, outcome);
+		}
+
+		@Override
+		public void propertySourceFound(AnnotationAttributes propertySource) {
+			this.propertySources.add(propertySource);
+		}
+	}
+
+
+	/**
+	 * Outcome of the conditions on a class or a method, in a given phase.
+	 */
+	private static class ConditionOutcome {
+
+		final String className;
+
+		@Nullable
+		final String methodName;
+
+		final ConfigurationPhase phase;
+
+		final boolean skip;
+
+		ConditionOutcome(String className, @Nullable String methodName, ConfigurationPhase phase, boolean skip) {
+			this.className = className;
+			this.methodName = methodName;
+			this.phase = phase;
+			this.skip = skip;
+		}
+	}
+
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.AutowiredPropertyMarker;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.parsing.FailFastProblemReporter;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinitionReader;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Bean definition reader for snapshots written by
+ * {@link BeanDefinitionSnapshotGenerator}, registering the pre-computed bean
+ * definitions instead of parsing and scanning the original component classes
+ * on startup.
+ *
+ * <p>Registers the common annotation config processors, as
+ * {@link AnnotatedBeanDefinitionReader} does. The snapshotted configuration
+ * classes are marked as already processed, so {@link ConfigurationClassPostProcessor}
+ * skips parsing them but still enhances full {@code @Configuration} classes.
+ * {@link ImportAware} callbacks are served from the import relationships
+ * recorded in the snapshot, in addition to those of configuration classes
+ * that are not part of the snapshot. Recorded {@code @PropertySource}
+ * declarations get applied to this reader's {@link Environment}.
+ *
+ * <p>If the active or default profiles of this reader's {@link Environment}
+ * differ from those at generation time, or if any of the recorded
+ * {@code @Conditional} classes or methods evaluates differently, the snapshot
+ * is not used: the original component classes get registered for regular
+ * processing instead. Note that conditions are re-evaluated against the
+ * registry as it is at loading time, and that {@code @Bean} method conditions
+ * are matched by method name.
+ *
+ * @since 5.2.4
+ * @see BeanDefinitionSnapshotGenerator
+ */
+public class BeanDefinitionSnapshotReader extends AbstractBeanDefinitionReader {
+
+	/**
+	 * Name of the {@link ImportRegistry} singleton holding the import
+	 * relationships of all snapshots loaded into a registry.
+	 */
+	static final String IMPORT_REGISTRY_BEAN_NAME = BeanDefinitionSnapshotReader.class.getName() + ".importRegistry";
+
+
+	/**
+	 * Create a new BeanDefinitionSnapshotReader for the given registry.
+	 * @param registry the BeanFactory to load bean definitions into,
+	 * in the form of a BeanDefinitionRegistry
+	 */
+	public BeanDefinitionSnapshotReader(BeanDefinitionRegistry registry) {
+		super(registry);
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(registry);
+	}
+
+
+	/**
+	 * Load bean definitions from the specified snapshot resource.
+	 * @param resource the resource descriptor for the snapshot
+	 * @return the number of bean definitions found
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 */
+	@Override
+	public int loadBeanDefinitions(Resource resource) throws BeanDefinitionStoreException {
+		try (InputStream is = resource.getInputStream()) {
+			return loadBeanDefinitions(new DataInputStream(new BufferedInputStream(is)), resource);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(
+					"IOException parsing bean definition snapshot from " + resource, ex);
+		}
+		catch (ClassNotFoundException ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(), null,
+					"Class referenced in bean definition snapshot not found", ex);
+		}
+	}
+
+	private int loadBeanDefinitions(DataInputStream dis, Resource resource)
+			throws IOException, ClassNotFoundException {
+
+		if (dis.readInt() != BeanDefinitionSnapshotFormat.MAGIC) {
+			throw new BeanDefinitionStoreException("Not a bean definition snapshot: " + resource);
+		}
+		int version = dis.readInt();
+		if (version != BeanDefinitionSnapshotFormat.VERSION) {
+			throw new BeanDefinitionStoreException("Unsupported bean definition snapshot version " +
+					version + " in " + resource);
+		}
+		String[] activeProfiles = readStringArray(dis);
+		String[] defaultProfiles = readStringArray(dis);
+		String[] componentClassNames = readStringArray(dis);
+
+		BeanDefinitionRegistry registry = getRegistry();
+		Environment environment = getEnvironment();
+		if (!Arrays.equals(activeProfiles, environment.getActiveProfiles()) ||
+				!Arrays.equals(defaultProfiles, environment.getDefaultProfiles())) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Bean definition snapshot " + resource + " was generated for profiles " +
+						Arrays.toString(activeProfiles) + " - falling back to processing component classes " +
+						Arrays.toString(componentClassNames));
+			}
+			return registerComponentClasses(componentClassNames);
+		}
+
+		int conditionCount = dis.readInt();
+		List<ConditionOutcome> conditionOutcomes = new ArrayList<>(conditionCount);
+		for (int i = 0; i < conditionCount; i++) {
+			conditionOutcomes.add(new ConditionOutcome(dis.readUTF(), readNullableString(dis),
+					ConfigurationPhase.valueOf(dis.readUTF()), dis.readBoolean()));
+		}
+		int propertySourceCount = dis.readInt();
+		List<AnnotationAttributes> propertySources = new ArrayList<>(propertySourceCount);
+		for (int i = 0; i < propertySourceCount; i++) {
+			AnnotationAttributes propertySource = new AnnotationAttributes(PropertySource.class);
+			propertySource.put("name", readNullableString(dis));
+			propertySource.put("value", readStringArray(dis));
+			propertySource.put("ignoreResourceNotFound", dis.readBoolean());
+			propertySource.put("encoding", readNullableString(dis));
+			propertySource.put("factory", ClassUtils.forName(dis.readUTF(), getBeanClassLoader()));
+			propertySources.add(propertySource);
+		}
+
+		ResourceLoader resourceLoader = getResourceLoader();
+		if (resourceLoader == null) {
+			resourceLoader = new DefaultResourceLoader(getBeanClassLoader());
+		}
+		MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		// Property sources first, since conditions may refer to their properties
+		if (!propertySources.isEmpty()) {
+			if (environment instanceof ConfigurableEnvironment) {
+				ConfigurationClassParser parser = new ConfigurationClassParser(metadataReaderFactory,
+						new FailFastProblemReporter(), environment, resourceLoader,
+						AnnotationBeanNameGenerator.INSTANCE, registry);
+				for (AnnotationAttributes propertySource : propertySources) {
+					parser.processPropertySource(propertySource);
+				}
+			}
+			else {
+				logger.info("Ignoring @PropertySource declarations in bean definition snapshot " + resource +
+						". Reason: Environment must implement ConfigurableEnvironment");
+			}
+		}
+
+		ConditionEvaluator conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
+		for (ConditionOutcome outcome : conditionOutcomes) {
+			if (!outcome.matches(conditionEvaluator, metadataReaderFactory)) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Conditions on " + outcome + " evaluate differently than for bean definition " +
+							"snapshot " + resource + " - falling back to processing component classes " +
+							Arrays.toString(componentClassNames));
+				}
+				return registerComponentClasses(componentClassNames);
+			}
+		}
+
+		int count = dis.readInt();
+		for (int i = 0; i < count; i++) {
+			String beanName = dis.readUTF();
+			String[] aliases = readStringArray(dis);
+			registry.registerBeanDefinition(beanName, readBeanDefinition(dis));
+			for (String alias : aliases) {
+				registry.registerAlias(beanName, alias);
+			}
+		}
+
+		int importCount = dis.readInt();
+		Map<String, String> importingClasses = new ConcurrentHashMap<>(importCount);
+		for (int i = 0; i < importCount; i++) {
+			importingClasses.put(dis.readUTF(), dis.readUTF());
+		}
+		SingletonBeanRegistry sbr = null;
+		if (registry instanceof SingletonBeanRegistry) {
+			sbr = (SingletonBeanRegistry) registry;
+		}
+		else if (registry instanceof GenericApplicationContext) {
+			sbr = ((GenericApplicationContext) registry).getDefaultListableBeanFactory();
+		}
+		if (sbr != null) {
+			Object importRegistry = sbr.getSingleton(IMPORT_REGISTRY_BEAN_NAME);
+			if (importRegistry instanceof SnapshotImportRegistry) {
+				((SnapshotImportRegistry) importRegistry).importingClasses.putAll(importingClasses);
+			}
+			else {
+				sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME,
+						new SnapshotImportRegistry(importingClasses, getBeanClassLoader()));
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Loaded " + count + " bean definitions from snapshot " + resource);
+		}
+		return count;
+	}
+
+	private int registerComponentClasses(String[] componentClassNames) throws ClassNotFoundException {
+		BeanDefinitionRegistry registry = getRegistry();
+		int countBefore = registry.getBeanDefinitionCount();
+		AnnotatedBeanDefinitionReader reader = new AnnotatedBeanDefinitionReader(registry, getEnvironment());
+		for (String componentClassName : componentClassNames) {
+			reader.register(ClassUtils.forName(componentClassName, getBeanClassLoader()));
+		}
+		return registry.getBeanDefinitionCount() - countBefore;
+	}
+
+	private AbstractBeanDefinition readBeanDefinition(DataInputStream dis) throws IOException, ClassNotFoundException {
+		AbstractBeanDefinition bd;
+		if (dis.readByte() == BeanDefinitionSnapshotFormat.ROOT_BEAN_DEFINITION) {
+			bd = new RootBeanDefinition();
+		}
+		else {
+			GenericBeanDefinition gbd = new GenericBeanDefinition();
+			gbd.setParentName(readNullableString(dis));
+			bd = gbd;
+		}
+		bd.setBeanClassName(readNullableString(dis));
+		bd.setScope(readNullableString(dis));
+		bd.setAbstract(dis.readBoolean());
+		byte lazyInit = dis.readByte();
+		if (lazyInit != -1) {
+			bd.setLazyInit(lazyInit == 1);
+		}
+		bd.setAutowireMode(dis.readInt());
+		bd.setDependencyCheck(dis.readInt());
+		String[] dependsOn = readStringArray(dis);
+		bd.setDependsOn(dependsOn.length > 0 ? dependsOn : null);
+		bd.setAutowireCandidate(dis.readBoolean());
+		bd.setPrimary(dis.readBoolean());
+		bd.setNonPublicAccessAllowed(dis.readBoolean());
+		bd.setLenientConstructorResolution(dis.readBoolean());
+		bd.setFactoryBeanName(readNullableString(dis));
+		bd.setFactoryMethodName(readNullableString(dis));
+		bd.setInitMethodName(readNullableString(dis));
+		bd.setEnforceInitMethod(dis.readBoolean());
+		bd.setDestroyMethodName(readNullableString(dis));
+		bd.setEnforceDestroyMethod(dis.readBoolean());
+		bd.setSynthetic(dis.readBoolean());
+		bd.setRole(dis.readInt());
+		bd.setDescription(readNullableString(dis));
+		bd.setResourceDescription(readNullableString(dis));
+
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		int indexedCount = dis.readInt();
+		for (int i = 0; i < indexedCount; i++) {
+			int index = dis.readInt();
+			cav.addIndexedArgumentValue(index, readValueHolder(dis));
+		}
+		int genericCount = dis.readInt();
+		for (int i = 0; i < genericCount; i++) {
+			cav.addGenericArgumentValue(readValueHolder(dis));
+		}
+
+		int propertyCount = dis.readInt();
+		for (int i = 0; i < propertyCount; i++) {
+			bd.getPropertyValues().add(dis.readUTF(), readValue(dis));
+		}
+
+		int attributeCount = dis.readInt();
+		for (int i = 0; i < attributeCount; i++) {
+			bd.setAttribute(dis.readUTF(), readValue(dis));
+		}
+
+		if (bd instanceof RootBeanDefinition) {
+			RootBeanDefinition rbd = (RootBeanDefinition) bd;
+			if (dis.readBoolean()) {
+				rbd.setDecoratedDefinition(readBeanDefinitionHolder(dis));
+			}
+			String targetTypeName = readNullableString(dis);
+			if (targetTypeName != null) {
+				rbd.setTargetType(ClassUtils.forName(targetTypeName, getBeanClassLoader()));
+			}
+		}
+		return bd;
+	}
+
+	private BeanDefinitionHolder readBeanDefinitionHolder(DataInputStream dis)
+			throws IOException, ClassNotFoundException {
+
+		String beanName = dis.readUTF();
+		String[] aliases = readStringArray(dis);
+		return new BeanDefinitionHolder(readBeanDefinition(dis), beanName, (aliases.length > 0 ? aliases : null));
+	}
+
+	private ConstructorArgumentValues.ValueHolder readValueHolder(DataInputStream dis)
+			throws IOException, ClassNotFoundException {
+
+		Object value = readValue(dis);
+		return new ConstructorArgumentValues.ValueHolder(value, readNullableString(dis), readNullableString(dis));
+	}
+
+	@Nullable
+	private Object readValue(DataInputStream dis) throws IOException, ClassNotFoundException {
+		byte tag = dis.readByte();
+		switch (tag) {
+			case BeanDefinitionSnapshotFormat.NULL_VALUE:
+				return null;
+			case BeanDefinitionSnapshotFormat.STRING_VALUE:
+				return dis.readUTF();
+			case BeanDefinitionSnapshotFormat.TYPED_STRING_VALUE:
+				return new TypedStringValue(readNullableString(dis), readNullableString(dis));
+			case BeanDefinitionSnapshotFormat.BEAN_REFERENCE_VALUE:
+				return new RuntimeBeanReference(dis.readUTF(), dis.readBoolean());
+			case BeanDefinitionSnapshotFormat.BEAN_NAME_REFERENCE_VALUE:
+				return new RuntimeBeanNameReference(dis.readUTF());
+			case BeanDefinitionSnapshotFormat.BOOLEAN_VALUE:
+				return dis.readBoolean();
+			case BeanDefinitionSnapshotFormat.INTEGER_VALUE:
+				return dis.readInt();
+			case BeanDefinitionSnapshotFormat.LONG_VALUE:
+				return dis.readLong();
+			case BeanDefinitionSnapshotFormat.CLASS_VALUE:
+				return ClassUtils.forName(dis.readUTF(), getBeanClassLoader());
+			case BeanDefinitionSnapshotFormat.BEAN_DEFINITION_HOLDER_VALUE:
+				return readBeanDefinitionHolder(dis);
+			case BeanDefinitionSnapshotFormat.LIST_VALUE: {
+				String elementTypeName = readNullableString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedList<Object> list = new ManagedList<>(size);
+				if (elementTypeName != null) {
+					list.setElementTypeName(elementTypeName);
+				}
+				list.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(dis));
+				}
+				return list;
+			}
+			case BeanDefinitionSnapshotFormat.SET_VALUE: {
+				String elementTypeName = readNullableString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedSet<Object> set = new ManagedSet<>(size);
+				set.setElementTypeName(elementTypeName);
+				set.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					set.add(readValue(dis));
+				}
+				return set;
+			}
+			case BeanDefinitionSnapshotFormat.ARRAY_VALUE: {
+				String elementTypeName = readNullableString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedArray array = new ManagedArray(
+						(elementTypeName != null ? elementTypeName : Object.class.getName()), size);
+				array.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					array.add(readValue(dis));
+				}
+				return array;
+			}
+			case BeanDefinitionSnapshotFormat.MAP_VALUE: {
+				String keyTypeName = readNullableString(dis);
+				String valueTypeName = readNullableString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedMap<Object, Object> map = new ManagedMap<>(size);
+				map.setKeyTypeName(keyTypeName);
+				map.setValueTypeName(valueTypeName);
+				map.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					map.put(readValue(dis), readValue(dis));
+				}
+				return map;
+			}
+			case BeanDefinitionSnapshotFormat.AUTOWIRED_PROPERTY_MARKER_VALUE:
+				return AutowiredPropertyMarker.INSTANCE;
+			default:
+				throw new BeanDefinitionStoreException("Unknown value tag in bean definition snapshot: " + tag);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream dis) throws IOException {
+		return (dis.readBoolean() ? dis.readUTF() : null);
+	}
+
+	private static String[] readStringArray(DataInputStream dis) throws IOException {
+		int length = dis.readInt();
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = dis.readUTF();
+		}
+		return values;
+	}
+
+
+	/**
+	 * Outcome of the conditions on a class or a method at generation time.
+	 */
+	private static class ConditionOutcome {
+
+		private final String className;
+
+		@Nullable
+		private final String methodName;
+
+		private final ConfigurationPhase phase;
+
+		private final boolean skip;
+
+		ConditionOutcome(String className, @Nullable String methodName, ConfigurationPhase phase, boolean skip) {
+			this.className = className;
+			this.methodName = methodName;
+			this.phase = phase;
+			this.skip = skip;
+		}
+
+		/**
+		 * Re-evaluate the conditions, checking whether they yield the same outcome.
+		 * For overloaded methods, any of the same-named methods may match.
+		 */
+		boolean matches(ConditionEvaluator conditionEvaluator, MetadataReaderFactory metadataReaderFactory)
+				throws IOException {
+
+			AnnotationMetadata metadata = metadataReaderFactory.getMetadataReader(this.className).getAnnotationMetadata();
+			if (this.methodName == null) {
+				return (conditionEvaluator.shouldSkip(metadata, this.phase) == this.skip);
+			}
+			for (MethodMetadata methodMetadata : metadata.getAnnotatedMethods(Conditional.class.getName())) {
+				if (methodMetadata.getMethodName().equals(this.methodName) &&
+						conditionEvaluator.shouldSkip(methodMetadata, this.phase) == this.skip) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return (this.methodName != null ? this.className + "." + this.methodName + "()" : this.className);
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the import relationships recorded in a
+	 * snapshot, introspecting importing classes lazily on first access.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> importingClasses;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		private final Map<String, AnnotationMetadata> metadataCache = new ConcurrentHashMap<>();
+
+		SnapshotImportRegistry(Map<String, String> importingClasses, @Nullable ClassLoader classLoader) {
+			this.importingClasses = importingClasses;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.importingClasses.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			return this.metadataCache.computeIfAbsent(importingClass, className ->
+					AnnotationMetadata.introspect(ClassUtils.resolveClassName(className, this.classLoader)));
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.importingClasses.values().removeIf(importingClass::equals);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -100,17 +100,23 @@ class ConditionEvaluator {
 
 		AnnotationAwareOrderComparator.sort(conditions);
 
+		boolean skip = false;
 		for (Condition condition : conditions) {
 			ConfigurationPhase requiredPhase = null;
 			if (condition instanceof ConfigurationCondition) {
 				requiredPhase = ((ConfigurationCondition) condition).getConfigurationPhase();
 			}
 			if ((requiredPhase == null || requiredPhase == phase) && !condition.matches(this.context, metadata)) {
-				return true;
+				skip = true;
+				break;
 			}
 		}
 
-		return false;
+		if (this.context.registry instanceof ConditionEvaluationListener &&
+				conditions.stream().anyMatch(condition -> !(condition instanceof ProfileCondition))) {
+			((ConditionEvaluationListener) this.context.registry).conditionEvaluated(metadata, phase, skip);
+		}
+		return skip;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -126,6 +132,25 @@ class ConditionEvaluator {
 	}
 
 
+	/**
+	 * Callback interface for a {@link BeanDefinitionRegistry} to be notified of
+	 * the outcome of the conditions evaluated against it, except for items
+	 * that only carry {@link Profile @Profile} conditions.
+	 * @since 5.2.4
+	 * @see BeanDefinitionSnapshotGenerator
+	 */
+	interface ConditionEvaluationListener {
+
+		/**
+		 * Invoked once the conditions of the given item have been evaluated.
+		 * @param metadata the metadata of the item
+		 * @param phase the phase of the evaluation
+		 * @param skip whether the item is skipped
+		 */
+		void conditionEvaluated(AnnotatedTypeMetadata metadata, ConfigurationPhase phase, boolean skip);
+	}
+
+
 	/**
 	 * Implementation of a {@link ConditionContext}.
 	 */
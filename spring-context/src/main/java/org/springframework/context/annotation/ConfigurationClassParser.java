@@ -438,7 +438,10 @@ class ConfigurationClassParser {
 	 * @param propertySource metadata for the <code>@PropertySource</code> annotation found
 	 * @throws IOException if loading a property source failed
 	 */
-	private void processPropertySource(AnnotationAttributes propertySource) throws IOException {
+	void processPropertySource(AnnotationAttributes propertySource) throws IOException {
+		if (this.registry instanceof PropertySourceListener) {
+			((PropertySourceListener) this.registry).propertySourceFound(propertySource);
+		}
 		String name = propertySource.getString("name");
 		if (!StringUtils.hasLength(name)) {
 			name = null;
@@ -696,6 +699,23 @@ class ConfigurationClassParser {
 	}
 
 
+	/**
+	 * Callback interface for a {@link BeanDefinitionRegistry} to be notified of
+	 * the {@code @PropertySource} annotations processed while parsing
+	 * configuration classes against it, in processing order.
+	 * @since 5.2.4
+	 * @see BeanDefinitionSnapshotGenerator
+	 */
+	interface PropertySourceListener {
+
+		/**
+		 * Invoked for each {@code @PropertySource} found, before it gets processed.
+		 * @param propertySource the attributes of the {@code @PropertySource} annotation
+		 */
+		void propertySourceFound(AnnotationAttributes propertySource);
+	}
+
+
 	@SuppressWarnings("serial")
 	private static class ImportStack extends ArrayDeque<ConfigurationClass> implements ImportRegistry {
 
@@ -98,7 +98,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public static final AnnotationBeanNameGenerator IMPORT_BEAN_NAME_GENERATOR =
 			new FullyQualifiedAnnotationBeanNameGenerator();
 
-	private static final String IMPORT_REGISTRY_BEAN_NAME =
+	static final String IMPORT_REGISTRY_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
 
 
@@ -453,14 +453,29 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		@Override
 		public Object postProcessBeforeInitialization(Object bean, String beanName) {
 			if (bean instanceof ImportAware) {
-				ImportRegistry ir = this.beanFactory.getBean(IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class);
-				AnnotationMetadata importingClass = ir.getImportingClassFor(ClassUtils.getUserClass(bean).getName());
+				AnnotationMetadata importingClass = getImportingClass(ClassUtils.getUserClass(bean).getName());
 				if (importingClass != null) {
 					((ImportAware) bean).setImportMetadata(importingClass);
 				}
 			}
 			return bean;
 		}
+
+		@Nullable
+		private AnnotationMetadata getImportingClass(String importedClass) {
+			// Parsed configuration classes first, then ones loaded from a snapshot
+			for (String registryName : new String[] {IMPORT_REGISTRY_BEAN_NAME,
+					BeanDefinitionSnapshotReader.IMPORT_REGISTRY_BEAN_NAME}) {
+				if (this.beanFactory.containsBean(registryName)) {
+					ImportRegistry ir = this.beanFactory.getBean(registryName, ImportRegistry.class);
+					AnnotationMetadata importingClass = ir.getImportingClassFor(importedClass);
+					if (importingClass != null) {
+						return importingClass;
+					}
+				}
+			}
+			return null;
+		}
 	}
 
 }
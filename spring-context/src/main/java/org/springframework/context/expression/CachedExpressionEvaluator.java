@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,24 @@
 
 package org.springframework.context.expression;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.Expression;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 
 /**
@@ -36,9 +46,16 @@ import org.springframework.util.ObjectUtils;
  */
 public abstract class CachedExpressionEvaluator {
 
+	private static final String COMPILER_MODE_PROPERTY_NAME = "spring.expression.compiler.mode";
+
+
 	private final SpelExpressionParser parser;
 
-	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+	private final ParameterNameDiscoverer parameterNameDiscoverer =
+			new CachingParameterNameDiscoverer(new DefaultParameterNameDiscoverer());
+
+	private final List<PropertyAccessor> propertyAccessors =
+			Collections.singletonList(new ReflectivePropertyAccessor());
 
 
 	/**
@@ -72,6 +89,17 @@ public abstract class CachedExpressionEvaluator {
 		return this.parameterNameDiscoverer;
 	}
 
+	/**
+	 * Return shared property accessors for the evaluation contexts created
+	 * by this evaluator, so that the reflective lookups they cache internally
+	 * are retained across evaluations.
+	 * <p>The returned list is immutable.
+	 * @since 5.2.4
+	 */
+	protected List<PropertyAccessor> getPropertyAccessors() {
+		return this.propertyAccessors;
+	}
+
 
 	/**
 	 * Return the {@link Expression} for the specified SpEL value
@@ -97,6 +125,60 @@ public abstract class CachedExpressionEvaluator {
 	}
 
 
+	/**
+	 * Create a {@link SpelExpressionParser} that compiles expressions in
+	 * {@link SpelCompilerMode#MIXED} mode: expressions are compiled once they
+	 * have been interpreted a number of times, and revert to being interpreted
+	 * if the compiled form fails. This is suitable for the expressions that are
+	 * evaluated on every invocation of an annotated method.
+	 * <p>If the {@code "spring.expression.compiler.mode"} property is set, the
+	 * compiler mode specified there is used instead.
+	 * @since 5.2.4
+	 * @see SpelParserConfiguration
+	 */
+	protected static SpelExpressionParser createCompilingParser() {
+		if (SpringProperties.getProperty(COMPILER_MODE_PROPERTY_NAME) != null) {
+			return new SpelExpressionParser();
+		}
+		return new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, null));
+	}
+
+
+	/**
+	 * {@link ParameterNameDiscoverer} decorator that caches the parameter
+	 * names of methods, including the absence of names.
+	 */
+	private static class CachingParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+		private static final String[] NO_NAMES = new String[0];
+
+		private final ParameterNameDiscoverer delegate;
+
+		private final Map<Method, String[]> parameterNamesCache = new ConcurrentReferenceHashMap<>();
+
+		CachingParameterNameDiscoverer(ParameterNameDiscoverer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Method method) {
+			String[] names = this.parameterNamesCache.get(method);
+			if (names == null) {
+				names = this.delegate.getParameterNames(method);
+				this.parameterNamesCache.put(method, (names != null ? names : NO_NAMES));
+			}
+			return (names != NO_NAMES ? names : null);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Constructor<?> ctor) {
+			return this.delegate.getParameterNames(ctor);
+		}
+	}
+
+
 	/**
 	 * An expression key.
 	 */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,11 @@ package org.springframework.cache.concurrent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +32,7 @@ import org.springframework.context.testfixture.cache.AbstractValueAdaptingCacheT
 import org.springframework.core.serializer.support.SerializationDelegate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 /**
@@ -116,6 +120,51 @@ public class ConcurrentMapCacheTests
 			.withMessageContaining("Some garbage");
 	}
 
+	@Test
+	public void testRetrieve() throws Exception {
+		String key = createRandomKey();
+		assertThat(this.cache.retrieve(key).get()).isNull();
+
+		this.cache.put(key, "value");
+		assertThat(this.cache.retrieve(key).get().get()).isEqualTo("value");
+	}
+
+	@Test
+	public void testRetrieveWithLoaderSharesPendingLoad() throws Exception {
+		String key = createRandomKey();
+		CompletableFuture<String> value = new CompletableFuture<>();
+		AtomicInteger counter = new AtomicInteger();
+
+		CompletableFuture<String> first = this.cache.retrieve(key, () -> {
+			counter.incrementAndGet();
+			return value;
+		});
+		CompletableFuture<String> second = this.cache.retrieve(key, () -> {
+			counter.incrementAndGet();
+			return value;
+		});
+		assertThat(first.isDone()).isFalse();
+		assertThat(this.cache.get(key)).isNull();
+
+		value.complete("value");
+		assertThat(first.get()).isEqualTo("value");
+		assertThat(second.get()).isEqualTo("value");
+		assertThat(counter.get()).isEqualTo(1);
+		assertThat(this.cache.get(key, String.class)).isEqualTo("value");
+	}
+
+	@Test
+	public void testRetrieveWithLoaderFailureIsNotCached() {
+		String key = createRandomKey();
+		CompletableFuture<String> value = new CompletableFuture<>();
+		value.completeExceptionally(new IllegalStateException("Expected failure"));
+
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() ->
+				this.cache.retrieve(key, () -> value).get())
+			.withCauseInstanceOf(IllegalStateException.class);
+		assertThat(this.cache.get(key)).isNull();
+	}
+
 
 	private ConcurrentMapCache createCacheWithStoreByValue() {
 		return new ConcurrentMapCache(CACHE_NAME, this.nativeCache, true,
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -124,6 +124,21 @@ public class ExpressionEvaluatorTests {
 			.satisfies(ex ->  assertThat(ex.getName()).isEqualTo("result"));
 	}
 
+	@Test
+	public void repeatedConditionEvaluation() {
+		AnnotatedElementKey methodKey = new AnnotatedElementKey(
+				ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class, Object.class),
+				AnnotatedClass.class);
+		String condition = "#result == 'theResult'";
+		for (int i = 0; i < 200; i++) {
+			EvaluationContext context = createEvaluationContext(CacheOperationExpressionEvaluator.RESULT_UNAVAILABLE);
+			assertThatExceptionOfType(VariableNotAvailableException.class).isThrownBy(() ->
+					this.eval.condition(condition, methodKey, context));
+			assertThat(this.eval.condition(condition, methodKey, createEvaluationContext("theResult"))).isTrue();
+			assertThat(this.eval.condition(condition, methodKey, createEvaluationContext("other"))).isFalse();
+		}
+	}
+
 	@Test
 	public void resolveBeanReference() {
 		StaticApplicationContext applicationContext = new StaticApplicationContext();
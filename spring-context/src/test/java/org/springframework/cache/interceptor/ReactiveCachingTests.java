@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link Cacheable} on methods returning a reactive type.
+ *
+ * @since 5.2.4
+ */
+public class ReactiveCachingTests {
+
+	private ConfigurableApplicationContext context;
+
+	private Cache cache;
+
+	private ReactiveService service;
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+		this.service = this.context.getBean(ReactiveService.class);
+	}
+
+	@AfterEach
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void cacheableMono() {
+		Long first = this.service.mono("a").block();
+		Long second = this.service.mono("a").block();
+		assertThat(second).isEqualTo(first);
+		assertThat(this.cache.get("a").get()).isEqualTo(first);
+		assertThat(this.service.subscriptions.get()).isEqualTo(1);
+
+		Long other = this.service.mono("b").block();
+		assertThat(other).isNotEqualTo(first);
+		assertThat(this.service.subscriptions.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void cacheableFlux() {
+		List<Long> first = this.service.flux("a").collectList().block();
+		List<Long> second = this.service.flux("a").collectList().block();
+		assertThat(second).isEqualTo(first);
+		assertThat(this.cache.get("a").get()).isEqualTo(first);
+		assertThat(this.service.subscriptions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void cacheableMonoNotSubscribed() {
+		this.service.mono("a");
+		assertThat(this.cache.get("a")).isNull();
+		assertThat(this.service.subscriptions.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void concurrentMissesShareSubscription() {
+		Mono<Long> first = this.service.mono("a");
+		Mono<Long> second = this.service.mono("a");
+		List<Long> result = Flux.merge(first, second).collectList().block();
+		assertThat(result).hasSize(2);
+		assertThat(result.get(1)).isEqualTo(result.get(0));
+		assertThat(this.service.subscriptions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void synchronizedConcurrentMissesShareSubscription() {
+		Mono<Long> first = this.service.syncMono("a");
+		Mono<Long> second = this.service.syncMono("a");
+		List<Long> result = Flux.merge(first, second).collectList().block();
+		assertThat(result).hasSize(2);
+		assertThat(result.get(1)).isEqualTo(result.get(0));
+		assertThat(this.cache.get("a").get()).isEqualTo(result.get(0));
+		assertThat(this.service.subscriptions.get()).isEqualTo(1);
+
+		Long third = this.service.syncMono("a").block();
+		assertThat(third).isEqualTo(result.get(0));
+		assertThat(this.service.subscriptions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void failedMonoNotCached() {
+		this.service.fail.set(true);
+		assertThat(this.service.mono("a").onErrorReturn(-1L).block()).isEqualTo(-1L);
+		assertThat(this.cache.get("a")).isNull();
+
+		this.service.fail.set(false);
+		assertThat(this.service.mono("a").block()).isNotNull();
+		assertThat(this.cache.get("a")).isNotNull();
+	}
+
+	@Test
+	public void synchronizedMethodFailureNotWrapped() {
+		Mono<Long> result = this.service.syncMonoFailingEagerly("a");
+		assertThat(result.onErrorResume(IllegalStateException.class, ex -> Mono.just(-1L)).block()).isEqualTo(-1L);
+		assertThat(this.cache.get("a")).isNull();
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config extends CachingConfigurerSupport {
+
+		@Bean
+		@Override
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public ReactiveService reactiveService() {
+			return new ReactiveService();
+		}
+	}
+
+
+	@CacheConfig(cacheNames = "test")
+	public static class ReactiveService {
+
+		private final AtomicLong subscriptions = new AtomicLong();
+
+		private final AtomicLong counter = new AtomicLong();
+
+		private final AtomicBoolean fail = new AtomicBoolean();
+
+		@Cacheable
+		public Mono<Long> mono(String key) {
+			return Mono.fromCallable(() -> {
+				this.subscriptions.incrementAndGet();
+				if (this.fail.get()) {
+					throw new IllegalStateException("Upstream failure");
+				}
+				return this.counter.getAndIncrement();
+			}).delayElement(Duration.ofMillis(50));
+		}
+
+		@Cacheable(sync = true)
+		public Mono<Long> syncMono(String key) {
+			return mono(key);
+		}
+
+		@Cacheable(sync = true)
+		public Mono<Long> syncMonoFailingEagerly(String key) {
+			throw new IllegalStateException("Eager failure");
+		}
+
+		@Cacheable
+		public Flux<Long> flux(String key) {
+			return Flux.defer(() -> {
+				this.subscriptions.incrementAndGet();
+				return Flux.fromIterable(Arrays.asList(this.counter.getAndIncrement(), this.counter.getAndIncrement()));
+			});
+		}
+	}
+
+}
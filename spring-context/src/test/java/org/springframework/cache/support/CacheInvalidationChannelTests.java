@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CacheInvalidationChannel} implementations.
+ */
+public class CacheInvalidationChannelTests {
+
+	@Test
+	public void inProcessChannel() {
+		InProcessCacheInvalidationChannel channel = new InProcessCacheInvalidationChannel();
+		List<CacheInvalidationEvent> received = new ArrayList<>();
+		Consumer<CacheInvalidationEvent> listener = received::add;
+		channel.subscribe(listener);
+
+		CacheInvalidationEvent event = new CacheInvalidationEvent("node1", "test", "key");
+		channel.publish(event);
+		assertThat(received).containsExactly(event);
+
+		channel.unsubscribe(listener);
+		channel.publish(new CacheInvalidationEvent("node1", "test", null));
+		assertThat(received).containsExactly(event);
+	}
+
+	@Test
+	public void applicationEventChannel() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBean(ApplicationEventCacheInvalidationChannel.class);
+		context.refresh();
+		CacheInvalidationChannel channel = context.getBean(CacheInvalidationChannel.class);
+		List<CacheInvalidationEvent> received = new ArrayList<>();
+		channel.subscribe(received::add);
+
+		CacheInvalidationEvent event = new CacheInvalidationEvent("node1", "test", null);
+		channel.publish(event);
+		assertThat(received).containsExactly(event);
+		assertThat(event.getOrigin()).isEqualTo("node1");
+		assertThat(event.getKey()).isNull();
+		context.close();
+	}
+
+}
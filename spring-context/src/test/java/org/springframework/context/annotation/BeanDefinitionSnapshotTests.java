@@ -0,0 +1,267 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshotGenerator} and {@link BeanDefinitionSnapshotReader}.
+ */
+public class BeanDefinitionSnapshotTests {
+
+	@Test
+	public void roundTrip() throws IOException {
+		ByteArrayResource snapshot = generate(new StandardEnvironment(), SnapshotConfig.class);
+
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		int count = new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(snapshot);
+		assertThat(count).isEqualTo(5);
+		assertThat(ctx.containsBeanDefinition("testBean")).isTrue();
+		assertThat(ctx.containsBeanDefinition("devBean")).isFalse();
+		ctx.refresh();
+
+		TestBean testBean = ctx.getBean("testBean", TestBean.class);
+		assertThat(testBean.getName()).isEqualTo("snapshot");
+		assertThat(testBean.getSpouse()).isSameAs(ctx.getBean("spouse"));
+		assertThat(ctx.getBean("myTestBean")).isSameAs(testBean);
+		assertThat(ctx.getBean(SnapshotConfig.class).spouse()).isSameAs(ctx.getBean("spouse"));
+
+		AnnotationMetadata importMetadata = ctx.getBean(ImportedSnapshotConfig.class).importMetadata;
+		assertThat(importMetadata).isNotNull();
+		assertThat(importMetadata.getClassName()).isEqualTo(SnapshotConfig.class.getName());
+		assertThat(ctx.getBean("importedBean")).isEqualTo("imported");
+		ctx.close();
+	}
+
+	@Test
+	public void roundTripWithActiveProfile() throws IOException {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("dev");
+		ByteArrayResource snapshot = generate(environment, SnapshotConfig.class);
+
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		ctx.getEnvironment().setActiveProfiles("dev");
+		new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(snapshot);
+		assertThat(ctx.containsBeanDefinition("devBean")).isTrue();
+		ctx.refresh();
+		assertThat(ctx.getBean("devBean")).isEqualTo("dev");
+		ctx.close();
+	}
+
+	@Test
+	public void fallbackOnProfileMismatch() throws IOException {
+		ByteArrayResource snapshot = generate(new StandardEnvironment(), SnapshotConfig.class);
+
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		ctx.getEnvironment().setActiveProfiles("dev");
+		int count = new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(snapshot);
+		assertThat(count).isEqualTo(1);
+		assertThat(ctx.containsBeanDefinition("testBean")).isFalse();
+		ctx.refresh();
+		assertThat(ctx.getBean("devBean")).isEqualTo("dev");
+		assertThat(ctx.getBean("testBean", TestBean.class).getName()).isEqualTo("snapshot");
+		assertThat(ctx.getBean(ImportedSnapshotConfig.class).importMetadata).isNotNull();
+		ctx.close();
+	}
+
+	@Test
+	public void conditionsMatching() throws IOException {
+		ByteArrayResource snapshot = generate(new StandardEnvironment(), ConditionalSnapshotConfig.class);
+
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(snapshot);
+		assertThat(ctx.containsBeanDefinition("unconditionalBean")).isTrue();
+		assertThat(ctx.containsBeanDefinition("conditionalBean")).isFalse();
+		ctx.refresh();
+		assertThat(ctx.containsBean("conditionalBean")).isFalse();
+		ctx.close();
+	}
+
+	@Test
+	public void fallbackOnConditionMismatch() throws IOException {
+		ByteArrayResource snapshot = generate(new StandardEnvironment(), ConditionalSnapshotConfig.class);
+
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		ctx.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+				Collections.singletonMap("snapshot.condition", "true")));
+		int count = new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(snapshot);
+		assertThat(count).isEqualTo(1);
+		assertThat(ctx.containsBeanDefinition("unconditionalBean")).isFalse();
+		ctx.refresh();
+		assertThat(ctx.getBean("conditionalBean")).isEqualTo("conditional");
+		assertThat(ctx.getBean("unconditionalBean")).isEqualTo("unconditional");
+		ctx.close();
+	}
+
+	@Test
+	public void propertySourceApplied() throws IOException {
+		ByteArrayResource snapshot = generate(new StandardEnvironment(), PropertySourceSnapshotConfig.class);
+
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(snapshot);
+		assertThat(ctx.containsBeanDefinition("name")).isTrue();
+		assertThat(ctx.getEnvironment().getProperty("snapshot.name")).isEqualTo("fromPropertySource");
+		ctx.refresh();
+		assertThat(ctx.getBean("name")).isEqualTo("fromPropertySource");
+		ctx.close();
+	}
+
+	@Test
+	public void registerSnapshotWithOtherConfigurationClass() throws IOException {
+		ByteArrayResource snapshot = generate(new StandardEnvironment(), SnapshotConfig.class);
+
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.registerSnapshot(snapshot);
+		ctx.register(OtherConfig.class);
+		ctx.refresh();
+		assertThat(ctx.getBean("testBean", TestBean.class).getName()).isEqualTo("snapshot");
+		assertThat(ctx.getBean(ImportedSnapshotConfig.class).importMetadata.getClassName())
+				.isEqualTo(SnapshotConfig.class.getName());
+		assertThat(ctx.getBean(ImportedOtherConfig.class).importMetadata.getClassName())
+				.isEqualTo(OtherConfig.class.getName());
+		ctx.close();
+	}
+
+	@Test
+	public void invalidSnapshot() {
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		assertThatExceptionOfType(BeanDefinitionStoreException.class).isThrownBy(() ->
+				new BeanDefinitionSnapshotReader(ctx).loadBeanDefinitions(new ByteArrayResource(new byte[8])));
+	}
+
+
+	private static ByteArrayResource generate(StandardEnvironment environment, Class<?>... componentClasses)
+			throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BeanDefinitionSnapshotGenerator(environment).generate(out, componentClasses);
+		return new ByteArrayResource(out.toByteArray());
+	}
+
+
+	@Configuration
+	@Import(ImportedSnapshotConfig.class)
+	static class SnapshotConfig {
+
+		@Bean(name = {"testBean", "myTestBean"})
+		public TestBean testBean() {
+			TestBean testBean = new TestBean("snapshot");
+			testBean.setSpouse(spouse());
+			return testBean;
+		}
+
+		@Bean
+		public TestBean spouse() {
+			return new TestBean("spouse");
+		}
+
+		@Bean
+		@Profile("dev")
+		public String devBean() {
+			return "dev";
+		}
+	}
+
+
+	@Configuration
+	static class ImportedSnapshotConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+
+		@Bean
+		public String importedBean() {
+			return "imported";
+		}
+	}
+
+
+	@Configuration
+	static class ConditionalSnapshotConfig {
+
+		@Bean
+		@Conditional(SnapshotCondition.class)
+		public String conditionalBean() {
+			return "conditional";
+		}
+
+		@Bean
+		public String unconditionalBean() {
+			return "unconditional";
+		}
+	}
+
+
+	static class SnapshotCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return context.getEnvironment().containsProperty("snapshot.condition");
+		}
+	}
+
+
+	@Configuration
+	@PropertySource("classpath:org/springframework/context/annotation/snapshot.properties")
+	static class PropertySourceSnapshotConfig {
+
+		@Bean
+		public String name(Environment environment) {
+			return environment.getProperty("snapshot.name");
+		}
+	}
+
+
+	@Configuration
+	@Import(ImportedOtherConfig.class)
+	static class OtherConfig {
+	}
+
+
+	@Configuration
+	static class ImportedOtherConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for resolving generics through {@link ResolvableType}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public Class<?> resolveFieldGeneric(BenchmarkData data) {
+		return ResolvableType.forField(data.field).resolveGeneric(1, 0);
+	}
+
+	@Benchmark
+	public Class<?> resolveMethodReturnGeneric(BenchmarkData data) {
+		return ResolvableType.forMethodReturnType(data.method, StringRepository.class).resolveGeneric(0);
+	}
+
+	@Benchmark
+	public Class<?> resolveInterfaceGeneric(BenchmarkData data) {
+		return ResolvableType.forClass(StringRepository.class).as(Repository.class).resolveGeneric(0);
+	}
+
+	@Benchmark
+	public boolean isAssignableFromGenericType(BenchmarkData data) {
+		return data.repositoryType.isAssignableFrom(ResolvableType.forClass(StringRepository.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public Field field;
+
+		public Method method;
+
+		public ResolvableType repositoryType;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.field = Holder.class.getField("values");
+			this.method = Repository.class.getMethod("findAll");
+			this.repositoryType = ResolvableType.forClassWithGenerics(Repository.class, String.class);
+		}
+	}
+
+
+	public static class Holder {
+
+		public Map<String, List<Integer>> values = new HashMap<>();
+	}
+
+
+	public interface Repository<T> {
+
+		List<T> findAll();
+	}
+
+
+	public abstract static class StringRepository implements Repository<String> {
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+/**
+ * Benchmarks for scanning meta-annotations through {@link MergedAnnotations},
+ * on types and methods of a small class hierarchy.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MergedAnnotationsBenchmark {
+
+	@Benchmark
+	public boolean directAnnotationPresent() {
+		return MergedAnnotations.from(AnnotatedService.class).isPresent(Component.class);
+	}
+
+	@Benchmark
+	public String typeHierarchyAttribute() {
+		return MergedAnnotations.from(AnnotatedService.class, SearchStrategy.TYPE_HIERARCHY)
+				.get(Component.class).getString("value");
+	}
+
+	@Benchmark
+	public boolean typeHierarchyAnnotationMissing() {
+		return MergedAnnotations.from(AnnotatedService.class, SearchStrategy.TYPE_HIERARCHY)
+				.isPresent(Deprecated.class);
+	}
+
+	@Benchmark
+	public boolean methodTypeHierarchyAnnotationPresent(BenchmarkData data) {
+		return MergedAnnotations.from(data.method, SearchStrategy.TYPE_HIERARCHY).isPresent(Component.class);
+	}
+
+	@Benchmark
+	public Component synthesizedAnnotation() {
+		return AnnotatedElementUtils.findMergedAnnotation(AnnotatedService.class, Component.class);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.method = AnnotatedService.class.getMethod("handle", String.class);
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@Inherited
+	public @interface Component {
+
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Component
+	public @interface Service {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Service
+	public @interface TransactionalService {
+
+		@AliasFor(annotation = Service.class)
+		String value() default "";
+	}
+
+
+	public interface Handler {
+
+		@Service
+		void handle(String input);
+	}
+
+
+	@TransactionalService("service")
+	public static class BaseService implements Handler {
+
+		@Override
+		public void handle(String input) {
+		}
+	}
+
+
+	public static class AnnotatedService extends BaseService {
+
+		@Override
+		public void handle(String input) {
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks for allocating, writing and releasing data buffers with the
+ * {@link DefaultDataBufferFactory} and the {@link PooledDefaultDataBufferFactory}.
+ * Run with {@code -PjmhProfilers=gc} to compare allocation rates.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class DataBufferAllocationBenchmark {
+
+	@Benchmark
+	public boolean allocateWriteRelease(BenchmarkData data) {
+		DataBuffer buffer = data.bufferFactory.allocateBuffer(data.payload.length);
+		buffer.write(data.payload);
+		return DataBufferUtils.release(buffer);
+	}
+
+	@Benchmark
+	public boolean growWriteRelease(BenchmarkData data) {
+		DataBuffer buffer = data.bufferFactory.allocateBuffer();
+		for (int offset = 0; offset < data.payload.length; offset += 64) {
+			buffer.write(data.payload, offset, Math.min(64, data.payload.length - offset));
+		}
+		return DataBufferUtils.release(buffer);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"default", "pooled", "pooledDirect"})
+		public String factory;
+
+		@Param({"256", "8192"})
+		public int size;
+
+		public DataBufferFactory bufferFactory;
+
+		public byte[] payload;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			switch (this.factory) {
+				case "pooled":
+					this.bufferFactory = new PooledDefaultDataBufferFactory(false);
+					break;
+				case "pooledDirect":
+					this.bufferFactory = new PooledDefaultDataBufferFactory(true);
+					break;
+				default:
+					this.bufferFactory = new DefaultDataBufferFactory(false);
+			}
+			this.payload = new byte[this.size];
+			Arrays.fill(this.payload, (byte) 'a');
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.util;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for parsing {@link MimeType MimeTypes} through {@link MimeTypeUtils}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MimeTypeBenchmark {
+
+	@Benchmark
+	public MimeType parseMimeType(BenchmarkData data) {
+		return MimeTypeUtils.parseMimeType(data.mimeType);
+	}
+
+	@Benchmark
+	public List<MimeType> parseMimeTypes(BenchmarkData data) {
+		return MimeTypeUtils.parseMimeTypes(data.mimeTypes);
+	}
+
+	@Benchmark
+	public boolean isCompatibleWith(BenchmarkData data) {
+		return MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(MimeTypeUtils.parseMimeType(data.mimeType));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"application/json", "text/html;charset=UTF-8", "application/vnd.example+json;q=0.8;version=2"})
+		public String mimeType;
+
+		public String mimeTypes =
+				"text/html, application/xhtml+xml, application/xml;q=0.9, image/webp, image/apng, */*;q=0.8";
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.core.codec;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -41,6 +42,9 @@ import org.springframework.util.StreamUtils;
 /**
  * Encoder for {@link ResourceRegion ResourceRegions}.
  *
+ * <p>Regions of 1 MB or more of file-based resources are not read into
+ * buffers, but {@linkplain DataBufferUtils#readMapped memory-mapped}.
+ *
  * @author Brian Clozel
  * @since 5.0
  */
@@ -56,6 +60,16 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 	 */
 	public static final String BOUNDARY_STRING_HINT = ResourceRegionEncoder.class.getName() + ".boundaryString";
 
+	/**
+	 * Regions of files at least this large are memory-mapped rather than read.
+	 */
+	private static final long MAPPED_REGION_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * The maximum size of a single memory-mapped region.
+	 */
+	private static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
+
 	private final int bufferSize;
 
 
@@ -129,6 +143,15 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 					"Writing region " + position + "-" + (position + count) + " of [" + resource + "]");
 		}
 
+		if (count >= MAPPED_REGION_THRESHOLD && resource.isFile()) {
+			try {
+				File file = resource.getFile();
+				return DataBufferUtils.readMapped(file.toPath(), position, count, bufferFactory, MAPPED_REGION_SIZE);
+			}
+			catch (IOException ex) {
+				// fallback to DataBufferUtils#read, below
+			}
+		}
 		Flux<DataBuffer> in = DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize);
 		return DataBufferUtils.takeUntilByteCount(in, count);
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
@@ -229,6 +230,40 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Read the given region of a file into a {@code Flux} of memory-mapped
+	 * {@code DataBuffer}s, each mapping at most {@code regionSize} bytes.
+	 * <p>The file content is not copied into heap memory: the data buffers
+	 * {@linkplain DataBufferFactory#wrap(ByteBuffer) wrap} the mapped regions,
+	 * which are backed by the page cache of the operating system. This is
+	 * worthwhile for large files only, since mapping a region is more
+	 * expensive than reading a few kilobytes. Note that mapped regions are
+	 * only unmapped once garbage collected, so {@code regionSize} should not
+	 * be too small either.
+	 * <p>The region is truncated to the size of the file, and the file is
+	 * closed when the flux is terminated.
+	 * @param path the path of the file to map
+	 * @param position the position in the file to start at
+	 * @param count the number of bytes to read
+	 * @param bufferFactory the factory to wrap the mapped regions with
+	 * @param regionSize the maximum size of each mapped region
+	 * @return a Flux of data buffers that map the given region of the file
+	 * @since 5.2.4
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Path path, long position, long count, DataBufferFactory bufferFactory, int regionSize) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(count >= 0, "'count' must be >= 0");
+		Assert.isTrue(regionSize > 0, "'regionSize' must be > 0");
+
+		return Flux.using(() -> FileChannel.open(path, StandardOpenOption.READ),
+				channel -> Flux.generate(new MappedRegionGenerator(channel, position, count, bufferFactory, regionSize)),
+				DataBufferUtils::closeChannel);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -659,6 +694,49 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedRegionGenerator implements Consumer<SynchronousSink<DataBuffer>> {
+
+		private final FileChannel channel;
+
+		private final DataBufferFactory dataBufferFactory;
+
+		private final int regionSize;
+
+		private final long end;
+
+		private long position;
+
+		public MappedRegionGenerator(FileChannel channel, long position, long count,
+				DataBufferFactory dataBufferFactory, int regionSize) {
+
+			this.channel = channel;
+			this.position = position;
+			this.end = (count > Long.MAX_VALUE - position ? Long.MAX_VALUE : position + count);
+			this.dataBufferFactory = dataBufferFactory;
+			this.regionSize = regionSize;
+		}
+
+		@Override
+		public void accept(SynchronousSink<DataBuffer> sink) {
+			try {
+				// Never map beyond the end of the file: accessing such a mapping fails
+				long end = Math.min(this.end, this.channel.size());
+				if (this.position >= end) {
+					sink.complete();
+					return;
+				}
+				long size = Math.min(this.regionSize, end - this.position);
+				ByteBuffer region = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+				this.position += size;
+				sink.next(this.dataBufferFactory.wrap(region));
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+		}
+	}
+
+
 	private static class ReadCompletionHandler implements CompletionHandler<Integer, DataBuffer> {
 
 		private final AsynchronousFileChannel channel;
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link DefaultDataBuffer} allocated by a {@link PooledDefaultDataBufferFactory},
+ * returning its memory to the pool of the factory once released.
+ *
+ * @since 5.2.4
+ */
+final class PooledDefaultDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+	private static final AtomicIntegerFieldUpdater<PooledDefaultDataBuffer> REF_COUNT_UPDATER =
+			AtomicIntegerFieldUpdater.newUpdater(PooledDefaultDataBuffer.class, "refCount");
+
+	private static final ByteBuffer RELEASED_BUFFER = ByteBuffer.allocate(0);
+
+
+	private final PooledDefaultDataBufferFactory pool;
+
+	private ByteBuffer chunk;
+
+	private boolean shared;
+
+	@Nullable
+	private PooledDefaultDataBufferFactory.LeakRecord leakRecord;
+
+	private volatile int refCount = 1;
+
+
+	PooledDefaultDataBuffer(PooledDefaultDataBufferFactory pool, ByteBuffer chunk, int capacity) {
+		super(pool, view(chunk, capacity));
+		this.pool = pool;
+		this.chunk = chunk;
+	}
+
+	private static ByteBuffer view(ByteBuffer chunk, int capacity) {
+		ByteBuffer view = chunk.duplicate();
+		// Explicit access via Buffer base type for compatibility
+		// with covariant return type on JDK 9's ByteBuffer...
+		((Buffer) view).clear().limit(capacity);
+		return view;
+	}
+
+
+	void setLeakRecord(PooledDefaultDataBufferFactory.LeakRecord leakRecord) {
+		this.leakRecord = leakRecord;
+	}
+
+	@Override
+	public DefaultDataBuffer capacity(int newCapacity) {
+		ByteBuffer oldChunk = this.chunk;
+		boolean shared = this.shared;
+		super.capacity(newCapacity);
+		if (this.chunk != oldChunk && !shared) {
+			// No slices or views of the old memory are around: safe to reuse
+			this.pool.recycleChunk(oldChunk);
+		}
+		return this;
+	}
+
+	@Override
+	ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+		if (direct != this.pool.isPreferDirect()) {
+			return super.allocateNativeBuffer(capacity, direct);
+		}
+		if (capacity <= this.chunk.capacity()) {
+			// Resize within the current memory, copying the content onto itself
+			return view(this.chunk, capacity).slice();
+		}
+		this.chunk = this.pool.allocateChunk(capacity);
+		this.shared = false;
+		return view(this.chunk, capacity).slice();
+	}
+
+	@Override
+	DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+		this.shared = true;
+		return new SlicedPooledDataBuffer(this, slice, length);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		this.shared = true;
+		return super.asByteBuffer(index, length);
+	}
+
+	@Override
+	public ByteBuffer getNativeBuffer() {
+		this.shared = true;
+		return super.getNativeBuffer();
+	}
+
+
+	@Override
+	public boolean isAllocated() {
+		return this.refCount > 0;
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		while (true) {
+			int refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("Cannot retain released DataBuffer");
+			}
+			if (REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount + 1)) {
+				return this;
+			}
+		}
+	}
+
+	@Override
+	public boolean release() {
+		while (true) {
+			int refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			if (REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount - 1)) {
+				if (refCount == 1) {
+					deallocate();
+					return true;
+				}
+				return false;
+			}
+		}
+	}
+
+	private void deallocate() {
+		ByteBuffer chunk = this.chunk;
+		// Fail on further access rather than reading memory handed out again
+		setNativeBuffer(RELEASED_BUFFER);
+		if (this.leakRecord != null) {
+			this.leakRecord.close();
+		}
+		this.pool.recycleChunk(chunk);
+		this.pool.deallocated();
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing its reference count.
+	 */
+	private static final class SlicedPooledDataBuffer extends SlicedDefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		SlicedPooledDataBuffer(PooledDefaultDataBuffer parent, ByteBuffer slice, int length) {
+			super(slice, parent.factory(), length);
+			this.parent = parent;
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new SlicedPooledDataBuffer(this.parent, slice, length);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+}
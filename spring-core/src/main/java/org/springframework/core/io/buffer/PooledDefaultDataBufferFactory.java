@@ -0,0 +1,403 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Variant of {@link DefaultDataBufferFactory} that recycles the memory of
+ * released buffers, for runtimes without Netty (i.e. Servlet, Undertow).
+ * Buffers allocated by this factory implement {@link PooledDataBuffer}, and
+ * their memory is returned to the pool when their reference count drops to 0.
+ *
+ * <p>Capacities up to the {@linkplain #getMaxPooledCapacity() maximum pooled
+ * capacity} are rounded up to power-of-two size classes, starting at 64 bytes.
+ * Released memory is first kept in a small per-thread cache and then in one of
+ * several shared arenas, each with a bounded amount of memory per size class,
+ * with memory beyond those bounds left to the garbage collector. Larger
+ * buffers are allocated on demand and not pooled.
+ *
+ * <p>Every buffer that is allocated must be released, e.g. through
+ * {@link DataBufferUtils#release(DataBuffer)}. Similar to Netty's
+ * {@code ResourceLeakDetector}, a sample of the allocated buffers is tracked,
+ * and buffers that get garbage collected without having been released are
+ * logged at error level along with the stack trace of their allocation.
+ *
+ * <p>Slices share the reference count of the buffer they were created from.
+ * Buffers obtained through {@link DataBufferFactory#wrap wrap} are not pooled.
+ *
+ * @since 5.2.4
+ * @see DefaultDataBufferFactory
+ */
+public class PooledDefaultDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #PooledDefaultDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default interval at which allocated buffers are tracked for leaks.
+	 * @see #setLeakDetectionSamplingInterval(int)
+	 */
+	public static final int DEFAULT_LEAK_DETECTION_SAMPLING_INTERVAL = 128;
+
+	private static final int MIN_POOLED_CAPACITY = 64;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = 6;
+
+	private static final int ARENA_BYTES_PER_SIZE_CLASS = 128 * 1024;
+
+	private static final int THREAD_CACHE_BYTES_PER_SIZE_CLASS = 8 * 1024;
+
+	private static final int MAX_THREAD_CACHE_ENTRIES = 4;
+
+	private static final Log logger = LogFactory.getLog(PooledDefaultDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final int sizeClassCount;
+
+	private final Arena[] arenas;
+
+	private final AtomicInteger nextArena = new AtomicInteger();
+
+	private final ThreadLocal<ThreadCache> threadCache = new NamedThreadLocal<ThreadCache>("Pooled DataBuffer cache") {
+		@Override
+		protected ThreadCache initialValue() {
+			return createThreadCache();
+		}
+	};
+
+	private final AtomicLong activeAllocations = new AtomicLong();
+
+	private final ReferenceQueue<Object> leakQueue = new ReferenceQueue<>();
+
+	private final Set<LeakRecord> leakRecords = ConcurrentHashMap.newKeySet();
+
+	private volatile int leakDetectionSamplingInterval = DEFAULT_LEAK_DETECTION_SAMPLING_INTERVAL;
+
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory} with default settings.
+	 */
+	public PooledDefaultDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDefaultDataBufferFactory}, indicating whether
+	 * direct buffers should be pooled, what the capacity is to be used for
+	 * {@link #allocateBuffer()}, and up to which capacity buffers are pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers, rounded
+	 * up to the next power of two
+	 */
+	public PooledDefaultDataBufferFactory(boolean preferDirect, int defaultInitialCapacity, int maxPooledCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity > 0 && maxPooledCapacity <= (1 << 30),
+				"'maxPooledCapacity' should be larger than 0 and at most 2^30");
+		this.preferDirect = preferDirect;
+		this.maxPooledCapacity = Math.max(sizeOf(sizeClassOf(maxPooledCapacity)), MIN_POOLED_CAPACITY);
+		this.sizeClassCount = sizeClassOf(this.maxPooledCapacity) + 1;
+		this.arenas = new Arena[Runtime.getRuntime().availableProcessors()];
+		for (int i = 0; i < this.arenas.length; i++) {
+			this.arenas[i] = new Arena(this.sizeClassCount);
+		}
+	}
+
+
+	/**
+	 * Set the interval at which allocated buffers are tracked for leaks, e.g.
+	 * {@code 1} to track every buffer, or {@code 0} to disable leak detection.
+	 * <p>By default, every {@value #DEFAULT_LEAK_DETECTION_SAMPLING_INTERVAL}th
+	 * buffer is tracked.
+	 */
+	public void setLeakDetectionSamplingInterval(int leakDetectionSamplingInterval) {
+		Assert.isTrue(leakDetectionSamplingInterval >= 0, "'leakDetectionSamplingInterval' must be >= 0");
+		this.leakDetectionSamplingInterval = leakDetectionSamplingInterval;
+	}
+
+	/**
+	 * Return the interval at which allocated buffers are tracked for leaks.
+	 */
+	public int getLeakDetectionSamplingInterval() {
+		return this.leakDetectionSamplingInterval;
+	}
+
+	/**
+	 * Return the maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Return the number of buffers allocated by this factory that have not
+	 * been released yet.
+	 */
+	public long getActiveAllocations() {
+		return this.activeAllocations.get();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		ByteBuffer chunk = allocateChunk(initialCapacity);
+		PooledDefaultDataBuffer dataBuffer = new PooledDefaultDataBuffer(this, chunk, initialCapacity);
+		this.activeAllocations.incrementAndGet();
+		int interval = this.leakDetectionSamplingInterval;
+		if (interval > 0 && (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0)) {
+			reportLeaks();
+			dataBuffer.setLeakRecord(new LeakRecord(dataBuffer, this.leakQueue, this.leakRecords));
+		}
+		return dataBuffer;
+	}
+
+	/**
+	 * Return memory for a buffer of the given capacity, taken from the pool
+	 * if possible. The returned memory may be larger than requested.
+	 */
+	ByteBuffer allocateChunk(int capacity) {
+		if (capacity > this.maxPooledCapacity) {
+			return allocate(capacity);
+		}
+		int sizeClass = sizeClassOf(capacity);
+		ThreadCache cache = this.threadCache.get();
+		ByteBuffer chunk = cache.pop(sizeClass);
+		if (chunk == null) {
+			chunk = cache.arena.pop(sizeClass);
+		}
+		return (chunk != null ? chunk : allocate(sizeOf(sizeClass)));
+	}
+
+	/**
+	 * Return the memory of a buffer to the pool.
+	 */
+	void recycleChunk(ByteBuffer chunk) {
+		if (chunk.capacity() > this.maxPooledCapacity || chunk.isDirect() != this.preferDirect) {
+			return;
+		}
+		int sizeClass = sizeClassOf(chunk.capacity());
+		ThreadCache cache = this.threadCache.get();
+		if (!cache.push(sizeClass, chunk)) {
+			cache.arena.push(sizeClass, chunk);
+		}
+	}
+
+	/**
+	 * Callback from a buffer that has been released.
+	 */
+	void deallocated() {
+		this.activeAllocations.decrementAndGet();
+	}
+
+	boolean isPreferDirect() {
+		return this.preferDirect;
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private ThreadCache createThreadCache() {
+		Arena arena = this.arenas[Math.abs(this.nextArena.getAndIncrement() % this.arenas.length)];
+		return new ThreadCache(arena, this.sizeClassCount);
+	}
+
+	private void reportLeaks() {
+		Object reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			LeakRecord record = (LeakRecord) reference;
+			if (this.leakRecords.remove(record) && logger.isErrorEnabled()) {
+				logger.error("LEAK: DataBuffer.release() was not called before it was garbage-collected. " +
+						"Make sure to release all buffers allocated by " + this, record.allocation);
+			}
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDefaultDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	private static int sizeClassOf(int capacity) {
+		if (capacity <= MIN_POOLED_CAPACITY) {
+			return 0;
+		}
+		return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_SIZE_CLASS_SHIFT;
+	}
+
+	private static int sizeOf(int sizeClass) {
+		return MIN_POOLED_CAPACITY << sizeClass;
+	}
+
+
+	/**
+	 * Bounded stack of released memory for a single size class.
+	 */
+	private static final class ChunkStack {
+
+		private final ByteBuffer[] chunks;
+
+		private int size;
+
+		ChunkStack(int maxSize) {
+			this.chunks = new ByteBuffer[maxSize];
+		}
+
+		@Nullable
+		ByteBuffer pop() {
+			if (this.size == 0) {
+				return null;
+			}
+			ByteBuffer chunk = this.chunks[--this.size];
+			this.chunks[this.size] = null;
+			return chunk;
+		}
+
+		boolean push(ByteBuffer chunk) {
+			if (this.size == this.chunks.length) {
+				return false;
+			}
+			this.chunks[this.size++] = chunk;
+			return true;
+		}
+	}
+
+
+	/**
+	 * Memory shared by the threads assigned to it, guarded per size class.
+	 */
+	private static final class Arena {
+
+		private final ChunkStack[] stacks;
+
+		Arena(int sizeClassCount) {
+			this.stacks = new ChunkStack[sizeClassCount];
+			for (int i = 0; i < sizeClassCount; i++) {
+				this.stacks[i] = new ChunkStack(Math.max(1, ARENA_BYTES_PER_SIZE_CLASS / sizeOf(i)));
+			}
+		}
+
+		@Nullable
+		ByteBuffer pop(int sizeClass) {
+			ChunkStack stack = this.stacks[sizeClass];
+			synchronized (stack) {
+				return stack.pop();
+			}
+		}
+
+		void push(int sizeClass, ByteBuffer chunk) {
+			ChunkStack stack = this.stacks[sizeClass];
+			synchronized (stack) {
+				stack.push(chunk);
+			}
+		}
+	}
+
+
+	/**
+	 * Memory cached for the current thread, in front of its arena.
+	 */
+	private static final class ThreadCache {
+
+		final Arena arena;
+
+		private final ChunkStack[] stacks;
+
+		ThreadCache(Arena arena, int sizeClassCount) {
+			this.arena = arena;
+			this.stacks = new ChunkStack[sizeClassCount];
+			for (int i = 0; i < sizeClassCount; i++) {
+				int maxSize = Math.min(MAX_THREAD_CACHE_ENTRIES, THREAD_CACHE_BYTES_PER_SIZE_CLASS / sizeOf(i));
+				if (maxSize > 0) {
+					this.stacks[i] = new ChunkStack(maxSize);
+				}
+			}
+		}
+
+		@Nullable
+		ByteBuffer pop(int sizeClass) {
+			ChunkStack stack = this.stacks[sizeClass];
+			return (stack != null ? stack.pop() : null);
+		}
+
+		boolean push(int sizeClass, ByteBuffer chunk) {
+			ChunkStack stack = this.stacks[sizeClass];
+			return (stack != null && stack.push(chunk));
+		}
+	}
+
+
+	/**
+	 * Weak reference to a tracked buffer, enqueued if the buffer is garbage
+	 * collected without having been released.
+	 */
+	static final class LeakRecord extends WeakReference<Object> {
+
+		private final Set<LeakRecord> records;
+
+		private final Throwable allocation;
+
+		LeakRecord(Object dataBuffer, ReferenceQueue<Object> queue, Set<LeakRecord> records) {
+			super(dataBuffer, queue);
+			this.records = records;
+			this.allocation = new Throwable("Allocation of " + dataBuffer.getClass().getSimpleName());
+			records.add(this);
+		}
+
+		void close() {
+			this.records.remove(this);
+			clear();
+		}
+	}
+
+}
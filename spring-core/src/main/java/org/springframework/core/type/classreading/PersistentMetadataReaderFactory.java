@@ -0,0 +1,496 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.Attribute;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.TypePath;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * {@link CachingMetadataReaderFactory} extension which additionally persists
+ * class metadata to a memory-mapped cache file, allowing warm restarts and
+ * forked test JVMs to skip reading and parsing unchanged ".class" files.
+ *
+ * <p>Each cache entry holds a stripped-down class file with just the
+ * information that {@link SimpleAnnotationMetadata} and {@link SimpleMethodMetadata}
+ * are built from: class structure, runtime-visible annotations and the
+ * signatures of annotated methods. Entries are keyed by resource URL (i.e. by
+ * jar path plus entry name for classes in jar files) and are validated against
+ * the size and last-modified timestamp of the containing jar file or of the
+ * class file itself, so they get invalidated automatically once a jar changes.
+ *
+ * <p>Newly parsed metadata is written to the cache file on {@link #flush()},
+ * which is also triggered by {@link #clearCache()} at the end of configuration
+ * class processing (e.g. when set on Spring's {@code ConfigurationClassPostProcessor}).
+ * Concurrent processes may share a cache file: it is replaced atomically,
+ * with the last writer winning.
+ *
+ * @since 5.2.4
+ * @see #flush()
+ */
+public class PersistentMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	private static final int MAGIC = 0x534d4443;
+
+	private static final int VERSION = 1;
+
+	private static final int PARSING_OPTIONS = ClassReader.SKIP_DEBUG
+			| ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderFactory.class);
+
+
+	private final Path cacheFile;
+
+	/** Entries from the cache file, as of the last load or flush. */
+	private volatile Map<String, CacheEntry> persistentEntries = Collections.emptyMap();
+
+	/** Entries parsed since the last flush. */
+	private final Map<String, CacheEntry> pendingEntries = new ConcurrentHashMap<>(64);
+
+	/** Fingerprints of jar files, determined once per jar. */
+	private final Map<String, Fingerprint> jarFingerprints = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given cache file
+	 * and the default class loader.
+	 * @param cacheFile the cache file to use (created if it does not exist yet)
+	 */
+	public PersistentMetadataReaderFactory(Path cacheFile) {
+		super();
+		this.cacheFile = initCacheFile(cacheFile);
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given cache file
+	 * and {@link ClassLoader}.
+	 * @param cacheFile the cache file to use (created if it does not exist yet)
+	 * @param classLoader the ClassLoader to use
+	 */
+	public PersistentMetadataReaderFactory(Path cacheFile, @Nullable ClassLoader classLoader) {
+		super(classLoader);
+		this.cacheFile = initCacheFile(cacheFile);
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given cache file
+	 * and {@link ResourceLoader}.
+	 * @param cacheFile the cache file to use (created if it does not exist yet)
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public PersistentMetadataReaderFactory(Path cacheFile, @Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		this.cacheFile = initCacheFile(cacheFile);
+	}
+
+	private Path initCacheFile(Path cacheFile) {
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.persistentEntries = loadEntries(cacheFile);
+		return cacheFile;
+	}
+
+
+	/**
+	 * Return the cache file that this factory persists metadata to.
+	 */
+	public final Path getCacheFile() {
+		return this.cacheFile;
+	}
+
+	@Override
+	protected MetadataReader createMetadataReader(Resource resource) throws IOException {
+		URL url;
+		try {
+			url = resource.getURL();
+		}
+		catch (IOException ex) {
+			// Not backed by a URL, e.g. a ByteArrayResource: no persistent caching.
+			return super.createMetadataReader(resource);
+		}
+		Fingerprint fingerprint = getFingerprint(url);
+		if (fingerprint == null) {
+			return super.createMetadataReader(resource);
+		}
+
+		String key = url.toString();
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		CacheEntry entry = this.pendingEntries.get(key);
+		if (entry == null) {
+			entry = this.persistentEntries.get(key);
+		}
+		if (entry != null && entry.fingerprint.equals(fingerprint)) {
+			return new SimpleMetadataReader(resource, classLoader, new ClassReader(entry.getContent()));
+		}
+
+		byte[] content = stripClassFile(SimpleMetadataReader.getClassReader(resource));
+		this.pendingEntries.put(key, new CacheEntry(fingerprint, ByteBuffer.wrap(content)));
+		return new SimpleMetadataReader(resource, classLoader, new ClassReader(content));
+	}
+
+	/**
+	 * Write metadata parsed since the last flush to the cache file, along with
+	 * all previously persisted entries which are still valid.
+	 * @throws IOException in case of I/O failure
+	 */
+	public synchronized void flush() throws IOException {
+		if (this.pendingEntries.isEmpty()) {
+			return;
+		}
+		Map<String, CacheEntry> pending = new LinkedHashMap<>(this.pendingEntries);
+		Map<String, CacheEntry> entries = new LinkedHashMap<>();
+		for (Map.Entry<String, CacheEntry> entry : this.persistentEntries.entrySet()) {
+			String key = entry.getKey();
+			if (!pending.containsKey(key) && entry.getValue().fingerprint.equals(getFingerprint(key))) {
+				entries.put(key, entry.getValue());
+			}
+		}
+		entries.putAll(pending);
+
+		Path dir = this.cacheFile.toAbsolutePath().getParent();
+		if (dir != null) {
+			Files.createDirectories(dir);
+		}
+		Path tempFile = Files.createTempFile(dir, this.cacheFile.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream dos = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				dos.writeInt(MAGIC);
+				dos.writeInt(VERSION);
+				dos.writeInt(entries.size());
+				for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+					byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+					CacheEntry cacheEntry = entry.getValue();
+					byte[] content = cacheEntry.getContent();
+					dos.writeInt(key.length);
+					dos.write(key);
+					dos.writeLong(cacheEntry.fingerprint.length);
+					dos.writeLong(cacheEntry.fingerprint.lastModified);
+					dos.writeInt(content.length);
+					dos.write(content);
+				}
+			}
+			try {
+				Files.move(tempFile, this.cacheFile, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, this.cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		this.persistentEntries = loadEntries(this.cacheFile);
+		for (Map.Entry<String, CacheEntry> entry : pending.entrySet()) {
+			this.pendingEntries.remove(entry.getKey(), entry.getValue());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Persisted " + entries.size() + " metadata cache entries to " + this.cacheFile);
+		}
+	}
+
+	/**
+	 * Flush newly parsed metadata to the cache file, then clear the local
+	 * MetadataReader cache, if any.
+	 * <p>Failures to write the cache file are logged rather than propagated.
+	 * @see #flush()
+	 */
+	@Override
+	public void clearCache() {
+		try {
+			flush();
+		}
+		catch (IOException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to write metadata cache file " + this.cacheFile, ex);
+			}
+		}
+		this.jarFingerprints.clear();
+		super.clearCache();
+	}
+
+
+	@Nullable
+	private Fingerprint getFingerprint(String key) {
+		try {
+			return getFingerprint(new URL(key));
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Determine the fingerprint for the given class file URL: the size and
+	 * last-modified timestamp of the containing jar file or of the class file.
+	 * @return the fingerprint, or {@code null} if the URL does not point into
+	 * the file system
+	 */
+	@Nullable
+	private Fingerprint getFingerprint(URL url) {
+		try {
+			if (ResourceUtils.isJarURL(url)) {
+				URL jarUrl = ResourceUtils.extractArchiveURL(url);
+				if (!ResourceUtils.isFileURL(jarUrl)) {
+					return null;
+				}
+				String jarKey = jarUrl.toString();
+				Fingerprint fingerprint = this.jarFingerprints.get(jarKey);
+				if (fingerprint == null) {
+					fingerprint = Fingerprint.of(ResourceUtils.getFile(jarUrl));
+					this.jarFingerprints.put(jarKey, fingerprint);
+				}
+				return fingerprint;
+			}
+			else if (ResourceUtils.isFileURL(url)) {
+				return Fingerprint.of(ResourceUtils.getFile(url));
+			}
+		}
+		catch (IOException ex) {
+			// Not resolvable in the file system.
+		}
+		return null;
+	}
+
+	private static Map<String, CacheEntry> loadEntries(Path cacheFile) {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch (NoSuchFileException ex) {
+			return Collections.emptyMap();
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not open metadata cache file " + cacheFile, ex);
+			}
+			return Collections.emptyMap();
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring metadata cache file " + cacheFile + " in unsupported format");
+				}
+				return Collections.emptyMap();
+			}
+			int count = buffer.getInt();
+			Map<String, CacheEntry> entries = new ConcurrentHashMap<>(count);
+			for (int i = 0; i < count; i++) {
+				byte[] key = new byte[buffer.getInt()];
+				buffer.get(key);
+				Fingerprint fingerprint = new Fingerprint(buffer.getLong(), buffer.getLong());
+				int size = buffer.getInt();
+				ByteBuffer content = buffer.slice();
+				content.limit(size);
+				buffer.position(buffer.position() + size);
+				entries.put(new String(key, StandardCharsets.UTF_8), new CacheEntry(fingerprint, content));
+			}
+			return entries;
+		}
+		catch (BufferUnderflowException | IllegalArgumentException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring corrupt metadata cache file " + cacheFile, ex);
+			}
+			return Collections.emptyMap();
+		}
+	}
+
+	/**
+	 * Create a class file containing only what the metadata reading visitors
+	 * consume: class structure, runtime-visible annotations, and annotated
+	 * non-bridge methods without code.
+	 */
+	private static byte[] stripClassFile(ClassReader classReader) {
+		Set<String> annotatedMethods = new HashSet<>();
+		classReader.accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(
+					int access, String name, String descriptor, String signature, String[] exceptions) {
+				return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+					@Override
+					public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+						if (visible) {
+							annotatedMethods.add(name + descriptor);
+						}
+						return null;
+					}
+				};
+			}
+		}, PARSING_OPTIONS);
+
+		ClassWriter classWriter = new ClassWriter(0);
+		classReader.accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION, classWriter) {
+			@Override
+			public void visit(int version, int access, String name, String signature,
+					String superName, String[] interfaces) {
+				super.visit(version, access, name, null, superName, interfaces);
+			}
+			@Override
+			public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+				return (visible ? super.visitAnnotation(descriptor, true) : null);
+			}
+			@Override
+			public AnnotationVisitor visitTypeAnnotation(
+					int typeRef, TypePath typePath, String descriptor, boolean visible) {
+				return null;
+			}
+			@Override
+			public void visitAttribute(Attribute attribute) {
+			}
+			@Override
+			public FieldVisitor visitField(
+					int access, String name, String descriptor, String signature, Object value) {
+				return null;
+			}
+			@Override
+			public MethodVisitor visitMethod(
+					int access, String name, String descriptor, String signature, String[] exceptions) {
+				if ((access & Opcodes.ACC_BRIDGE) != 0 || !annotatedMethods.contains(name + descriptor)) {
+					return null;
+				}
+				return new MethodVisitor(SpringAsmInfo.ASM_VERSION,
+						super.visitMethod(access, name, descriptor, null, null)) {
+					@Override
+					public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+						return (visible ? super.visitAnnotation(annotationDescriptor, true) : null);
+					}
+					@Override
+					public AnnotationVisitor visitAnnotationDefault() {
+						return null;
+					}
+					@Override
+					public AnnotationVisitor visitParameterAnnotation(
+							int parameter, String annotationDescriptor, boolean visible) {
+						return null;
+					}
+					@Override
+					public AnnotationVisitor visitTypeAnnotation(
+							int typeRef, TypePath typePath, String annotationDescriptor, boolean visible) {
+						return null;
+					}
+					@Override
+					public void visitAttribute(Attribute attribute) {
+					}
+				};
+			}
+		}, PARSING_OPTIONS);
+		return classWriter.toByteArray();
+	}
+
+
+	/**
+	 * Size and last-modified timestamp of a jar file or class file.
+	 */
+	private static final class Fingerprint {
+
+		private final long length;
+
+		private final long lastModified;
+
+		Fingerprint(long length, long lastModified) {
+			this.length = length;
+			this.lastModified = lastModified;
+		}
+
+		static Fingerprint of(File file) {
+			return new Fingerprint(file.length(), file.lastModified());
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Fingerprint)) {
+				return false;
+			}
+			Fingerprint otherFingerprint = (Fingerprint) other;
+			return (this.length == otherFingerprint.length && this.lastModified == otherFingerprint.lastModified);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.length) * 31 + Long.hashCode(this.lastModified);
+		}
+	}
+
+
+	/**
+	 * A stripped-down class file along with the fingerprint it was created for.
+	 */
+	private static final class CacheEntry {
+
+		final Fingerprint fingerprint;
+
+		private final ByteBuffer content;
+
+		CacheEntry(Fingerprint fingerprint, ByteBuffer content) {
+			this.fingerprint = fingerprint;
+			this.content = content;
+		}
+
+		byte[] getContent() {
+			ByteBuffer buffer = this.content.duplicate();
+			buffer.rewind();
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return bytes;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,16 @@
 
 package org.springframework.core.codec;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.reactivestreams.Subscription;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
@@ -28,6 +34,7 @@ import reactor.test.StepVerifier;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
@@ -37,6 +44,7 @@ import org.springframework.core.testfixture.io.buffer.DataBufferTestUtils;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -117,6 +125,54 @@ class ResourceRegionEncoderTests extends AbstractLeakCheckingTests {
 				.verify();
 	}
 
+	@Test
+	void shouldEncodeLargeResourceRegion(@TempDir Path tempDir) throws Exception {
+		byte[] content = largeContent();
+		Resource resource = largeResource(tempDir, content);
+		ResourceRegion region = new ResourceRegion(resource, 100, content.length - 200);
+
+		Flux<DataBuffer> result = this.encoder.encode(Mono.just(region), this.bufferFactory,
+				ResolvableType.forClass(ResourceRegion.class),
+				MimeTypeUtils.APPLICATION_OCTET_STREAM,
+				Collections.emptyMap());
+
+		StepVerifier.create(DataBufferUtils.join(result))
+				.consumeNextWith(bytesConsumer(Arrays.copyOfRange(content, 100, content.length - 100)))
+				.expectComplete()
+				.verify();
+	}
+
+	@Test
+	void shouldEncodeMultipleLargeResourceRegions(@TempDir Path tempDir) throws Exception {
+		byte[] content = largeContent();
+		Resource resource = largeResource(tempDir, content);
+		int mb = 1024 * 1024;
+		Flux<ResourceRegion> regions = Flux.just(
+				new ResourceRegion(resource, 0, mb),
+				new ResourceRegion(resource, 2 * mb, content.length - 2 * mb));
+		String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
+		Flux<DataBuffer> result = this.encoder.encode(regions, this.bufferFactory,
+				ResolvableType.forClass(ResourceRegion.class),
+				MimeTypeUtils.APPLICATION_OCTET_STREAM,
+				Collections.singletonMap(ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary));
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(("\r\n--" + boundary + "\r\nContent-Type: application/octet-stream\r\n" +
+				"Content-Range: bytes 0-" + (mb - 1) + "/" + content.length + "\r\n\r\n").getBytes(US_ASCII));
+		expected.write(content, 0, mb);
+		expected.write(("\r\n--" + boundary + "\r\nContent-Type: application/octet-stream\r\n" +
+				"Content-Range: bytes " + 2 * mb + "-" + (content.length - 1) + "/" + content.length +
+				"\r\n\r\n").getBytes(US_ASCII));
+		expected.write(content, 2 * mb, content.length - 2 * mb);
+		expected.write(("\r\n--" + boundary + "--").getBytes(US_ASCII));
+
+		StepVerifier.create(DataBufferUtils.join(result))
+				.consumeNextWith(bytesConsumer(expected.toByteArray()))
+				.expectComplete()
+				.verify();
+	}
+
 	@Test // gh-22107
 	void cancelWithoutDemandForMultipleResourceRegions() {
 		Resource resource = new ClassPathResource("ResourceRegionEncoderTests.txt", getClass());
@@ -180,6 +236,30 @@ class ResourceRegionEncoderTests extends AbstractLeakCheckingTests {
 				.verify();
 	}
 
+	private static byte[] largeContent() {
+		// Large enough to be memory-mapped in more than one region
+		byte[] content = new byte[5 * 1024 * 1024 + 17];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i % 251);
+		}
+		return content;
+	}
+
+	private static Resource largeResource(Path tempDir, byte[] content) throws IOException {
+		Path file = tempDir.resolve("large.bin");
+		Files.write(file, content);
+		return new FileSystemResource(file);
+	}
+
+	private static Consumer<DataBuffer> bytesConsumer(byte[] expected) {
+		return dataBuffer -> {
+			byte[] bytes = new byte[dataBuffer.readableByteCount()];
+			dataBuffer.read(bytes);
+			DataBufferUtils.release(dataBuffer);
+			assertThat(bytes).isEqualTo(expected);
+		};
+	}
+
 	protected Consumer<DataBuffer> stringConsumer(String expected) {
 		return dataBuffer -> {
 			String value = DataBufferTestUtils.dumpString(dataBuffer, UTF_8);
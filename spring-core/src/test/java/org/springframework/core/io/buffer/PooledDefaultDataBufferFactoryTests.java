@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.springframework.core.io.buffer.DataBufferUtils.release;
+
+/**
+ * Unit tests for {@link PooledDefaultDataBufferFactory}.
+ */
+class PooledDefaultDataBufferFactoryTests {
+
+	private final PooledDefaultDataBufferFactory bufferFactory = new PooledDefaultDataBufferFactory();
+
+
+	@Test
+	void allocateAndRelease() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(3);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.capacity()).isEqualTo(3);
+		assertThat(this.bufferFactory.getActiveAllocations()).isEqualTo(1);
+
+		assertThat(release(buffer)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getActiveAllocations()).isEqualTo(0);
+		assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> buffer.getByte(0));
+	}
+
+	@Test
+	void memoryIsRecycled() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		byte[] memory = buffer.asByteBuffer().array();
+		release(buffer);
+
+		buffer = this.bufferFactory.allocateBuffer(120);
+		assertThat(buffer.asByteBuffer().array()).isSameAs(memory);
+		release(buffer);
+	}
+
+	@Test
+	void largeBuffersAreNotPooled() {
+		int capacity = this.bufferFactory.getMaxPooledCapacity() + 1;
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(capacity);
+		byte[] memory = buffer.asByteBuffer().array();
+		release(buffer);
+
+		buffer = this.bufferFactory.allocateBuffer(capacity);
+		assertThat(buffer.asByteBuffer().array()).isNotSameAs(memory);
+		release(buffer);
+	}
+
+	@Test
+	void capacityGrowthKeepsContent() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(3);
+		buffer.write("abc".getBytes(StandardCharsets.UTF_8));
+		byte[] bytes = new byte[1000];
+		Arrays.fill(bytes, (byte) 'd');
+		buffer.write(bytes);
+
+		String result = buffer.toString(StandardCharsets.UTF_8);
+		assertThat(result).hasSize(1003).startsWith("abcddd");
+		release(buffer);
+		assertThat(this.bufferFactory.getActiveAllocations()).isEqualTo(0);
+	}
+
+	@Test
+	void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(3);
+		buffer.write("abc".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(1, 2);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+
+		DataBufferUtils.retain(slice);
+		assertThat(release(buffer)).isFalse();
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bc");
+		assertThat(release(slice)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThatIllegalStateException().isThrownBy(((PooledDataBuffer) slice)::release);
+	}
+
+	@Test
+	void inputStreamReleaseOnClose() throws Exception {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(3);
+		buffer.write("abc".getBytes(StandardCharsets.UTF_8));
+
+		InputStream inputStream = buffer.asInputStream(true);
+		assertThat(inputStream.read()).isEqualTo('a');
+		inputStream.close();
+		inputStream.close();
+
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+	}
+
+	@Test
+	void joinReleasesSources() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar".getBytes(StandardCharsets.UTF_8));
+
+		DataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(this.bufferFactory.getActiveAllocations()).isEqualTo(1);
+		release(result);
+	}
+
+}
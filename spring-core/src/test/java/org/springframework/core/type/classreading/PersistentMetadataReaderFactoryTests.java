@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PersistentMetadataReaderFactory}.
+ */
+class PersistentMetadataReaderFactoryTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@Test
+	void metadataFromCacheFile() throws IOException {
+		Path cacheFile = this.tempDir.resolve("metadata.cache");
+		Resource resource = copyClassFile(SampleComponent.class);
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		AnnotationMetadata parsed = factory.getMetadataReader(resource).getAnnotationMetadata();
+		factory.clearCache();
+		assertThat(cacheFile).exists();
+
+		AnnotationMetadata cached = new PersistentMetadataReaderFactory(cacheFile)
+				.getMetadataReader(resource).getAnnotationMetadata();
+		AnnotationMetadata original = new SimpleMetadataReaderFactory()
+				.getMetadataReader(resource).getAnnotationMetadata();
+		for (AnnotationMetadata metadata : Arrays.asList(parsed, cached)) {
+			assertThat(metadata.getClassName()).isEqualTo(original.getClassName());
+			assertThat(metadata.getSuperClassName()).isEqualTo(original.getSuperClassName());
+			assertThat(metadata.getInterfaceNames()).containsExactly(original.getInterfaceNames());
+			assertThat(metadata.getEnclosingClassName()).isEqualTo(original.getEnclosingClassName());
+			assertThat(metadata.isIndependent()).isEqualTo(original.isIndependent());
+			assertThat(metadata.getAnnotationTypes()).containsExactly(Marker.class.getName());
+			assertThat(metadata.getAnnotationAttributes(Marker.class.getName()))
+					.isEqualTo(original.getAnnotationAttributes(Marker.class.getName()));
+			assertThat(metadata.getAnnotatedMethods(Marker.class.getName()))
+					.extracting(MethodMetadata::getMethodName).containsExactly("annotated");
+			assertThat(metadata.getAnnotatedMethods(Marker.class.getName()))
+					.extracting(MethodMetadata::getReturnTypeName).containsExactly("java.lang.String");
+		}
+	}
+
+	@Test
+	void cacheFileServesUnchangedClassFile() throws IOException {
+		Path cacheFile = this.tempDir.resolve("metadata.cache");
+		FileSystemResource resource = copyClassFile(SampleComponent.class);
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(resource);
+		factory.flush();
+
+		// Same size and timestamp but unparseable content: only served from the cache
+		FileTime lastModified = Files.getLastModifiedTime(resource.getFile().toPath());
+		Files.write(resource.getFile().toPath(), new byte[(int) resource.contentLength()]);
+		Files.setLastModifiedTime(resource.getFile().toPath(), lastModified);
+		assertThat(new PersistentMetadataReaderFactory(cacheFile).getMetadataReader(resource)
+				.getClassMetadata().getClassName()).isEqualTo(SampleComponent.class.getName());
+	}
+
+	@Test
+	void cacheEntryInvalidatedForChangedClassFile() throws IOException {
+		Path cacheFile = this.tempDir.resolve("metadata.cache");
+		FileSystemResource resource = copyClassFile(SampleComponent.class);
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(resource);
+		factory.flush();
+
+		Path classFile = resource.getFile().toPath();
+		Files.copy(copyClassFile(OtherComponent.class).getFile().toPath(), classFile,
+				StandardCopyOption.REPLACE_EXISTING);
+		FileTime lastModified = Files.getLastModifiedTime(classFile);
+		Files.setLastModifiedTime(classFile, FileTime.fromMillis(lastModified.toMillis() + 2000));
+		assertThat(new PersistentMetadataReaderFactory(cacheFile).getMetadataReader(resource)
+				.getClassMetadata().getClassName()).isEqualTo(OtherComponent.class.getName());
+	}
+
+	@Test
+	void corruptCacheFileIgnored() throws IOException {
+		Path cacheFile = this.tempDir.resolve("metadata.cache");
+		Files.write(cacheFile, new byte[] {1, 2, 3});
+		Resource resource = copyClassFile(SampleComponent.class);
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		assertThat(factory.getMetadataReader(resource).getClassMetadata().getClassName())
+				.isEqualTo(SampleComponent.class.getName());
+		factory.flush();
+		assertThat(Files.size(cacheFile)).isGreaterThan(3);
+	}
+
+
+	private FileSystemResource copyClassFile(Class<?> clazz) throws IOException {
+		Path target = this.tempDir.resolve(clazz.getName() + ".class");
+		String fileName = clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1) + ".class";
+		try (InputStream is = clazz.getResourceAsStream(fileName)) {
+			Files.copy(is, target);
+		}
+		return new FileSystemResource(target);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@interface Marker {
+
+		String value() default "";
+	}
+
+
+	@Marker("component")
+	@SuppressWarnings("serial")
+	static class SampleComponent implements Serializable {
+
+		private String name = "";
+
+		@Marker
+		public String annotated() {
+			return this.name;
+		}
+
+		public String plain() {
+			return this.name;
+		}
+	}
+
+
+	static class OtherComponent {
+	}
+
+}
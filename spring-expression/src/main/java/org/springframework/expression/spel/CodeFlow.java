@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -85,9 +85,16 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * When code generation requires an intermediate variable within a method,
-	 * this method records the next available variable (variable 0 is 'this').
+	 * this method records the next available variable (variable 0 is 'this',
+	 * variables 1 and 2 are the target and the evaluation context).
 	 */
-	private int nextFreeVariableId = 1;
+	private int nextFreeVariableId = 3;
+
+	/**
+	 * The variable holding the object that unqualified references are resolved
+	 * against, initially the target passed to the compiled expression method.
+	 */
+	private int targetVariableId = 1;
 
 
 	/**
@@ -105,13 +112,42 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * Push the byte code to load the target (i.e. what was passed as the first argument
-	 * to CompiledExpression.getValue(target, context))
+	 * to CompiledExpression.getValue(target, context), or the current element while
+	 * generating code for a selection or projection)
 	 * @param mv the visitor into which the load instruction should be inserted
+	 * @see #switchTarget(int)
 	 */
 	public void loadTarget(MethodVisitor mv) {
+		mv.visitVarInsn(ALOAD, this.targetVariableId);
+	}
+
+	/**
+	 * Push the byte code to load the root object (i.e. what was passed as the first
+	 * argument to CompiledExpression.getValue(target, context)), irrespective of
+	 * any {@linkplain #switchTarget(int) switched} target.
+	 * @param mv the visitor into which the load instruction should be inserted
+	 * @since 5.2.4
+	 */
+	public void loadRootObject(MethodVisitor mv) {
 		mv.visitVarInsn(ALOAD, 1);
 	}
 
+	/**
+	 * Switch the target loaded by {@link #loadTarget} to the object held in the
+	 * given local variable, for example the current element of a selection.
+	 * @param variableId the local variable holding the new target, or {@code 1}
+	 * for the root object
+	 * @return the variable that held the previous target, to be passed to this
+	 * method again in order to restore it
+	 * @since 5.2.4
+	 * @see #nextFreeVariableId()
+	 */
+	public int switchTarget(int variableId) {
+		int previousTargetVariableId = this.targetVariableId;
+		this.targetVariableId = variableId;
+		return previousTargetVariableId;
+	}
+
 	/**
 	 * Push the bytecode to load the EvaluationContext (the second parameter passed to
 	 * the compiled expression method).
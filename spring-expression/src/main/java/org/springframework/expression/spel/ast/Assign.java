@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 
 /**
@@ -40,6 +42,11 @@ public class Assign extends SpelNodeImpl {
 	public TypedValue getValueInternal(ExpressionState state) throws EvaluationException {
 		TypedValue newValue = this.children[1].getValueInternal(state);
 		getChild(0).setValue(state, newValue.getValue());
+		String valueDescriptor = this.children[1].exitTypeDescriptor;
+		if (valueDescriptor != null) {
+			this.exitTypeDescriptor = (CodeFlow.isPrimitive(valueDescriptor) ?
+					CodeFlow.toBoxedDescriptor(valueDescriptor) : valueDescriptor);
+		}
 		return newValue;
 	}
 
@@ -48,4 +55,29 @@ public class Assign extends SpelNodeImpl {
 		return getChild(0).toStringAST() + "=" + getChild(1).toStringAST();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		// Only assignments to variables of the evaluation context are compilable
+		SpelNodeImpl target = this.children[0];
+		return (this.exitTypeDescriptor != null && target instanceof VariableReference &&
+				!((VariableReference) target).isWellKnownVariable() && this.children[1].isCompilable());
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		cf.enterCompilationScope();
+		this.children[1].generateCode(mv, cf);
+		CodeFlow.insertBoxIfNecessary(mv, cf.lastDescriptor());
+		cf.exitCompilationScope();
+		// Keep the value on the stack as the result of the assignment
+		mv.visitInsn(DUP);
+		cf.loadEvaluationContext(mv);
+		mv.visitInsn(SWAP);
+		mv.visitLdcInsn(((VariableReference) this.children[0]).getName());
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(INVOKEINTERFACE, "org/springframework/expression/EvaluationContext", "setVariable",
+				"(Ljava/lang/String;Ljava/lang/Object;)V", true);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelNode;
 import org.springframework.lang.Nullable;
 
 /**
@@ -73,4 +74,26 @@ public abstract class AstUtils {
 		return resolvers;
 	}
 
+	/**
+	 * Determine whether the given node or any of its descendants refers to the
+	 * specified variable. This is used to detect references to variables that
+	 * only exist in the scope of a selection or projection, such as {@code #index},
+	 * which compiled code cannot resolve.
+	 * @param node the node to check
+	 * @param variableName the name of the variable, without the leading {@code #}
+	 * @return {@code true} if the variable is referenced, {@code false} otherwise
+	 * @since 5.2.4
+	 */
+	static boolean referencesVariable(SpelNode node, String variableName) {
+		if (node instanceof VariableReference && ((VariableReference) node).getName().equals(variableName)) {
+			return true;
+		}
+		for (int i = 0; i < node.getChildCount(); i++) {
+			if (referencesVariable(node.getChild(i), variableName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -323,6 +323,9 @@ public class ConstructorReference extends SpelNodeImpl {
 				throw new IllegalStateException(arrayTypeCode.name());
 			}
 		}
+		// Only the construction of one-dimensional arrays is compilable
+		this.exitTypeDescriptor = (this.dimensions.length == 1 && Modifier.isPublic(componentType.getModifiers()) ?
+				CodeFlow.toDescriptor(newArray.getClass()) : null);
 		return new TypedValue(newArray);
 	}
 
@@ -425,6 +428,9 @@ public class ConstructorReference extends SpelNodeImpl {
 
 	@Override
 	public boolean isCompilable() {
+		if (this.isArrayConstructor) {
+			return isCompilableArrayConstruction();
+		}
 		if (!(this.cachedExecutor instanceof ReflectiveConstructorExecutor) ||
 			this.exitTypeDescriptor == null) {
 			return false;
@@ -447,8 +453,41 @@ public class ConstructorReference extends SpelNodeImpl {
 				Modifier.isPublic(constructor.getDeclaringClass().getModifiers()));
 	}
 
+	private boolean isCompilableArrayConstruction() {
+		if (this.exitTypeDescriptor == null || this.dimensions == null) {
+			return false;
+		}
+		SpelNodeImpl dimension = this.dimensions[0];
+		if (!hasInitializer()) {
+			return (dimension.isCompilable() && ("I".equals(dimension.exitTypeDescriptor) ||
+					"Ljava/lang/Integer".equals(dimension.exitTypeDescriptor)));
+		}
+		// The dimension is not evaluated by compiled code, so it has to be a literal
+		if (dimension != null && !(dimension instanceof Literal)) {
+			return false;
+		}
+		String componentDescriptor = this.exitTypeDescriptor.substring(1);
+		for (SpelNodeImpl element : ((InlineList) getChild(1)).children) {
+			String elementDescriptor = element.exitTypeDescriptor;
+			if (!element.isCompilable() || elementDescriptor == null) {
+				return false;
+			}
+			// Elements that would need to be converted are not compilable
+			if (!componentDescriptor.equals(elementDescriptor) && !"Ljava/lang/Object".equals(componentDescriptor) &&
+					!(CodeFlow.isPrimitive(componentDescriptor) &&
+							CodeFlow.toBoxedDescriptor(componentDescriptor).equals(elementDescriptor))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (this.isArrayConstructor) {
+			generateArrayConstructionCode(mv, cf);
+			return;
+		}
 		ReflectiveConstructorExecutor executor = ((ReflectiveConstructorExecutor) this.cachedExecutor);
 		Assert.state(executor != null, "No cached executor");
 
@@ -465,4 +504,45 @@ public class ConstructorReference extends SpelNodeImpl {
 		cf.pushDescriptor(this.exitTypeDescriptor);
 	}
 
+	private void generateArrayConstructionCode(MethodVisitor mv, CodeFlow cf) {
+		String arrayDescriptor = this.exitTypeDescriptor;
+		Assert.state(arrayDescriptor != null && this.dimensions != null, "No array type descriptor");
+		String componentDescriptor = arrayDescriptor.substring(1);
+		if (!hasInitializer()) {
+			SpelNodeImpl dimension = this.dimensions[0];
+			cf.enterCompilationScope();
+			dimension.generateCode(mv, cf);
+			CodeFlow.insertNumericUnboxOrPrimitiveTypeCoercion(mv, dimension.exitTypeDescriptor, 'I');
+			cf.exitCompilationScope();
+			if (CodeFlow.isPrimitive(componentDescriptor)) {
+				mv.visitIntInsn(NEWARRAY, CodeFlow.arrayCodeFor(componentDescriptor));
+			}
+			else {
+				mv.visitTypeInsn(ANEWARRAY, componentDescriptor.substring(1));
+			}
+		}
+		else {
+			SpelNodeImpl[] elements = ((InlineList) getChild(1)).children;
+			CodeFlow.insertNewArrayCode(mv, elements.length, componentDescriptor);
+			for (int i = 0; i < elements.length; i++) {
+				mv.visitInsn(DUP);
+				CodeFlow.insertOptimalLoad(mv, i);
+				cf.enterCompilationScope();
+				elements[i].generateCode(mv, cf);
+				String elementDescriptor = cf.lastDescriptor();
+				if (CodeFlow.isPrimitive(componentDescriptor)) {
+					if (!CodeFlow.isPrimitive(elementDescriptor)) {
+						CodeFlow.insertUnboxInsns(mv, componentDescriptor.charAt(0), elementDescriptor);
+					}
+				}
+				else {
+					CodeFlow.insertBoxIfNecessary(mv, elementDescriptor);
+				}
+				cf.exitCompilationScope();
+				CodeFlow.insertArrayStore(mv, componentDescriptor);
+			}
+		}
+		cf.pushDescriptor(arrayDescriptor);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,6 +53,7 @@ public class Elvis extends SpelNodeImpl {
 		TypedValue value = this.children[0].getValueInternal(state);
 		// If this check is changed, the generateCode method will need changing too
 		if (!StringUtils.isEmpty(value.getValue())) {
+			computeExitTypeDescriptor();
 			return value;
 		}
 		else {
@@ -71,6 +72,10 @@ public class Elvis extends SpelNodeImpl {
 	public boolean isCompilable() {
 		SpelNodeImpl condition = this.children[0];
 		SpelNodeImpl ifNullValue = this.children[1];
+		if (CodeFlow.isPrimitive(condition.exitTypeDescriptor)) {
+			// A primitive value is never null: the fallback value is not needed
+			return condition.isCompilable();
+		}
 		return (condition.isCompilable() && ifNullValue.isCompilable() &&
 				condition.exitTypeDescriptor != null && ifNullValue.exitTypeDescriptor != null);
 	}
@@ -81,6 +86,11 @@ public class Elvis extends SpelNodeImpl {
 		computeExitTypeDescriptor();
 		cf.enterCompilationScope();
 		this.children[0].generateCode(mv, cf);
+		if (CodeFlow.isPrimitive(this.children[0].exitTypeDescriptor)) {
+			cf.exitCompilationScope();
+			cf.pushDescriptor(this.exitTypeDescriptor);
+			return;
+		}
 		String lastDesc = cf.lastDescriptor();
 		Assert.state(lastDesc != null, "No last descriptor");
 		CodeFlow.insertBoxIfNecessary(mv, lastDesc.charAt(0));
@@ -110,7 +120,10 @@ public class Elvis extends SpelNodeImpl {
 	}
 
 	private void computeExitTypeDescriptor() {
-		if (this.exitTypeDescriptor == null && this.children[0].exitTypeDescriptor != null &&
+		if (this.exitTypeDescriptor == null && CodeFlow.isPrimitive(this.children[0].exitTypeDescriptor)) {
+			this.exitTypeDescriptor = this.children[0].exitTypeDescriptor;
+		}
+		else if (this.exitTypeDescriptor == null && this.children[0].exitTypeDescriptor != null &&
 				this.children[1].exitTypeDescriptor != null) {
 			String conditionDescriptor = this.children[0].exitTypeDescriptor;
 			String ifNullValueDescriptor = this.children[1].exitTypeDescriptor;
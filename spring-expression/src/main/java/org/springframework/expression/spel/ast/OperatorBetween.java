@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,16 @@ package org.springframework.expression.spel.ast;
 
 import java.util.List;
 
+import org.springframework.asm.MethodVisitor;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypeComparator;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.support.BooleanTypedValue;
+import org.springframework.lang.Nullable;
 
 /**
  * Represents the between operator. The left operand to between must be a single value and
@@ -38,6 +42,7 @@ public class OperatorBetween extends Operator {
 
 	public OperatorBetween(int startPos, int endPos, SpelNodeImpl... operands) {
 		super("between", startPos, endPos, operands);
+		this.exitTypeDescriptor = "Z";
 	}
 
 
@@ -58,12 +63,8 @@ public class OperatorBetween extends Operator {
 					SpelMessage.BETWEEN_RIGHT_OPERAND_MUST_BE_TWO_ELEMENT_LIST);
 		}
 
-		List<?> list = (List<?>) right;
-		Object low = list.get(0);
-		Object high = list.get(1);
-		TypeComparator comp = state.getTypeComparator();
 		try {
-			return BooleanTypedValue.forValue(comp.compare(left, low) >= 0 && comp.compare(left, high) <= 0);
+			return BooleanTypedValue.forValue(between(state.getEvaluationContext(), left, (List<?>) right));
 		}
 		catch (SpelEvaluationException ex) {
 			ex.setPosition(getStartPosition());
@@ -71,4 +72,49 @@ public class OperatorBetween extends Operator {
 		}
 	}
 
+	@Override
+	public boolean isCompilable() {
+		// The range needs to be an inline list
+		SpelNodeImpl leftOp = getLeftOperand();
+		SpelNodeImpl rightOp = getRightOperand();
+		return (leftOp.isCompilable() && leftOp.exitTypeDescriptor != null &&
+				rightOp instanceof InlineList && rightOp.isCompilable());
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		cf.loadEvaluationContext(mv);
+		cf.enterCompilationScope();
+		getLeftOperand().generateCode(mv, cf);
+		CodeFlow.insertBoxIfNecessary(mv, cf.lastDescriptor());
+		cf.exitCompilationScope();
+		cf.enterCompilationScope();
+		getRightOperand().generateCode(mv, cf);
+		cf.exitCompilationScope();
+		mv.visitMethodInsn(INVOKESTATIC, "org/springframework/expression/spel/ast/OperatorBetween", "between",
+				"(Lorg/springframework/expression/EvaluationContext;Ljava/lang/Object;Ljava/util/List;)Z", false);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
+
+	/**
+	 * Check whether the given value is within the given range, inclusive of its
+	 * bounds, using the {@link TypeComparator} of the given context.
+	 * <p>This method is not just used for interpreted evaluation but also from
+	 * compiled expression code, which is why it needs to be declared as
+	 * {@code public static} here.
+	 * @param context the current evaluation context
+	 * @param value the left-hand operand value
+	 * @param range the two element list holding the lower and upper bound
+	 * @return {@code true} if the value is within the range, otherwise {@code false}
+	 * @since 5.2.4
+	 */
+	public static boolean between(EvaluationContext context, @Nullable Object value, List<?> range) {
+		if (range.size() != 2) {
+			throw new SpelEvaluationException(SpelMessage.BETWEEN_RIGHT_OPERAND_MUST_BE_TWO_ELEMENT_LIST);
+		}
+		TypeComparator comp = context.getTypeComparator();
+		return (comp.compare(value, range.get(0)) >= 0 && comp.compare(value, range.get(1)) <= 0);
+	}
+
 }
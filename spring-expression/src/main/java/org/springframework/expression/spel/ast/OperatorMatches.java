@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,11 +22,14 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.support.BooleanTypedValue;
+import org.springframework.lang.Nullable;
 
 /**
  * Implements the matches operator. Matches takes two operands:
@@ -47,6 +50,7 @@ public class OperatorMatches extends Operator {
 
 	public OperatorMatches(int startPos, int endPos, SpelNodeImpl... operands) {
 		super("matches", startPos, endPos, operands);
+		this.exitTypeDescriptor = "Z";
 	}
 
 
@@ -81,8 +85,7 @@ public class OperatorMatches extends Operator {
 				pattern = Pattern.compile(rightString);
 				this.patternCache.putIfAbsent(rightString, pattern);
 			}
-			Matcher matcher = pattern.matcher(new MatcherInput(left, new AccessCount()));
-			return BooleanTypedValue.forValue(matcher.matches());
+			return BooleanTypedValue.forValue(matches(left, pattern));
 		}
 		catch (PatternSyntaxException ex) {
 			throw new SpelEvaluationException(
@@ -94,6 +97,60 @@ public class OperatorMatches extends Operator {
 		}
 	}
 
+	@Override
+	public boolean isCompilable() {
+		// Only a literal regex can be compiled into a constant pattern
+		SpelNodeImpl leftOp = getLeftOperand();
+		return (leftOp.isCompilable() && "Ljava/lang/String".equals(leftOp.exitTypeDescriptor) &&
+				getRightOperand() instanceof StringLiteral);
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		String regex = (String) ((StringLiteral) getRightOperand()).getLiteralValue().getValue();
+		String patternFieldName = "pattern$" + cf.nextFieldId();
+		String className = cf.getClassName();
+
+		cf.registerNewField((cw, codeflow) ->
+				cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, patternFieldName, "Ljava/util/regex/Pattern;",
+						null, null));
+		cf.registerNewClinit((mVisitor, codeflow) -> {
+			mVisitor.visitLdcInsn(regex);
+			mVisitor.visitMethodInsn(INVOKESTATIC, "java/util/regex/Pattern", "compile",
+					"(Ljava/lang/String;)Ljava/util/regex/Pattern;", false);
+			mVisitor.visitFieldInsn(PUTSTATIC, className, patternFieldName, "Ljava/util/regex/Pattern;");
+		});
+
+		cf.enterCompilationScope();
+		getLeftOperand().generateCode(mv, cf);
+		cf.exitCompilationScope();
+		mv.visitFieldInsn(GETSTATIC, className, patternFieldName, "Ljava/util/regex/Pattern;");
+		mv.visitMethodInsn(INVOKESTATIC, "org/springframework/expression/spel/ast/OperatorMatches",
+				"matches", "(Ljava/lang/String;Ljava/util/regex/Pattern;)Z", false);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
+
+	/**
+	 * Check whether the given input matches the given pattern, guarding against
+	 * patterns that require excessive backtracking.
+	 * <p>This method is not just used for interpreted evaluation but also from
+	 * compiled expression code, which is why it needs to be declared as
+	 * {@code public static} here.
+	 * @param input the first operand
+	 * @param pattern the pattern for the regex specified as the second operand
+	 * @return {@code true} if the input matches the pattern, otherwise {@code false}
+	 * @throws IllegalStateException if the pattern access threshold is exceeded
+	 * @since 5.2.4
+	 */
+	public static boolean matches(@Nullable String input, Pattern pattern) {
+		if (input == null) {
+			throw new SpelEvaluationException(SpelMessage.INVALID_FIRST_OPERAND_FOR_MATCHES_OPERATOR, (Object) null);
+		}
+		Matcher matcher = pattern.matcher(new MatcherInput(input, new AccessCount()));
+		return matcher.matches();
+	}
+
 
 	private static class AccessCount {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,12 @@ package org.springframework.expression.spel.ast;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Operation;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.util.NumberUtils;
 
@@ -60,14 +63,23 @@ public class OperatorPower extends Operator {
 				return new TypedValue(leftBigInteger.pow(rightNumber.intValue()));
 			}
 			else if (leftNumber instanceof Double || rightNumber instanceof Double) {
+				this.exitTypeDescriptor = "D";
 				return new TypedValue(Math.pow(leftNumber.doubleValue(), rightNumber.doubleValue()));
 			}
 			else if (leftNumber instanceof Float || rightNumber instanceof Float) {
+				this.exitTypeDescriptor = "D";
 				return new TypedValue(Math.pow(leftNumber.floatValue(), rightNumber.floatValue()));
 			}
 
 			double d = Math.pow(leftNumber.doubleValue(), rightNumber.doubleValue());
-			if (d > Integer.MAX_VALUE || leftNumber instanceof Long || rightNumber instanceof Long) {
+			if (leftNumber instanceof Long || rightNumber instanceof Long) {
+				this.exitTypeDescriptor = "J";
+				return new TypedValue((long) d);
+			}
+			// The exit type follows the operand types: an int result beyond the int range
+			// is a long here, but makes the compiled form fall back to interpreted mode
+			this.exitTypeDescriptor = "I";
+			if (d > Integer.MAX_VALUE) {
 				return new TypedValue((long) d);
 			}
 			else {
@@ -78,4 +90,44 @@ public class OperatorPower extends Operator {
 		return state.operate(Operation.POWER, leftOperand, rightOperand);
 	}
 
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl leftOp = getLeftOperand();
+		SpelNodeImpl rightOp = getRightOperand();
+		return (this.exitTypeDescriptor != null && leftOp.isCompilable() && rightOp.isCompilable() &&
+				CodeFlow.isPrimitiveOrUnboxableSupportedNumber(leftOp.exitTypeDescriptor) &&
+				CodeFlow.isPrimitiveOrUnboxableSupportedNumber(rightOp.exitTypeDescriptor));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		getLeftOperand().generateCode(mv, cf);
+		CodeFlow.insertNumericUnboxOrPrimitiveTypeCoercion(mv, getLeftOperand().exitTypeDescriptor, 'D');
+		cf.enterCompilationScope();
+		getRightOperand().generateCode(mv, cf);
+		cf.exitCompilationScope();
+		CodeFlow.insertNumericUnboxOrPrimitiveTypeCoercion(mv, getRightOperand().exitTypeDescriptor, 'D');
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "pow", "(DD)D", false);
+		if ("J".equals(this.exitTypeDescriptor)) {
+			mv.visitInsn(D2L);
+		}
+		else if ("I".equals(this.exitTypeDescriptor)) {
+			// A result beyond the int range is a long when interpreted: let the compiled
+			// form fail, so that such results can be computed in interpreted mode
+			Label withinRange = new Label();
+			mv.visitInsn(DUP2);
+			mv.visitLdcInsn((double) Integer.MAX_VALUE);
+			mv.visitInsn(DCMPL);
+			mv.visitJumpInsn(IFLE, withinRange);
+			mv.visitTypeInsn(NEW, "java/lang/ArithmeticException");
+			mv.visitInsn(DUP);
+			mv.visitLdcInsn("integer overflow");
+			mv.visitMethodInsn(INVOKESPECIAL, "java/lang/ArithmeticException", "<init>", "(Ljava/lang/String;)V", false);
+			mv.visitInsn(ATHROW);
+			mv.visitLabel(withinRange);
+			mv.visitInsn(D2I);
+		}
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -88,6 +91,7 @@ public class Selection extends SpelNodeImpl {
 		SpelNodeImpl selectionCriteria = this.children[0];
 
 		if (operand instanceof Map) {
+			this.exitTypeDescriptor = "Ljava/util/Map";
 			Map<?, ?> mapdata = (Map<?, ?>) operand;
 			// TODO don't lose generic info for the new map
 			Map<Object, Object> result = new HashMap<>();
@@ -135,6 +139,9 @@ public class Selection extends SpelNodeImpl {
 		}
 
 		if (operand instanceof Iterable || ObjectUtils.isArray(operand)) {
+			// Only selection over an Iterable is compilable
+			this.exitTypeDescriptor = (operand instanceof Iterable ?
+					(this.variant == ALL ? "Ljava/util/List" : "Ljava/lang/Object") : null);
 			Iterable<?> data = (operand instanceof Iterable ?
 					(Iterable<?>) operand : Arrays.asList(ObjectUtils.toObjectArray(operand)));
 
@@ -208,6 +215,116 @@ public class Selection extends SpelNodeImpl {
 		return prefix() + getChild(0).toStringAST() + "]";
 	}
 
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl selectionCriteria = this.children[0];
+		return (this.exitTypeDescriptor != null && selectionCriteria.isCompilable() &&
+				CodeFlow.isBooleanCompatible(selectionCriteria.exitTypeDescriptor) &&
+				!AstUtils.referencesVariable(selectionCriteria, "index"));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		boolean mapOperand = "Ljava/util/Map".equals(this.exitTypeDescriptor);
+		if (cf.lastDescriptor() == null) {
+			// Stack is empty, should use context object
+			cf.loadTarget(mv);
+		}
+		Label endOfSelection = new Label();
+		if (this.nullSafe) {
+			mv.visitInsn(DUP);
+			mv.visitJumpInsn(IFNULL, endOfSelection);
+		}
+
+		int iteratorVariableId = cf.nextFreeVariableId();
+		int elementVariableId = cf.nextFreeVariableId();
+		int resultVariableId = cf.nextFreeVariableId();
+		if (mapOperand) {
+			// Select from the map entries into a new map
+			mv.visitTypeInsn(CHECKCAST, "java/util/Map");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "entrySet", "()Ljava/util/Set;", true);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Set", "iterator", "()Ljava/util/Iterator;", true);
+			mv.visitVarInsn(ASTORE, iteratorVariableId);
+			mv.visitTypeInsn(NEW, "java/util/HashMap");
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/util/HashMap", "<init>", "()V", false);
+		}
+		else {
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Iterable");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;", true);
+			mv.visitVarInsn(ASTORE, iteratorVariableId);
+			if (this.variant == ALL) {
+				mv.visitTypeInsn(NEW, "java/util/ArrayList");
+				mv.visitInsn(DUP);
+				mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+			}
+			else {
+				mv.visitInsn(ACONST_NULL);
+			}
+		}
+		mv.visitVarInsn(ASTORE, resultVariableId);
+
+		Label nextElement = new Label();
+		Label endOfLoop = new Label();
+		mv.visitLabel(nextElement);
+		mv.visitVarInsn(ALOAD, iteratorVariableId);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+		mv.visitJumpInsn(IFEQ, endOfLoop);
+		mv.visitVarInsn(ALOAD, iteratorVariableId);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+		mv.visitVarInsn(ASTORE, elementVariableId);
+
+		// Evaluate the selection criteria against the element
+		int previousTargetVariableId = cf.switchTarget(elementVariableId);
+		cf.enterCompilationScope();
+		this.children[0].generateCode(mv, cf);
+		cf.unboxBooleanIfNecessary(mv);
+		cf.exitCompilationScope();
+		cf.switchTarget(previousTargetVariableId);
+		mv.visitJumpInsn(IFEQ, nextElement);
+
+		if (mapOperand) {
+			mv.visitVarInsn(ALOAD, resultVariableId);
+			if (this.variant == LAST) {
+				mv.visitInsn(DUP);
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "clear", "()V", true);
+			}
+			mv.visitVarInsn(ALOAD, elementVariableId);
+			mv.visitTypeInsn(CHECKCAST, "java/util/Map$Entry");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map$Entry", "getKey", "()Ljava/lang/Object;", true);
+			mv.visitVarInsn(ALOAD, elementVariableId);
+			mv.visitTypeInsn(CHECKCAST, "java/util/Map$Entry");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map$Entry", "getValue", "()Ljava/lang/Object;", true);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put",
+					"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+			mv.visitInsn(POP);
+		}
+		else if (this.variant == ALL) {
+			mv.visitVarInsn(ALOAD, resultVariableId);
+			mv.visitVarInsn(ALOAD, elementVariableId);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+			mv.visitInsn(POP);
+		}
+		else {
+			mv.visitVarInsn(ALOAD, elementVariableId);
+			mv.visitVarInsn(ASTORE, resultVariableId);
+		}
+		mv.visitJumpInsn(GOTO, (this.variant == FIRST ? endOfLoop : nextElement));
+		mv.visitLabel(endOfLoop);
+
+		mv.visitVarInsn(ALOAD, resultVariableId);
+		if (mapOperand && this.variant != ALL) {
+			// No selected entry means null rather than an empty map
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "isEmpty", "()Z", true);
+			mv.visitJumpInsn(IFEQ, endOfSelection);
+			mv.visitInsn(POP);
+			mv.visitInsn(ACONST_NULL);
+		}
+		mv.visitLabel(endOfSelection);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	private String prefix() {
 		switch (this.variant) {
 			case ALL:   return "?[";
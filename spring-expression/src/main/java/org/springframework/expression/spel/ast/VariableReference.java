@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,27 +66,32 @@ public class VariableReference extends SpelNodeImpl {
 	@Override
 	public TypedValue getValueInternal(ExpressionState state) throws SpelEvaluationException {
 		if (this.name.equals(THIS)) {
-			return state.getActiveContextObject();
+			TypedValue result = state.getActiveContextObject();
+			this.exitTypeDescriptor = determineExitTypeDescriptor(result.getValue());
+			return result;
 		}
 		if (this.name.equals(ROOT)) {
 			TypedValue result = state.getRootContextObject();
-			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
+			this.exitTypeDescriptor = determineExitTypeDescriptor(result.getValue());
 			return result;
 		}
 		TypedValue result = state.lookupVariable(this.name);
-		Object value = result.getValue();
+		this.exitTypeDescriptor = determineExitTypeDescriptor(result.getValue());
+		// a null value will mean either the value was null or the variable was not found
+		return result;
+	}
+
+	private static String determineExitTypeDescriptor(@Nullable Object value) {
 		if (value == null || !Modifier.isPublic(value.getClass().getModifiers())) {
 			// If the type is not public then when generateCode produces a checkcast to it
 			// then an IllegalAccessError will occur.
 			// If resorting to Object isn't sufficient, the hierarchy could be traversed for
 			// the first public type.
-			this.exitTypeDescriptor = "Ljava/lang/Object";
+			return "Ljava/lang/Object";
 		}
 		else {
-			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(value);
+			return CodeFlow.toDescriptorFromObject(value);
 		}
-		// a null value will mean either the value was null or the variable was not found
-		return result;
 	}
 
 	@Override
@@ -94,6 +99,23 @@ public class VariableReference extends SpelNodeImpl {
 		state.setVariable(this.name, value);
 	}
 
+	/**
+	 * Return the name of the referenced variable, without the leading {@code #}.
+	 * @since 5.2.4
+	 */
+	String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Return whether this is a reference to a well-known variable, {@code #this}
+	 * or {@code #root}, rather than to a variable of the evaluation context.
+	 * @since 5.2.4
+	 */
+	boolean isWellKnownVariable() {
+		return (this.name.equals(THIS) || this.name.equals(ROOT));
+	}
+
 	@Override
 	public String toStringAST() {
 		return "#" + this.name;
@@ -112,7 +134,18 @@ public class VariableReference extends SpelNodeImpl {
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
 		if (this.name.equals(ROOT)) {
-			mv.visitVarInsn(ALOAD,1);
+			cf.loadRootObject(mv);
+		}
+		else if (this.name.equals(THIS)) {
+			String descriptor = cf.lastDescriptor();
+			if (descriptor == null) {
+				// Stack is empty, the active context object is the target
+				cf.loadTarget(mv);
+			}
+			else {
+				// The active context object is the value on the stack
+				CodeFlow.insertBoxIfNecessary(mv, descriptor);
+			}
 		}
 		else {
 			mv.visitVarInsn(ALOAD, 2);
@@ -51,7 +51,7 @@ public class SpelExpression implements Expression {
 	// Number of times to interpret an expression before compiling it
 	private static final int INTERPRETED_COUNT_THRESHOLD = 100;
 
-	// Number of times to try compiling an expression before giving up
+	// Number of times to try compiling an expression (or running it compiled) before giving up
 	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
 
 
@@ -73,10 +73,15 @@ public class SpelExpression implements Expression {
 	// when certain limit reached
 	private final AtomicInteger interpretedCount = new AtomicInteger(0);
 
-	// The number of times compilation was attempted and failed - enables us to eventually
-	// give up trying to compile it when it just doesn't seem to be possible.
+	// The number of times compilation was attempted and failed, or the compiled form failed
+	// at runtime in mixed mode - enables us to eventually give up trying to compile it when
+	// it just doesn't seem to be possible, rather than generating ever more classes.
 	private final AtomicInteger failedAttempts = new AtomicInteger(0);
 
+	// Why the most recent compilation attempt failed, if it did
+	@Nullable
+	private volatile String compilationFailureReason;
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -129,6 +134,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -165,6 +171,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -193,6 +200,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -229,6 +237,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -260,6 +269,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -296,6 +306,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -325,6 +336,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -363,6 +375,7 @@ public class SpelExpression implements Expression {
 				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
 					this.compiledAst = null;
 					this.interpretedCount.set(0);
+					this.failedAttempts.incrementAndGet();
 				}
 				else {
 					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
@@ -503,7 +516,8 @@ public class SpelExpression implements Expression {
 	/**
 	 * Perform expression compilation. This will only succeed once exit descriptors for
 	 * all nodes have been determined. If the compilation fails and has failed more than
-	 * 100 times the expression is no longer considered suitable for compilation.
+	 * 100 times the expression is no longer considered suitable for compilation. The same
+	 * applies if the compiled form has failed more than 100 times in mixed mode.
 	 * @return whether this expression has been successfully compiled
 	 */
 	public boolean compileExpression() {
@@ -523,20 +537,72 @@ public class SpelExpression implements Expression {
 				return true;
 			}
 			SpelCompiler compiler = SpelCompiler.getCompiler(this.configuration.getCompilerClassLoader());
-			compiledAst = compiler.compile(this.ast);
+			try {
+				compiledAst = compiler.compile(this.ast);
+			}
+			catch (IllegalStateException ex) {
+				// Generated code failed to load
+				this.compilationFailureReason = ex.getMessage() +
+						(ex.getCause() != null ? ": " + ex.getCause() : "");
+				this.failedAttempts.incrementAndGet();
+				return false;
+			}
 			if (compiledAst != null) {
 				// Successfully compiled
 				this.compiledAst = compiledAst;
+				this.compilationFailureReason = null;
 				return true;
 			}
 			else {
 				// Failed to compile
+				this.compilationFailureReason = determineCompilationFailureReason();
 				this.failedAttempts.incrementAndGet();
 				return false;
 			}
 		}
 	}
 
+	/**
+	 * Return the reason why the most recent attempt to compile this expression
+	 * failed, typically naming the first part of the expression that could not
+	 * be compiled, for example because it has not been evaluated yet, or because
+	 * the operand types it was evaluated with are not supported by the compiler.
+	 * @return the reason, or {@code null} if compilation has not been attempted
+	 * or has succeeded
+	 * @since 5.2.4
+	 * @see #compileExpression()
+	 */
+	@Nullable
+	public String getCompilationFailureReason() {
+		return this.compilationFailureReason;
+	}
+
+	private String determineCompilationFailureReason() {
+		SpelNodeImpl node = findNonCompilableNode(this.ast);
+		if (node == null) {
+			return "Code generation for '" + this.ast.toStringAST() + "' opted out of compilation";
+		}
+		return node.getClass().getSimpleName() + " '" + node.toStringAST() + "' at position " +
+				node.getStartPosition() + " is not compilable";
+	}
+
+	/**
+	 * Find the innermost node that is not compilable even though its children are.
+	 */
+	@Nullable
+	private static SpelNodeImpl findNonCompilableNode(SpelNodeImpl node) {
+		if (node.isCompilable()) {
+			return null;
+		}
+		for (int i = 0; i < node.getChildCount(); i++) {
+			SpelNodeImpl nonCompilableChild = findNonCompilableNode((SpelNodeImpl) node.getChild(i));
+			if (nonCompilableChild != null) {
+				return nonCompilableChild;
+			}
+		}
+		return node;
+	}
+
 	/**
 	 * Cause an expression to revert to being interpreted if it has been using a compiled
 	 * form. It also resets the compilation attempt failure count (an expression is normally no
@@ -546,6 +612,7 @@ public class SpelExpression implements Expression {
 		this.compiledAst = null;
 		this.interpretedCount.set(0);
 		this.failedAttempts.set(0);
+		this.compilationFailureReason = null;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,12 +19,14 @@ package org.springframework.expression.spel.support;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.MethodExecutor;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * A {@link org.springframework.expression.MethodResolver} variant for data binding
@@ -41,8 +43,15 @@ import org.springframework.lang.Nullable;
  */
 public final class DataBindingMethodResolver extends ReflectiveMethodResolver {
 
+	/**
+	 * Candidate methods per target type, shared across all instances since they
+	 * are determined by {@link #isCandidateForInvocation} alone.
+	 */
+	private static final Map<Class<?>, Method[]> methodCache = new ConcurrentReferenceHashMap<>(256);
+
+
 	private DataBindingMethodResolver() {
-		super();
+		super(true, methodCache);
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,13 +39,18 @@ import java.lang.reflect.Method;
  */
 public final class DataBindingPropertyAccessor extends ReflectivePropertyAccessor {
 
+	private static final DataBindingPropertyAccessor readOnlyAccessor = new DataBindingPropertyAccessor(false);
+
+	private static final DataBindingPropertyAccessor readWriteAccessor = new DataBindingPropertyAccessor(true);
+
+
 	/**
 	 * Create a new property accessor for reading and possibly also writing.
 	 * @param allowWrite whether to also allow for write operations
 	 * @see #canWrite
 	 */
 	private DataBindingPropertyAccessor(boolean allowWrite) {
-		super(allowWrite);
+		super(allowWrite, true);
 	}
 
 	@Override
@@ -56,17 +61,21 @@ public final class DataBindingPropertyAccessor extends ReflectivePropertyAccesso
 
 
 	/**
-	 * Create a new data-binding property accessor for read-only operations.
+	 * Return a data-binding property accessor for read-only operations.
+	 * <p>As of 5.2.4, this is a shared instance, reusing its property
+	 * introspection results across evaluation contexts.
 	 */
 	public static DataBindingPropertyAccessor forReadOnlyAccess() {
-		return new DataBindingPropertyAccessor(false);
+		return readOnlyAccessor;
 	}
 
 	/**
-	 * Create a new data-binding property accessor for read-write operations.
+	 * Return a data-binding property accessor for read-write operations.
+	 * <p>As of 5.2.4, this is a shared instance, reusing its property
+	 * introspection results across evaluation contexts.
 	 */
 	public static DataBindingPropertyAccessor forReadWriteAccess() {
-		return new DataBindingPropertyAccessor(true);
+		return readWriteAccessor;
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -57,12 +57,15 @@ public class ReflectiveMethodResolver implements MethodResolver {
 	// more closely following the Java rules.
 	private final boolean useDistance;
 
+	@Nullable
+	private final Map<Class<?>, Method[]> methodCache;
+
 	@Nullable
 	private Map<Class<?>, MethodFilter> filters;
 
 
 	public ReflectiveMethodResolver() {
-		this.useDistance = true;
+		this(true);
 	}
 
 	/**
@@ -76,7 +79,21 @@ public class ReflectiveMethodResolver implements MethodResolver {
 	 * calculating matches; {@code false} otherwise
 	 */
 	public ReflectiveMethodResolver(boolean useDistance) {
+		this(useDistance, null);
+	}
+
+	/**
+	 * Create a new resolver which keeps the sorted candidate methods per target
+	 * type in the given cache, for types without a registered method filter.
+	 * @param useDistance whether distance computation should be used when
+	 * calculating matches
+	 * @param methodCache the cache to use, possibly shared with other resolver
+	 * instances that determine the same candidate methods for a given type
+	 * @since 5.2.4
+	 */
+	ReflectiveMethodResolver(boolean useDistance, @Nullable Map<Class<?>, Method[]> methodCache) {
 		this.useDistance = useDistance;
+		this.methodCache = methodCache;
 	}
 
 
@@ -115,43 +132,12 @@ public class ReflectiveMethodResolver implements MethodResolver {
 		try {
 			TypeConverter typeConverter = context.getTypeConverter();
 			Class<?> type = (targetObject instanceof Class ? (Class<?>) targetObject : targetObject.getClass());
-			ArrayList<Method> methods = new ArrayList<>(getMethods(type, targetObject));
 
-			// If a filter is registered for this type, call it
+			// If a filter is registered for this type, it needs to see the full set of methods
 			MethodFilter filter = (this.filters != null ? this.filters.get(type) : null);
-			if (filter != null) {
-				List<Method> filtered = filter.filter(methods);
-				methods = (filtered instanceof ArrayList ? (ArrayList<Method>) filtered : new ArrayList<>(filtered));
-			}
-
-			// Sort methods into a sensible order
-			if (methods.size() > 1) {
-				methods.sort((m1, m2) -> {
-					int m1pl = m1.getParameterCount();
-					int m2pl = m2.getParameterCount();
-					// vararg methods go last
-					if (m1pl == m2pl) {
-						if (!m1.isVarArgs() && m2.isVarArgs()) {
-							return -1;
-						}
-						else if (m1.isVarArgs() && !m2.isVarArgs()) {
-							return 1;
-						}
-						else {
-							return 0;
-						}
-					}
-					return Integer.compare(m1pl, m2pl);
-				});
-			}
-
-			// Resolve any bridge methods
-			for (int i = 0; i < methods.size(); i++) {
-				methods.set(i, BridgeMethodResolver.findBridgedMethod(methods.get(i)));
-			}
-
-			// Remove duplicate methods (possible due to resolved bridge methods)
-			Set<Method> methodsToIterate = new LinkedHashSet<>(methods);
+			Method[] methodsToIterate = (this.methodCache != null && filter == null && !(targetObject instanceof Class) ?
+					this.methodCache.computeIfAbsent(type, key -> getSortedMethods(key, targetObject, null)) :
+					getSortedMethods(type, targetObject, filter));
 
 			Method closeMatch = null;
 			int closeMatchDistance = Integer.MAX_VALUE;
@@ -221,6 +207,46 @@ public class ReflectiveMethodResolver implements MethodResolver {
 		}
 	}
 
+	private Method[] getSortedMethods(Class<?> type, Object targetObject, @Nullable MethodFilter filter) {
+		ArrayList<Method> methods = new ArrayList<>(getMethods(type, targetObject));
+
+		// If a filter is registered for this type, call it
+		if (filter != null) {
+			List<Method> filtered = filter.filter(methods);
+			methods = (filtered instanceof ArrayList ? (ArrayList<Method>) filtered : new ArrayList<>(filtered));
+		}
+
+		// Sort methods into a sensible order
+		if (methods.size() > 1) {
+			methods.sort((m1, m2) -> {
+				int m1pl = m1.getParameterCount();
+				int m2pl = m2.getParameterCount();
+				// vararg methods go last
+				if (m1pl == m2pl) {
+					if (!m1.isVarArgs() && m2.isVarArgs()) {
+						return -1;
+					}
+					else if (m1.isVarArgs() && !m2.isVarArgs()) {
+						return 1;
+					}
+					else {
+						return 0;
+					}
+				}
+				return Integer.compare(m1pl, m2pl);
+			});
+		}
+
+		// Resolve any bridge methods
+		for (int i = 0; i < methods.size(); i++) {
+			methods.set(i, BridgeMethodResolver.findBridgedMethod(methods.get(i)));
+		}
+
+		// Remove duplicate methods (possible due to resolved bridge methods)
+		Set<Method> methodsToIterate = new LinkedHashSet<>(methods);
+		return methodsToIterate.toArray(new Method[0]);
+	}
+
 	private Set<Method> getMethods(Class<?> type, Object targetObject) {
 		if (targetObject instanceof Class) {
 			Set<Method> result = new LinkedHashSet<>();
@@ -42,6 +42,7 @@ import org.springframework.expression.spel.CompilablePropertyAccessor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
@@ -77,13 +78,13 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 	private final boolean allowWrite;
 
-	private final Map<PropertyCacheKey, InvokerPair> readerCache = new ConcurrentHashMap<>(64);
+	private final Map<PropertyCacheKey, InvokerPair> readerCache;
 
-	private final Map<PropertyCacheKey, Member> writerCache = new ConcurrentHashMap<>(64);
+	private final Map<PropertyCacheKey, Member> writerCache;
 
-	private final Map<PropertyCacheKey, TypeDescriptor> typeDescriptorCache = new ConcurrentHashMap<>(64);
+	private final Map<PropertyCacheKey, TypeDescriptor> typeDescriptorCache;
 
-	private final Map<Class<?>, Method[]> sortedMethodsCache = new ConcurrentHashMap<>(64);
+	private final Map<Class<?>, Method[]> sortedMethodsCache;
 
 	@Nullable
 	private volatile InvokerPair lastReadInvokerPair;
@@ -94,7 +95,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	 * @see #ReflectivePropertyAccessor(boolean)
 	 */
 	public ReflectivePropertyAccessor() {
-		this.allowWrite = true;
+		this(true);
 	}
 
 	/**
@@ -104,7 +105,27 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	 * @see #canWrite
 	 */
 	public ReflectivePropertyAccessor(boolean allowWrite) {
+		this(allowWrite, false);
+	}
+
+	/**
+	 * Create a new property accessor for reading and possibly writing.
+	 * @param allowWrite whether to also allow for write operations
+	 * @param shared whether the accessor is going to be shared across evaluation
+	 * contexts, keeping its introspection results in memory-sensitive caches
+	 * rather than holding on to every target class it has seen
+	 * @since 5.2.4
+	 */
+	ReflectivePropertyAccessor(boolean allowWrite, boolean shared) {
 		this.allowWrite = allowWrite;
+		this.readerCache = createCache(shared);
+		this.writerCache = createCache(shared);
+		this.typeDescriptorCache = createCache(shared);
+		this.sortedMethodsCache = createCache(shared);
+	}
+
+	private static <K, V> Map<K, V> createCache(boolean shared) {
+		return (shared ? new ConcurrentReferenceHashMap<>(256) : new ConcurrentHashMap<>(64));
 	}
 
 
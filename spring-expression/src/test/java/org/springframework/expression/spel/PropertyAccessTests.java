@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.DataBindingPropertyAccessor;
 import org.springframework.expression.spel.support.SimpleEvaluationContext;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.testresources.Inventor;
@@ -257,6 +258,17 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 		assertThat(context.getRootObject().getTypeDescriptor().getType()).isSameAs(Object.class);
 	}
 
+	@Test
+	void propertyAccessWithInstanceMethodResolverAcrossContexts() {
+		Expression expression = parser.parseExpression("name.substring(1)");
+		for (int i = 0; i < 3; i++) {
+			EvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding().withInstanceMethods().build();
+			assertThat(expression.getValue(context, new Person("p" + i))).isEqualTo(String.valueOf(i));
+		}
+		assertThat(DataBindingPropertyAccessor.forReadOnlyAccess()).isSameAs(DataBindingPropertyAccessor.forReadOnlyAccess());
+		assertThat(DataBindingPropertyAccessor.forReadWriteAccess()).isSameAs(DataBindingPropertyAccessor.forReadWriteAccess());
+	}
+
 	@Test
 	void propertyAccessWithArrayIndexOutOfBounds() {
 		EvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding().build();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -105,20 +105,21 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 	 * ConstructorReference
 	 * FunctionReference
 	 * InlineList
+	 * InlineMap
 	 * OpModulus
+	 * OpBetween
+	 * OpMatches
+	 * OpPower
+	 * Projection
+	 * Selection
+	 * Assign (to variables only)
 	 *
 	 * Not yet compiled (some may never need to be):
-	 * Assign
 	 * BeanReference
 	 * Identifier
 	 * OpDec
-	 * OpBetween
-	 * OpMatches
-	 * OpPower
 	 * OpInc
-	 * Projection
 	 * QualifiedId
-	 * Selection
 	 */
 
 
@@ -5105,6 +5106,257 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertThat(classloadersUsed.size() > 1).isTrue();
 	}
 
+	@Test
+	public void selection() throws Exception {
+		List<Integer> numbers = new ArrayList<>();
+		Collections.addAll(numbers, 1, 2, 3, 4, 5);
+
+		expression = parser.parseExpression("#root.?[#this > 2]");
+		assertThat(expression.getValue(numbers).toString()).isEqualTo("[3, 4, 5]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers).toString()).isEqualTo("[3, 4, 5]");
+		assertThat(getAst().getExitDescriptor()).isEqualTo("Ljava/util/List");
+
+		expression = parser.parseExpression("#root.^[#this > 2]");
+		assertThat(expression.getValue(numbers)).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(3);
+
+		expression = parser.parseExpression("#root.$[#this > 2]");
+		assertThat(expression.getValue(numbers)).isEqualTo(5);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(5);
+
+		expression = parser.parseExpression("#root.^[#this > 10]");
+		assertThat(expression.getValue(numbers)).isNull();
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isNull();
+
+		Map<String, Integer> scores = new HashMap<>();
+		scores.put("a", 10);
+		scores.put("b", 20);
+		scores.put("c", 30);
+		expression = parser.parseExpression("#root.?[value > 15]");
+		Map<?, ?> selected = (Map<?, ?>) expression.getValue(scores);
+		assertThat(selected.keySet().toString()).isEqualTo("[b, c]");
+		assertCanCompile(expression);
+		selected = (Map<?, ?>) expression.getValue(scores);
+		assertThat(selected.keySet().toString()).isEqualTo("[b, c]");
+		assertThat(getAst().getExitDescriptor()).isEqualTo("Ljava/util/Map");
+
+		// #index is not supported by the compiled form
+		expression = parser.parseExpression("#root.?[#index > 1]");
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void projection() throws Exception {
+		List<Integer> numbers = new ArrayList<>();
+		Collections.addAll(numbers, 1, 2, 3);
+
+		expression = parser.parseExpression("#root.![#this * 2]");
+		assertThat(expression.getValue(numbers).toString()).isEqualTo("[2, 4, 6]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers).toString()).isEqualTo("[2, 4, 6]");
+		assertThat(getAst().getExitDescriptor()).isEqualTo("Ljava/util/List");
+
+		expression = parser.parseExpression("#root.?[#this > 1].![#this.toString()]");
+		assertThat(expression.getValue(numbers).toString()).isEqualTo("[2, 3]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers).toString()).isEqualTo("[2, 3]");
+
+		Map<String, Integer> scores = new HashMap<>();
+		scores.put("a", 10);
+		scores.put("b", 20);
+		expression = parser.parseExpression("#root.![key]");
+		assertThat(expression.getValue(scores).toString()).isEqualTo("[a, b]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(scores).toString()).isEqualTo("[a, b]");
+
+		// Projection over an array is still interpreted
+		expression = parser.parseExpression("#root.![#this]");
+		assertThat(expression.getValue(new Integer[] {1, 2})).isInstanceOf(Integer[].class);
+		assertCantCompile(expression);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Test
+	public void inlineMap() throws Exception {
+		expression = parser.parseExpression("{a:1, b:'x', c:{1,2}, d:{e:2}}");
+		assertThat(expression.getValue().toString()).isEqualTo("{a=1, b=x, c=[1, 2], d={e=2}}");
+		assertCanCompile(expression);
+		Map m = (Map) expression.getValue();
+		assertThat(m.toString()).isEqualTo("{a=1, b=x, c=[1, 2], d={e=2}}");
+		assertThat(expression.getValue()).isSameAs(m);
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> m.put("f", 1));
+
+		expression = parser.parseExpression("{a:#root, 'b':#root * 2}");
+		assertThat(expression.getValue(3).toString()).isEqualTo("{a=3, b=6}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(3).toString()).isEqualTo("{a=3, b=6}");
+		assertThat(expression.getValue(4).toString()).isEqualTo("{a=4, b=8}");
+
+		expression = parser.parseExpression("{a:#root, b:#root * 2}['b']");
+		assertThat(expression.getValue(3)).isEqualTo(6);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(3)).isEqualTo(6);
+	}
+
+	@Test
+	public void inlineListNonConstant() throws Exception {
+		expression = parser.parseExpression("{#root, #root * 2}");
+		assertThat(expression.getValue(3).toString()).isEqualTo("[3, 6]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(3).toString()).isEqualTo("[3, 6]");
+		assertThat(expression.getValue(5).toString()).isEqualTo("[5, 10]");
+	}
+
+	@Test
+	public void opMatches() throws Exception {
+		expression = parser.parseExpression("#root matches '[A-Z]{2}-\\d+'");
+		assertThat(expression.getValue("AB-123", Boolean.class)).isTrue();
+		assertCanCompile(expression);
+		assertThat(expression.getValue("AB-123", Boolean.class)).isTrue();
+		assertThat(expression.getValue("ab-123", Boolean.class)).isFalse();
+		assertThat(getAst().getExitDescriptor()).isEqualTo("Z");
+
+		expression = parser.parseExpression("'abc' matches #root");
+		assertThat(expression.getValue("a.c", Boolean.class)).isTrue();
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void opBetween() throws Exception {
+		expression = parser.parseExpression("#root between {1, 5}");
+		assertThat(expression.getValue(3, Boolean.class)).isTrue();
+		assertCanCompile(expression);
+		assertThat(expression.getValue(3, Boolean.class)).isTrue();
+		assertThat(expression.getValue(6, Boolean.class)).isFalse();
+		assertThat(getAst().getExitDescriptor()).isEqualTo("Z");
+
+		expression = parser.parseExpression("'b' between {'a', 'c'}");
+		assertThat(expression.getValue(Boolean.class)).isTrue();
+		assertCanCompile(expression);
+		assertThat(expression.getValue(Boolean.class)).isTrue();
+	}
+
+	@Test
+	public void opPower() throws Exception {
+		expression = parser.parseExpression("#root ^ 2");
+		assertThat(expression.getValue(3)).isEqualTo(9);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(3)).isEqualTo(9);
+		assertThat(getAst().getExitDescriptor()).isEqualTo("I");
+
+		expression = parser.parseExpression("2.0d ^ 3");
+		assertThat(expression.getValue()).isEqualTo(8.0d);
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo(8.0d);
+		assertThat(getAst().getExitDescriptor()).isEqualTo("D");
+
+		expression = parser.parseExpression("2L ^ 40");
+		assertThat(expression.getValue()).isEqualTo(1099511627776L);
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo(1099511627776L);
+		assertThat(getAst().getExitDescriptor()).isEqualTo("J");
+
+		expression = parser.parseExpression("#root ^ 40");
+		assertThat(expression.getValue(1)).isEqualTo(1);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(1)).isEqualTo(1);
+		assertThatExceptionOfType(SpelEvaluationException.class).isThrownBy(() -> expression.getValue(2))
+				.withCauseInstanceOf(ArithmeticException.class);
+	}
+
+	@Test
+	public void opPowerIntOverflowBeforeCompilation() throws Exception {
+		expression = parser.parseExpression("#root ^ 31");
+		assertThat(expression.getValue(2)).isEqualTo(2147483648L);
+		assertCanCompile(expression);
+		assertThat(getAst().getExitDescriptor()).isEqualTo("I");
+		assertThat(expression.getValue(1)).isEqualTo(1);
+		assertThatExceptionOfType(SpelEvaluationException.class).isThrownBy(() -> expression.getValue(2))
+				.withCauseInstanceOf(ArithmeticException.class);
+
+		SpelExpressionParser mixedParser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.MIXED, ClassLoader.getSystemClassLoader()));
+		Expression mixedExpression = mixedParser.parseExpression("#root ^ 31");
+		assertThat(mixedExpression.getValue(2)).isEqualTo(2147483648L);
+		assertThat(((SpelExpression) mixedExpression).compileExpression()).isTrue();
+		assertThat(mixedExpression.getValue(1)).isEqualTo(1);
+		assertThat(mixedExpression.getValue(2)).isEqualTo(2147483648L);
+	}
+
+	@Test
+	public void elvisWithPrimitiveCondition() throws Exception {
+		expression = parser.parseExpression("3?:4");
+		assertThat(expression.getValue()).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo(3);
+		assertThat(getAst().getExitDescriptor()).isEqualTo("I");
+	}
+
+	@Test
+	public void indexerMapWithComputedKey() throws Exception {
+		Map<String, String> map = new HashMap<>();
+		map.put("ab", "value");
+
+		expression = parser.parseExpression("['a' + 'b']");
+		assertThat(expression.getValue(map)).isEqualTo("value");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map)).isEqualTo("value");
+	}
+
+	@Test
+	public void assignToVariable() throws Exception {
+		StandardEvaluationContext ctx = new StandardEvaluationContext();
+		expression = parser.parseExpression("#x = 2 * 3");
+		assertThat(expression.getValue(ctx)).isEqualTo(6);
+		assertCanCompile(expression);
+		ctx.setVariable("x", null);
+		assertThat(expression.getValue(ctx)).isEqualTo(6);
+		assertThat(ctx.lookupVariable("x")).isEqualTo(6);
+
+		expression = parser.parseExpression("#root = 1");
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void arrayConstruction() throws Exception {
+		expression = parser.parseExpression("new int[]{1, 2, #root}");
+		assertThat((int[]) expression.getValue(3)).containsExactly(1, 2, 3);
+		assertCanCompile(expression);
+		assertThat((int[]) expression.getValue(4)).containsExactly(1, 2, 4);
+		assertThat(getAst().getExitDescriptor()).isEqualTo("[I");
+
+		expression = parser.parseExpression("new String[]{'a', #root}");
+		assertThat((String[]) expression.getValue("b")).containsExactly("a", "b");
+		assertCanCompile(expression);
+		assertThat((String[]) expression.getValue("c")).containsExactly("a", "c");
+
+		expression = parser.parseExpression("new long[#root]");
+		assertThat((long[]) expression.getValue(2)).containsExactly(0L, 0L);
+		assertCanCompile(expression);
+		assertThat((long[]) expression.getValue(3)).containsExactly(0L, 0L, 0L);
+
+		expression = parser.parseExpression("new int[2][2]");
+		assertThat(expression.getValue()).isInstanceOf(int[][].class);
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void compilationFailureReason() throws Exception {
+		SpelExpression expression = (SpelExpression) parser.parseExpression("#root.![#this * 2]");
+		assertThat(expression.getCompilationFailureReason()).isNull();
+		assertThat(expression.compileExpression()).isFalse();
+		assertThat(expression.getCompilationFailureReason()).contains("not compilable");
+
+		List<Integer> numbers = Collections.singletonList(1);
+		expression.getValue(numbers);
+		assertThat(expression.compileExpression()).isTrue();
+		assertThat(expression.getCompilationFailureReason()).isNull();
+	}
+
 
 	// Helper methods
 
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.jdbc.core;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for mapping rows to beans with a {@link BeanPropertyRowMapper},
+ * against a {@link ResultSet} stub that returns the same row on every call.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanPropertyRowMapperBenchmark {
+
+	@Benchmark
+	public Person mapRow(BenchmarkData data) throws SQLException {
+		return data.rowMapper.mapRow(data.resultSet, 1);
+	}
+
+	@Benchmark
+	public Person newRowMapperAndMapRow(BenchmarkData data) throws SQLException {
+		return BeanPropertyRowMapper.newInstance(Person.class).mapRow(data.resultSet, 1);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		private static final String[] COLUMNS = {"id", "first_name", "last_name", "age", "balance", "created", "active"};
+
+		private static final Object[] VALUES = {42L, "Juergen", "Hoeller", 42, new BigDecimal("1024.50"),
+				new Timestamp(1577836800000L), true};
+
+		public BeanPropertyRowMapper<Person> rowMapper;
+
+		public ResultSet resultSet;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.rowMapper = BeanPropertyRowMapper.newInstance(Person.class);
+			ClassLoader classLoader = getClass().getClassLoader();
+			ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(classLoader,
+					new Class<?>[] {ResultSetMetaData.class}, (proxy, method, args) -> {
+						if (method.getName().equals("getColumnCount")) {
+							return COLUMNS.length;
+						}
+						if (method.getName().startsWith("getColumn")) {
+							return COLUMNS[(Integer) args[0] - 1];
+						}
+						throw new UnsupportedOperationException(method.getName());
+					});
+			this.resultSet = (ResultSet) Proxy.newProxyInstance(classLoader,
+					new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+						if (method.getName().equals("getMetaData")) {
+							return metaData;
+						}
+						if (method.getName().equals("wasNull")) {
+							return false;
+						}
+						if (method.getName().startsWith("get") && args != null && args[0] instanceof Integer) {
+							return VALUES[(Integer) args[0] - 1];
+						}
+						throw new UnsupportedOperationException(method.getName());
+					});
+		}
+	}
+
+
+	public static class Person {
+
+		private long id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private int age;
+
+		private BigDecimal balance;
+
+		private Timestamp created;
+
+		private boolean active;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return this.firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return this.lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public BigDecimal getBalance() {
+			return this.balance;
+		}
+
+		public void setBalance(BigDecimal balance) {
+			this.balance = balance;
+		}
+
+		public Timestamp getCreated() {
+			return this.created;
+		}
+
+		public void setCreated(Timestamp created) {
+			this.created = created;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.LogFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SessionAffineTaskExecutor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Benchmarks for broadcasting a message to many sessions through the
+ * "clientOutboundChannel", comparing unordered dispatch on a thread pool,
+ * ordered dispatch with {@link OrderedMessageSender} as used for the
+ * "preservePublishOrder" option, and ordered dispatch through a
+ * {@link SessionAffineTaskExecutor}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClientOutboundDispatchBenchmark {
+
+	@Benchmark
+	public void broadcast(BenchmarkData data) throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(data.sessions);
+		data.latch = latch;
+		for (int i = 0; i < data.sessions; i++) {
+			data.senders[i].send(data.messages[i]);
+		}
+		latch.await();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"1000", "100000"})
+		public int sessions;
+
+		@Param({"unordered", "ordered", "sessionAffine"})
+		public String dispatch;
+
+		public ThreadPoolTaskExecutor threadPool;
+
+		public MessageChannel[] senders;
+
+		public Message<?>[] messages;
+
+		public volatile CountDownLatch latch;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.threadPool = new ThreadPoolTaskExecutor();
+			int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+			this.threadPool.setCorePoolSize(poolSize);
+			this.threadPool.setMaxPoolSize(poolSize);
+			this.threadPool.initialize();
+
+			Executor executor = (this.dispatch.equals("sessionAffine") ?
+					new SessionAffineTaskExecutor(this.threadPool, poolSize * 4) : this.threadPool);
+			ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+			channel.subscribe(message -> this.latch.countDown());
+			boolean ordered = this.dispatch.equals("ordered");
+			OrderedMessageSender.configureOutboundChannel(channel, ordered);
+
+			this.senders = new MessageChannel[this.sessions];
+			this.messages = new Message<?>[this.sessions];
+			for (int i = 0; i < this.sessions; i++) {
+				this.senders[i] = (ordered ? new OrderedMessageSender(
+						channel, LogFactory.getLog(ClientOutboundDispatchBenchmark.class)) : channel);
+				SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+				accessor.setSessionId("session" + i);
+				accessor.setSubscriptionId("sub");
+				accessor.setDestination("/topic/destination");
+				accessor.setLeaveMutable(true);
+				this.messages[i] = MessageBuilder.createMessage(new byte[64], accessor.getMessageHeaders());
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdownThreadPool() {
+			this.threadPool.shutdown();
+		}
+	}
+
+}
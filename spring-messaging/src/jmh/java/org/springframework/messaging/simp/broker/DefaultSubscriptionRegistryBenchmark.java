@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Benchmarks for finding the subscriptions matching a destination in a
+ * {@link DefaultSubscriptionRegistry}, with plain and pattern subscriptions.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultSubscriptionRegistryBenchmark {
+
+	@Benchmark
+	public MultiValueMap<String, String> findSubscriptions(BenchmarkData data) {
+		return data.registry.findSubscriptions(data.findMessages[data.random.nextInt(data.findMessages.length)]);
+	}
+
+	@Benchmark
+	public void registerUnregister(BenchmarkData data) {
+		data.registry.registerSubscription(data.subscribeMessage);
+		data.registry.unregisterSubscription(data.unsubscribeMessage);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"100", "1000"})
+		public int sessions;
+
+		@Param({"10", "100"})
+		public int destinations;
+
+		@Param({"none", "patterns"})
+		public String subscriptionType;
+
+		public DefaultSubscriptionRegistry registry;
+
+		public Message<?>[] findMessages;
+
+		public Message<?> subscribeMessage;
+
+		public Message<?> unsubscribeMessage;
+
+		public Random random = new Random(42);
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.registry = new DefaultSubscriptionRegistry();
+			for (int i = 0; i < this.sessions; i++) {
+				String sessionId = "session" + i;
+				for (int j = 0; j < this.destinations; j++) {
+					if (this.random.nextInt(4) == 0) {
+						this.registry.registerSubscription(
+								subscribeMessage(sessionId, "sub" + j, "/topic/destination" + j));
+					}
+				}
+				if (this.subscriptionType.equals("patterns")) {
+					this.registry.registerSubscription(subscribeMessage(sessionId, "pattern", "/topic/destination*"));
+				}
+			}
+			this.findMessages = new Message<?>[this.destinations];
+			for (int j = 0; j < this.destinations; j++) {
+				SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+				accessor.setDestination("/topic/destination" + j);
+				this.findMessages[j] = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+			}
+			this.subscribeMessage = subscribeMessage("new-session", "sub", "/topic/destination0");
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+			accessor.setSessionId("new-session");
+			accessor.setSubscriptionId("sub");
+			this.unsubscribeMessage = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+		}
+
+		private static Message<?> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+			accessor.setSessionId(sessionId);
+			accessor.setSubscriptionId(subscriptionId);
+			accessor.setDestination(destination);
+			return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.BroadcastEncodingCache;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Benchmarks for decoding STOMP frames with a {@link StompDecoder},
+ * and for encoding them back with a {@link StompEncoder}, also for
+ * many sessions with and without a shared {@link BroadcastEncodingCache}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StompCodecBenchmark {
+
+	@Benchmark
+	public List<Message<byte[]>> decode(BenchmarkData data) {
+		return data.decoder.decode(ByteBuffer.wrap(data.frames));
+	}
+
+	@Benchmark
+	public byte[] encode(BenchmarkData data) {
+		return data.encoder.encode(data.message);
+	}
+
+	@Benchmark
+	public void encodeBroadcast(BenchmarkData data, Blackhole blackhole) {
+		for (Message<byte[]> message : data.broadcastMessages) {
+			blackhole.consume(data.encoder.encode(message));
+		}
+	}
+
+	@Benchmark
+	public void encodeBroadcastWithSharedFrame(BenchmarkData data, Blackhole blackhole) {
+		for (Message<byte[]> message : data.sharedFrameBroadcastMessages) {
+			blackhole.consume(data.encoder.encode(message));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		private static final int BROADCAST_SESSION_COUNT = 100;
+
+		@Param({"1", "10"})
+		public int frameCount;
+
+		@Param({"64", "4096"})
+		public int payloadSize;
+
+		public StompDecoder decoder = new StompDecoder();
+
+		public StompEncoder encoder = new StompEncoder();
+
+		public byte[] frames;
+
+		public Message<byte[]> message;
+
+		public Message<byte[]>[] broadcastMessages;
+
+		public Message<byte[]>[] sharedFrameBroadcastMessages;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder payload = new StringBuilder();
+			while (payload.length() < this.payloadSize) {
+				payload.append("{\"price\":42.5}");
+			}
+			String frame = "MESSAGE\n" +
+					"subscription:sub-1\n" +
+					"message-id:7e3f-24\n" +
+					"destination:/topic/price.stock.SPRING\n" +
+					"content-type:application/json;charset=UTF-8\n" +
+					"content-length:" + payload.length() + "\n" +
+					"\n" + payload + "\0";
+			StringBuilder frames = new StringBuilder();
+			for (int i = 0; i < this.frameCount; i++) {
+				frames.append(frame);
+			}
+			this.frames = frames.toString().getBytes(StandardCharsets.UTF_8);
+			this.message = this.decoder.decode(ByteBuffer.wrap(frame.getBytes(StandardCharsets.UTF_8))).get(0);
+			this.broadcastMessages = createBroadcastMessages(null);
+			this.sharedFrameBroadcastMessages = createBroadcastMessages(new BroadcastEncodingCache());
+		}
+
+		@SuppressWarnings("unchecked")
+		private Message<byte[]>[] createBroadcastMessages(@Nullable BroadcastEncodingCache cache) {
+			Message<byte[]>[] messages = new Message[BROADCAST_SESSION_COUNT];
+			for (int i = 0; i < messages.length; i++) {
+				StompHeaderAccessor accessor = StompHeaderAccessor.wrap(this.message);
+				accessor.setSubscriptionId("sub-" + i);
+				accessor.setMessageId("session" + i + "-24");
+				if (cache != null) {
+					accessor.setHeader(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE_HEADER, cache);
+				}
+				messages[i] = MessageBuilder.createMessage(this.message.getPayload(), accessor.getMessageHeaders());
+			}
+			return messages;
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Holder for the encoded parts of a message that a broker sends to many
+ * sessions, shared by the messages for each session through the
+ * {@link SimpMessageHeaderAccessor#BROADCAST_ENCODING_CACHE_HEADER} header.
+ *
+ * <p>Protocol encoders may use it to encode the parts of the message that
+ * are the same for all sessions, typically the body and most headers, only
+ * once per broadcast rather than once per session. Encoded values are
+ * registered under a key of the encoder's choosing, e.g. the encoder itself.
+ *
+ * @since 5.2.4
+ * @see org.springframework.messaging.simp.stomp.StompEncoder
+ */
+public final class BroadcastEncodingCache {
+
+	private final Map<Object, Object> encodings = new ConcurrentHashMap<>(4);
+
+
+	/**
+	 * Return the encoded value registered under the given key, if any.
+	 * @param key the key of the encoded value
+	 * @return the encoded value, or {@code null} if none
+	 */
+	@Nullable
+	public Object get(Object key) {
+		return this.encodings.get(key);
+	}
+
+	/**
+	 * Return the encoded value registered under the given key, creating and
+	 * registering it through the given function if necessary.
+	 * @param key the key of the encoded value
+	 * @param encodingFunction the function to create the encoded value with
+	 * @return the encoded value
+	 */
+	public Object computeIfAbsent(Object key, Function<Object, Object> encodingFunction) {
+		return this.encodings.computeIfAbsent(key, encodingFunction);
+	}
+
+
+	/**
+	 * Return the cache from the given message headers, if any.
+	 * @param headers the message headers
+	 * @return the cache, or {@code null} if none
+	 */
+	@Nullable
+	public static BroadcastEncodingCache getCache(Map<String, Object> headers) {
+		Object cache = headers.get(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE_HEADER);
+		return (cache instanceof BroadcastEncodingCache ? (BroadcastEncodingCache) cache : null);
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link TaskExecutor} that dispatches message handling tasks for the same
+ * session in order, while tasks for different sessions run in parallel.
+ *
+ * <p>Session ids are hashed onto a fixed number of lanes. Each lane queues its
+ * tasks in a lock-free queue and runs them one at a time, on a thread of the
+ * target executor; different lanes run concurrently. Messages of a session are
+ * therefore handled in the order in which they were submitted, as with the
+ * "preservePublishOrder" option of broker message handlers, but without
+ * waiting for the completion of each message before submitting the next.
+ * Tasks without a session id are spread over the lanes in turn.
+ *
+ * <p>For the lanes to keep all threads of the target executor busy, the lane
+ * count should be a multiple of its pool size. Each lane holds at most the
+ * configured queue capacity, with further tasks rejected with a
+ * {@link TaskRejectedException} as by a bounded {@code ThreadPoolTaskExecutor}.
+ * A task is also rejected, and not queued, if the target executor rejects the
+ * lane it was submitted to; a running lane that cannot be rescheduled keeps
+ * running on its current thread instead.
+ *
+ * @since 5.2.4
+ * @see org.springframework.messaging.support.ExecutorSubscribableChannel
+ * @see org.springframework.messaging.simp.config.ChannelRegistration#sessionAffinity
+ */
+public class SessionAffineTaskExecutor implements TaskExecutor {
+
+	/** Maximum number of tasks a lane runs before yielding its thread. */
+	private static final int MAX_BATCH_SIZE = 64;
+
+	private static final Log logger = LogFactory.getLog(SessionAffineTaskExecutor.class);
+
+
+	private final Executor targetExecutor;
+
+	private final Lane[] lanes;
+
+	private final int queueCapacity;
+
+	private final AtomicInteger nextLane = new AtomicInteger();
+
+
+	/**
+	 * Create a new executor with an unbounded queue per lane.
+	 * @param targetExecutor the executor to run the lanes on
+	 * @param laneCount the number of lanes
+	 */
+	public SessionAffineTaskExecutor(Executor targetExecutor, int laneCount) {
+		this(targetExecutor, laneCount, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create a new executor.
+	 * @param targetExecutor the executor to run the lanes on
+	 * @param laneCount the number of lanes
+	 * @param queueCapacity the maximum number of queued tasks per lane
+	 */
+	public SessionAffineTaskExecutor(Executor targetExecutor, int laneCount, int queueCapacity) {
+		Assert.notNull(targetExecutor, "Target executor must not be null");
+		Assert.isTrue(laneCount > 0, "Lane count must be greater than 0");
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than 0");
+		this.targetExecutor = targetExecutor;
+		this.lanes = new Lane[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			this.lanes[i] = new Lane();
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+
+	/**
+	 * Return the executor that the lanes run on.
+	 */
+	public Executor getTargetExecutor() {
+		return this.targetExecutor;
+	}
+
+	/**
+	 * Return the number of lanes.
+	 */
+	public int getLaneCount() {
+		return this.lanes.length;
+	}
+
+	/**
+	 * Return the maximum number of queued tasks per lane.
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+
+	@Override
+	public void execute(Runnable task) {
+		Lane lane = this.lanes[getLaneIndex(task)];
+		lane.submit(task);
+	}
+
+	/**
+	 * Determine the lane for the given task: by session id for a
+	 * {@link MessageHandlingRunnable} with a session, otherwise in turn.
+	 */
+	private int getLaneIndex(Runnable task) {
+		if (task instanceof MessageHandlingRunnable) {
+			String sessionId = SimpMessageHeaderAccessor.getSessionId(
+					((MessageHandlingRunnable) task).getMessage().getHeaders());
+			if (sessionId != null) {
+				int hash = sessionId.hashCode();
+				return Math.floorMod(hash ^ (hash >>> 16), this.lanes.length);
+			}
+		}
+		return Math.floorMod(this.nextLane.getAndIncrement(), this.lanes.length);
+	}
+
+
+	/**
+	 * Return the number of tasks currently queued in the given lane.
+	 * @param lane the index of the lane
+	 */
+	public int getQueueSize(int lane) {
+		return this.lanes[lane].size.get();
+	}
+
+	/**
+	 * Return the largest number of tasks that have been queued in the given lane.
+	 * @param lane the index of the lane
+	 */
+	public int getLargestQueueSize(int lane) {
+		return this.lanes[lane].largestSize.get();
+	}
+
+	/**
+	 * Return the number of tasks that the given lane has completed.
+	 * @param lane the index of the lane
+	 */
+	public long getCompletedTaskCount(int lane) {
+		return this.lanes[lane].completedCount.sum();
+	}
+
+	/**
+	 * Return the number of tasks that the given lane has rejected.
+	 * @param lane the index of the lane
+	 */
+	public long getRejectedTaskCount(int lane) {
+		return this.lanes[lane].rejectedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		int queued = 0;
+		int largest = 0;
+		long completed = 0;
+		long rejected = 0;
+		for (Lane lane : this.lanes) {
+			queued += lane.size.get();
+			largest = Math.max(largest, lane.largestSize.get());
+			completed += lane.completedCount.sum();
+			rejected += lane.rejectedCount.sum();
+		}
+		return "lanes = " + this.lanes.length + ", queued tasks = " + queued +
+				", largest lane queue = " + largest + ", completed tasks = " + completed +
+				", rejected tasks = " + rejected;
+	}
+
+
+	/**
+	 * A queue of tasks run one at a time on the target executor.
+	 */
+	private class Lane implements Runnable {
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		private final AtomicInteger largestSize = new AtomicInteger();
+
+		private final LongAdder completedCount = new LongAdder();
+
+		private final LongAdder rejectedCount = new LongAdder();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		public void submit(Runnable task) {
+			int newSize = this.size.incrementAndGet();
+			if (newSize > queueCapacity) {
+				this.size.decrementAndGet();
+				this.rejectedCount.increment();
+				throw new TaskRejectedException("Lane queue capacity of " + queueCapacity +
+						" exceeded in " + SessionAffineTaskExecutor.this + ": " + task);
+			}
+			updateLargestSize(newSize);
+			this.tasks.offer(task);
+			try {
+				schedule();
+			}
+			catch (RuntimeException ex) {
+				// Rejected by the target executor: withdraw the task unless a
+				// concurrently scheduled run of this lane has already taken it
+				if (this.tasks.remove(task)) {
+					this.size.decrementAndGet();
+					this.rejectedCount.increment();
+					throw ex;
+				}
+			}
+		}
+
+		private void updateLargestSize(int newSize) {
+			int largest = this.largestSize.get();
+			while (newSize > largest && !this.largestSize.compareAndSet(largest, newSize)) {
+				largest = this.largestSize.get();
+			}
+		}
+
+		private void schedule() {
+			if (!this.tasks.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				try {
+					targetExecutor.execute(this);
+				}
+				catch (RuntimeException ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				try {
+					for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+						Runnable task = this.tasks.poll();
+						if (task == null) {
+							break;
+						}
+						this.size.decrementAndGet();
+						runTask(task);
+					}
+				}
+				finally {
+					this.scheduled.set(false);
+				}
+				// Pick up tasks submitted while running, or left over from the batch
+				if (this.tasks.isEmpty() || !this.scheduled.compareAndSet(false, true)) {
+					return;
+				}
+				try {
+					targetExecutor.execute(this);
+					return;
+				}
+				catch (RuntimeException ex) {
+					// Still holding the lane: keep running it on this thread rather than stalling it
+					if (logger.isDebugEnabled()) {
+						logger.debug("Target executor rejected lane, continuing on current thread: " + ex);
+					}
+				}
+			}
+		}
+
+		private void runTask(Runnable task) {
+			try {
+				task.run();
+			}
+			catch (Throwable ex) {
+				logger.error("Failed to run " + getDescription(task), ex);
+			}
+			finally {
+				this.completedCount.increment();
+			}
+		}
+
+		private String getDescription(Runnable task) {
+			if (task instanceof MessageHandlingRunnable) {
+				return "task for " + ((MessageHandlingRunnable) task).getMessage();
+			}
+			return task.toString();
+		}
+	}
+
+}
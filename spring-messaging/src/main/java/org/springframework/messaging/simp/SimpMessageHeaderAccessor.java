@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -84,6 +84,14 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 	 */
 	public static final String IGNORE_ERROR = "simpIgnoreError";
 
+	/**
+	 * A header for internal use by brokers that send the same message to many
+	 * sessions, holding a {@link BroadcastEncodingCache} shared by the messages
+	 * for each session.
+	 * @since 5.2.4
+	 */
+	public static final String BROADCAST_ENCODING_CACHE_HEADER = "simpBroadcastEncodingCache";
+
 
 	@Nullable
 	private Consumer<Principal> userCallback;
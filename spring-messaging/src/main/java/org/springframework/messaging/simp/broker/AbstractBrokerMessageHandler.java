@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,10 +30,12 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SessionAffineTaskExecutor;
 import org.springframework.messaging.simp.SimpLogging;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
 import org.springframework.messaging.support.InterceptableChannel;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -138,6 +140,9 @@ public abstract class AbstractBrokerMessageHandler
 	 * will be sent to the {@code "clientOutboundChannel"} one at a time in
 	 * order to preserve the order of publication. Enable this only if needed
 	 * since there is some performance overhead to keep messages in order.
+	 * <p>This is not necessary if the channel is backed by a
+	 * {@link SessionAffineTaskExecutor}, which preserves the order of messages
+	 * within the same session by itself, and has no effect in that case.
 	 * @param preservePublishOrder whether to publish in order
 	 * @since 5.1
 	 */
@@ -297,8 +302,13 @@ public abstract class AbstractBrokerMessageHandler
 	 * @since 5.1
 	 */
 	protected MessageChannel getClientOutboundChannelForSession(String sessionId) {
-		return this.preservePublishOrder ?
-				new OrderedMessageSender(getClientOutboundChannel(), logger) : getClientOutboundChannel();
+		return (this.preservePublishOrder && !isSessionAffine(getClientOutboundChannel()) ?
+				new OrderedMessageSender(getClientOutboundChannel(), logger) : getClientOutboundChannel());
+	}
+
+	private static boolean isSessionAffine(MessageChannel channel) {
+		return (channel instanceof ExecutorSubscribableChannel &&
+				((ExecutorSubscribableChannel) channel).getExecutor() instanceof SessionAffineTaskExecutor);
 	}
 
 
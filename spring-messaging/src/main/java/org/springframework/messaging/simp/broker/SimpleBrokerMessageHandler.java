@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.BroadcastEncodingCache;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
@@ -101,6 +102,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	 * {@link #setPathMatcher}, if the custom registry is not an instance of
 	 * {@link DefaultSubscriptionRegistry}, the provided PathMatcher is not used
 	 * and must be configured directly on the custom registry.
+	 * <p>For a large number of sessions and destinations, consider a
+	 * {@link TrieSubscriptionRegistry}, configured with the path separator
+	 * of the destinations in use.
 	 */
 	public void setSubscriptionRegistry(SubscriptionRegistry subscriptionRegistry) {
 		Assert.notNull(subscriptionRegistry, "SubscriptionRegistry must not be null");
@@ -180,6 +184,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (this.subscriptionRegistry instanceof DefaultSubscriptionRegistry) {
 			((DefaultSubscriptionRegistry) this.subscriptionRegistry).setSelectorHeaderName(this.selectorHeaderName);
 		}
+		else if (this.subscriptionRegistry instanceof TrieSubscriptionRegistry) {
+			((TrieSubscriptionRegistry) this.subscriptionRegistry).setSelectorHeaderName(this.selectorHeaderName);
+		}
 	}
 
 	/**
@@ -385,12 +392,16 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
 		long now = System.currentTimeMillis();
+		BroadcastEncodingCache encodingCache = (isBroadcast(subscriptions) ? new BroadcastEncodingCache() : null);
 		subscriptions.forEach((sessionId, subscriptionIds) -> {
 			for (String subscriptionId : subscriptionIds) {
 				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
 				initHeaders(headerAccessor);
 				headerAccessor.setSessionId(sessionId);
 				headerAccessor.setSubscriptionId(subscriptionId);
+				if (encodingCache != null) {
+					headerAccessor.setHeader(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE_HEADER, encodingCache);
+				}
 				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
 				headerAccessor.setLeaveMutable(true);
 				Object payload = message.getPayload();
@@ -413,6 +424,11 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		});
 	}
 
+	private static boolean isBroadcast(MultiValueMap<String, String> subscriptions) {
+		return (subscriptions.size() > 1 ||
+				(subscriptions.size() == 1 && subscriptions.values().iterator().next().size() > 1));
+	}
+
 	@Override
 	public String toString() {
 		return "SimpleBrokerMessageHandler [" + this.subscriptionRegistry + "]";
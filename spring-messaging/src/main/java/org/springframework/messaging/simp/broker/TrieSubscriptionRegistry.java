@@ -0,0 +1,463 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * Implementation of {@link SubscriptionRegistry} that indexes the destination
+ * patterns of subscriptions in a trie of destination segments, as an alternative
+ * to {@link DefaultSubscriptionRegistry} for a large number of sessions and
+ * destinations.
+ *
+ * <p>Each subscription is kept at the trie node for its pattern, with literal
+ * segments, {@code *} and {@code **} segments as separate kinds of nodes, and
+ * any other segment (e.g. {@code PRICE.*} or {@code {ticker:(IBM|MSFT)}})
+ * matched with an {@link AntPathMatcher} within the segment. Finding the
+ * subscriptions for a destination therefore depends on the depth of the
+ * destination and the wildcard branches along its path, not on the number of
+ * sessions or of distinct destinations, and needs no destination cache.
+ * Lookups are lock-free; subscribing and unsubscribing only lock the trie
+ * nodes for the affected pattern.
+ *
+ * <p>Patterns follow {@link AntPathMatcher} syntax, with the following
+ * differences: leading, trailing and repeated separators aside from the
+ * distinction between absolute and relative destinations are not significant,
+ * and a segment pattern can not match across separators.
+ *
+ * <p>Like {@link DefaultSubscriptionRegistry}, this registry supports a
+ * {@link #setSelectorHeaderName selector} header on subscription messages.
+ *
+ * @since 5.2.4
+ * @see SimpleBrokerMessageHandler#setSubscriptionRegistry
+ */
+public class TrieSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+	private static final String SINGLE_WILDCARD = "*";
+
+	private static final String MULTI_WILDCARD = "**";
+
+
+	private String pathSeparator = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+
+	private AntPathMatcher segmentMatcher = new AntPathMatcher();
+
+	@Nullable
+	private String selectorHeaderName = "selector";
+
+	private volatile boolean selectorHeaderInUse = false;
+
+	private final ExpressionParser expressionParser = new SpelExpressionParser();
+
+	private final Node absoluteRoot = new Node(null, "");
+
+	private final Node relativeRoot = new Node(null, "");
+
+	// sessionId -> subscriptionId -> trie node holding the subscription
+	private final ConcurrentMap<String, ConcurrentMap<String, Node>> sessions = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Specify the separator between destination segments.
+	 * <p>Default is "/", as in {@link AntPathMatcher}. Use "." for
+	 * destinations such as {@code topic.PRICE.STOCK.IBM}.
+	 * <p>This must be set before registering any subscriptions.
+	 */
+	public void setPathSeparator(String pathSeparator) {
+		Assert.hasLength(pathSeparator, "'pathSeparator' must not be empty");
+		this.pathSeparator = pathSeparator;
+		this.segmentMatcher = new AntPathMatcher(pathSeparator);
+	}
+
+	/**
+	 * Return the separator between destination segments.
+	 */
+	public String getPathSeparator() {
+		return this.pathSeparator;
+	}
+
+	/**
+	 * Configure the name of a header that a subscription message can have for
+	 * the purpose of filtering messages matched to the subscription, as a
+	 * Spring EL boolean expression to be applied to the headers of messages.
+	 * <p>By default this is set to "selector". You can set it to a different
+	 * name, or to {@code null} to turn off support for a selector header.
+	 * @param selectorHeaderName the name to use for a selector header
+	 * @see DefaultSubscriptionRegistry#setSelectorHeaderName
+	 */
+	public void setSelectorHeaderName(@Nullable String selectorHeaderName) {
+		this.selectorHeaderName = (StringUtils.hasText(selectorHeaderName) ? selectorHeaderName : null);
+	}
+
+	/**
+	 * Return the name for the selector header name.
+	 */
+	@Nullable
+	public String getSelectorHeaderName() {
+		return this.selectorHeaderName;
+	}
+
+
+	@Override
+	protected void addSubscriptionInternal(
+			String sessionId, String subsId, String destination, Message<?> message) {
+
+		Subscription subscription = new Subscription(subsId, getSelectorExpression(message.getHeaders()));
+		ConcurrentMap<String, Node> sessionSubscriptions =
+				this.sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>(4));
+		Node node = addToTrie(destination, sessionId, subscription);
+		Node previous = sessionSubscriptions.put(subsId, node);
+		if (previous != null && previous != node) {
+			removeFromTrie(previous, sessionId, subsId);
+		}
+	}
+
+	@Nullable
+	private Expression getSelectorExpression(MessageHeaders headers) {
+		Expression expression = null;
+		if (getSelectorHeaderName() != null) {
+			String selector = SimpMessageHeaderAccessor.getFirstNativeHeader(getSelectorHeaderName(), headers);
+			if (selector != null) {
+				try {
+					expression = this.expressionParser.parseExpression(selector);
+					this.selectorHeaderInUse = true;
+					if (logger.isTraceEnabled()) {
+						logger.trace("Subscription selector: [" + selector + "]");
+					}
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to parse selector: " + selector, ex);
+					}
+				}
+			}
+		}
+		return expression;
+	}
+
+	@Override
+	protected void removeSubscriptionInternal(String sessionId, String subsId, Message<?> message) {
+		ConcurrentMap<String, Node> sessionSubscriptions = this.sessions.get(sessionId);
+		if (sessionSubscriptions != null) {
+			Node node = sessionSubscriptions.remove(subsId);
+			if (node != null) {
+				removeFromTrie(node, sessionId, subsId);
+			}
+		}
+	}
+
+	@Override
+	public void unregisterAllSubscriptions(String sessionId) {
+		ConcurrentMap<String, Node> sessionSubscriptions = this.sessions.remove(sessionId);
+		if (sessionSubscriptions != null) {
+			sessionSubscriptions.forEach((subsId, node) -> removeFromTrie(node, sessionId, subsId));
+		}
+	}
+
+	@Override
+	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+		String[] segments = tokenize(destination);
+		Node root = (destination.startsWith(this.pathSeparator) ? this.absoluteRoot : this.relativeRoot);
+		Set<Node> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+		collectMatches(root, segments, 0, matches);
+		LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+		boolean filter = this.selectorHeaderInUse;
+		for (Node node : matches) {
+			node.subscriptions.forEach((sessionId, subscriptions) -> {
+				for (Subscription subscription : subscriptions) {
+					if (!filter || isSelected(subscription, message)) {
+						result.add(sessionId, subscription.getId());
+					}
+				}
+			});
+		}
+		return result;
+	}
+
+	private void collectMatches(Node node, String[] segments, int index, Set<Node> matches) {
+		Node multiWildcard = node.multiWildcard;
+		if (multiWildcard != null) {
+			// '**' matches zero or more segments
+			for (int i = index; i <= segments.length; i++) {
+				collectMatches(multiWildcard, segments, i, matches);
+			}
+		}
+		if (index == segments.length) {
+			if (!node.subscriptions.isEmpty()) {
+				matches.add(node);
+			}
+			return;
+		}
+		String segment = segments[index];
+		Node literal = node.literalChildren.get(segment);
+		if (literal != null) {
+			collectMatches(literal, segments, index + 1, matches);
+		}
+		Node singleWildcard = node.singleWildcard;
+		if (singleWildcard != null) {
+			collectMatches(singleWildcard, segments, index + 1, matches);
+		}
+		if (!node.patternChildren.isEmpty()) {
+			for (Node child : node.patternChildren.values()) {
+				if (this.segmentMatcher.match(child.segment, segment)) {
+					collectMatches(child, segments, index + 1, matches);
+				}
+			}
+		}
+	}
+
+	private boolean isSelected(Subscription subscription, Message<?> message) {
+		Expression expression = subscription.getSelectorExpression();
+		if (expression == null) {
+			return true;
+		}
+		try {
+			return Boolean.TRUE.equals(expression.getValue(
+					DefaultSubscriptionRegistry.messageEvalContext, message, Boolean.class));
+		}
+		catch (SpelEvaluationException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to evaluate selector: " + ex.getMessage());
+			}
+		}
+		catch (Throwable ex) {
+			logger.debug("Failed to evaluate selector", ex);
+		}
+		return false;
+	}
+
+	private Node addToTrie(String pattern, String sessionId, Subscription subscription) {
+		String[] segments = tokenize(pattern);
+		while (true) {
+			Node node = (pattern.startsWith(this.pathSeparator) ? this.absoluteRoot : this.relativeRoot);
+			for (String segment : segments) {
+				node = node.getOrCreateChild(segment, this.segmentMatcher);
+				if (node == null) {
+					break;
+				}
+			}
+			// Retry if a node along the path has been pruned concurrently
+			if (node != null && node.addSubscription(sessionId, subscription)) {
+				return node;
+			}
+		}
+	}
+
+	private void removeFromTrie(Node node, String sessionId, String subsId) {
+		if (node.removeSubscription(sessionId, subsId)) {
+			node.prune();
+		}
+	}
+
+	private String[] tokenize(String destination) {
+		return StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true);
+	}
+
+	@Override
+	public String toString() {
+		return "TrieSubscriptionRegistry[" + this.sessions.size() + " sessions]";
+	}
+
+
+	/**
+	 * A node in the trie of destination segments, holding the subscriptions
+	 * of the pattern leading to it. Children and subscriptions are modified
+	 * while holding the node's monitor, and read without locking.
+	 */
+	private static final class Node {
+
+		@Nullable
+		private final Node parent;
+
+		private final String segment;
+
+		private final ConcurrentMap<String, Node> literalChildren = new ConcurrentHashMap<>(4);
+
+		private final ConcurrentMap<String, Node> patternChildren = new ConcurrentHashMap<>(1);
+
+		@Nullable
+		private volatile Node singleWildcard;
+
+		@Nullable
+		private volatile Node multiWildcard;
+
+		// sessionId -> subscriptions in registration order
+		private final ConcurrentMap<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>(4);
+
+		private boolean removed;
+
+		Node(@Nullable Node parent, String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+
+		/**
+		 * Return the child for the given pattern segment, creating it if necessary,
+		 * or {@code null} if this node has been removed from the trie.
+		 */
+		@Nullable
+		public synchronized Node getOrCreateChild(String segment, AntPathMatcher matcher) {
+			if (this.removed) {
+				return null;
+			}
+			if (SINGLE_WILDCARD.equals(segment)) {
+				Node child = this.singleWildcard;
+				if (child == null) {
+					child = new Node(this, segment);
+					this.singleWildcard = child;
+				}
+				return child;
+			}
+			if (MULTI_WILDCARD.equals(segment)) {
+				Node child = this.multiWildcard;
+				if (child == null) {
+					child = new Node(this, segment);
+					this.multiWildcard = child;
+				}
+				return child;
+			}
+			Map<String, Node> children = (matcher.isPattern(segment) ? this.patternChildren : this.literalChildren);
+			return children.computeIfAbsent(segment, key -> new Node(this, key));
+		}
+
+		/**
+		 * Add the given subscription, unless this node has been removed from the trie.
+		 */
+		public synchronized boolean addSubscription(String sessionId, Subscription subscription) {
+			if (this.removed) {
+				return false;
+			}
+			List<Subscription> sessionSubscriptions =
+					this.subscriptions.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>());
+			sessionSubscriptions.remove(subscription);
+			sessionSubscriptions.add(subscription);
+			return true;
+		}
+
+		public synchronized boolean removeSubscription(String sessionId, String subsId) {
+			List<Subscription> sessionSubscriptions = this.subscriptions.get(sessionId);
+			if (sessionSubscriptions == null ||
+					!sessionSubscriptions.removeIf(subscription -> subscription.getId().equals(subsId))) {
+				return false;
+			}
+			if (sessionSubscriptions.isEmpty()) {
+				this.subscriptions.remove(sessionId);
+			}
+			return true;
+		}
+
+		/**
+		 * Remove this node and any ancestors from the trie as long as they hold
+		 * neither subscriptions nor children.
+		 */
+		public void prune() {
+			Node node = this;
+			Node parent = node.parent;
+			while (parent != null) {
+				synchronized (parent) {
+					synchronized (node) {
+						if (!node.isEmpty()) {
+							return;
+						}
+						node.removed = true;
+						parent.removeChild(node);
+					}
+				}
+				node = parent;
+				parent = node.parent;
+			}
+		}
+
+		private boolean isEmpty() {
+			return (this.subscriptions.isEmpty() && this.literalChildren.isEmpty() &&
+					this.patternChildren.isEmpty() && this.singleWildcard == null && this.multiWildcard == null);
+		}
+
+		private void removeChild(Node child) {
+			if (this.singleWildcard == child) {
+				this.singleWildcard = null;
+			}
+			else if (this.multiWildcard == child) {
+				this.multiWildcard = null;
+			}
+			else if (!this.literalChildren.remove(child.segment, child)) {
+				this.patternChildren.remove(child.segment, child);
+			}
+		}
+	}
+
+
+	private static final class Subscription {
+
+		private final String id;
+
+		@Nullable
+		private final Expression selectorExpression;
+
+		public Subscription(String id, @Nullable Expression selector) {
+			Assert.notNull(id, "Subscription id must not be null");
+			this.id = id;
+			this.selectorExpression = selector;
+		}
+
+		public String getId() {
+			return this.id;
+		}
+
+		@Nullable
+		public Expression getSelectorExpression() {
+			return this.selectorExpression;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			return (this == other || (other instanceof Subscription && this.id.equals(((Subscription) other).id)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.id.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "subscription(id=" + this.id + ")";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,10 @@ package org.springframework.messaging.simp.config;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.springframework.lang.Nullable;
+import org.springframework.messaging.simp.SessionAffineTaskExecutor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -38,6 +40,11 @@ public class ChannelRegistration {
 
 	private final List<ChannelInterceptor> interceptors = new ArrayList<>();
 
+	@Nullable
+	private Integer sessionAffineLaneCount;
+
+	private int sessionAffineQueueCapacity = Integer.MAX_VALUE;
+
 
 	/**
 	 * Configure the thread pool backing this message channel.
@@ -59,6 +66,34 @@ public class ChannelRegistration {
 		return this.registration;
 	}
 
+	/**
+	 * Dispatch messages for the same session in order, through the given number
+	 * of session-affine lanes on top of the thread pool backing this channel,
+	 * while messages for different sessions are handled in parallel.
+	 * <p>This makes the "preservePublishOrder" option of the message broker
+	 * registry unnecessary for this channel. The lane count should be a
+	 * multiple of the core pool size, e.g. twice or four times.
+	 * @param laneCount the number of lanes
+	 * @since 5.2.4
+	 * @see org.springframework.messaging.simp.SessionAffineTaskExecutor
+	 */
+	public ChannelRegistration sessionAffinity(int laneCount) {
+		return sessionAffinity(laneCount, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Variant of {@link #sessionAffinity(int)} with a bounded number of
+	 * messages queued per lane, with further messages being rejected.
+	 * @param laneCount the number of lanes
+	 * @param queueCapacity the maximum number of queued messages per lane
+	 * @since 5.2.4
+	 */
+	public ChannelRegistration sessionAffinity(int laneCount, int queueCapacity) {
+		this.sessionAffineLaneCount = laneCount;
+		this.sessionAffineQueueCapacity = queueCapacity;
+		return this;
+	}
+
 	/**
 	 * Configure the given interceptors for this message channel,
 	 * adding them to the channel's current list of interceptors.
@@ -86,6 +121,16 @@ public class ChannelRegistration {
 		return (this.registration != null);
 	}
 
+	/**
+	 * Return the executor to back the channel with: the given thread pool,
+	 * or session-affine lanes on top of it if configured.
+	 * @since 5.2.4
+	 */
+	protected Executor getExecutorToUse(Executor taskExecutor) {
+		return (this.sessionAffineLaneCount != null ? new SessionAffineTaskExecutor(
+				taskExecutor, this.sessionAffineLaneCount, this.sessionAffineQueueCapacity) : taskExecutor);
+	}
+
 	protected boolean hasInterceptors() {
 		return !this.interceptors.isEmpty();
 	}
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -53,6 +52,20 @@ public class StompDecoder {
 
 	private static final Log logger = SimpLogging.forLogName(StompDecoder.class);
 
+	private static final int HEADER_NAME_CACHE_SIZE = 128;
+
+	private static final int HEADER_NAME_CACHE_MAX_LENGTH = 64;
+
+	private static final int HEADER_VALUE_CACHE_SIZE = 256;
+
+	private static final int HEADER_VALUE_CACHE_MAX_LENGTH = 256;
+
+
+	private final StompHeaderCache headerNameCache = new StompHeaderCache(HEADER_NAME_CACHE_SIZE, HEADER_NAME_CACHE_MAX_LENGTH);
+
+	private final StompHeaderCache headerValueCache =
+			new StompHeaderCache(HEADER_VALUE_CACHE_SIZE, HEADER_VALUE_CACHE_MAX_LENGTH);
+
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
@@ -212,50 +225,121 @@ public class StompDecoder {
 	}
 
 	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
+		int start = byteBuffer.position();
+		int end = findEndOfLine(byteBuffer);
+		if (end == -1) {
+			end = byteBuffer.limit();
 		}
-		return new String(command.toByteArray(), StandardCharsets.UTF_8);
+		String command = decode(byteBuffer, start, end);
+		((Buffer) byteBuffer).position(end);
+		tryConsumeEndOfLine(byteBuffer);
+		return command;
 	}
 
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor) {
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			boolean headerComplete = false;
-			while (byteBuffer.hasRemaining()) {
-				if (tryConsumeEndOfLine(byteBuffer)) {
-					headerComplete = true;
-					break;
+			int start = byteBuffer.position();
+			int end = findEndOfLine(byteBuffer);
+			if (end == -1) {
+				// Incomplete header line (or no more content)
+				((Buffer) byteBuffer).position(byteBuffer.limit());
+				break;
+			}
+			((Buffer) byteBuffer).position(end);
+			tryConsumeEndOfLine(byteBuffer);
+			if (end == start) {
+				// Blank line: end of headers
+				break;
+			}
+
+			// Work on the backing array, if any, or on a copy of the header line
+			byte[] bytes;
+			int offset;
+			if (byteBuffer.hasArray()) {
+				bytes = byteBuffer.array();
+				offset = byteBuffer.arrayOffset();
+			}
+			else {
+				bytes = new byte[end - start];
+				for (int i = start; i < end; i++) {
+					bytes[i - start] = byteBuffer.get(i);
 				}
-				headerStream.write(byteBuffer.get());
+				offset = -start;
 			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = new String(headerStream.toByteArray(), StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
-					if (byteBuffer.remaining() > 0) {
-						throw new StompConversionException("Illegal header: '" + header +
-								"'. A header must be of the form <name>:[<value>].");
-					}
+			int from = offset + start;
+			int to = offset + end;
+
+			int colonIndex = indexOf(bytes, (byte) ':', from, to);
+			if (colonIndex <= from) {
+				if (byteBuffer.remaining() > 0) {
+					String header = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+					throw new StompConversionException("Illegal header: '" + header +
+							"'. A header must be of the form <name>:[<value>].");
 				}
-				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
-					try {
-						headerAccessor.addNativeHeader(headerName, headerValue);
-					}
-					catch (InvalidMimeTypeException ex) {
-						if (byteBuffer.remaining() > 0) {
-							throw ex;
-						}
+			}
+			else {
+				String headerName = unescape(bytes, from, colonIndex, this.headerNameCache);
+				String headerValue = unescape(bytes, colonIndex + 1, to,
+						(isCacheableHeaderValue(headerName) ? this.headerValueCache : null));
+				try {
+					headerAccessor.addNativeHeader(headerName, headerValue);
+				}
+				catch (InvalidMimeTypeException ex) {
+					if (byteBuffer.remaining() > 0) {
+						throw ex;
 					}
 				}
 			}
+		}
+	}
+
+	private static boolean isCacheableHeaderValue(String name) {
+		return (StompHeaderAccessor.STOMP_DESTINATION_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_ACK_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_HEARTBEAT_HEADER.equals(name));
+	}
+
+	/**
+	 * Decode and unescape the given range of bytes, through the given cache
+	 * unless it requires unescaping.
+	 */
+	private String unescape(byte[] bytes, int from, int to, @Nullable StompHeaderCache cache) {
+		int index = indexOf(bytes, (byte) '\\', from, to);
+		if (index == -1) {
+			return (cache != null ? cache.getString(bytes, from, to - from) :
+					new String(bytes, from, to - from, StandardCharsets.UTF_8));
+		}
+		byte[] result = new byte[to - from];
+		int length = 0;
+		int pos = from;
+		while (index >= 0) {
+			System.arraycopy(bytes, pos, result, length, index - pos);
+			length += index - pos;
+			byte b = (index + 1 < to ? bytes[index + 1] : 0);
+			if (b == 'r') {
+				result[length++] = '\r';
+			}
+			else if (b == 'n') {
+				result[length++] = '\n';
+			}
+			else if (b == 'c') {
+				result[length++] = ':';
+			}
+			else if (b == '\\') {
+				result[length++] = '\\';
+			}
 			else {
-				break;
+				// Illegal escape sequence: report it as for the decoded String
+				return unescape(new String(bytes, from, to - from, StandardCharsets.UTF_8));
 			}
+			pos = index + 2;
+			index = indexOf(bytes, (byte) '\\', pos, to);
 		}
+		System.arraycopy(bytes, pos, result, length, to - pos);
+		length += to - pos;
+		return new String(result, 0, length, StandardCharsets.UTF_8);
 	}
 
 	/**
@@ -324,18 +408,58 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
+			int end = -1;
+			for (int i = byteBuffer.position(); i < byteBuffer.limit(); i++) {
+				if (byteBuffer.get(i) == 0) {
+					end = i;
+					break;
 				}
 			}
+			if (end == -1) {
+				((Buffer) byteBuffer).position(byteBuffer.limit());
+				return null;
+			}
+			byte[] payload = new byte[end - byteBuffer.position()];
+			byteBuffer.get(payload);
+			byteBuffer.get();
+			return payload;
+		}
+	}
+
+	/**
+	 * Find the end of the line at the current position of the given ByteBuffer,
+	 * without changing its position.
+	 * @return the index of the {@code '\n'} or {@code '\r'} ending the line,
+	 * or -1 if there is no end of line in the remaining content
+	 */
+	private int findEndOfLine(ByteBuffer byteBuffer) {
+		for (int i = byteBuffer.position(); i < byteBuffer.limit(); i++) {
+			byte b = byteBuffer.get(i);
+			if (b == '\n' || b == '\r') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private String decode(ByteBuffer byteBuffer, int start, int end) {
+		if (byteBuffer.hasArray()) {
+			return this.headerNameCache.getString(byteBuffer.array(), byteBuffer.arrayOffset() + start, end - start);
+		}
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++) {
+			bytes[i - start] = byteBuffer.get(i);
+		}
+		return this.headerNameCache.getString(bytes, 0, bytes.length);
+	}
+
+	private static int indexOf(byte[] bytes, byte b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (bytes[i] == b) {
+				return i;
+			}
 		}
-		return null;
+		return -1;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,21 +16,19 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.BroadcastEncodingCache;
 import org.springframework.messaging.simp.SimpLogging;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
@@ -51,27 +49,29 @@ public class StompEncoder  {
 
 	private static final byte COLON = ':';
 
+	private static final byte[] CONTENT_LENGTH = "content-length".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[][] COMMANDS = new byte[StompCommand.values().length][];
+
 	private static final Log logger = SimpLogging.forLogName(StompEncoder.class);
 
-	private static final int HEADER_KEY_CACHE_LIMIT = 32;
+	private static final int HEADER_KEY_CACHE_SIZE = 128;
 
+	private static final int HEADER_VALUE_CACHE_SIZE = 256;
 
-	private final Map<String, byte[]> headerKeyAccessCache = new ConcurrentHashMap<>(HEADER_KEY_CACHE_LIMIT);
+	private static final int HEADER_VALUE_CACHE_MAX_LENGTH = 256;
+
+	static {
+		for (StompCommand command : StompCommand.values()) {
+			COMMANDS[command.ordinal()] = command.toString().getBytes(StandardCharsets.UTF_8);
+		}
+	}
 
-	@SuppressWarnings("serial")
-	private final Map<String, byte[]> headerKeyUpdateCache =
-			new LinkedHashMap<String, byte[]>(HEADER_KEY_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
-					if (size() > HEADER_KEY_CACHE_LIMIT) {
-						headerKeyAccessCache.remove(eldest.getKey());
-						return true;
-					}
-					else {
-						return false;
-					}
-				}
-			};
+
+	private final StompHeaderCache headerKeyCache = new StompHeaderCache(HEADER_KEY_CACHE_SIZE, Integer.MAX_VALUE);
+
+	private final StompHeaderCache headerValueCache =
+			new StompHeaderCache(HEADER_VALUE_CACHE_SIZE, HEADER_VALUE_CACHE_MAX_LENGTH);
 
 
 	/**
@@ -93,39 +93,43 @@ public class StompEncoder  {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
 
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
-			DataOutputStream output = new DataOutputStream(baos);
-
-			if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
-				logger.trace("Encoding heartbeat");
-				output.write(StompDecoder.HEARTBEAT_PAYLOAD);
-			}
+		if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
+			logger.trace("Encoding heartbeat");
+			return StompDecoder.HEARTBEAT_PAYLOAD.clone();
+		}
 
-			else {
-				StompCommand command = StompHeaderAccessor.getCommand(headers);
-				if (command == null) {
-					throw new IllegalStateException("Missing STOMP command: " + headers);
-				}
+		StompCommand command = StompHeaderAccessor.getCommand(headers);
+		if (command == null) {
+			throw new IllegalStateException("Missing STOMP command: " + headers);
+		}
 
-				output.write(command.toString().getBytes(StandardCharsets.UTF_8));
-				output.write(LF);
-				writeHeaders(command, headers, payload, output);
-				output.write(LF);
-				writeBody(payload, output);
-				output.write((byte) 0);
+		BroadcastEncodingCache encodingCache = BroadcastEncodingCache.getCache(headers);
+		if (encodingCache != null && StompCommand.MESSAGE.equals(command)) {
+			SharedFrame sharedFrame = (SharedFrame) encodingCache.computeIfAbsent(this,
+					key -> new SharedFrame(headers, payload));
+			byte[] bytes = sharedFrame.encode(headers, payload);
+			if (bytes != null) {
+				return bytes;
 			}
-
-			return baos.toByteArray();
-		}
-		catch (IOException ex) {
-			throw new StompConversionException("Failed to encode STOMP frame, headers=" + headers,  ex);
 		}
-	}
 
-	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
-			DataOutputStream output) throws IOException {
+		// Encode the header lines first, then write the frame into an array of the exact size
+		byte[] commandBytes = COMMANDS[command.ordinal()];
+		List<byte[]> headerLines = encodeHeaders(command, headers, payload);
+		byte[] bytes = new byte[commandBytes.length + getLength(headerLines) + payload.length + 3];
+		int pos = write(commandBytes, bytes, 0);
+		bytes[pos++] = LF;
+		pos = writeHeaderLines(headerLines, bytes, pos);
+		bytes[pos++] = LF;
+		pos = write(payload, bytes, pos);
+		bytes[pos] = 0;
+		return bytes;
+	}
 
+	/**
+	 * Encode the native headers as a list of alternating encoded names and values.
+	 */
+	private List<byte[]> encodeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload) {
 		@SuppressWarnings("unchecked")
 		Map<String,List<String>> nativeHeaders =
 				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
@@ -135,12 +139,13 @@ public class StompEncoder  {
 		}
 
 		if (nativeHeaders == null) {
-			return;
+			return Collections.emptyList();
 		}
 
 		boolean shouldEscape = (command != StompCommand.CONNECT && command != StompCommand.STOMP
 				&& command != StompCommand.CONNECTED);
 
+		List<byte[]> headerLines = new ArrayList<>(nativeHeaders.size() * 2 + 2);
 		for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
 			if (command.requiresContentLength() && "content-length".equals(entry.getKey())) {
 				continue;
@@ -152,42 +157,38 @@ public class StompEncoder  {
 				values = Collections.singletonList(StompHeaderAccessor.getPasscode(headers));
 			}
 
-			byte[] encodedKey = encodeHeaderKey(entry.getKey(), shouldEscape);
-			for (String value : values) {
-				output.write(encodedKey);
-				output.write(COLON);
-				output.write(encodeHeaderValue(value, shouldEscape));
-				output.write(LF);
-			}
+			addHeaderLines(entry.getKey(), values, shouldEscape, headerLines);
 		}
 
 		if (command.requiresContentLength()) {
-			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StandardCharsets.UTF_8));
-			output.write(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
-			output.write(LF);
+			headerLines.add(CONTENT_LENGTH);
+			headerLines.add(Integer.toString(payload.length).getBytes(StandardCharsets.UTF_8));
 		}
+		return headerLines;
+	}
+
+	private void addHeaderLines(String name, List<String> values, boolean escape, List<byte[]> headerLines) {
+		byte[] encodedKey = encodeHeaderKey(name, escape);
+		boolean cacheValues = (escape && isCacheableHeaderValue(name));
+		for (String value : values) {
+			headerLines.add(encodedKey);
+			headerLines.add(encodeHeaderValue(value, escape, cacheValues));
+		}
+	}
+
+	private static boolean isCacheableHeaderValue(String name) {
+		return (StompHeaderAccessor.STOMP_DESTINATION_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER.equals(name));
 	}
 
 	private byte[] encodeHeaderKey(String input, boolean escape) {
 		String inputToUse = (escape ? escape(input) : input);
-		if (this.headerKeyAccessCache.containsKey(inputToUse)) {
-			return this.headerKeyAccessCache.get(inputToUse);
-		}
-		synchronized (this.headerKeyUpdateCache) {
-			byte[] bytes = this.headerKeyUpdateCache.get(inputToUse);
-			if (bytes == null) {
-				bytes = inputToUse.getBytes(StandardCharsets.UTF_8);
-				this.headerKeyAccessCache.put(inputToUse, bytes);
-				this.headerKeyUpdateCache.put(inputToUse, bytes);
-			}
-			return bytes;
-		}
+		return this.headerKeyCache.getBytes(inputToUse);
 	}
 
-	private byte[] encodeHeaderValue(String input, boolean escape) {
+	private byte[] encodeHeaderValue(String input, boolean escape, boolean cache) {
 		String inputToUse = (escape ? escape(input) : input);
-		return inputToUse.getBytes(StandardCharsets.UTF_8);
+		return (cache ? this.headerValueCache.getBytes(inputToUse) : inputToUse.getBytes(StandardCharsets.UTF_8));
 	}
 
 	/**
@@ -229,8 +230,128 @@ public class StompEncoder  {
 		return sb;
 	}
 
-	private void writeBody(byte[] payload, DataOutputStream output) throws IOException {
-		output.write(payload);
+	/**
+	 * Return the number of bytes for the given header lines, including the
+	 * colon and line feed of each line.
+	 */
+	private static int getLength(List<byte[]> headerLines) {
+		int length = headerLines.size();
+		for (byte[] bytes : headerLines) {
+			length += bytes.length;
+		}
+		return length;
+	}
+
+	private static int writeHeaderLines(List<byte[]> headerLines, byte[] target, int pos) {
+		for (int i = 0; i < headerLines.size(); i += 2) {
+			pos = write(headerLines.get(i), target, pos);
+			target[pos++] = COLON;
+			pos = write(headerLines.get(i + 1), target, pos);
+			target[pos++] = LF;
+		}
+		return pos;
+	}
+
+	private static int write(byte[] bytes, byte[] target, int pos) {
+		System.arraycopy(bytes, 0, target, pos, bytes.length);
+		return pos + bytes.length;
+	}
+
+	private static boolean isSessionHeader(String name) {
+		return (StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER.equals(name) ||
+				StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER.equals(name));
+	}
+
+
+	/**
+	 * The encoded parts of a MESSAGE frame sent to many sessions: all but the
+	 * "subscription" and "message-id" headers, which differ between sessions.
+	 */
+	private class SharedFrame {
+
+		private final Map<String, List<String>> sharedHeaders = new LinkedHashMap<>();
+
+		private final byte[] payload;
+
+		private final byte[] head;
+
+		private final byte[] tail;
+
+		@SuppressWarnings("unchecked")
+		public SharedFrame(Map<String, Object> headers, byte[] payload) {
+			Map<String, List<String>> nativeHeaders =
+					(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+			if (nativeHeaders != null) {
+				nativeHeaders.forEach((name, values) -> {
+					if (!isSessionHeader(name)) {
+						this.sharedHeaders.put(name, new ArrayList<>(values));
+					}
+				});
+			}
+			this.payload = payload;
+
+			byte[] commandBytes = COMMANDS[StompCommand.MESSAGE.ordinal()];
+			List<byte[]> headerLines = new ArrayList<>(this.sharedHeaders.size() * 2);
+			this.sharedHeaders.forEach((name, values) -> addHeaderLines(name, values, true, headerLines));
+			this.head = new byte[commandBytes.length + 1 + getLength(headerLines)];
+			int pos = write(commandBytes, this.head, 0);
+			this.head[pos++] = LF;
+			writeHeaderLines(headerLines, this.head, pos);
+
+			headerLines.clear();
+			headerLines.add(CONTENT_LENGTH);
+			headerLines.add(Integer.toString(payload.length).getBytes(StandardCharsets.UTF_8));
+			this.tail = new byte[getLength(headerLines) + payload.length + 2];
+			pos = writeHeaderLines(headerLines, this.tail, 0);
+			this.tail[pos++] = LF;
+			pos = write(payload, this.tail, pos);
+			this.tail[pos] = 0;
+		}
+
+		/**
+		 * Encode the frame for the given session headers, or return {@code null}
+		 * if the frame does not match the shared headers and payload.
+		 */
+		@Nullable
+		@SuppressWarnings("unchecked")
+		public byte[] encode(Map<String, Object> headers, byte[] payload) {
+			Map<String, List<String>> nativeHeaders =
+					(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+			if (payload != this.payload || nativeHeaders == null || !matchesSharedHeaders(nativeHeaders)) {
+				return null;
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("Encoding STOMP MESSAGE with shared headers and body, headers=" + nativeHeaders);
+			}
+			List<byte[]> headerLines = new ArrayList<>(4);
+			List<String> subscriptionIds = nativeHeaders.get(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+			if (subscriptionIds != null) {
+				addHeaderLines(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, subscriptionIds, true, headerLines);
+			}
+			List<String> messageIds = nativeHeaders.get(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+			if (messageIds != null) {
+				addHeaderLines(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, messageIds, true, headerLines);
+			}
+			byte[] bytes = new byte[this.head.length + getLength(headerLines) + this.tail.length];
+			int pos = write(this.head, bytes, 0);
+			pos = writeHeaderLines(headerLines, bytes, pos);
+			write(this.tail, bytes, pos);
+			return bytes;
+		}
+
+		private boolean matchesSharedHeaders(Map<String, List<String>> nativeHeaders) {
+			int count = 0;
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				if (!isSessionHeader(entry.getKey())) {
+					if (!entry.getValue().equals(this.sharedHeaders.get(entry.getKey()))) {
+						return false;
+					}
+					count++;
+				}
+			}
+			return (count == this.sharedHeaders.size());
+		}
 	}
 
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free cache of STOMP header names or values, mapping between their
+ * {@code String} and their UTF-8 encoded form, as used by {@link StompEncoder}
+ * and {@link StompDecoder} to avoid encoding or decoding recurring headers
+ * such as "destination" and "content-type" for every frame.
+ *
+ * <p>The cache is direct-mapped: each entry is held in the one slot that its
+ * hash points to, replacing any previous entry. Lookups and updates therefore
+ * neither lock nor grow the cache, and entries are immutable so that they can
+ * be safely shared between threads without further synchronization.
+ *
+ * @since 5.2.4
+ */
+final class StompHeaderCache {
+
+	private final Entry[] entries;
+
+	private final int mask;
+
+	private final int maxLength;
+
+
+	/**
+	 * Create a cache with the given number of slots.
+	 * @param size the number of slots, a power of two
+	 * @param maxLength the maximum length of a cached value in bytes
+	 */
+	StompHeaderCache(int size, int maxLength) {
+		Assert.isTrue(size > 0 && (size & (size - 1)) == 0, "Size must be a power of two");
+		this.entries = new Entry[size];
+		this.mask = size - 1;
+		this.maxLength = maxLength;
+	}
+
+
+	/**
+	 * Return the UTF-8 encoded bytes of the given value.
+	 */
+	byte[] getBytes(String value) {
+		if (value.length() > this.maxLength) {
+			return value.getBytes(StandardCharsets.UTF_8);
+		}
+		int index = value.hashCode() & this.mask;
+		Entry entry = this.entries[index];
+		if (entry != null && entry.value.equals(value)) {
+			return entry.bytes;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		this.entries[index] = new Entry(value, bytes);
+		return bytes;
+	}
+
+	/**
+	 * Return the value decoded from the given UTF-8 encoded bytes.
+	 * @param bytes the array holding the bytes
+	 * @param offset the index of the first byte to decode
+	 * @param length the number of bytes to decode
+	 */
+	String getString(byte[] bytes, int offset, int length) {
+		if (length > this.maxLength) {
+			return new String(bytes, offset, length, StandardCharsets.UTF_8);
+		}
+		int hash = 0;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		int index = hash & this.mask;
+		Entry entry = this.entries[index];
+		if (entry != null && entry.matches(bytes, offset, length)) {
+			return entry.value;
+		}
+		String value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+		byte[] entryBytes = new byte[length];
+		System.arraycopy(bytes, offset, entryBytes, 0, length);
+		this.entries[index] = new Entry(value, entryBytes);
+		return value;
+	}
+
+
+	private static final class Entry {
+
+		final String value;
+
+		final byte[] bytes;
+
+		Entry(String value, byte[] bytes) {
+			this.value = value;
+			this.bytes = bytes;
+		}
+
+		boolean matches(byte[] other, int offset, int length) {
+			if (this.bytes.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (this.bytes[i] != other[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link SessionAffineTaskExecutor}.
+ *
+ * @since 5.2.4
+ */
+public class SessionAffineTaskExecutorTests {
+
+	private final Queue<Runnable> scheduledLanes = new LinkedList<>();
+
+
+	@Test
+	public void messagesForSameSessionShareLane() {
+		SessionAffineTaskExecutor executor = new SessionAffineTaskExecutor(this.scheduledLanes::add, 4);
+		List<Object> handled = new ArrayList<>();
+		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+		channel.subscribe(message -> handled.add(message.getPayload()));
+
+		channel.send(createMessage("sess1", 1));
+		channel.send(createMessage("sess1", 2));
+		channel.send(createMessage("sess1", 3));
+
+		assertThat(this.scheduledLanes).hasSize(1);
+		assertThat(handled).isEmpty();
+
+		this.scheduledLanes.poll().run();
+		assertThat(handled).containsExactly(1, 2, 3);
+		assertThat(this.scheduledLanes).isEmpty();
+
+		long completed = 0;
+		for (int i = 0; i < executor.getLaneCount(); i++) {
+			completed += executor.getCompletedTaskCount(i);
+			assertThat(executor.getQueueSize(i)).isEqualTo(0);
+		}
+		assertThat(completed).isEqualTo(3);
+	}
+
+	@Test
+	public void tasksWithoutSessionAreSpreadOverLanes() {
+		SessionAffineTaskExecutor executor = new SessionAffineTaskExecutor(this.scheduledLanes::add, 4);
+		for (int i = 0; i < 4; i++) {
+			executor.execute(() -> {});
+		}
+
+		assertThat(this.scheduledLanes).hasSize(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(executor.getQueueSize(i)).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void queueCapacityExceeded() {
+		SessionAffineTaskExecutor executor = new SessionAffineTaskExecutor(this.scheduledLanes::add, 1, 2);
+		executor.execute(() -> {});
+		executor.execute(() -> {});
+
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() -> executor.execute(() -> {}));
+		assertThat(executor.getRejectedTaskCount(0)).isEqualTo(1);
+		assertThat(executor.getLargestQueueSize(0)).isEqualTo(2);
+
+		this.scheduledLanes.poll().run();
+		assertThat(executor.getQueueSize(0)).isEqualTo(0);
+		assertThat(executor.getCompletedTaskCount(0)).isEqualTo(2);
+		executor.execute(() -> {});
+	}
+
+	@Test
+	public void targetExecutorRejectsLane() {
+		SessionAffineTaskExecutor executor = new SessionAffineTaskExecutor(task -> {
+			throw new TaskRejectedException("Pool saturated");
+		}, 1);
+		List<String> handled = new ArrayList<>();
+
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() ->
+				executor.execute(() -> handled.add("task")));
+		assertThat(executor.getQueueSize(0)).isEqualTo(0);
+		assertThat(executor.getRejectedTaskCount(0)).isEqualTo(1);
+		assertThat(handled).isEmpty();
+	}
+
+	@Test
+	public void targetExecutorRejectsRescheduledLane() {
+		List<Runnable> accepted = new ArrayList<>();
+		SessionAffineTaskExecutor executor = new SessionAffineTaskExecutor(task -> {
+			if (!accepted.isEmpty()) {
+				throw new TaskRejectedException("Pool saturated");
+			}
+			accepted.add(task);
+		}, 1);
+		List<Integer> handled = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			int value = i;
+			executor.execute(() -> handled.add(value));
+		}
+
+		accepted.get(0).run();
+		assertThat(handled).hasSize(100);
+		assertThat(executor.getQueueSize(0)).isEqualTo(0);
+		assertThat(executor.getCompletedTaskCount(0)).isEqualTo(100);
+	}
+
+	@Test
+	public void failedTaskDoesNotStopLane() {
+		SessionAffineTaskExecutor executor = new SessionAffineTaskExecutor(this.scheduledLanes::add, 1);
+		List<String> handled = new ArrayList<>();
+		executor.execute(() -> {
+			throw new IllegalStateException("Expected failure");
+		});
+		executor.execute(() -> handled.add("task"));
+
+		this.scheduledLanes.poll().run();
+		assertThat(handled).containsExactly("task");
+	}
+
+	@Test
+	public void messagesForEachSessionHandledInOrder() throws Exception {
+		ExecutorService threadPool = Executors.newFixedThreadPool(4);
+		try {
+			int sessionCount = 100;
+			int messageCount = 100;
+			Map<String, List<Object>> handled = new ConcurrentHashMap<>();
+			CountDownLatch latch = new CountDownLatch(sessionCount * messageCount);
+
+			ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(
+					new SessionAffineTaskExecutor(threadPool, 8));
+			channel.subscribe(message -> {
+				String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+				handled.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(message.getPayload());
+				latch.countDown();
+			});
+
+			List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < messageCount; i++) {
+				expected.add(i);
+				for (int j = 0; j < sessionCount; j++) {
+					channel.send(createMessage("sess" + j, i));
+				}
+			}
+
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(handled).hasSize(sessionCount);
+			handled.values().forEach(payloads -> assertThat(payloads).isEqualTo(expected));
+		}
+		finally {
+			threadPool.shutdown();
+		}
+	}
+
+
+	private static Message<?> createMessage(String sessionId, Object payload) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+		accessor.setSessionId(sessionId);
+		return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TrieSubscriptionRegistry}.
+ */
+public class TrieSubscriptionRegistryTests {
+
+	private final TrieSubscriptionRegistry registry = new TrieSubscriptionRegistry();
+
+
+	@Test
+	public void registerSubscription() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(1);
+		assertThat(actual.get("sess01")).isEqualTo(Collections.singletonList("subs01"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar"))).isEmpty();
+		assertThat(this.registry.findSubscriptions(createMessage("foo"))).isEmpty();
+	}
+
+	@Test
+	public void registerSubscriptionsInOrder() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(2);
+		assertThat(actual.get("sess01")).isEqualTo(Arrays.asList("subs01", "subs02"));
+		assertThat(actual.get("sess02")).isEqualTo(Collections.singletonList("subs01"));
+	}
+
+	@Test
+	public void registerSubscriptionWithWildcards() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "single", "/topic/*/news"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "multi", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "inner", "/topic/**/news"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/sports/news")).get("sess01"))
+				.containsExactlyInAnyOrder("single", "multi", "inner");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/news")).get("sess01"))
+				.containsExactlyInAnyOrder("multi", "inner");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/a/b/news")).get("sess01"))
+				.containsExactlyInAnyOrder("multi", "inner");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic")).get("sess01"))
+				.containsExactly("multi");
+		assertThat(this.registry.findSubscriptions(createMessage("/queue/news"))).isEmpty();
+	}
+
+	@Test
+	public void registerSubscriptionWithSegmentPattern() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/PRICE.STOCK.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/PRICE.STOCK.*.{ticker:(IBM|MSFT)}"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NASDAQ.IBM")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs02");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NASDAQ.MSFT")).get("sess01"))
+				.containsExactly("subs02");
+		assertThat(this.registry.findSubscriptions(createMessage("/topic/PRICE.STOCK.NASDAQ.VMW"))).isEmpty();
+	}
+
+	@Test
+	public void registerSubscriptionWithPathSeparator() {
+		this.registry.setPathSeparator(".");
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "topic.PRICE.STOCK.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "topic.PRICE.**"));
+
+		assertThat(this.registry.findSubscriptions(createMessage("topic.PRICE.STOCK.NASDAQ.IBM")).get("sess01"))
+				.containsExactlyInAnyOrder("subs01", "subs02");
+		assertThat(this.registry.findSubscriptions(createMessage("topic.PRICE.STOCK.IBM")).get("sess01"))
+				.containsExactly("subs02");
+	}
+
+	@Test
+	public void registerSubscriptionWithSelector() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo", "headers.foo == 'bar'"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo"));
+
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+		accessor.setDestination("/foo");
+		accessor.setNativeHeader("foo", "bar");
+		Message<?> message = MessageBuilder.createMessage("", accessor.getMessageHeaders());
+		assertThat(this.registry.findSubscriptions(message).keySet()).containsExactlyInAnyOrder("sess01", "sess02");
+
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).keySet()).containsExactly("sess02");
+	}
+
+	@Test
+	public void unregisterSubscription() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo/*"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/foo/*"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo/bar"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs01"));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo/bar"));
+		assertThat(actual.get("sess01")).containsExactly("subs02");
+		assertThat(actual.get("sess02")).containsExactly("subs01");
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs02"));
+		this.registry.unregisterSubscription(unsubscribeMessage("sess02", "subs01"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar"))).isEmpty();
+
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo/*"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar")).get("sess01")).containsExactly("subs01");
+	}
+
+	@Test
+	public void unregisterAllSubscriptions() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/bar/**"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/foo"));
+
+		this.registry.unregisterAllSubscriptions("sess01");
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).keySet()).containsExactly("sess02");
+		assertThat(this.registry.findSubscriptions(createMessage("/bar/baz"))).isEmpty();
+	}
+
+	@Test
+	public void matchesSameSubscriptionsAsDefaultSubscriptionRegistry() {
+		DefaultSubscriptionRegistry defaultRegistry = new DefaultSubscriptionRegistry();
+		String[] patterns = {"/a", "/a/*", "/a/**", "/**", "/*/b", "/a/**/c", "/a/b*", "/a/{x:(b|c)}/**"};
+		for (int i = 0; i < patterns.length; i++) {
+			Message<?> message = subscribeMessage("sess0" + (i % 3), "subs0" + i, patterns[i]);
+			this.registry.registerSubscription(message);
+			defaultRegistry.registerSubscription(message);
+		}
+		String[] destinations = {"/a", "/a/b", "/a/c", "/a/b/c", "/a/bc/d/c", "/b", "/x/b", "/a/d/e"};
+		for (String destination : destinations) {
+			MultiValueMap<String, String> expected = defaultRegistry.findSubscriptions(createMessage(destination));
+			MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage(destination));
+			assertThat(actual.keySet()).as(destination).isEqualTo(expected.keySet());
+			expected.forEach((sessionId, subscriptionIds) ->
+					assertThat(actual.get(sessionId)).as(destination).containsExactlyInAnyOrderElementsOf(subscriptionIds));
+		}
+	}
+
+
+	private Message<?> createMessage(String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private Message<?> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+		return subscribeMessage(sessionId, subscriptionId, destination, null);
+	}
+
+	private Message<?> subscribeMessage(String sessionId, String subscriptionId, String dest, String selector) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination(dest);
+		if (selector != null) {
+			accessor.setNativeHeader("selector", selector);
+		}
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private Message<?> unsubscribeMessage(String sessionId, String subscriptionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+}
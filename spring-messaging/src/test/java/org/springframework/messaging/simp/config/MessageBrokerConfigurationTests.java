@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,6 +45,7 @@ import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
 import org.springframework.messaging.handler.invocation.HandlerMethodReturnValueHandler;
+import org.springframework.messaging.simp.SessionAffineTaskExecutor;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -208,6 +209,23 @@ public class MessageBrokerConfigurationTests {
 		assertThat(broker.isPreservePublishOrder()).isTrue();
 	}
 
+	@Test
+	public void clientOutboundChannelWithSessionAffinity() {
+		ApplicationContext context = loadConfig(SessionAffinityConfig.class);
+
+		ExecutorSubscribableChannel channel = context.getBean(
+				"clientOutboundChannel", ExecutorSubscribableChannel.class);
+		assertThat(channel.getExecutor()).isInstanceOf(SessionAffineTaskExecutor.class);
+
+		SessionAffineTaskExecutor executor = (SessionAffineTaskExecutor) channel.getExecutor();
+		assertThat(executor.getLaneCount()).isEqualTo(8);
+		assertThat(executor.getQueueCapacity()).isEqualTo(1000);
+		assertThat(executor.getTargetExecutor()).isSameAs(context.getBean("clientOutboundChannelExecutor"));
+
+		channel = context.getBean("clientInboundChannel", ExecutorSubscribableChannel.class);
+		assertThat(channel.getExecutor()).isInstanceOf(ThreadPoolTaskExecutor.class);
+	}
+
 	@Test
 	public void brokerChannel() {
 		ApplicationContext context = loadConfig(SimpleBrokerConfig.class);
@@ -670,6 +688,16 @@ public class MessageBrokerConfigurationTests {
 	}
 
 
+	@Configuration
+	static class SessionAffinityConfig extends BaseTestMessageBrokerConfig {
+
+		@Override
+		protected void configureClientOutboundChannel(ChannelRegistration registration) {
+			registration.sessionAffinity(8, 1000);
+		}
+	}
+
+
 	@Configuration
 	static abstract class BaseDotSeparatorConfig extends BaseTestMessageBrokerConfig {
 
@@ -159,6 +159,40 @@ public class StompDecoderTests {
 		assertThat(headers.getFirstNativeHeader("a:\r\n\\b")).isEqualTo("alpha:bravo\r\n\\");
 	}
 
+	@Test
+	public void decodeFrameWithIllegalEscapeSequence() {
+		assertThatExceptionOfType(StompConversionException.class).isThrownBy(() ->
+				decode("DISCONNECT\na:alpha\\t\n\n\0"))
+			.withMessage("Illegal escape sequence at index 5: alpha\\t");
+	}
+
+	@Test
+	public void decodeFrameFromDirectBuffer() {
+		byte[] bytes = "SEND\ndestination:/topic/a\\cb\ncontent-type:text/plain\n\nThe body\0".getBytes();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+
+		Message<byte[]> frame = decode(buffer);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.SEND);
+		assertThat(headers.getDestination()).isEqualTo("/topic/a:b");
+		assertThat(headers.getFirstNativeHeader("content-type")).isEqualTo("text/plain");
+		assertThat(new String(frame.getPayload())).isEqualTo("The body");
+	}
+
+	@Test
+	public void decodeFramesWithSameHeaders() {
+		String frame = "SEND\ndestination:/topic/a\ncontent-type:text/plain\nreceipt:r-1\n\nThe body\0";
+		StompHeaderAccessor headers1 = StompHeaderAccessor.wrap(decode(frame));
+		StompHeaderAccessor headers2 = StompHeaderAccessor.wrap(decode(frame));
+
+		assertThat(headers2.getFirstNativeHeader("destination")).isSameAs(headers1.getFirstNativeHeader("destination"));
+		assertThat(headers2.getFirstNativeHeader("content-type")).isSameAs(headers1.getFirstNativeHeader("content-type"));
+		assertThat(headers2.getFirstNativeHeader("receipt")).isEqualTo("r-1");
+	}
+
 	@Test
 	public void decodeFrameBodyNotAllowed() {
 		assertThatExceptionOfType(StompConversionException.class).isThrownBy(() ->
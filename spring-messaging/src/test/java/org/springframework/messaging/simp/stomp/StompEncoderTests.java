@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@ package org.springframework.messaging.simp.stomp;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.BroadcastEncodingCache;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.support.MessageBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -83,4 +85,45 @@ public class StompEncoderTests {
 		assertThat(new String(encoder.encode(frame))).isEqualTo("SEND\ncontent-length:12\n\nMessage body\0");
 	}
 
+	@Test
+	public void encodeFramesWithBroadcastEncodingCache() {
+		BroadcastEncodingCache cache = new BroadcastEncodingCache();
+		Message<byte[]> frame1 = createBroadcastFrame(cache, "sub:1", "m-1", "Message body".getBytes());
+		Message<byte[]> frame2 = createBroadcastFrame(cache, "sub:2", "m-2", frame1.getPayload());
+
+		assertThat(new String(encoder.encode(frame1))).isEqualTo("MESSAGE\ndestination:/topic/a\na:alpha\n" +
+				"subscription:sub\\c1\nmessage-id:m-1\ncontent-length:12\n\nMessage body\0");
+		assertThat(new String(encoder.encode(frame2))).isEqualTo("MESSAGE\ndestination:/topic/a\na:alpha\n" +
+				"subscription:sub\\c2\nmessage-id:m-2\ncontent-length:12\n\nMessage body\0");
+		assertThat(cache.get(encoder)).isNotNull();
+	}
+
+	@Test
+	public void encodeFramesWithBroadcastEncodingCacheAndDifferentHeaders() {
+		BroadcastEncodingCache cache = new BroadcastEncodingCache();
+		Message<byte[]> frame1 = createBroadcastFrame(cache, "sub-1", "m-1", "Message body".getBytes());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(
+				createBroadcastFrame(cache, "sub-2", "m-2", frame1.getPayload()));
+		headers.setNativeHeader("a", "bravo");
+		Message<byte[]> frame2 = MessageBuilder.createMessage(frame1.getPayload(), headers.getMessageHeaders());
+
+		assertThat(new String(encoder.encode(frame1))).isEqualTo("MESSAGE\ndestination:/topic/a\na:alpha\n" +
+				"subscription:sub-1\nmessage-id:m-1\ncontent-length:12\n\nMessage body\0");
+		assertThat(new String(encoder.encode(frame2))).isEqualTo("MESSAGE\ndestination:/topic/a\na:bravo\n" +
+				"subscription:sub-2\nmessage-id:m-2\ncontent-length:12\n\nMessage body\0");
+	}
+
+
+	private static Message<byte[]> createBroadcastFrame(
+			BroadcastEncodingCache cache, String subscriptionId, String messageId, byte[] payload) {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setDestination("/topic/a");
+		headers.addNativeHeader("a", "alpha");
+		headers.setSubscriptionId(subscriptionId);
+		headers.setMessageId(messageId);
+		headers.setHeader(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE_HEADER, cache);
+		return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+	}
+
 }
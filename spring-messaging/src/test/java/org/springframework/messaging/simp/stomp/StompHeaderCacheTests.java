@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link StompHeaderCache}.
+ *
+ * @since 5.2.4
+ */
+public class StompHeaderCacheTests {
+
+	private final StompHeaderCache cache = new StompHeaderCache(16, 32);
+
+
+	@Test
+	public void getBytes() {
+		byte[] bytes = this.cache.getBytes("destination");
+
+		assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("destination");
+		assertThat(this.cache.getBytes(new String("destination"))).isSameAs(bytes);
+	}
+
+	@Test
+	public void getString() {
+		byte[] bytes = "xx:content-type:yy".getBytes(StandardCharsets.UTF_8);
+		String value = this.cache.getString(bytes, 3, 12);
+
+		assertThat(value).isEqualTo("content-type");
+		assertThat(this.cache.getString("content-type".getBytes(StandardCharsets.UTF_8), 0, 12)).isSameAs(value);
+	}
+
+	@Test
+	public void getStringWithNonAsciiCharacters() {
+		byte[] bytes = "/topic/préférences".getBytes(StandardCharsets.UTF_8);
+
+		assertThat(this.cache.getString(bytes, 0, bytes.length)).isEqualTo("/topic/préférences");
+		assertThat(this.cache.getString(bytes, 0, bytes.length)).isEqualTo("/topic/préférences");
+	}
+
+	@Test
+	public void valuesExceedingMaxLengthAreNotCached() {
+		String value = "/topic/a-destination-longer-than-the-max-length";
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		assertThat(this.cache.getString(bytes, 0, bytes.length)).isEqualTo(value);
+		assertThat(this.cache.getString(bytes, 0, bytes.length)).isNotSameAs(this.cache.getString(bytes, 0, bytes.length));
+		assertThat(this.cache.getBytes(value)).isNotSameAs(this.cache.getBytes(value));
+	}
+
+	@Test
+	public void collidingValuesReplaceEachOther() {
+		StompHeaderCache cache = new StompHeaderCache(1, 32);
+		byte[] first = cache.getBytes("first");
+		byte[] second = cache.getBytes("second");
+
+		assertThat(new String(first, StandardCharsets.UTF_8)).isEqualTo("first");
+		assertThat(new String(second, StandardCharsets.UTF_8)).isEqualTo("second");
+		assertThat(cache.getBytes("second")).isSameAs(second);
+		assertThat(cache.getBytes("first")).isNotSameAs(first).isEqualTo(first);
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for populating and reading typed values from {@link HttpHeaders},
+ * including the parsing of {@link MediaType MediaTypes}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class HttpHeadersBenchmark {
+
+	@Benchmark
+	public HttpHeaders populateHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.setContentLength(1024);
+		headers.setAccept(MediaType.parseMediaTypes("application/json, text/plain;q=0.8"));
+		headers.setCacheControl(CacheControl.noCache());
+		headers.add("X-Request-Id", "4d2e8e24-7ffb-4f7b-9b8a-1b0e4e2c5a7f");
+		return headers;
+	}
+
+	@Benchmark
+	public MediaType getContentType(BenchmarkData data) {
+		return data.headers.getContentType();
+	}
+
+	@Benchmark
+	public List<MediaType> getAccept(BenchmarkData data) {
+		return data.headers.getAccept();
+	}
+
+	@Benchmark
+	public long getContentLength(BenchmarkData data) {
+		return data.headers.getContentLength();
+	}
+
+	@Benchmark
+	public String getFirstCaseInsensitive(BenchmarkData data) {
+		return data.headers.getFirst("user-agent");
+	}
+
+	@Benchmark
+	public List<MediaType> sortBySpecificityAndQuality(BenchmarkData data) {
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(data.accept);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		return mediaTypes;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public String accept =
+				"text/html, application/xhtml+xml, application/xml;q=0.9, image/webp, image/apng, */*;q=0.8";
+
+		public HttpHeaders headers;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.headers = new HttpHeaders();
+			this.headers.set(HttpHeaders.ACCEPT, this.accept);
+			this.headers.set(HttpHeaders.CONTENT_TYPE, "application/json;charset=UTF-8");
+			this.headers.set(HttpHeaders.CONTENT_LENGTH, "1024");
+			this.headers.set(HttpHeaders.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64)");
+			this.headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+			this.headers.set(HttpHeaders.ACCEPT_LANGUAGE, "en-US,en;q=0.9");
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.codec.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * Benchmarks for tokenizing a chunked JSON array with the {@link Jackson2Tokenizer},
+ * either as a single value or into one {@link TokenBuffer} per array element.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2TokenizerBenchmark {
+
+	@Benchmark
+	public List<TokenBuffer> tokenize(BenchmarkData data) {
+		Flux<DataBuffer> dataBuffers = Flux.fromIterable(data.chunks).map(data.bufferFactory::wrap);
+		return Jackson2Tokenizer.tokenize(dataBuffers, data.jsonFactory, data.objectMapper,
+				data.tokenizeArrays, false, -1).collectList().block();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"true", "false"})
+		public boolean tokenizeArrays;
+
+		@Param({"100", "1000"})
+		public int elementCount;
+
+		@Param({"1024", "8192"})
+		public int chunkSize;
+
+		public List<byte[]> chunks = new ArrayList<>();
+
+		public DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public ObjectMapper objectMapper = new ObjectMapper();
+
+		public JsonFactory jsonFactory = this.objectMapper.getFactory();
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder json = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					json.append(',');
+				}
+				json.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i)
+						.append("\",\"price\":").append(i * 1.5d)
+						.append(",\"tags\":[\"spring\",\"jackson\"],\"nested\":{\"active\":true}}");
+			}
+			byte[] bytes = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+			for (int offset = 0; offset < bytes.length; offset += this.chunkSize) {
+				this.chunks.add(Arrays.copyOfRange(bytes, offset, Math.min(offset + this.chunkSize, bytes.length)));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Benchmarks for matching request paths against a set of route patterns,
+ * with {@link AntPathMatcher} and with {@link PathPattern PathPatterns}
+ * parsed by a {@link PathPatternParser}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathMatchingBenchmark {
+
+	@Benchmark
+	public void antPathMatcher(BenchmarkData data, Blackhole bh) {
+		for (String path : data.requestPaths) {
+			for (String pattern : data.patterns) {
+				bh.consume(data.antPathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void pathPattern(BenchmarkData data, Blackhole bh) {
+		for (String path : data.requestPaths) {
+			PathContainer pathContainer = PathContainer.parsePath(path);
+			for (PathPattern pattern : data.parsedPatterns) {
+				bh.consume(pattern.matches(pathContainer));
+			}
+		}
+	}
+
+	@Benchmark
+	public void antPathMatcherExtractVariables(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.antPathMatcher.extractUriTemplateVariables(
+				"/api/projects/{project}/releases/{version}", "/api/projects/spring-framework/releases/5.2.4"));
+	}
+
+	@Benchmark
+	public void pathPatternExtractVariables(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.variablesPattern.matchAndExtract(
+				PathContainer.parsePath("/api/projects/spring-framework/releases/5.2.4")));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public List<String> patterns = new ArrayList<>();
+
+		public List<String> requestPaths = new ArrayList<>();
+
+		public AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+		public List<PathPattern> parsedPatterns = new ArrayList<>();
+
+		public PathPattern variablesPattern;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			String[] resources = {"projects", "releases", "users", "orders", "issues"};
+			for (String resource : resources) {
+				this.patterns.add("/api/" + resource);
+				this.patterns.add("/api/" + resource + "/{id}");
+				this.patterns.add("/api/" + resource + "/{id}/**");
+				this.patterns.add("/static/" + resource + "/*.js");
+				this.requestPaths.add("/api/" + resource);
+				this.requestPaths.add("/api/" + resource + "/42");
+				this.requestPaths.add("/api/" + resource + "/42/comments/7");
+				this.requestPaths.add("/static/" + resource + "/app.js");
+			}
+			this.requestPaths.add("/unknown/path/to/resource");
+			PathPatternParser parser = new PathPatternParser();
+			for (String pattern : this.patterns) {
+				this.parsedPatterns.add(parser.parse(pattern));
+			}
+			this.variablesPattern = parser.parse("/api/projects/{project}/releases/{version}");
+		}
+	}
+
+}
@@ -17,8 +17,10 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,7 +30,10 @@ import java.util.Map;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
 import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,6 +52,7 @@ import org.springframework.core.codec.EncodingException;
 import org.springframework.core.codec.Hints;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.HttpMessageEncoder;
@@ -78,8 +84,15 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	}
 
 
+	private static final Object BATCH_TIMEOUT = new Object();
+
+
 	private final List<MediaType> streamingMediaTypes = new ArrayList<>(1);
 
+	private int streamingBatchSize = -1;
+
+	private Duration streamingBatchTimeout = Duration.ofMillis(100);
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -101,6 +114,54 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		this.streamingMediaTypes.addAll(mediaTypes);
 	}
 
+	/**
+	 * Configure the number of bytes that consecutive elements of a stream
+	 * encoded with one of the {@link #setStreamingMediaTypes streaming media
+	 * types} are coalesced into, before the resulting data buffer is emitted.
+	 * As each data buffer of such a stream is flushed, this reduces the number
+	 * of writes and flushes for streams of many small elements.
+	 * <p>A batch that is not full is emitted at the latest after the
+	 * {@link #setStreamingBatchTimeout batch timeout}.
+	 * <p>By default this is set to -1, in which case each element is encoded
+	 * into a data buffer of its own.
+	 * @param byteCount the minimum number of bytes of a batch, or -1 to
+	 * disable batching
+	 * @since 5.2.4
+	 */
+	public void setStreamingBatchSize(int byteCount) {
+		this.streamingBatchSize = byteCount;
+	}
+
+	/**
+	 * Return the {@link #setStreamingBatchSize configured} batch size.
+	 * @since 5.2.4
+	 */
+	public int getStreamingBatchSize() {
+		return this.streamingBatchSize;
+	}
+
+	/**
+	 * Configure the maximum amount of time that elements of a stream are
+	 * held back when {@link #setStreamingBatchSize batching} is enabled.
+	 * <p>Note that a timer runs for the duration of each stream in that case.
+	 * <p>By default this is set to 100 milliseconds.
+	 * @param timeout the batch timeout
+	 * @since 5.2.4
+	 */
+	public void setStreamingBatchTimeout(Duration timeout) {
+		Assert.notNull(timeout, "Timeout must not be null");
+		Assert.isTrue(!timeout.isNegative() && !timeout.isZero(), "Timeout must be positive");
+		this.streamingBatchTimeout = timeout;
+	}
+
+	/**
+	 * Return the {@link #setStreamingBatchTimeout configured} batch timeout.
+	 * @since 5.2.4
+	 */
+	public Duration getStreamingBatchTimeout() {
+		return this.streamingBatchTimeout;
+	}
+
 
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
@@ -125,20 +186,7 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		else {
 			byte[] separator = streamSeparator(mimeType);
 			if (separator != null) { // streaming
-				try {
-					ObjectWriter writer = createObjectWriter(elementType, mimeType, hints);
-					ByteArrayBuilder byteBuilder = new ByteArrayBuilder(writer.getFactory()._getBufferRecycler());
-					JsonEncoding encoding = getJsonEncoding(mimeType);
-					JsonGenerator generator = getObjectMapper().getFactory().createGenerator(byteBuilder, encoding);
-					SequenceWriter sequenceWriter = writer.writeValues(generator);
-
-					return Flux.from(inputStream)
-							.map(value -> encodeStreamingValue(value, bufferFactory, hints, sequenceWriter, byteBuilder,
-									separator));
-				}
-				catch (IOException ex) {
-					return Flux.error(ex);
-				}
+				return encodeStream(inputStream, bufferFactory, elementType, mimeType, hints, separator);
 			}
 			else { // non-streaming
 				ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
@@ -189,44 +237,52 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		return buffer;
 	}
 
-	private DataBuffer encodeStreamingValue(Object value, DataBufferFactory bufferFactory, @Nullable Map<String, Object> hints,
-			SequenceWriter sequenceWriter, ByteArrayBuilder byteArrayBuilder, byte[] separator) {
+	private Flux<DataBuffer> encodeStream(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+			ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints,
+			byte[] separator) {
 
-		logValue(hints, value);
-
-		try {
-			sequenceWriter.write(value);
-			sequenceWriter.flush();
-		}
-		catch (InvalidDefinitionException ex) {
-			throw new CodecException("Type definition error: " + ex.getType(), ex);
-		}
-		catch (JsonProcessingException ex) {
-			throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
-		}
-		catch (IOException ex) {
-			throw new IllegalStateException("Unexpected I/O error while writing to byte array builder", ex);
-		}
+		int batchSize = this.streamingBatchSize;
+		Duration batchTimeout = this.streamingBatchTimeout;
 
-		byte[] bytes = byteArrayBuilder.toByteArray();
-		byteArrayBuilder.reset();
+		return Flux.defer(() -> {
+			StreamingValueWriter valueWriter;
+			try {
+				ObjectWriter writer = createObjectWriter(elementType, mimeType, hints);
+				valueWriter = new StreamingValueWriter(writer, getJsonEncoding(mimeType), bufferFactory,
+						Math.max(batchSize, 0), separator, hints);
+			}
+			catch (IOException ex) {
+				return Flux.error(ex);
+			}
 
-		int offset;
-		int length;
-		if (bytes.length > 0 && bytes[0] == ' ') {
-			// SequenceWriter writes an unnecessary space in between values
-			offset = 1;
-			length = bytes.length - 1;
-		}
-		else {
-			offset = 0;
-			length = bytes.length;
-		}
-		DataBuffer buffer = bufferFactory.allocateBuffer(length + separator.length);
-		buffer.write(bytes, offset, length);
-		buffer.write(separator);
+			if (batchSize <= 0) {
+				return Flux.from(inputStream)
+						.map(value -> {
+							valueWriter.write(value);
+							return valueWriter.takeBuffer();
+						})
+						.doFinally(signal -> valueWriter.releaseBuffer());
+			}
 
-		return buffer;
+			// Ticks are dropped in the absence of demand, so they never cause an overflow
+			return Flux.from(inputStream)
+					.publish(values -> Flux.merge(values, Flux.interval(batchTimeout)
+							.onBackpressureDrop()
+							.map(tick -> BATCH_TIMEOUT)
+							.takeUntilOther(values.ignoreElements())))
+					.<DataBuffer>handle((value, sink) -> {
+						if (value != BATCH_TIMEOUT) {
+							valueWriter.write(value);
+						}
+						if (valueWriter.bufferedByteCount() >= batchSize ||
+								(value == BATCH_TIMEOUT && valueWriter.bufferedByteCount() > 0)) {
+							sink.next(valueWriter.takeBuffer());
+						}
+					})
+					.concatWith(Mono.fromSupplier(() ->
+							valueWriter.bufferedByteCount() > 0 ? valueWriter.takeBuffer() : null))
+					.doFinally(signal -> valueWriter.releaseBuffer());
+		});
 	}
 
 	private void logValue(@Nullable Map<String, Object> hints, Object value) {
@@ -288,6 +344,106 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	}
 
 
+	/**
+	 * Writes the values of a stream with one {@link JsonGenerator}, straight
+	 * into data buffers that are handed out through {@link #takeBuffer()}.
+	 */
+	private class StreamingValueWriter extends OutputStream {
+
+		private final SequenceWriter sequenceWriter;
+
+		private final DataBufferFactory bufferFactory;
+
+		private final int initialCapacity;
+
+		private final byte[] separator;
+
+		@Nullable
+		private final Map<String, Object> hints;
+
+		@Nullable
+		private DataBuffer buffer;
+
+		StreamingValueWriter(ObjectWriter writer, JsonEncoding encoding, DataBufferFactory bufferFactory,
+				int initialCapacity, byte[] separator, @Nullable Map<String, Object> hints) throws IOException {
+
+			JsonGenerator generator = getObjectMapper().getFactory().createGenerator(this, encoding);
+			this.sequenceWriter = writer.writeValues(generator);
+			// Don't write an unnecessary space in between values
+			PrettyPrinter prettyPrinter = generator.getPrettyPrinter();
+			if (prettyPrinter instanceof DefaultPrettyPrinter) {
+				generator.setPrettyPrinter(((DefaultPrettyPrinter) prettyPrinter).withRootSeparator(""));
+			}
+			else if (generator instanceof JsonGeneratorImpl) {
+				generator.setRootValueSeparator(null);
+			}
+			this.bufferFactory = bufferFactory;
+			this.initialCapacity = initialCapacity;
+			this.separator = separator;
+			this.hints = hints;
+		}
+
+		public void write(Object value) {
+			logValue(this.hints, value);
+			try {
+				this.sequenceWriter.write(value);
+				this.sequenceWriter.flush();
+				write(this.separator);
+			}
+			catch (InvalidDefinitionException ex) {
+				throw new CodecException("Type definition error: " + ex.getType(), ex);
+			}
+			catch (JsonProcessingException ex) {
+				throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+			}
+		}
+
+		@Override
+		public void write(int b) {
+			obtainBuffer(1).write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			if (len > 0) {
+				obtainBuffer(len).write(bytes, off, len);
+			}
+		}
+
+		private DataBuffer obtainBuffer(int byteCount) {
+			DataBuffer buffer = this.buffer;
+			if (buffer == null) {
+				buffer = this.bufferFactory.allocateBuffer(
+						Math.max(byteCount + this.separator.length, this.initialCapacity));
+				this.buffer = buffer;
+			}
+			return buffer;
+		}
+
+		public int bufferedByteCount() {
+			DataBuffer buffer = this.buffer;
+			return (buffer != null ? buffer.readableByteCount() : 0);
+		}
+
+		public DataBuffer takeBuffer() {
+			DataBuffer buffer = obtainBuffer(0);
+			this.buffer = null;
+			return buffer;
+		}
+
+		public void releaseBuffer() {
+			DataBuffer buffer = this.buffer;
+			if (buffer != null) {
+				this.buffer = null;
+				DataBufferUtils.release(buffer);
+			}
+		}
+	}
+
+
 	// HttpMessageEncoder
 
 	@Override
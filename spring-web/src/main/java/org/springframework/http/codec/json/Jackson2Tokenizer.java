@@ -17,7 +17,9 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 
@@ -27,6 +29,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.async.ByteArrayFeeder;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
@@ -44,6 +47,10 @@ import org.springframework.lang.Nullable;
  * chunks into a {@code Flux<TokenBuffer>} where each token buffer is a
  * well-formed JSON object.
  *
+ * <p>Alternatively, each JSON object can be passed to a {@link ValueReader}
+ * as soon as it is complete, in which case scalar values are read straight
+ * from the non-blocking parser rather than through a {@code TokenBuffer}.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
@@ -61,12 +68,19 @@ final class Jackson2Tokenizer {
 
 	private final int maxInMemorySize;
 
+	@Nullable
+	private final ValueReader valueReader;
+
+	private final boolean readScalarValuesFromParser;
+
 	private int objectDepth;
 
 	private int arrayDepth;
 
 	private int byteCount;
 
+	private int elementCount;
+
 	@Nullable // yet initialized by calling createToken() in the constructor
 	private TokenBuffer tokenBuffer;
 
@@ -77,7 +91,8 @@ final class Jackson2Tokenizer {
 
 
 	private Jackson2Tokenizer(JsonParser parser, DeserializationContext deserializationContext,
-			boolean tokenizeArrayElements, boolean forceUseOfBigDecimal, int maxInMemorySize) {
+			boolean tokenizeArrayElements, boolean forceUseOfBigDecimal, int maxInMemorySize,
+			@Nullable ValueReader valueReader, boolean readScalarValuesFromParser) {
 
 		this.parser = parser;
 		this.deserializationContext = deserializationContext;
@@ -85,21 +100,31 @@ final class Jackson2Tokenizer {
 		this.forceUseOfBigDecimal = forceUseOfBigDecimal;
 		this.inputFeeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
 		this.maxInMemorySize = maxInMemorySize;
+		this.valueReader = valueReader;
+		this.readScalarValuesFromParser = readScalarValuesFromParser;
 		createToken();
 	}
 
 
 
-	private List<TokenBuffer> tokenize(DataBuffer dataBuffer) {
+	private List<Object> tokenize(DataBuffer dataBuffer) {
 		int bufferSize = dataBuffer.readableByteCount();
-		byte[] bytes = new byte[bufferSize];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
-			List<TokenBuffer> result = parseTokenBufferFlux();
-			assertInMemorySize(bufferSize, result);
+			// The parser is done with the input once it returns NOT_AVAILABLE,
+			// so the backing array of a heap buffer can be fed without a copy
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+			if (byteBuffer.hasArray()) {
+				int start = byteBuffer.arrayOffset() + byteBuffer.position();
+				this.inputFeeder.feedInput(byteBuffer.array(), start, start + bufferSize);
+			}
+			else {
+				byte[] bytes = new byte[bufferSize];
+				dataBuffer.read(bytes);
+				this.inputFeeder.feedInput(bytes, 0, bufferSize);
+			}
+			int previousCount = this.elementCount;
+			List<Object> result = parseTokenBufferFlux();
+			assertInMemorySize(bufferSize, this.elementCount != previousCount);
 			return result;
 		}
 		catch (JsonProcessingException ex) {
@@ -108,9 +133,12 @@ final class Jackson2Tokenizer {
 		catch (IOException ex) {
 			throw Exceptions.propagate(ex);
 		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
 	}
 
-	private Flux<TokenBuffer> endOfInput() {
+	private Flux<Object> endOfInput() {
 		return Flux.defer(() -> {
 			this.inputFeeder.endOfInput();
 			try {
@@ -125,8 +153,8 @@ final class Jackson2Tokenizer {
 		});
 	}
 
-	private List<TokenBuffer> parseTokenBufferFlux() throws IOException {
-		List<TokenBuffer> result = new ArrayList<>();
+	private List<Object> parseTokenBufferFlux() throws IOException {
+		List<Object> result = Collections.emptyList();
 
 		// SPR-16151: Smile data format uses null to separate documents
 		boolean previousNull = false;
@@ -145,10 +173,10 @@ final class Jackson2Tokenizer {
 			}
 			updateDepth(token);
 			if (!this.tokenizeArrayElements) {
-				processTokenNormal(token, result);
+				result = processTokenNormal(token, result);
 			}
 			else {
-				processTokenArray(token, result);
+				result = processTokenArray(token, result);
 			}
 		}
 		return result;
@@ -171,26 +199,53 @@ final class Jackson2Tokenizer {
 		}
 	}
 
-	private void processTokenNormal(JsonToken token, List<TokenBuffer> result) throws IOException {
+	private List<Object> processTokenNormal(JsonToken token, List<Object> result) throws IOException {
 		this.tokenBuffer.copyCurrentEvent(this.parser);
 
 		if ((token.isStructEnd() || token.isScalarValue()) && this.objectDepth == 0 && this.arrayDepth == 0) {
-			result.add(this.tokenBuffer);
-			createToken();
+			result = addTokenBuffer(result);
 		}
-
+		return result;
 	}
 
-	private void processTokenArray(JsonToken token, List<TokenBuffer> result) throws IOException {
+	private List<Object> processTokenArray(JsonToken token, List<Object> result) throws IOException {
+		boolean elementEnd = (this.objectDepth == 0 && (this.arrayDepth == 0 || this.arrayDepth == 1) &&
+				(token == JsonToken.END_OBJECT || token.isScalarValue()));
+
+		if (elementEnd && token.isScalarValue() && this.readScalarValuesFromParser) {
+			// The scalar is an element on its own: no need to buffer its single token
+			this.elementCount++;
+			return addValue(this.valueReader.read(this.parser), result);
+		}
+
 		if (!isTopLevelArrayToken(token)) {
 			this.tokenBuffer.copyCurrentEvent(this.parser);
 		}
+		if (elementEnd) {
+			result = addTokenBuffer(result);
+		}
+		return result;
+	}
 
-		if (this.objectDepth == 0 && (this.arrayDepth == 0 || this.arrayDepth == 1) &&
-				(token == JsonToken.END_OBJECT || token.isScalarValue())) {
-			result.add(this.tokenBuffer);
-			createToken();
+	private List<Object> addTokenBuffer(List<Object> result) {
+		TokenBuffer tokenBuffer = this.tokenBuffer;
+		createToken();
+		this.elementCount++;
+		if (this.valueReader != null) {
+			return addValue(this.valueReader.read(tokenBuffer.asParser()), result);
 		}
+		return addValue(tokenBuffer, result);
+	}
+
+	private static List<Object> addValue(@Nullable Object value, List<Object> result) {
+		if (value == null) {
+			return result;
+		}
+		if (result.isEmpty()) {
+			result = new ArrayList<>();
+		}
+		result.add(value);
+		return result;
 	}
 
 	private void createToken() {
@@ -203,9 +258,9 @@ final class Jackson2Tokenizer {
 				(token == JsonToken.END_ARRAY && this.arrayDepth == 0));
 	}
 
-	private void assertInMemorySize(int currentBufferSize, List<TokenBuffer> result) {
+	private void assertInMemorySize(int currentBufferSize, boolean elementCompleted) {
 		if (this.maxInMemorySize >= 0) {
-			if (!result.isEmpty()) {
+			if (elementCompleted) {
 				this.byteCount = 0;
 			}
 			else if (currentBufferSize > Integer.MAX_VALUE - this.byteCount) {
@@ -238,9 +293,46 @@ final class Jackson2Tokenizer {
 	 * @param maxInMemorySize maximum memory size
 	 * @return the resulting token buffers
 	 */
+	@SuppressWarnings("unchecked")
 	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
 			ObjectMapper objectMapper, boolean tokenizeArrays, boolean forceUseOfBigDecimal, int maxInMemorySize) {
 
+		Flux<?> tokens = tokenize(dataBuffers, jsonFactory, objectMapper, tokenizeArrays, forceUseOfBigDecimal,
+				maxInMemorySize, null, false);
+		return (Flux<TokenBuffer>) tokens;
+	}
+
+	/**
+	 * Tokenize the given {@code Flux<DataBuffer>} into the elements of a "top
+	 * level" JSON array, or into top level JSON objects otherwise, and read
+	 * each of them with the given {@code ValueReader} immediately after it is
+	 * received. Elements that are scalar values are read straight from the
+	 * non-blocking parser, rather than being copied into a {@code TokenBuffer}
+	 * first, unless {@link DeserializationFeature#FAIL_ON_TRAILING_TOKENS} is
+	 * enabled.
+	 * @param dataBuffers the source data buffers
+	 * @param jsonFactory the factory to use
+	 * @param objectMapper the current mapper instance
+	 * @param forceUseOfBigDecimal if {@code true}, any floating point values encountered in source will use
+	 * {@link java.math.BigDecimal}
+	 * @param maxInMemorySize maximum memory size
+	 * @param valueReader the reader to obtain values with
+	 * @return the resulting values
+	 * @since 5.2.4
+	 */
+	public static Flux<Object> read(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			ObjectMapper objectMapper, boolean forceUseOfBigDecimal, int maxInMemorySize, ValueReader valueReader) {
+
+		// Checking for trailing tokens would advance the parser past the current value
+		boolean readScalarValuesFromParser = !objectMapper.isEnabled(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+		return tokenize(dataBuffers, jsonFactory, objectMapper, true, forceUseOfBigDecimal, maxInMemorySize,
+				valueReader, readScalarValuesFromParser);
+	}
+
+	private static Flux<Object> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			ObjectMapper objectMapper, boolean tokenizeArrays, boolean forceUseOfBigDecimal, int maxInMemorySize,
+			@Nullable ValueReader valueReader, boolean readScalarValuesFromParser) {
+
 		try {
 			JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
 			DeserializationContext context = objectMapper.getDeserializationContext();
@@ -249,7 +341,7 @@ final class Jackson2Tokenizer {
 						objectMapper.getDeserializationConfig(), parser, objectMapper.getInjectableValues());
 			}
 			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, context, tokenizeArrays, forceUseOfBigDecimal,
-					maxInMemorySize);
+					maxInMemorySize, valueReader, readScalarValuesFromParser);
 			return dataBuffers.concatMapIterable(tokenizer::tokenize).concatWith(tokenizer.endOfInput());
 		}
 		catch (IOException ex) {
@@ -257,4 +349,23 @@ final class Jackson2Tokenizer {
 		}
 	}
 
+
+	/**
+	 * Callback to read a value from a complete JSON element, as used by
+	 * {@link #read}.
+	 */
+	@FunctionalInterface
+	interface ValueReader {
+
+		/**
+		 * Read a single value from the given parser. Implementations are
+		 * expected to wrap any {@link IOException} in an unchecked exception.
+		 * @param parser the parser, positioned on or just before the first
+		 * token of the value; it must not be advanced past the last token
+		 * @return the value, or {@code null} to skip it
+		 */
+		@Nullable
+		Object read(JsonParser parser);
+	}
+
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.util.Arrays;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Implementation of {@link DataBufferUtils.Matcher} that uses the
+ * Boyer-Moore-Horspool algorithm, skipping ahead by up to the length of the
+ * delimiter for every mismatch instead of inspecting every byte.
+ *
+ * <p>Delimiters that span several buffers are found by keeping a copy of the
+ * last {@code delimiter.length - 1} bytes of the buffers matched so far. The
+ * buffers themselves are never copied.
+ *
+ * @since 5.2.4
+ */
+final class BoyerMooreHorspoolMatcher implements DataBufferUtils.Matcher {
+
+	private final byte[] delimiter;
+
+	private final int[] shiftTable = new int[256];
+
+	private final byte[] carry;
+
+	private int carryLength;
+
+
+	BoyerMooreHorspoolMatcher(byte[] delimiter) {
+		Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
+		this.delimiter = Arrays.copyOf(delimiter, delimiter.length);
+		int last = delimiter.length - 1;
+		Arrays.fill(this.shiftTable, delimiter.length);
+		for (int i = 0; i < last; i++) {
+			this.shiftTable[delimiter[i] & 0xFF] = last - i;
+		}
+		this.carry = new byte[last];
+	}
+
+
+	@Override
+	public int match(DataBuffer dataBuffer) {
+		int start = dataBuffer.readPosition();
+		int carryLength = this.carryLength;
+		// Search the bytes carried over from previous buffers followed by this buffer
+		int length = carryLength + dataBuffer.writePosition() - start;
+		int last = this.delimiter.length - 1;
+		byte lastByte = this.delimiter[last];
+		int i = 0;
+		while (i < length - last) {
+			byte b = byteAt(dataBuffer, start, i + last);
+			if (b == lastByte && matchesAt(dataBuffer, start, i)) {
+				reset();
+				return start + i + last - carryLength;
+			}
+			i += this.shiftTable[b & 0xFF];
+		}
+		updateCarry(dataBuffer, start, length);
+		return -1;
+	}
+
+	private byte byteAt(DataBuffer dataBuffer, int start, int index) {
+		return (index < this.carryLength ? this.carry[index] : dataBuffer.getByte(start + index - this.carryLength));
+	}
+
+	private boolean matchesAt(DataBuffer dataBuffer, int start, int index) {
+		for (int j = this.delimiter.length - 2; j >= 0; j--) {
+			if (byteAt(dataBuffer, start, index + j) != this.delimiter[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void updateCarry(DataBuffer dataBuffer, int start, int length) {
+		int count = Math.min(this.carry.length, length);
+		int from = length - count;
+		// Shifts left, so the carried over bytes are read before they are overwritten
+		for (int i = 0; i < count; i++) {
+			this.carry[i] = byteAt(dataBuffer, start, from + i);
+		}
+		this.carryLength = count;
+	}
+
+	@Override
+	public byte[] delimiter() {
+		return Arrays.copyOf(this.delimiter, this.delimiter.length);
+	}
+
+	@Override
+	public void reset() {
+		this.carryLength = 0;
+	}
+
+}
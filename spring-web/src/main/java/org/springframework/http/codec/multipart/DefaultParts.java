@@ -0,0 +1,334 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+
+/**
+ * Default implementations of {@link Part} and subtypes, as created by the
+ * {@link DefaultPartHttpMessageReader}.
+ *
+ * @since 5.2.4
+ */
+abstract class DefaultParts {
+
+	private static final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private static final int FILE_BUFFER_SIZE = 8192;
+
+
+	/**
+	 * Create a new {@link FormFieldPart} with the given parameters.
+	 * @param headers the part headers
+	 * @param value the form field value
+	 * @return the created part
+	 */
+	public static FormFieldPart formFieldPart(HttpHeaders headers, String value) {
+		Assert.notNull(headers, "Headers must not be null");
+		Assert.notNull(value, "Value must not be null");
+		return new DefaultFormFieldPart(headers, value);
+	}
+
+	/**
+	 * Create a new {@link Part} or {@link FilePart} with the given content
+	 * held in memory.
+	 * @param headers the part headers
+	 * @param content the part content
+	 * @param scheduler the scheduler used for {@link FilePart#transferTo(Path)}
+	 * @return {@link FilePart} if the {@code Content-Disposition} header of
+	 * the part contains a filename, or a plain {@link Part} otherwise
+	 */
+	public static Part part(HttpHeaders headers, byte[] content, Scheduler scheduler) {
+		Assert.notNull(headers, "Headers must not be null");
+		Assert.notNull(content, "Content must not be null");
+		return partInternal(headers, new MemoryContent(content, scheduler));
+	}
+
+	/**
+	 * Create a new {@link Part} or {@link FilePart} with the given content
+	 * stored in a temporary file. The content can be read any number of
+	 * times, until the file is deleted through {@link Part#delete()}.
+	 * @param headers the part headers
+	 * @param file the file holding the part content
+	 * @param scheduler the scheduler used for blocking file operations
+	 * @return {@link FilePart} if the {@code Content-Disposition} header of
+	 * the part contains a filename, or a plain {@link Part} otherwise
+	 */
+	public static Part part(HttpHeaders headers, Path file, Scheduler scheduler) {
+		Assert.notNull(headers, "Headers must not be null");
+		Assert.notNull(file, "File must not be null");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		return partInternal(headers, new FileContent(file, scheduler));
+	}
+
+	private static Part partInternal(HttpHeaders headers, Content content) {
+		String filename = headers.getContentDisposition().getFilename();
+		if (filename != null) {
+			return new DefaultFilePart(headers, content);
+		}
+		else {
+			return new DefaultPart(headers, content);
+		}
+	}
+
+
+	/**
+	 * Abstract base class.
+	 */
+	private abstract static class AbstractPart implements Part {
+
+		private final HttpHeaders headers;
+
+		protected AbstractPart(HttpHeaders headers) {
+			Assert.notNull(headers, "HttpHeaders is required");
+			this.headers = headers;
+		}
+
+		@Override
+		public String name() {
+			String name = headers().getContentDisposition().getName();
+			Assert.state(name != null, "No name available");
+			return name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	/**
+	 * Default implementation of {@link FormFieldPart}.
+	 */
+	private static class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final String value;
+
+		public DefaultFormFieldPart(HttpHeaders headers, String value) {
+			super(headers);
+			this.value = value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> {
+				byte[] bytes = this.value.getBytes(MultipartUtils.charset(headers()));
+				return Flux.just(bufferFactory.wrap(bytes));
+			});
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			String name = headers().getContentDisposition().getName();
+			if (name != null) {
+				return "DefaultFormFieldPart{" + name + "}";
+			}
+			else {
+				return "DefaultFormFieldPart";
+			}
+		}
+	}
+
+
+	/**
+	 * Default implementation of {@link Part}.
+	 */
+	private static class DefaultPart extends AbstractPart {
+
+		protected final Content content;
+
+		public DefaultPart(HttpHeaders headers, Content content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.content();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return this.content.delete();
+		}
+
+		@Override
+		public String toString() {
+			String name = headers().getContentDisposition().getName();
+			if (name != null) {
+				return "DefaultPart{" + name + "}";
+			}
+			else {
+				return "DefaultPart";
+			}
+		}
+	}
+
+
+	/**
+	 * Default implementation of {@link FilePart}.
+	 */
+	private static final class DefaultFilePart extends DefaultPart implements FilePart {
+
+		public DefaultFilePart(HttpHeaders headers, Content content) {
+			super(headers, content);
+		}
+
+		@Override
+		public String filename() {
+			String filename = headers().getContentDisposition().getFilename();
+			Assert.state(filename != null, "No filename found");
+			return filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return this.content.transferTo(dest);
+		}
+
+		@Override
+		public String toString() {
+			String name = headers().getContentDisposition().getName();
+			String filename = headers().getContentDisposition().getFilename();
+			if (name != null) {
+				return "DefaultFilePart{" + name + " (" + filename + ")}";
+			}
+			else {
+				return "DefaultFilePart{(" + filename + ")}";
+			}
+		}
+	}
+
+
+	/**
+	 * Part content abstraction.
+	 */
+	private interface Content {
+
+		Flux<DataBuffer> content();
+
+		Mono<Void> transferTo(Path dest);
+
+		Mono<Void> delete();
+	}
+
+
+	/**
+	 * {@code Content} implementation based on a byte array.
+	 */
+	private static final class MemoryContent implements Content {
+
+		private final byte[] content;
+
+		private final Scheduler scheduler;
+
+		public MemoryContent(byte[] content, Scheduler scheduler) {
+			this.content = content;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> Flux.just(bufferFactory.wrap(this.content)));
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+						Files.write(dest, this.content);
+						return null;
+					})
+					.subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.empty();
+		}
+
+		@Override
+		public String toString() {
+			return "MemoryContent{" + this.content.length + " bytes}";
+		}
+	}
+
+
+	/**
+	 * {@code Content} implementation based on a temporary file, which is
+	 * kept until {@linkplain #delete() deleted} so that the content can be
+	 * read more than once.
+	 */
+	private static final class FileContent implements Content {
+
+		private final Path file;
+
+		private final Scheduler scheduler;
+
+		public FileContent(Path file, Scheduler scheduler) {
+			this.file = file;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.readByteChannel(
+					() -> Files.newByteChannel(this.file, StandardOpenOption.READ), bufferFactory, FILE_BUFFER_SIZE)
+					.subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+						Files.copy(this.file, dest, StandardCopyOption.REPLACE_EXISTING);
+						return null;
+					})
+					.subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.<Void>fromRunnable(() -> MultipartUtils.deleteFile(this.file))
+					.subscribeOn(this.scheduler);
+		}
+
+		@Override
+		public String toString() {
+			return "FileContent{" + this.file + "}";
+		}
+	}
+
+}
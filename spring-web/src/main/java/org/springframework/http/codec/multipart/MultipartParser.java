@@ -0,0 +1,626 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.context.Context;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to a buffer stream and produces a flux of {@link Token} instances:
+ * a {@link HeadersToken} for the headers of each part, followed by
+ * {@link BodyToken BodyTokens} for its content. Body content is passed on as
+ * slices of the incoming buffers, and buffers are only requested from the
+ * upstream when the tokens are requested from downstream.
+ *
+ * @since 5.2.4
+ */
+final class MultipartParser extends BaseSubscriber<DataBuffer> {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte[] CR_LF = {CR, LF};
+
+	private static final byte HYPHEN = '-';
+
+	private static final byte[] TWO_HYPHENS = {HYPHEN, HYPHEN};
+
+	private static final String HEADER_ENTRY_SEPARATOR = "\\r\\n";
+
+	private static final Log logger = LogFactory.getLog(MultipartParser.class);
+
+
+	private final AtomicReference<State> state;
+
+	private final FluxSink<Token> sink;
+
+	private final byte[] boundary;
+
+	private final int maxHeadersSize;
+
+	private final AtomicBoolean requestOutstanding = new AtomicBoolean();
+
+	private final Charset headersCharset;
+
+
+	private MultipartParser(FluxSink<Token> sink, byte[] boundary, int maxHeadersSize, Charset headersCharset) {
+		this.sink = sink;
+		this.boundary = boundary;
+		this.maxHeadersSize = maxHeadersSize;
+		this.headersCharset = headersCharset;
+		this.state = new AtomicReference<>(new PreambleState());
+	}
+
+
+	/**
+	 * Parse the given stream of data buffers into a stream of tokens.
+	 * @param buffers the input buffers
+	 * @param boundary the multipart boundary, as found in the {@code Content-Type} header
+	 * @param maxHeadersSize the maximum buffered header size per part
+	 * @param headersCharset the charset to use for decoding headers
+	 * @return a stream of tokens
+	 */
+	static Flux<Token> parse(Flux<DataBuffer> buffers, byte[] boundary, int maxHeadersSize,
+			Charset headersCharset) {
+
+		return Flux.create(sink -> {
+			MultipartParser parser = new MultipartParser(sink, boundary, maxHeadersSize, headersCharset);
+			sink.onCancel(parser::onSinkCancel);
+			sink.onRequest(n -> parser.requestBuffer());
+			buffers.subscribe(parser);
+		});
+	}
+
+
+	@Override
+	public Context currentContext() {
+		return this.sink.currentContext();
+	}
+
+	@Override
+	protected void hookOnSubscribe(Subscription subscription) {
+		requestBuffer();
+	}
+
+	@Override
+	protected void hookOnNext(DataBuffer value) {
+		this.requestOutstanding.set(false);
+		this.state.get().onNext(value);
+	}
+
+	@Override
+	protected void hookOnComplete() {
+		this.state.get().onComplete();
+	}
+
+	@Override
+	protected void hookOnError(Throwable throwable) {
+		State oldState = this.state.getAndSet(DisposedState.INSTANCE);
+		oldState.dispose();
+		this.sink.error(throwable);
+	}
+
+	private void onSinkCancel() {
+		State oldState = this.state.getAndSet(DisposedState.INSTANCE);
+		oldState.dispose();
+		cancel();
+	}
+
+	boolean changeState(State oldState, State newState, @Nullable DataBuffer remainder) {
+		if (this.state.compareAndSet(oldState, newState)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Changed state: " + oldState + " -> " + newState);
+			}
+			oldState.dispose();
+			if (remainder != null) {
+				if (remainder.readableByteCount() > 0) {
+					newState.onNext(remainder);
+				}
+				else {
+					DataBufferUtils.release(remainder);
+					requestBuffer();
+				}
+			}
+			return true;
+		}
+		else {
+			DataBufferUtils.release(remainder);
+			return false;
+		}
+	}
+
+	void emitHeaders(HttpHeaders headers) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Emitting headers: " + headers);
+		}
+		this.sink.next(new HeadersToken(headers));
+	}
+
+	void emitBody(DataBuffer buffer) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Emitting body: " + buffer);
+		}
+		this.sink.next(new BodyToken(buffer));
+	}
+
+	void emitError(Throwable t) {
+		cancel();
+		this.sink.error(t);
+	}
+
+	void emitComplete() {
+		cancel();
+		this.sink.complete();
+	}
+
+	private void requestBuffer() {
+		if (upstream() != null &&
+				!this.sink.isCancelled() &&
+				this.sink.requestedFromDownstream() > 0 &&
+				this.requestOutstanding.compareAndSet(false, true)) {
+			request(1);
+		}
+	}
+
+
+	/**
+	 * Represents the output of {@link #parse(Flux, byte[], int, Charset)}.
+	 */
+	abstract static class Token {
+
+		public abstract HttpHeaders headers();
+
+		public abstract DataBuffer buffer();
+	}
+
+
+	/**
+	 * Represents a token that contains {@link HttpHeaders}.
+	 */
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		public HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			throw new IllegalStateException();
+		}
+	}
+
+
+	/**
+	 * Represents a token that contains {@link DataBuffer}.
+	 */
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		public BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			throw new IllegalStateException();
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+	}
+
+
+	/**
+	 * Represents the internal state of the {@link MultipartParser}.
+	 * The flow for well-formed multipart messages is shown below:
+	 * <p><pre>
+	 *     PREAMBLE
+	 *         |
+	 *         v
+	 *  +-->HEADERS--->DISPOSED
+	 *  |      |
+	 *  |      v
+	 *  +----BODY
+	 *  </pre>
+	 * For malformed messages the flow ends in DISPOSED, and also when the
+	 * sink is {@linkplain #onSinkCancel() cancelled}.
+	 */
+	private interface State {
+
+		void onNext(DataBuffer buf);
+
+		void onComplete();
+
+		default void dispose() {
+		}
+	}
+
+
+	/**
+	 * The initial state of the parser. Looks for the first boundary of the
+	 * multipart message, discarding everything before it.
+	 */
+	private final class PreambleState implements State {
+
+		private final DataBufferUtils.Matcher firstBoundary;
+
+		public PreambleState() {
+			this.firstBoundary = new BoyerMooreHorspoolMatcher(
+					MultipartUtils.concat(TWO_HYPHENS, MultipartParser.this.boundary));
+		}
+
+		/**
+		 * Look for the first boundary in the given buffer. If found, change
+		 * state to {@link HeadersState}, and pass on the remainder of the
+		 * buffer.
+		 */
+		@Override
+		public void onNext(DataBuffer buf) {
+			int endIdx = this.firstBoundary.match(buf);
+			if (endIdx != -1) {
+				DataBuffer headersBuf = MultipartUtils.sliceFrom(buf, endIdx);
+				DataBufferUtils.release(buf);
+				changeState(this, new HeadersState(), headersBuf);
+			}
+			else {
+				DataBufferUtils.release(buf);
+				requestBuffer();
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			if (changeState(this, DisposedState.INSTANCE, null)) {
+				emitError(new DecodingException("Could not find first boundary"));
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "PREAMBLE";
+		}
+	}
+
+
+	/**
+	 * The state of the parser dealing with part headers. Parses header
+	 * buffers into a {@link HttpHeaders} instance, making sure that the
+	 * amount does not exceed {@link #maxHeadersSize}.
+	 */
+	private final class HeadersState implements State {
+
+		private final DataBufferUtils.Matcher endHeaders =
+				new BoyerMooreHorspoolMatcher(MultipartUtils.concat(CR_LF, CR_LF));
+
+		private final List<DataBuffer> buffers = new ArrayList<>();
+
+		private long byteCount;
+
+		/**
+		 * First checks whether the multipart boundary leading to this state
+		 * was the final boundary, in which case the parser is done.
+		 * Otherwise, looks for the end of the headers in the given buffer. If
+		 * found, parses the headers, changes state to {@link BodyState}, and
+		 * passes on the remainder of the buffer. Otherwise, stores the buffer
+		 * and requests more.
+		 */
+		@Override
+		public void onNext(DataBuffer buf) {
+			if (isLastBoundary(buf)) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Last boundary found in " + buf);
+				}
+				if (changeState(this, DisposedState.INSTANCE, buf)) {
+					emitComplete();
+				}
+				return;
+			}
+			int endIdx = this.endHeaders.match(buf);
+			if (endIdx != -1) {
+				this.byteCount += endIdx - buf.readPosition() + 1;
+				if (belowMaxHeaderSize(this.byteCount)) {
+					this.buffers.add(MultipartUtils.sliceTo(buf, endIdx));
+					DataBuffer bodyBuf = MultipartUtils.sliceFrom(buf, endIdx);
+					DataBufferUtils.release(buf);
+					emitHeaders(parseHeaders());
+					changeState(this, new BodyState(), bodyBuf);
+				}
+				else {
+					DataBufferUtils.release(buf);
+				}
+			}
+			else {
+				this.byteCount += buf.readableByteCount();
+				if (belowMaxHeaderSize(this.byteCount)) {
+					this.buffers.add(buf);
+					requestBuffer();
+				}
+				else {
+					DataBufferUtils.release(buf);
+				}
+			}
+		}
+
+		/**
+		 * Whether the given buffer follows the final boundary, i.e. starts
+		 * with {@code "--"}, taking a single hyphen stored before into account.
+		 */
+		private boolean isLastBoundary(DataBuffer buf) {
+			int readPosition = buf.readPosition();
+			if (this.buffers.isEmpty()) {
+				return (buf.readableByteCount() >= 2 &&
+						buf.getByte(readPosition) == HYPHEN && buf.getByte(readPosition + 1) == HYPHEN);
+			}
+			if (this.buffers.size() == 1) {
+				DataBuffer previous = this.buffers.get(0);
+				return (previous.readableByteCount() == 1 && previous.getByte(previous.readPosition()) == HYPHEN &&
+						buf.readableByteCount() >= 1 && buf.getByte(readPosition) == HYPHEN);
+			}
+			return false;
+		}
+
+		/**
+		 * Checks whether the given byte count is below the maximum header size,
+		 * emitting an error if not.
+		 */
+		private boolean belowMaxHeaderSize(long count) {
+			if (count <= MultipartParser.this.maxHeadersSize) {
+				return true;
+			}
+			else {
+				emitError(new DataBufferLimitException("Part headers exceeded the memory usage limit of " +
+						MultipartParser.this.maxHeadersSize + " bytes"));
+				return false;
+			}
+		}
+
+		/**
+		 * Parses the list of buffers into a {@link HttpHeaders} instance.
+		 * Converts the buffers into a single string, and splits that string
+		 * on newlines to find the header entries.
+		 */
+		private HttpHeaders parseHeaders() {
+			if (this.buffers.isEmpty()) {
+				return HttpHeaders.EMPTY;
+			}
+			int length = 0;
+			for (DataBuffer buffer : this.buffers) {
+				length += buffer.readableByteCount();
+			}
+			byte[] bytes = new byte[length];
+			int offset = 0;
+			for (DataBuffer buffer : this.buffers) {
+				int count = buffer.readableByteCount();
+				buffer.read(bytes, offset, count);
+				offset += count;
+				DataBufferUtils.release(buffer);
+			}
+			this.buffers.clear();
+			String string = new String(bytes, MultipartParser.this.headersCharset);
+			String[] lines = string.split(HEADER_ENTRY_SEPARATOR);
+			HttpHeaders result = new HttpHeaders();
+			for (String line : lines) {
+				int idx = line.indexOf(':');
+				if (idx != -1) {
+					String name = line.substring(0, idx);
+					String value = line.substring(idx + 1).trim();
+					result.add(name, value);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void onComplete() {
+			if (changeState(this, DisposedState.INSTANCE, null)) {
+				emitError(new DecodingException("Could not find end of headers"));
+			}
+		}
+
+		@Override
+		public void dispose() {
+			this.buffers.forEach(DataBufferUtils::release);
+			this.buffers.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "HEADERS";
+		}
+	}
+
+
+	/**
+	 * The state of the parser dealing with multipart bodies. Relays data
+	 * buffers as {@link BodyToken} until the boundary is found (or rather:
+	 * {@code CR LF - - boundary}). The last bytes of the body are held back,
+	 * since they might turn out to be the start of a boundary that spans the
+	 * next buffers.
+	 */
+	private final class BodyState implements State {
+
+		private final DataBufferUtils.Matcher boundary;
+
+		private final int boundaryLength;
+
+		private final Deque<DataBuffer> queue = new ConcurrentLinkedDeque<>();
+
+		private int queuedByteCount;
+
+		public BodyState() {
+			byte[] delimiter = MultipartUtils.concat(CR_LF, TWO_HYPHENS, MultipartParser.this.boundary);
+			this.boundary = new BoyerMooreHorspoolMatcher(delimiter);
+			this.boundaryLength = delimiter.length;
+		}
+
+		/**
+		 * Checks whether the (end of the) needle {@code CR LF - - boundary}
+		 * can be found in {@code buffer}. If found, the needle can overflow into the
+		 * previous buffers in the queue, so we calculate the length and slice
+		 * those as well. Otherwise, emits the queued buffers that cannot contain
+		 * the start of the needle.
+		 */
+		@Override
+		public void onNext(DataBuffer buffer) {
+			int endIdx = this.boundary.match(buffer);
+			if (endIdx != -1) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Boundary found @" + endIdx + " in " + buffer);
+				}
+				int len = endIdx - buffer.readPosition() - this.boundaryLength + 1;
+				if (len > 0) {
+					// the needle starts in this buffer
+					flush(0);
+					emitBody(buffer.retainedSlice(buffer.readPosition(), len));
+				}
+				else {
+					// the needle starts in the queued buffers, if len < 0
+					flush(-len);
+				}
+				DataBuffer remainder = MultipartUtils.sliceFrom(buffer, endIdx);
+				DataBufferUtils.release(buffer);
+				changeState(this, new HeadersState(), remainder);
+			}
+			else {
+				this.queue.add(buffer);
+				this.queuedByteCount += buffer.readableByteCount();
+				DataBuffer first = this.queue.peek();
+				while (first != null &&
+						this.queuedByteCount - first.readableByteCount() >= this.boundaryLength - 1) {
+					this.queue.poll();
+					this.queuedByteCount -= first.readableByteCount();
+					emit(first);
+					first = this.queue.peek();
+				}
+				requestBuffer();
+			}
+		}
+
+		/**
+		 * Emits the queued buffers, except for the given number of trailing
+		 * bytes that are part of the boundary.
+		 */
+		private void flush(int trailingByteCount) {
+			int remaining = this.queuedByteCount - trailingByteCount;
+			DataBuffer buffer;
+			while ((buffer = this.queue.poll()) != null) {
+				int count = buffer.readableByteCount();
+				if (remaining >= count) {
+					emit(buffer);
+					remaining -= count;
+				}
+				else {
+					if (remaining > 0) {
+						emitBody(buffer.retainedSlice(buffer.readPosition(), remaining));
+						remaining = 0;
+					}
+					DataBufferUtils.release(buffer);
+				}
+			}
+			this.queuedByteCount = 0;
+		}
+
+		private void emit(DataBuffer buffer) {
+			if (buffer.readableByteCount() > 0) {
+				emitBody(buffer);
+			}
+			else {
+				DataBufferUtils.release(buffer);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			if (changeState(this, DisposedState.INSTANCE, null)) {
+				emitError(new DecodingException("Could not find end of body"));
+			}
+		}
+
+		@Override
+		public void dispose() {
+			DataBuffer buffer;
+			while ((buffer = this.queue.poll()) != null) {
+				DataBufferUtils.release(buffer);
+			}
+			this.queuedByteCount = 0;
+		}
+
+		@Override
+		public String toString() {
+			return "BODY";
+		}
+	}
+
+
+	/**
+	 * The state of the parser when finished, either due to seeing the final
+	 * boundary or to a malformed message. Releases all incoming buffers.
+	 */
+	private static final class DisposedState implements State {
+
+		public static final DisposedState INSTANCE = new DisposedState();
+
+		private DisposedState() {
+		}
+
+		@Override
+		public void onNext(DataBuffer buf) {
+			DataBufferUtils.release(buf);
+		}
+
+		@Override
+		public void onComplete() {
+		}
+
+		@Override
+		public String toString() {
+			return "DISPOSED";
+		}
+	}
+
+}
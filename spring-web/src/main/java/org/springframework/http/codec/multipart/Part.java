@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.multipart;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
@@ -57,4 +58,17 @@ public interface Part {
 	 */
 	Flux<DataBuffer> content();
 
+	/**
+	 * Delete the underlying storage for this part, if any, e.g. a temporary
+	 * file holding its content. The content cannot be accessed anymore once
+	 * deleted.
+	 * <p>The default implementation returns an empty {@code Mono}, for parts
+	 * without such storage.
+	 * @since 5.2.4
+	 * @see org.springframework.web.server.adapter.DefaultServerWebExchange#cleanupMultipart()
+	 */
+	default Mono<Void> delete() {
+		return Mono.empty();
+	}
+
 }
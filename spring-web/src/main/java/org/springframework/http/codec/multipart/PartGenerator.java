@@ -0,0 +1,662 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to a token stream (i.e. the result of
+ * {@link MultipartParser#parse(Flux, byte[], int, java.nio.charset.Charset)})
+ * and produces a flux of {@link Part} objects. Part content is kept in memory
+ * up to {@code maxInMemorySize}, and streamed to a temporary file beyond
+ * that, with the next token only requested once the previous one has been
+ * written. If the token stream fails, temporary files of parts already
+ * emitted are deleted, since the request cannot be handled as a whole.
+ *
+ * @since 5.2.4
+ */
+final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
+
+	private static final Log logger = LogFactory.getLog(PartGenerator.class);
+
+
+	private final AtomicReference<State> state = new AtomicReference<>(new InitialState());
+
+	private final AtomicInteger partCount = new AtomicInteger();
+
+	private final AtomicBoolean requestOutstanding = new AtomicBoolean();
+
+	private final Queue<Path> emittedFiles = new ConcurrentLinkedQueue<>();
+
+	private final FluxSink<Part> sink;
+
+	private final int maxParts;
+
+	private final int maxInMemorySize;
+
+	private final long maxDiskUsagePerPart;
+
+	private final Callable<Path> fileStorageDirectory;
+
+	private final Scheduler blockingOperationScheduler;
+
+
+	private PartGenerator(FluxSink<Part> sink, int maxParts, int maxInMemorySize, long maxDiskUsagePerPart,
+			Callable<Path> fileStorageDirectory, Scheduler blockingOperationScheduler) {
+
+		this.sink = sink;
+		this.maxParts = maxParts;
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+
+	/**
+	 * Create parts from the given stream of tokens.
+	 * @param tokens the tokens produced by the {@link MultipartParser}
+	 * @param maxParts the maximum number of parts, or -1 for unlimited
+	 * @param maxInMemorySize the maximum number of bytes held in memory per
+	 * part, or -1 for unlimited
+	 * @param maxDiskUsagePerPart the maximum number of bytes written to disk
+	 * per part, or -1 for unlimited
+	 * @param fileStorageDirectory the directory to create temporary files in;
+	 * called on the {@code blockingOperationScheduler}
+	 * @param blockingOperationScheduler the scheduler used for file operations
+	 * @return a stream of parts
+	 */
+	static Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxParts, int maxInMemorySize,
+			long maxDiskUsagePerPart, Callable<Path> fileStorageDirectory, Scheduler blockingOperationScheduler) {
+
+		return Flux.create(sink -> {
+			PartGenerator generator = new PartGenerator(sink, maxParts, maxInMemorySize, maxDiskUsagePerPart,
+					fileStorageDirectory, blockingOperationScheduler);
+			sink.onCancel(generator::onSinkCancel);
+			sink.onRequest(n -> generator.requestToken());
+			tokens.subscribe(generator);
+		});
+	}
+
+
+	@Override
+	public Context currentContext() {
+		return this.sink.currentContext();
+	}
+
+	@Override
+	protected void hookOnSubscribe(Subscription subscription) {
+		requestToken();
+	}
+
+	@Override
+	protected void hookOnNext(MultipartParser.Token token) {
+		this.requestOutstanding.set(false);
+		State state = this.state.get();
+		if (token instanceof MultipartParser.HeadersToken) {
+			// finish the previous part
+			state.partComplete(false);
+			if (tooManyParts()) {
+				return;
+			}
+			newPart(state, token.headers());
+		}
+		else {
+			state.body(token.buffer());
+		}
+	}
+
+	private void newPart(State currentState, HttpHeaders headers) {
+		State newState = (MultipartUtils.isFormField(headers) ?
+				new FormFieldState(headers) : new InMemoryState(headers));
+		if (changeState(currentState, newState)) {
+			requestToken();
+		}
+	}
+
+	@Override
+	protected void hookOnComplete() {
+		this.state.get().partComplete(true);
+	}
+
+	@Override
+	protected void hookOnError(Throwable throwable) {
+		changeStateInternal(DisposedState.INSTANCE);
+		deleteEmittedFiles();
+		this.sink.error(throwable);
+	}
+
+	private void onSinkCancel() {
+		changeStateInternal(DisposedState.INSTANCE);
+		cancel();
+	}
+
+	boolean changeState(State oldState, State newState) {
+		if (this.state.compareAndSet(oldState, newState)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Changed state: " + oldState + " -> " + newState);
+			}
+			oldState.dispose();
+			return true;
+		}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not switch from " + oldState +
+						" to " + newState + "; current state: " + this.state.get());
+			}
+			return false;
+		}
+	}
+
+	private void changeStateInternal(State newState) {
+		if (this.state.get() == DisposedState.INSTANCE) {
+			return;
+		}
+		State oldState = this.state.getAndSet(newState);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Changed state: " + oldState + " -> " + newState);
+		}
+		oldState.dispose();
+	}
+
+	void emitPart(Part part) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Emitting: " + part);
+		}
+		this.sink.next(part);
+	}
+
+	void emitComplete() {
+		this.sink.complete();
+	}
+
+	void emitError(Throwable t) {
+		changeStateInternal(DisposedState.INSTANCE);
+		cancel();
+		deleteEmittedFiles();
+		this.sink.error(t);
+	}
+
+	private void deleteEmittedFiles() {
+		if (!this.emittedFiles.isEmpty()) {
+			this.blockingOperationScheduler.schedule(() -> {
+				Path file;
+				while ((file = this.emittedFiles.poll()) != null) {
+					MultipartUtils.deleteFile(file);
+				}
+			});
+		}
+	}
+
+	void requestToken() {
+		if (upstream() != null &&
+				this.state.get().canRequest() &&
+				!this.sink.isCancelled() &&
+				this.sink.requestedFromDownstream() > 0 &&
+				this.requestOutstanding.compareAndSet(false, true)) {
+			request(1);
+		}
+	}
+
+	private boolean tooManyParts() {
+		int count = this.partCount.incrementAndGet();
+		if (this.maxParts > 0 && count > this.maxParts) {
+			emitError(new DecodingException("Too many parts (" + count + "/" + this.maxParts + " allowed)"));
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Represents the internal state of the {@link PartGenerator} for
+	 * creating a single {@link Part}.
+	 * {@link State} instances are stateful, and created when a new
+	 * {@link MultipartParser.HeadersToken} is accepted (see
+	 * {@link #newPart(State, HttpHeaders)}).
+	 * The following rules determine which state the creator will have:
+	 * <ol>
+	 * <li>If the part is a {@linkplain MultipartUtils#isFormField(HttpHeaders) form field},
+	 * the creator will be in the {@link FormFieldState}.</li>
+	 * <li>Otherwise, the creator will initially be in the
+	 * {@link InMemoryState}, but will switch over to {@link WritingFileState}
+	 * when the part byte count exceeds {@link #maxInMemorySize}.</li>
+	 * </ol>
+	 */
+	private interface State {
+
+		/**
+		 * Invoked when a {@link MultipartParser.BodyToken} is received.
+		 */
+		void body(DataBuffer dataBuffer);
+
+		/**
+		 * Invoked when all tokens for the part have been received.
+		 * @param finalPart {@code true} if this was the last part (and
+		 * {@link #emitComplete()} should be called; {@code false} otherwise
+		 */
+		void partComplete(boolean finalPart);
+
+		/**
+		 * Whether tokens can be requested in this state.
+		 */
+		default boolean canRequest() {
+			return true;
+		}
+
+		/**
+		 * Cleans up any state.
+		 */
+		default void dispose() {
+		}
+	}
+
+
+	/**
+	 * The initial state of the creator. Throws an exception for
+	 * {@link #body(DataBuffer)}.
+	 */
+	private final class InitialState implements State {
+
+		private InitialState() {
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			DataBufferUtils.release(dataBuffer);
+			emitError(new IllegalStateException("Body token not expected"));
+		}
+
+		@Override
+		public void partComplete(boolean finalPart) {
+			if (finalPart) {
+				emitComplete();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "INITIAL";
+		}
+	}
+
+
+	/**
+	 * The creator state when a {@linkplain MultipartUtils#isFormField(HttpHeaders) form field}
+	 * is received. Stores all body buffers in memory (up until
+	 * {@link #maxInMemorySize}).
+	 */
+	private final class FormFieldState implements State {
+
+		private final List<DataBuffer> content = new ArrayList<>();
+
+		private final HttpHeaders headers;
+
+		private long byteCount;
+
+		public FormFieldState(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			this.byteCount += dataBuffer.readableByteCount();
+			if (maxInMemorySize == -1 || this.byteCount <= maxInMemorySize) {
+				this.content.add(dataBuffer);
+				requestToken();
+			}
+			else {
+				DataBufferUtils.release(dataBuffer);
+				emitError(new DataBufferLimitException("Form field value exceeded the memory usage limit of " +
+						maxInMemorySize + " bytes"));
+			}
+		}
+
+		@Override
+		public void partComplete(boolean finalPart) {
+			byte[] bytes = toByteArray(this.content);
+			this.content.clear();
+			String value = new String(bytes, MultipartUtils.charset(this.headers));
+			emitPart(DefaultParts.formFieldPart(this.headers, value));
+			if (finalPart) {
+				emitComplete();
+			}
+		}
+
+		@Override
+		public void dispose() {
+			this.content.forEach(DataBufferUtils::release);
+			this.content.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "FORM-FIELD";
+		}
+	}
+
+
+	/**
+	 * The creator state when not handling a form field.
+	 * Stores all received buffers in a queue.
+	 * If the byte count exceeds {@link #maxInMemorySize}, the creator state
+	 * is changed to {@link WritingFileState}.
+	 */
+	private final class InMemoryState implements State {
+
+		private final List<DataBuffer> content = new ArrayList<>();
+
+		private final HttpHeaders headers;
+
+		private long byteCount;
+
+		public InMemoryState(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			this.byteCount += dataBuffer.readableByteCount();
+			this.content.add(dataBuffer);
+			if (maxInMemorySize == -1 || this.byteCount <= maxInMemorySize) {
+				requestToken();
+			}
+			else {
+				switchToFile();
+			}
+		}
+
+		private void switchToFile() {
+			List<DataBuffer> content = new ArrayList<>(this.content);
+			this.content.clear();
+			WritingFileState newState = new WritingFileState(this.headers);
+			if (changeState(this, newState)) {
+				newState.writeBuffers(content);
+			}
+			else {
+				content.forEach(DataBufferUtils::release);
+			}
+		}
+
+		@Override
+		public void partComplete(boolean finalPart) {
+			byte[] bytes = toByteArray(this.content);
+			this.content.clear();
+			emitPart(DefaultParts.part(this.headers, bytes, blockingOperationScheduler));
+			if (finalPart) {
+				emitComplete();
+			}
+		}
+
+		@Override
+		public void dispose() {
+			this.content.forEach(DataBufferUtils::release);
+			this.content.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "IN-MEMORY";
+		}
+	}
+
+
+	/**
+	 * The creator state when writing buffers to a temporary file. Writes
+	 * happen on the {@link #blockingOperationScheduler}, and the next token
+	 * is only requested when the previous write has completed. A completion
+	 * signal that arrives during a write is acted upon afterwards.
+	 */
+	private final class WritingFileState implements State {
+
+		private final HttpHeaders headers;
+
+		@Nullable
+		private volatile Path file;
+
+		@Nullable
+		private volatile FileChannel channel;
+
+		private volatile long byteCount;
+
+		private boolean writing;
+
+		private boolean completed;
+
+		private boolean finalPart;
+
+		private boolean disposed;
+
+		private volatile boolean emitted;
+
+		public WritingFileState(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			List<DataBuffer> buffers = new ArrayList<>(1);
+			buffers.add(dataBuffer);
+			writeBuffers(buffers);
+		}
+
+		void writeBuffers(List<DataBuffer> buffers) {
+			synchronized (this) {
+				this.writing = true;
+			}
+			blockingOperationScheduler.schedule(() -> {
+				try {
+					writeInternal(buffers);
+				}
+				catch (Throwable ex) {
+					buffers.forEach(DataBufferUtils::release);
+					writeFailed(ex);
+					return;
+				}
+				writeComplete();
+			});
+		}
+
+		private void writeInternal(List<DataBuffer> buffers) throws Exception {
+			FileChannel channel = this.channel;
+			if (channel == null) {
+				Path file = Files.createTempFile(fileStorageDirectory.call(), null, ".multipart");
+				if (logger.isTraceEnabled()) {
+					logger.trace("Storing multipart data in file " + file);
+				}
+				this.file = file;
+				channel = FileChannel.open(file, StandardOpenOption.WRITE);
+				this.channel = channel;
+			}
+			for (DataBuffer buffer : buffers) {
+				long byteCount = this.byteCount + buffer.readableByteCount();
+				if (maxDiskUsagePerPart != -1 && byteCount > maxDiskUsagePerPart) {
+					throw new DataBufferLimitException(
+							"Part exceeded the disk usage limit of " + maxDiskUsagePerPart + " bytes");
+				}
+				this.byteCount = byteCount;
+				ByteBuffer byteBuffer = buffer.asByteBuffer();
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+			}
+			buffers.forEach(DataBufferUtils::release);
+		}
+
+		private void writeComplete() {
+			boolean completed;
+			boolean finalPart;
+			synchronized (this) {
+				this.writing = false;
+				if (this.disposed) {
+					MultipartUtils.closeChannel(this.channel);
+					MultipartUtils.deleteFile(this.file);
+					return;
+				}
+				completed = this.completed;
+				finalPart = this.finalPart;
+			}
+			if (completed) {
+				emitFilePart(finalPart);
+			}
+			else {
+				requestToken();
+			}
+		}
+
+		private void writeFailed(Throwable ex) {
+			synchronized (this) {
+				this.writing = false;
+			}
+			MultipartUtils.closeChannel(this.channel);
+			MultipartUtils.deleteFile(this.file);
+			emitError(ex);
+		}
+
+		@Override
+		public void partComplete(boolean finalPart) {
+			synchronized (this) {
+				if (this.writing) {
+					this.completed = true;
+					this.finalPart = finalPart;
+					return;
+				}
+			}
+			emitFilePart(finalPart);
+		}
+
+		private void emitFilePart(boolean finalPart) {
+			MultipartUtils.closeChannel(this.channel);
+			Path file = this.file;
+			if (file != null) {
+				this.emitted = true;
+				emittedFiles.add(file);
+				emitPart(DefaultParts.part(this.headers, file, blockingOperationScheduler));
+			}
+			if (finalPart) {
+				emitComplete();
+			}
+		}
+
+		@Override
+		public synchronized boolean canRequest() {
+			return !this.writing;
+		}
+
+		@Override
+		public void dispose() {
+			boolean writing;
+			synchronized (this) {
+				this.disposed = true;
+				writing = this.writing;
+			}
+			// an ongoing write cleans up when done
+			if (!writing && !this.emitted) {
+				MultipartUtils.closeChannel(this.channel);
+				MultipartUtils.deleteFile(this.file);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "WRITE-FILE";
+		}
+	}
+
+
+	/**
+	 * The state of the creator when finished, either due to an error or
+	 * to cancellation. Releases all incoming buffers.
+	 */
+	private static final class DisposedState implements State {
+
+		public static final DisposedState INSTANCE = new DisposedState();
+
+		private DisposedState() {
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			DataBufferUtils.release(dataBuffer);
+		}
+
+		@Override
+		public void partComplete(boolean finalPart) {
+		}
+
+		@Override
+		public boolean canRequest() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "DISPOSED";
+		}
+	}
+
+
+	/**
+	 * Copy the given buffers into a byte array, releasing them.
+	 */
+	private static byte[] toByteArray(List<DataBuffer> buffers) {
+		int length = 0;
+		for (DataBuffer buffer : buffers) {
+			length += buffer.readableByteCount();
+		}
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		for (DataBuffer buffer : buffers) {
+			int count = buffer.readableByteCount();
+			buffer.read(bytes, offset, count);
+			offset += count;
+			DataBufferUtils.release(buffer);
+		}
+		return bytes;
+	}
+
+}
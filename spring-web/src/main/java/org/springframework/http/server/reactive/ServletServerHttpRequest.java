@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.cert.X509Certificate;
 import java.util.Enumeration;
@@ -38,6 +39,7 @@ import reactor.core.publisher.Flux;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpCookie;
 import org.springframework.http.HttpHeaders;
@@ -209,11 +211,48 @@ class ServletServerHttpRequest extends AbstractServerHttpRequest {
 	/**
 	 * Read from the request body InputStream and return a DataBuffer.
 	 * Invoked only when {@link ServletInputStream#isReady()} returns "true".
+	 * <p>If the buffer factory creates heap buffers, the input stream is read
+	 * straight into the backing array of the returned buffer; otherwise it is
+	 * copied through an intermediate array.
 	 * @return a DataBuffer with data read, or {@link #EOF_BUFFER} if the input
 	 * stream returned -1, or null if 0 bytes were read.
 	 */
 	@Nullable
 	DataBuffer readFromInputStream() throws IOException {
+		int capacity = this.buffer.length;
+		DataBuffer dataBuffer = this.bufferFactory.allocateBuffer(capacity);
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer(0, capacity);
+		if (!byteBuffer.hasArray()) {
+			DataBufferUtils.release(dataBuffer);
+			return readFromInputStreamCopy();
+		}
+
+		boolean release = true;
+		try {
+			int offset = byteBuffer.arrayOffset() + byteBuffer.position();
+			int read = this.request.getInputStream().read(byteBuffer.array(), offset, capacity);
+			logBytesRead(read);
+			if (read > 0) {
+				dataBuffer.writePosition(read);
+				release = false;
+				return dataBuffer;
+			}
+			else if (read == -1) {
+				return EOF_BUFFER;
+			}
+			else {
+				return null;
+			}
+		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(dataBuffer);
+			}
+		}
+	}
+
+	@Nullable
+	private DataBuffer readFromInputStreamCopy() throws IOException {
 		int read = this.request.getInputStream().read(this.buffer);
 		logBytesRead(read);
 
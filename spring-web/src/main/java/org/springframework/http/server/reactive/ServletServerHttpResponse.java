@@ -17,8 +17,11 @@
 package org.springframework.http.server.reactive;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 import javax.servlet.AsyncContext;
@@ -30,6 +33,8 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
@@ -38,16 +43,31 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
  * Adapt {@link ServerHttpResponse} to the Servlet {@link HttpServletResponse}.
  *
+ * <p>The Servlet API offers no way to transfer a file to the socket directly,
+ * so {@link #writeWith(Path, long, long)} writes large files as memory-mapped
+ * buffers instead, which avoids reading the file content into heap memory.
+ *
  * @author Rossen Stoyanchev
  * @since 5.0
  */
-class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
+class ServletServerHttpResponse extends AbstractListenerServerHttpResponse implements ZeroCopyHttpOutputMessage {
+
+	/**
+	 * Files at least this large are memory-mapped rather than read.
+	 */
+	private static final long MAPPED_FILE_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * The maximum size of a single memory-mapped region.
+	 */
+	private static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
 
 	private final HttpServletResponse response;
 
@@ -55,6 +75,9 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 
 	private final int bufferSize;
 
+	@Nullable
+	private byte[] writeBuffer;
+
 	@Nullable
 	private volatile ResponseBodyFlushProcessor bodyFlushProcessor;
 
@@ -165,6 +188,20 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 		}
 	}
 
+	@Override
+	public Mono<Void> writeWith(Path file, long position, long count) {
+		Flux<DataBuffer> body;
+		if (count >= MAPPED_FILE_THRESHOLD) {
+			body = DataBufferUtils.readMapped(file, position, count, bufferFactory(), MAPPED_REGION_SIZE);
+		}
+		else {
+			body = DataBufferUtils.takeUntilByteCount(DataBufferUtils.readAsynchronousFileChannel(
+					() -> AsynchronousFileChannel.open(file, StandardOpenOption.READ),
+					position, bufferFactory(), this.bufferSize), count);
+		}
+		return writeWith(body);
+	}
+
 	@Override
 	protected Processor<? super Publisher<? extends DataBuffer>, Void> createBodyFlushProcessor() {
 		ResponseBodyFlushProcessor processor = new ResponseBodyFlushProcessor();
@@ -176,18 +213,38 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 	 * Write the DataBuffer to the response body OutputStream.
 	 * Invoked only when {@link ServletOutputStream#isReady()} returns "true"
 	 * and the readable bytes in the DataBuffer is greater than 0.
+	 * <p>Heap buffers are written straight from their backing array; other
+	 * buffers are copied through a buffer that is reused across writes.
 	 * @return the number of bytes written
 	 */
 	protected int writeToOutputStream(DataBuffer dataBuffer) throws IOException {
 		ServletOutputStream outputStream = this.outputStream;
-		InputStream input = dataBuffer.asInputStream();
+		ByteBuffer input = dataBuffer.asByteBuffer();
+		int remaining = input.remaining();
 		int bytesWritten = 0;
-		byte[] buffer = new byte[this.bufferSize];
-		int bytesRead;
-		while (outputStream.isReady() && (bytesRead = input.read(buffer)) != -1) {
-			outputStream.write(buffer, 0, bytesRead);
-			bytesWritten += bytesRead;
+		if (input.hasArray()) {
+			byte[] array = input.array();
+			int offset = input.arrayOffset() + input.position();
+			while (bytesWritten < remaining && outputStream.isReady()) {
+				int length = Math.min(this.bufferSize, remaining - bytesWritten);
+				outputStream.write(array, offset + bytesWritten, length);
+				bytesWritten += length;
+			}
+		}
+		else {
+			byte[] buffer = this.writeBuffer;
+			if (buffer == null) {
+				buffer = new byte[this.bufferSize];
+				this.writeBuffer = buffer;
+			}
+			while (bytesWritten < remaining && outputStream.isReady()) {
+				int length = Math.min(buffer.length, remaining - bytesWritten);
+				input.get(buffer, 0, length);
+				outputStream.write(buffer, 0, length);
+				bytesWritten += length;
+			}
 		}
+		dataBuffer.readPosition(dataBuffer.readPosition() + bytesWritten);
 		return bytesWritten;
 	}
 
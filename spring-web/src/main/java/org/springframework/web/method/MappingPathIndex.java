@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.method;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+
+/**
+ * Index of request mappings by the first literal segment of their path patterns,
+ * used by handler method mappings to narrow down the mappings to check for a
+ * request instead of going through all registered mappings.
+ *
+ * <p>A mapping is indexed under the first segment of each of its patterns,
+ * provided that segment is a literal (i.e. contains no wildcards or URI
+ * variables). Mappings with a pattern starting with a wildcard or a variable,
+ * or without patterns at all, are candidates for every request. The candidates
+ * for a request are therefore always a superset of the matching mappings, which
+ * still need to be checked against the request with all of their conditions.
+ *
+ * <p>Segments are compared case-insensitively, and a request segment with a
+ * file extension such as {@code "books.json"} also selects the mappings indexed
+ * under {@code "books"}, to account for case-insensitive and suffix pattern
+ * matching. This class is not thread-safe: registration and lookups need to
+ * be guarded by the lock of the mapping registry using it.
+ *
+ * @since 5.2.4
+ * @param <T> the mapping type
+ */
+public final class MappingPathIndex<T> {
+
+	private final Map<T, Entry<T>> entries = new HashMap<>();
+
+	private final Map<String, List<Entry<T>>> entriesBySegment = new HashMap<>();
+
+	private final List<Entry<T>> unindexedEntries = new ArrayList<>();
+
+	private long sequence;
+
+
+	/**
+	 * Add the given mapping to the index, replacing a previous registration of
+	 * the same mapping but keeping its position.
+	 * @param mapping the mapping to add
+	 * @param patterns the path patterns of the mapping, or {@code null} if the
+	 * mapping cannot be narrowed down by path and has to be checked for every request
+	 */
+	public void add(T mapping, @Nullable Collection<String> patterns) {
+		Entry<T> existing = this.entries.remove(mapping);
+		if (existing != null) {
+			remove(existing);
+		}
+		Set<String> segments = new LinkedHashSet<>();
+		if (patterns == null || patterns.isEmpty()) {
+			segments = null;
+		}
+		else {
+			for (String pattern : patterns) {
+				String segment = getIndexedSegment(pattern);
+				if (segment == null) {
+					segments = null;
+					break;
+				}
+				segments.add(segment);
+			}
+		}
+		Entry<T> entry = new Entry<>(mapping, (existing != null ? existing.sequence : this.sequence++),
+				(segments != null ? segments : Collections.emptySet()));
+		this.entries.put(mapping, entry);
+		if (segments == null) {
+			addEntry(this.unindexedEntries, entry, existing != null);
+		}
+		else {
+			for (String segment : segments) {
+				addEntry(this.entriesBySegment.computeIfAbsent(segment, key -> new ArrayList<>(1)),
+						entry, existing != null);
+			}
+		}
+	}
+
+	private void addEntry(List<Entry<T>> list, Entry<T> entry, boolean reorder) {
+		list.add(entry);
+		if (reorder) {
+			list.sort(null);
+		}
+	}
+
+	/**
+	 * Remove the given mapping from the index.
+	 * @param mapping the mapping to remove
+	 */
+	public void remove(T mapping) {
+		Entry<T> entry = this.entries.remove(mapping);
+		if (entry != null) {
+			remove(entry);
+		}
+	}
+
+	private void remove(Entry<T> entry) {
+		if (entry.segments.isEmpty()) {
+			this.unindexedEntries.remove(entry);
+			return;
+		}
+		for (String segment : entry.segments) {
+			List<Entry<T>> list = this.entriesBySegment.get(segment);
+			if (list != null) {
+				list.remove(entry);
+				if (list.isEmpty()) {
+					this.entriesBySegment.remove(segment);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the mappings that may match a request with the given first path
+	 * segment, in registration order.
+	 * @param segment the first non-empty segment of the request path, as returned
+	 * by {@link #getFirstSegment(String)}, or {@code null} if the path has none
+	 * @return the candidate mappings, or {@code null} if the candidates cannot be
+	 * narrowed down and all registered mappings need to be checked
+	 */
+	@Nullable
+	public List<T> getCandidates(@Nullable String segment) {
+		if (this.entriesBySegment.isEmpty() || (segment != null && !isAscii(segment))) {
+			return null;
+		}
+		List<Entry<T>> matches = new ArrayList<>(this.unindexedEntries);
+		if (segment != null) {
+			segment = segment.toLowerCase(Locale.ROOT);
+			addEntries(segment, matches);
+			for (int index = segment.indexOf('.'); index != -1; index = segment.indexOf('.', index + 1)) {
+				addEntries(segment.substring(0, index), matches);
+			}
+		}
+		if (matches.size() > 1) {
+			matches.sort(null);
+		}
+		List<T> candidates = new ArrayList<>(matches.size());
+		Entry<T> previous = null;
+		for (Entry<T> match : matches) {
+			// The same mapping may be indexed under several of the segments
+			if (match != previous) {
+				candidates.add(match.mapping);
+			}
+			previous = match;
+		}
+		return candidates;
+	}
+
+	private void addEntries(String segment, List<Entry<T>> matches) {
+		List<Entry<T>> list = this.entriesBySegment.get(segment);
+		if (list != null) {
+			matches.addAll(list);
+		}
+	}
+
+	/**
+	 * Return the number of indexed mappings.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+
+	/**
+	 * Return the first non-empty, trimmed segment of the given "/"-separated path.
+	 * @param path the request path
+	 * @return the first segment, or {@code null} if the path has no segments
+	 */
+	@Nullable
+	public static String getFirstSegment(String path) {
+		int length = path.length();
+		int start = 0;
+		while (start < length) {
+			int end = path.indexOf('/', start);
+			if (end == -1) {
+				end = length;
+			}
+			String segment = path.substring(start, end).trim();
+			if (!segment.isEmpty()) {
+				return segment;
+			}
+			start = end + 1;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the first non-empty, trimmed segment of the given parsed path,
+	 * based on the {@linkplain PathContainer.PathSegment#valueToMatch() value}
+	 * that path patterns are matched against.
+	 * @param path the request path
+	 * @return the first segment, or {@code null} if the path has no segments
+	 */
+	@Nullable
+	public static String getFirstSegment(PathContainer path) {
+		for (PathContainer.Element element : path.elements()) {
+			if (element instanceof PathContainer.PathSegment) {
+				String segment = ((PathContainer.PathSegment) element).valueToMatch().trim();
+				if (!segment.isEmpty()) {
+					return segment;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the segment to index a mapping with the given pattern under,
+	 * or {@code null} if the first segment of the pattern is not a literal.
+	 */
+	@Nullable
+	private static String getIndexedSegment(String pattern) {
+		String segment = getFirstSegment(pattern);
+		if (segment == null || !isAscii(segment)) {
+			return null;
+		}
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}' || c == '\\') {
+				return null;
+			}
+		}
+		return segment.toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean isAscii(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			if (segment.charAt(i) > 127) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static final class Entry<T> implements Comparable<Entry<T>> {
+
+		final T mapping;
+
+		final long sequence;
+
+		final Set<String> segments;
+
+		Entry(T mapping, long sequence, Set<String> segments) {
+			this.mapping = mapping;
+			this.sequence = sequence;
+			this.segments = segments;
+		}
+
+		@Override
+		public int compareTo(Entry<T> other) {
+			return Long.compare(this.sequence, other.sequence);
+		}
+	}
+
+}
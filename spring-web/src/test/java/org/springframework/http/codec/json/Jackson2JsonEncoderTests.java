@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -167,6 +167,56 @@ public class Jackson2JsonEncoderTests extends AbstractEncoderTests<Jackson2JsonE
 				barMediaType, null);
 	}
 
+	@Test
+	public void encodeAsStreamWithPrettyPrinting() {
+		ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(mapper);
+		Flux<Pojo> input = Flux.just(new Pojo("foo", "bar"), new Pojo("foofoo", "barbar"));
+
+		Flux<DataBuffer> result = encoder.encode(input, this.bufferFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, Collections.emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(expectString("{\n  \"foo\" : \"foo\",\n  \"bar\" : \"bar\"\n}\n"))
+				.consumeNextWith(expectString("{\n  \"foo\" : \"foofoo\",\n  \"bar\" : \"barbar\"\n}\n"))
+				.verifyComplete();
+	}
+
+	@Test
+	public void encodeAsStreamWithBatching() {
+		this.encoder.setStreamingBatchSize(50);
+		Flux<Pojo> input = Flux.just(
+				new Pojo("foo", "bar"),
+				new Pojo("foofoo", "barbar"),
+				new Pojo("foofoofoo", "barbarbar")
+		);
+
+		Flux<DataBuffer> result = this.encoder.encode(input, this.bufferFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, Collections.emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(expectString("{\"foo\":\"foo\",\"bar\":\"bar\"}\n" +
+						"{\"foo\":\"foofoo\",\"bar\":\"barbar\"}\n"))
+				.consumeNextWith(expectString("{\"foo\":\"foofoofoo\",\"bar\":\"barbarbar\"}\n"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void encodeAsStreamWithBatchTimeout() {
+		this.encoder.setStreamingBatchSize(1024);
+		this.encoder.setStreamingBatchTimeout(Duration.ofMillis(50));
+		Flux<Pojo> input = Flux.just(new Pojo("foo", "bar")).concatWith(Flux.never());
+
+		Flux<DataBuffer> result = this.encoder.encode(input, this.bufferFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, Collections.emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(expectString("{\"foo\":\"foo\",\"bar\":\"bar\"}\n"))
+				.thenCancel()
+				.verify(Duration.ofSeconds(5));
+	}
+
 	@Test
 	public void fieldLevelJsonView() {
 		JacksonViewBean bean = new JacksonViewBean();
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,6 +44,7 @@ import org.springframework.core.testfixture.io.buffer.AbstractLeakCheckingTests;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -294,6 +296,43 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTests {
 				.verifyComplete();
 	}
 
+	@Test
+	public void readScalarValues() {
+		Flux<DataBuffer> source = Flux.fromIterable(asList("[1", ",2,", "3]")).map(this::stringBuffer);
+		Flux<Object> values = Jackson2Tokenizer.read(source, this.jsonFactory, this.objectMapper, false, -1,
+				valueReader(Integer.class));
+
+		StepVerifier.create(values)
+				.expectNext(1, 2, 3)
+				.verifyComplete();
+	}
+
+	@Test
+	public void readObjectAndScalarValues() {
+		Flux<DataBuffer> source = Flux.fromIterable(asList("[{\"foo\":", "\"bar\"},\"baz\",", "null,4]"))
+				.map(this::stringBuffer);
+		Flux<Object> values = Jackson2Tokenizer.read(source, this.jsonFactory, this.objectMapper, false, -1,
+				valueReader(Object.class));
+
+		StepVerifier.create(values)
+				.expectNext(singletonMap("foo", "bar"))
+				.expectNext("baz")
+				.expectNext(4)
+				.verifyComplete();
+	}
+
+	private Jackson2Tokenizer.ValueReader valueReader(Class<?> valueType) {
+		ObjectReader reader = this.objectMapper.readerFor(valueType);
+		return parser -> {
+			try {
+				return reader.readValue(parser);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		};
+	}
+
 	private Flux<String> decode(List<String> source, boolean tokenize, int maxInMemorySize) {
 
 		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(
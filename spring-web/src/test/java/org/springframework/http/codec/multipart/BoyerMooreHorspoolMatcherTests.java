@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link BoyerMooreHorspoolMatcher}.
+ */
+class BoyerMooreHorspoolMatcherTests {
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private final DataBufferUtils.Matcher matcher =
+			new BoyerMooreHorspoolMatcher("--boundary".getBytes(StandardCharsets.US_ASCII));
+
+
+	@Test
+	void matchInSingleBuffer() {
+		DataBuffer buffer = stringBuffer("foo--boundarybar--boundary");
+		assertThat(this.matcher.match(buffer)).isEqualTo(12);
+		buffer.readPosition(13);
+		assertThat(this.matcher.match(buffer)).isEqualTo(25);
+		buffer.readPosition(26);
+		assertThat(this.matcher.match(buffer)).isEqualTo(-1);
+	}
+
+	@Test
+	void matchAcrossBuffers() {
+		assertThat(this.matcher.match(stringBuffer("foo--bou"))).isEqualTo(-1);
+		assertThat(this.matcher.match(stringBuffer("n"))).isEqualTo(-1);
+		assertThat(this.matcher.match(stringBuffer("darybar"))).isEqualTo(3);
+	}
+
+	@Test
+	void partialMatchIsNotCarriedOver() {
+		assertThat(this.matcher.match(stringBuffer("foo--bou"))).isEqualTo(-1);
+		assertThat(this.matcher.match(stringBuffer("--boundar"))).isEqualTo(-1);
+		assertThat(this.matcher.match(stringBuffer("y"))).isEqualTo(0);
+	}
+
+	@Test
+	void reset() {
+		assertThat(this.matcher.match(stringBuffer("foo--bound"))).isEqualTo(-1);
+		this.matcher.reset();
+		assertThat(this.matcher.match(stringBuffer("ary"))).isEqualTo(-1);
+	}
+
+
+	private DataBuffer stringBuffer(String value) {
+		return this.bufferFactory.wrap(value.getBytes(StandardCharsets.US_ASCII));
+	}
+
+}
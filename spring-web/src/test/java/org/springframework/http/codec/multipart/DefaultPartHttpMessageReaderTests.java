@@ -0,0 +1,313 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.testfixture.io.buffer.AbstractLeakCheckingTests;
+import org.springframework.http.MediaType;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.core.ResolvableType.forClass;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ */
+class DefaultPartHttpMessageReaderTests extends AbstractLeakCheckingTests {
+
+	private static final String LOREM_IPSUM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Integer iaculis metus id vestibulum nullam.";
+
+	private static final String MUSPI_MEROL = new StringBuilder(LOREM_IPSUM).reverse().toString();
+
+	private static final String FIREFOX_BOUNDARY = "---------------------------18399284482060392383840973206";
+
+
+	private final DefaultPartHttpMessageReader reader = new DefaultPartHttpMessageReader();
+
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 7, 64, 4096})
+	void firefox(int bufferSize) {
+		testBrowser(new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, bufferSize);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 7, 64, 4096})
+	void chrome(int bufferSize) {
+		testBrowser(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU", bufferSize);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 7, 64, 4096})
+	void safari(int bufferSize) {
+		testBrowser(new ClassPathResource("safari.multipart", getClass()),
+				"----WebKitFormBoundaryG8fJ50opQOML0oGD", bufferSize);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {7, 4096})
+	void fileParts(int bufferSize) {
+		this.reader.setMaxInMemorySize(10);
+		this.reader.setBlockingOperationScheduler(Schedulers.immediate());
+		testBrowser(new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, bufferSize);
+	}
+
+	@Test
+	void transferTo() throws IOException {
+		this.reader.setMaxInMemorySize(10);
+		Path dest = Files.createTempFile("multipart", ".txt");
+		try {
+			MockServerHttpRequest request = createRequest(
+					new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, 64);
+			Mono<Void> result = this.reader.read(forClass(Part.class), request, emptyMap())
+					.filter(part -> part.name().equals("file1"))
+					.cast(FilePart.class)
+					.single()
+					.flatMap(part -> part.transferTo(dest).then(part.delete()));
+
+			StepVerifier.create(result).expectComplete().verify(Duration.ofSeconds(5));
+			assertThat(new String(Files.readAllBytes(dest), StandardCharsets.UTF_8)).isEqualTo(LOREM_IPSUM + "\r\n");
+		}
+		finally {
+			Files.deleteIfExists(dest);
+		}
+	}
+
+	@Test
+	void filePartContentReadableUntilDeleted() {
+		this.reader.setMaxInMemorySize(10);
+		this.reader.setBlockingOperationScheduler(Schedulers.immediate());
+		MockServerHttpRequest request = createRequest(
+				new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, 64);
+		Part part = this.reader.read(forClass(Part.class), request, emptyMap())
+				.filter(p -> p.name().equals("file1"))
+				.single()
+				.block(Duration.ofSeconds(5));
+
+		assertThat(content(part)).isEqualTo(LOREM_IPSUM + "\r\n");
+		assertThat(content(part)).isEqualTo(LOREM_IPSUM + "\r\n");
+
+		StepVerifier.create(part.delete()).verifyComplete();
+		StepVerifier.create(part.content()).expectError(IOException.class).verify();
+	}
+
+	@Test
+	void filePartsDeletedOnError() {
+		this.reader.setMaxInMemorySize(10);
+		this.reader.setMaxParts(3);
+		this.reader.setBlockingOperationScheduler(Schedulers.immediate());
+		MockServerHttpRequest request = createRequest(
+				new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, 64);
+		List<Part> parts = new ArrayList<>();
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap()).doOnNext(parts::add);
+
+		StepVerifier.create(result)
+				.expectNextCount(3)
+				.expectError(DecodingException.class)
+				.verify();
+		StepVerifier.create(parts.get(2).content()).expectError(IOException.class).verify();
+	}
+
+	@Test
+	void defaultLimits() {
+		assertThat(this.reader.getMaxParts()).isEqualTo(-1);
+		assertThat(this.reader.getMaxDiskUsagePerPart()).isEqualTo(-1);
+	}
+
+	@Test
+	void largeFilePartWrittenToDisk() {
+		int chunkSize = 64 * 1024;
+		int chunkCount = 11 * 1024 * 1024 / chunkSize;
+		String boundary = "LargeFilePartBoundary";
+		String headers = "--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"large.bin\"\r\n" +
+				"Content-Type: application/octet-stream\r\n\r\n";
+		String footer = "\r\n--" + boundary + "--\r\n";
+		byte[] chunk = new byte[chunkSize];
+		Arrays.fill(chunk, (byte) 'a');
+
+		Flux<DataBuffer> body = Flux.concat(
+				Mono.fromCallable(() -> buffer(headers.getBytes(StandardCharsets.UTF_8))),
+				Flux.range(0, chunkCount).map(i -> buffer(chunk)),
+				Mono.fromCallable(() -> buffer(footer.getBytes(StandardCharsets.UTF_8))));
+		MediaType contentType = new MediaType("multipart", "form-data", singletonMap("boundary", boundary));
+		MockServerHttpRequest request = MockServerHttpRequest.post("/").contentType(contentType).body(body);
+
+		Mono<Long> result = this.reader.read(forClass(Part.class), request, emptyMap())
+				.single()
+				.cast(FilePart.class)
+				.flatMap(part -> part.content()
+						.map(buffer -> {
+							int count = buffer.readableByteCount();
+							DataBufferUtils.release(buffer);
+							return (long) count;
+						})
+						.reduce(0L, Long::sum)
+						.flatMap(size -> part.delete().thenReturn(size)));
+
+		StepVerifier.create(result)
+				.expectNext((long) chunkCount * chunkSize)
+				.expectComplete()
+				.verify(Duration.ofSeconds(30));
+	}
+
+	@Test
+	void tooManyParts() {
+		this.reader.setMaxParts(2);
+		MockServerHttpRequest request = createRequest(
+				new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, 64);
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(formField("text1", "a"))
+				.consumeNextWith(formField("text2", "b"))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	void formFieldExceedsMaxInMemorySize() {
+		this.reader.setMaxInMemorySize(0);
+		MockServerHttpRequest request = createRequest(
+				new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, 64);
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap());
+
+		StepVerifier.create(result)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	void headersExceedMaxHeadersSize() {
+		this.reader.setMaxHeadersSize(10);
+		MockServerHttpRequest request = createRequest(
+				new ClassPathResource("firefox.multipart", getClass()), FIREFOX_BOUNDARY, 64);
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap());
+
+		StepVerifier.create(result)
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@Test
+	void noEndBoundary() {
+		MockServerHttpRequest request = createRequest(
+				new ClassPathResource("invalid.multipart", getClass()), "NbjrKgjbsaMLdnMxMfDpD6myWomYc0qNX0w", 64);
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap());
+
+		StepVerifier.create(result)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	void noBoundary() {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(MediaType.MULTIPART_FORM_DATA)
+				.body(Flux.empty());
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap());
+
+		StepVerifier.create(result)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+
+	private void testBrowser(Resource resource, String boundary, int bufferSize) {
+		MockServerHttpRequest request = createRequest(resource, boundary, bufferSize);
+		Flux<Part> result = this.reader.read(forClass(Part.class), request, emptyMap());
+
+		StepVerifier.create(result)
+				.consumeNextWith(formField("text1", "a"))
+				.consumeNextWith(formField("text2", "b"))
+				.consumeNextWith(filePart("file1", "a.txt", LOREM_IPSUM))
+				.consumeNextWith(filePart("file2", "a.txt", LOREM_IPSUM))
+				.consumeNextWith(filePart("file2", "b.txt", MUSPI_MEROL))
+				.verifyComplete();
+	}
+
+	private MockServerHttpRequest createRequest(Resource resource, String boundary, int bufferSize) {
+		Flux<DataBuffer> body = DataBufferUtils.readByteChannel(resource::readableChannel, this.bufferFactory,
+				bufferSize);
+		MediaType contentType = new MediaType("multipart", "form-data", singletonMap("boundary", boundary));
+		return MockServerHttpRequest.post("/")
+				.contentType(contentType)
+				.body(body);
+	}
+
+	private DataBuffer buffer(byte[] bytes) {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
+		buffer.write(bytes);
+		return buffer;
+	}
+
+	private static Consumer<Part> formField(String name, String value) {
+		return part -> {
+			assertThat(part.name()).isEqualTo(name);
+			assertThat(part).isInstanceOf(FormFieldPart.class);
+			assertThat(((FormFieldPart) part).value()).isEqualTo(value);
+		};
+	}
+
+	private static Consumer<Part> filePart(String name, String filename, String contents) {
+		return part -> {
+			assertThat(part.name()).isEqualTo(name);
+			assertThat(part).isInstanceOf(FilePart.class);
+			assertThat(((FilePart) part).filename()).isEqualTo(filename);
+			// the browsers add a line break after the file content
+			assertThat(content(part)).isEqualTo(contents + "\r\n");
+			part.delete().block(Duration.ofSeconds(5));
+		};
+	}
+
+	private static String content(Part part) {
+		return DataBufferUtils.join(part.content())
+				.map(buffer -> {
+					String s = buffer.toString(StandardCharsets.UTF_8);
+					DataBufferUtils.release(buffer);
+					return s;
+				})
+				.block(Duration.ofSeconds(5));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,24 +17,38 @@
 package org.springframework.http.server.reactive;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
-
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.ResourceRegionEncoder;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.testfixture.http.server.reactive.bootstrap.AbstractHttpHandlerIntegrationTests;
 import org.springframework.web.testfixture.http.server.reactive.bootstrap.HttpServer;
-import org.springframework.web.testfixture.http.server.reactive.bootstrap.ReactorHttpServer;
-import org.springframework.web.testfixture.http.server.reactive.bootstrap.UndertowHttpServer;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * @author Arjen Poutsma
@@ -43,9 +57,32 @@ class ZeroCopyIntegrationTests extends AbstractHttpHandlerIntegrationTests {
 
 	private static final Resource springLogoResource = new ClassPathResource("/org/springframework/web/spring.png");
 
+	private static final int MB = 1024 * 1024;
+
+	private static byte[] largeFileContent;
+
+	private static Path largeFile;
+
 	private final ZeroCopyHandler handler = new ZeroCopyHandler();
 
 
+	@BeforeAll
+	static void createLargeFile() throws IOException {
+		// Large enough to be memory-mapped in more than one region on Servlet containers
+		largeFileContent = new byte[5 * MB + 17];
+		for (int i = 0; i < largeFileContent.length; i++) {
+			largeFileContent[i] = (byte) (i % 251);
+		}
+		largeFile = Files.createTempFile("ZeroCopyIntegrationTests", ".bin");
+		Files.write(largeFile, largeFileContent);
+	}
+
+	@AfterAll
+	static void deleteLargeFile() throws IOException {
+		Files.deleteIfExists(largeFile);
+	}
+
+
 	@Override
 	protected HttpHandler createHttpHandler() {
 		return this.handler;
@@ -54,9 +91,6 @@ class ZeroCopyIntegrationTests extends AbstractHttpHandlerIntegrationTests {
 
 	@ParameterizedHttpServerTest
 	void zeroCopy(HttpServer httpServer) throws Exception {
-		assumeTrue(httpServer instanceof ReactorHttpServer || httpServer instanceof UndertowHttpServer,
-			"Zero-copy does not support Servlet");
-
 		startServer(httpServer);
 
 		URI url = new URI("http://localhost:" + port);
@@ -69,6 +103,54 @@ class ZeroCopyIntegrationTests extends AbstractHttpHandlerIntegrationTests {
 		assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
 	}
 
+	@ParameterizedHttpServerTest
+	void zeroCopyLargeFile(HttpServer httpServer) throws Exception {
+		startServer(httpServer);
+
+		URI url = new URI("http://localhost:" + port + "/large");
+		RequestEntity<?> request = RequestEntity.get(url).build();
+		ResponseEntity<byte[]> response = new RestTemplate().exchange(request, byte[].class);
+
+		assertThat(response.getHeaders().getContentLength()).isEqualTo(largeFileContent.length);
+		assertThat(response.getBody()).isEqualTo(largeFileContent);
+	}
+
+	@ParameterizedHttpServerTest
+	void zeroCopyLargeFileRegion(HttpServer httpServer) throws Exception {
+		startServer(httpServer);
+
+		URI url = new URI("http://localhost:" + port + "/large-region");
+		RequestEntity<?> request = RequestEntity.get(url).build();
+		ResponseEntity<byte[]> response = new RestTemplate().exchange(request, byte[].class);
+
+		assertThat(response.getBody()).isEqualTo(Arrays.copyOfRange(largeFileContent, MB, 5 * MB));
+	}
+
+	@ParameterizedHttpServerTest
+	void largeFileMultipleRanges(HttpServer httpServer) throws Exception {
+		startServer(httpServer);
+
+		URI url = new URI("http://localhost:" + port + "/large-ranges");
+		RequestEntity<?> request = RequestEntity.get(url)
+				.header("Range", "bytes=0-" + (MB - 1) + "," + 2 * MB + "-")
+				.build();
+		ResponseEntity<byte[]> response = new RestTemplate().exchange(request, byte[].class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+		byte[] body = response.getBody();
+		assertThat(rangeContent(body, 0, MB - 1)).isEqualTo(Arrays.copyOfRange(largeFileContent, 0, MB));
+		assertThat(rangeContent(body, 2 * MB, largeFileContent.length - 1))
+				.isEqualTo(Arrays.copyOfRange(largeFileContent, 2 * MB, largeFileContent.length));
+	}
+
+	private static byte[] rangeContent(byte[] body, int start, int end) {
+		String header = "Content-Range: bytes " + start + "-" + end + "/" + largeFileContent.length + "\r\n\r\n";
+		int index = new String(body, StandardCharsets.ISO_8859_1).indexOf(header);
+		assertThat(index).isGreaterThanOrEqualTo(0);
+		int offset = index + header.length();
+		return Arrays.copyOfRange(body, offset, offset + end - start + 1);
+	}
+
 
 	private static class ZeroCopyHandler implements HttpHandler {
 
@@ -76,6 +158,20 @@ class ZeroCopyIntegrationTests extends AbstractHttpHandlerIntegrationTests {
 		public Mono<Void> handle(ServerHttpRequest request, ServerHttpResponse response) {
 			try {
 				ZeroCopyHttpOutputMessage zeroCopyResponse = (ZeroCopyHttpOutputMessage) response;
+				String path = request.getURI().getPath();
+				if (path.equals("/large")) {
+					zeroCopyResponse.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+					zeroCopyResponse.getHeaders().setContentLength(largeFileContent.length);
+					return zeroCopyResponse.writeWith(largeFile, 0, largeFileContent.length);
+				}
+				else if (path.equals("/large-region")) {
+					zeroCopyResponse.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+					zeroCopyResponse.getHeaders().setContentLength(4 * MB);
+					return zeroCopyResponse.writeWith(largeFile, MB, 4 * MB);
+				}
+				else if (path.equals("/large-ranges")) {
+					return writeRanges(request, response);
+				}
 				File logoFile = springLogoResource.getFile();
 				zeroCopyResponse.getHeaders().setContentType(MediaType.IMAGE_PNG);
 				zeroCopyResponse.getHeaders().setContentLength(logoFile.length());
@@ -85,6 +181,18 @@ class ZeroCopyIntegrationTests extends AbstractHttpHandlerIntegrationTests {
 				return Mono.error(ex);
 			}
 		}
+
+		private Mono<Void> writeRanges(ServerHttpRequest request, ServerHttpResponse response) {
+			List<HttpRange> ranges = request.getHeaders().getRange();
+			List<ResourceRegion> regions = HttpRange.toResourceRegions(ranges, new FileSystemResource(largeFile));
+			String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+			response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+			response.getHeaders().setContentType(MediaType.parseMediaType("multipart/byteranges;boundary=" + boundary));
+			return response.writeWith(new ResourceRegionEncoder().encode(Flux.fromIterable(regions),
+					response.bufferFactory(), ResolvableType.forClass(ResourceRegion.class),
+					MediaType.APPLICATION_OCTET_STREAM,
+					Collections.singletonMap(ResourceRegionEncoder.BOUNDARY_STRING_HINT, boundary)));
+		}
 	}
 
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.method;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappingPathIndex}.
+ */
+public class MappingPathIndexTests {
+
+	private final MappingPathIndex<String> index = new MappingPathIndex<>();
+
+
+	@Test
+	public void candidatesInRegistrationOrder() {
+		this.index.add("a", Collections.singleton("/books/{id}"));
+		this.index.add("b", Collections.singleton("/{type}/all"));
+		this.index.add("c", Arrays.asList("/authors", "/books"));
+		this.index.add("d", Collections.singleton("/authors/*"));
+
+		assertThat(this.index.getCandidates("books")).containsExactly("a", "b", "c");
+		assertThat(this.index.getCandidates("authors")).containsExactly("b", "c", "d");
+		assertThat(this.index.getCandidates("orders")).containsExactly("b");
+		assertThat(this.index.getCandidates(null)).containsExactly("b");
+	}
+
+	@Test
+	public void caseInsensitiveAndSuffixMatch() {
+		this.index.add("a", Collections.singleton("/Books"));
+		this.index.add("b", Collections.singleton("/books.json"));
+
+		assertThat(this.index.getCandidates("BOOKS")).containsExactly("a");
+		assertThat(this.index.getCandidates("books.json")).containsExactly("a", "b");
+		assertThat(this.index.getCandidates("books.v1.json")).containsExactly("a");
+	}
+
+	@Test
+	public void unindexedMappings() {
+		this.index.add("a", null);
+		this.index.add("b", Collections.emptySet());
+		this.index.add("c", Arrays.asList("/books", "/**/books"));
+		this.index.add("d", Collections.singleton("/"));
+		this.index.add("e", Collections.singleton("/b?oks"));
+		assertThat(this.index.getCandidates("books")).isNull();
+
+		this.index.add("f", Collections.singleton("/authors"));
+		assertThat(this.index.getCandidates("books")).containsExactly("a", "b", "c", "d", "e");
+		assertThat(this.index.getCandidates("authors")).containsExactly("a", "b", "c", "d", "e", "f");
+		assertThat(this.index.getCandidates("b\u00fccher")).isNull();
+	}
+
+	@Test
+	public void replaceAndRemove() {
+		this.index.add("a", Collections.singleton("/books"));
+		this.index.add("b", Collections.singleton("/books/{id}"));
+		this.index.add("a", Collections.singleton("/books/*"));
+		assertThat(this.index.getCandidates("books")).containsExactly("a", "b");
+		assertThat(this.index.size()).isEqualTo(2);
+
+		this.index.add("a", Collections.singleton("/authors"));
+		assertThat(this.index.getCandidates("books")).containsExactly("b");
+		assertThat(this.index.getCandidates("authors")).containsExactly("a");
+
+		this.index.remove("b");
+		assertThat(this.index.getCandidates("books")).isEmpty();
+		assertThat(this.index.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void firstSegment() {
+		assertThat(MappingPathIndex.getFirstSegment("/books/1")).isEqualTo("books");
+		assertThat(MappingPathIndex.getFirstSegment("books")).isEqualTo("books");
+		assertThat(MappingPathIndex.getFirstSegment("//books/")).isEqualTo("books");
+		assertThat(MappingPathIndex.getFirstSegment("/")).isNull();
+		assertThat(MappingPathIndex.getFirstSegment("")).isNull();
+	}
+
+}
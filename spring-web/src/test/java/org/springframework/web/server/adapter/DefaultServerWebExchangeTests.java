@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,28 @@
 
 package org.springframework.web.server.adapter;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.multipart.Part;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
 import org.springframework.web.server.session.DefaultWebSessionManager;
 import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
 import org.springframework.web.testfixture.http.server.reactive.MockServerHttpResponse;
 
+import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -56,6 +69,44 @@ public class DefaultServerWebExchangeTests {
 		assertThat(exchange.transformUrl("/foo")).isEqualTo("/foo;p=abc?q=123");
 	}
 
+	@Test
+	public void cleanupMultipart() {
+		Flux<DataBuffer> body = DataBufferUtils.read(
+				new ClassPathResource("org/springframework/http/codec/multipart/firefox.multipart"),
+				new DefaultDataBufferFactory(), 64);
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(new MediaType("multipart", "form-data",
+						singletonMap("boundary", "---------------------------18399284482060392383840973206")))
+				.body(body);
+		ServerCodecConfigurer codecConfigurer = ServerCodecConfigurer.create();
+		codecConfigurer.defaultCodecs().maxInMemorySize(10);
+		DefaultServerWebExchange exchange = createExchange(request, codecConfigurer);
+
+		Part part = exchange.getMultipartData().block(Duration.ofSeconds(5)).getFirst("file1");
+		assertThat(part).isNotNull();
+		StepVerifier.create(DataBufferUtils.join(part.content()).doOnNext(DataBufferUtils::release))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		StepVerifier.create(exchange.cleanupMultipart()).verifyComplete();
+		StepVerifier.create(part.content()).expectError(IOException.class).verify();
+	}
+
+	@Test
+	public void cleanupMultipartNotRead() {
+		AtomicBoolean subscribed = new AtomicBoolean();
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(new MediaType("multipart", "form-data", singletonMap("boundary", "boundary")))
+				.body(Flux.defer(() -> {
+					subscribed.set(true);
+					return Flux.empty();
+				}));
+		DefaultServerWebExchange exchange = createExchange(request, ServerCodecConfigurer.create());
+
+		StepVerifier.create(exchange.cleanupMultipart()).verifyComplete();
+		assertThat(subscribed.get()).isFalse();
+	}
+
 
 	private DefaultServerWebExchange createExchange() {
 		MockServerHttpRequest request = MockServerHttpRequest.get("https://example.com").build();
@@ -63,8 +114,14 @@ public class DefaultServerWebExchangeTests {
 	}
 
 	private DefaultServerWebExchange createExchange(MockServerHttpRequest request) {
+		return createExchange(request, ServerCodecConfigurer.create());
+	}
+
+	private DefaultServerWebExchange createExchange(MockServerHttpRequest request,
+			ServerCodecConfigurer codecConfigurer) {
+
 		return new DefaultServerWebExchange(request, new MockServerHttpResponse(),
-				new DefaultWebSessionManager(), ServerCodecConfigurer.create(),
+				new DefaultWebSessionManager(), codecConfigurer,
 				new AcceptHeaderLocaleContextResolver());
 	}
 
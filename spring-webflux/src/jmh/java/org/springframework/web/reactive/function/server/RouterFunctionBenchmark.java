@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.testfixture.server.MockServerWebExchange;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * Benchmarks for routing requests through a {@link RouterFunction}
+ * composed of a varying number of routes, as built and as
+ * {@linkplain RouterFunctions#optimize(RouterFunction) optimized}.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class RouterFunctionBenchmark {
+
+	@Benchmark
+	public HandlerFunction<ServerResponse> firstRoute(BenchmarkData data) {
+		return data.routerFunction.route(data.firstRequest).block();
+	}
+
+	@Benchmark
+	public HandlerFunction<ServerResponse> lastRoute(BenchmarkData data) {
+		return data.routerFunction.route(data.lastRequest).block();
+	}
+
+	@Benchmark
+	public HandlerFunction<ServerResponse> noRoute(BenchmarkData data) {
+		return data.routerFunction.route(data.unknownRequest).block();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"10", "100", "1000"})
+		public int resourceCount;
+
+		@Param({"false", "true"})
+		public boolean optimized;
+
+		public RouterFunction<ServerResponse> routerFunction;
+
+		public ServerRequest firstRequest;
+
+		public ServerRequest lastRequest;
+
+		public ServerRequest unknownRequest;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			HandlerFunction<ServerResponse> handler = request -> ServerResponse.ok().build();
+			RouterFunctions.Builder builder = RouterFunctions.route();
+			for (int i = 0; i < this.resourceCount; i++) {
+				String path = "/api/resource" + i;
+				builder.route(GET(path), handler);
+				builder.route(POST(path), handler);
+				builder.route(GET(path + "/{id}"), handler);
+			}
+			RouterFunction<ServerResponse> routerFunction = builder.build();
+			this.routerFunction = (this.optimized ? RouterFunctions.optimize(routerFunction) : routerFunction);
+			this.firstRequest = createRequest("/api/resource0/42");
+			this.lastRequest = createRequest("/api/resource" + (this.resourceCount - 1) + "/42");
+			this.unknownRequest = createRequest("/unknown/path");
+		}
+
+		private static ServerRequest createRequest(String path) {
+			MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+			return ServerRequest.create(exchange, HandlerStrategies.withDefaults().messageReaders());
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -324,6 +325,67 @@ public abstract class RequestPredicates {
 
 	}
 
+	/**
+	 * Determine the necessary conditions for the given predicate to match,
+	 * as far as they can be derived from the built-in predicates it is made of.
+	 * @param predicate the predicate to introspect
+	 * @param nested whether the predicate is used for nesting, in which case
+	 * the right-hand side of an {@code and} sees the path remaining after the
+	 * left-hand side
+	 * @return the constraints
+	 * @since 5.2.4
+	 */
+	static Constraints constraints(RequestPredicate predicate, boolean nested) {
+		if (predicate instanceof PathPatternPredicate) {
+			String pattern = ((PathPatternPredicate) predicate).pattern.getPatternString();
+			// Patterns parsed with a custom separator are not indexed
+			return (pattern.startsWith("/") ?
+					new Constraints(Collections.singleton(pattern), null, false) : Constraints.NONE);
+		}
+		else if (predicate instanceof HttpMethodPredicate) {
+			return new Constraints(null, ((HttpMethodPredicate) predicate).httpMethods, true);
+		}
+		else if (predicate instanceof HeadersPredicate || predicate instanceof PathExtensionPredicate ||
+				predicate instanceof QueryParamPredicate || predicate instanceof NegateRequestPredicate) {
+			return Constraints.PATH_PRESERVING;
+		}
+		else if (predicate instanceof AndRequestPredicate) {
+			AndRequestPredicate and = (AndRequestPredicate) predicate;
+			Constraints left = constraints(and.left, nested);
+			Constraints right = constraints(and.right, nested);
+			Set<String> patterns = left.patterns;
+			if (patterns == null && (!nested || left.pathPreserving)) {
+				patterns = right.patterns;
+			}
+			Set<HttpMethod> methods = left.methods;
+			if (methods == null) {
+				methods = right.methods;
+			}
+			else if (right.methods != null) {
+				methods = EnumSet.copyOf(methods);
+				methods.retainAll(right.methods);
+			}
+			return new Constraints(patterns, methods, left.pathPreserving && right.pathPreserving);
+		}
+		else if (predicate instanceof OrRequestPredicate) {
+			OrRequestPredicate or = (OrRequestPredicate) predicate;
+			Constraints left = constraints(or.left, nested);
+			Constraints right = constraints(or.right, nested);
+			Set<String> patterns = null;
+			if (left.patterns != null && right.patterns != null) {
+				patterns = new LinkedHashSet<>(left.patterns);
+				patterns.addAll(right.patterns);
+			}
+			Set<HttpMethod> methods = null;
+			if (left.methods != null && right.methods != null) {
+				methods = EnumSet.copyOf(left.methods);
+				methods.addAll(right.methods);
+			}
+			return new Constraints(patterns, methods, left.pathPreserving && right.pathPreserving);
+		}
+		return Constraints.NONE;
+	}
+
 
 	/**
 	 * Receives notifications from the logical structure of request predicates.
@@ -873,6 +935,36 @@ public abstract class RequestPredicates {
 	}
 
 
+	/**
+	 * Necessary conditions for a request to match a predicate: its path has to
+	 * match one of the {@link #patterns} and its method has to be one of the
+	 * {@link #methods}, where {@code null} stands for any path or method.
+	 * @since 5.2.4
+	 * @see #constraints(RequestPredicate, boolean)
+	 */
+	static final class Constraints {
+
+		static final Constraints NONE = new Constraints(null, null, false);
+
+		static final Constraints PATH_PRESERVING = new Constraints(null, null, true);
+
+		@Nullable
+		final Set<String> patterns;
+
+		@Nullable
+		final Set<HttpMethod> methods;
+
+		/** Whether nesting by the predicate passes on the request path as is. */
+		final boolean pathPreserving;
+
+		Constraints(@Nullable Set<String> patterns, @Nullable Set<HttpMethod> methods, boolean pathPreserving) {
+			this.patterns = patterns;
+			this.methods = methods;
+			this.pathPreserving = pathPreserving;
+		}
+	}
+
+
 	private static class SubPathServerRequestWrapper implements ServerRequest {
 
 		private final ServerRequest request;
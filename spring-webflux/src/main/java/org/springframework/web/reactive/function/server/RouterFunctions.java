@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,12 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -29,9 +33,12 @@ import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.codec.HttpMessageWriter;
 import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.web.method.MappingPathIndex;
 import org.springframework.web.reactive.result.view.ViewResolver;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebHandler;
@@ -183,6 +190,105 @@ public abstract class RouterFunctions {
 		return new ResourcesRouterFunction(lookupFunction);
 	}
 
+	/**
+	 * Return a router function that routes requests like the given one, but
+	 * does not go through all of its routes for every request.
+	 * <p>The chain of composed routes is flattened, and routes whose predicates
+	 * are made of {@linkplain RequestPredicates#path(String) path} and
+	 * {@linkplain RequestPredicates#method(HttpMethod) method} predicates are
+	 * indexed by the first literal segment of their path patterns and by
+	 * HTTP method. For each request, only the routes that can match its path and
+	 * method are evaluated, still in their original order. Routes with other
+	 * predicates, including custom ones, are evaluated for every request.
+	 * Nested and filtered router functions are optimized recursively.
+	 * @param routerFunction the router function to optimize
+	 * @param <T> the type of response returned by the handler function
+	 * @return the optimized router function, possibly the given instance
+	 * @since 5.2.4
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends ServerResponse> RouterFunction<T> optimize(RouterFunction<T> routerFunction) {
+		Assert.notNull(routerFunction, "RouterFunction must not be null");
+		if (routerFunction instanceof IndexedRouterFunction) {
+			return routerFunction;
+		}
+		List<RouterFunction<?>> routes = new ArrayList<>();
+		flatten(routerFunction, routes);
+		if (routes.size() == 1) {
+			return (RouterFunction<T>) routes.get(0);
+		}
+		return new IndexedRouterFunction<>(routerFunction, routes);
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static void flatten(RouterFunction<?> routerFunction, List<RouterFunction<?>> routes) {
+		if (routerFunction instanceof SameComposedRouterFunction) {
+			SameComposedRouterFunction<?> composed = (SameComposedRouterFunction<?>) routerFunction;
+			flatten(composed.first, routes);
+			flatten(composed.second, routes);
+		}
+		else if (routerFunction instanceof DifferentComposedRouterFunction) {
+			DifferentComposedRouterFunction composed = (DifferentComposedRouterFunction) routerFunction;
+			flatten(composed.first, routes);
+			flatten(composed.second, routes);
+		}
+		else if (routerFunction instanceof DefaultNestedRouterFunction) {
+			DefaultNestedRouterFunction nested = (DefaultNestedRouterFunction) routerFunction;
+			RouterFunction<?> optimized = optimize(nested.routerFunction);
+			routes.add(optimized != nested.routerFunction ?
+					new DefaultNestedRouterFunction(nested.predicate, optimized) : nested);
+		}
+		else if (routerFunction instanceof FilteredRouterFunction) {
+			FilteredRouterFunction filtered = (FilteredRouterFunction) routerFunction;
+			RouterFunction<?> optimized = optimize(filtered.routerFunction);
+			routes.add(optimized != filtered.routerFunction ?
+					new FilteredRouterFunction(optimized, filtered.filterFunction) : filtered);
+		}
+		else {
+			routes.add(routerFunction);
+		}
+	}
+
+	/**
+	 * Determine the necessary conditions for the given router function to route a request.
+	 */
+	private static RequestPredicates.Constraints constraints(RouterFunction<?> routerFunction) {
+		if (routerFunction instanceof DefaultRouterFunction) {
+			return RequestPredicates.constraints(((DefaultRouterFunction<?>) routerFunction).predicate, false);
+		}
+		else if (routerFunction instanceof DefaultNestedRouterFunction) {
+			return RequestPredicates.constraints(((DefaultNestedRouterFunction<?>) routerFunction).predicate, true);
+		}
+		else if (routerFunction instanceof FilteredRouterFunction) {
+			return constraints(((FilteredRouterFunction<?, ?>) routerFunction).routerFunction);
+		}
+		else if (routerFunction instanceof IndexedRouterFunction) {
+			Set<String> patterns = new LinkedHashSet<>();
+			Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+			for (RouterFunction<?> route : ((IndexedRouterFunction<?>) routerFunction).routes) {
+				RequestPredicates.Constraints constraints = constraints(route);
+				if (patterns != null) {
+					if (constraints.patterns != null) {
+						patterns.addAll(constraints.patterns);
+					}
+					else {
+						patterns = null;
+					}
+				}
+				if (methods != null) {
+					if (constraints.methods != null) {
+						methods.addAll(constraints.methods);
+					}
+					else {
+						methods = null;
+					}
+				}
+			}
+			return new RequestPredicates.Constraints(patterns, methods, false);
+		}
+		return RequestPredicates.Constraints.NONE;
+	}
+
 	/**
 	 * Convert the given {@linkplain RouterFunction router function} into a {@link HttpHandler}.
 	 * This conversion uses {@linkplain HandlerStrategies#builder() default strategies}.
@@ -251,7 +357,7 @@ public abstract class RouterFunctions {
 		Assert.notNull(routerFunction, "RouterFunction must not be null");
 		Assert.notNull(strategies, "HandlerStrategies must not be null");
 
-		return new RouterFunctionWebHandler(strategies, routerFunction);
+		return new RouterFunctionWebHandler(strategies, optimize(routerFunction));
 	}
 
 	/**
@@ -940,6 +1046,70 @@ public abstract class RouterFunctions {
 	}
 
 
+	/**
+	 * A router function that routes through a flattened list of routes, only
+	 * evaluating the routes that can match the path and method of a request.
+	 * @param <T> the server response type
+	 * @see #optimize(RouterFunction)
+	 */
+	static final class IndexedRouterFunction<T extends ServerResponse> extends AbstractRouterFunction<T> {
+
+		private final RouterFunction<T> original;
+
+		private final RouterFunction<?>[] routes;
+
+		private final Set<HttpMethod>[] methods;
+
+		private final MappingPathIndex<Integer> pathIndex = new MappingPathIndex<>();
+
+		@SuppressWarnings("unchecked")
+		public IndexedRouterFunction(RouterFunction<T> original, List<RouterFunction<?>> routes) {
+			this.original = original;
+			this.routes = routes.toArray(new RouterFunction<?>[0]);
+			this.methods = (Set<HttpMethod>[]) new Set<?>[this.routes.length];
+			for (int i = 0; i < this.routes.length; i++) {
+				RequestPredicates.Constraints constraints = constraints(this.routes[i]);
+				this.methods[i] = constraints.methods;
+				this.pathIndex.add(i, constraints.patterns);
+			}
+		}
+
+		@Override
+		public Mono<HandlerFunction<T>> route(ServerRequest request) {
+			List<Integer> candidates = this.pathIndex.getCandidates(
+					MappingPathIndex.getFirstSegment(request.pathContainer()));
+			return route(request, candidates, 0);
+		}
+
+		private Mono<HandlerFunction<T>> route(ServerRequest request, @Nullable List<Integer> candidates, int position) {
+			int count = (candidates != null ? candidates.size() : this.routes.length);
+			HttpMethod httpMethod = request.method();
+			while (position < count) {
+				int index = (candidates != null ? candidates.get(position) : position);
+				position++;
+				Set<HttpMethod> routeMethods = this.methods[index];
+				if (routeMethods == null || (httpMethod != null && routeMethods.contains(httpMethod))) {
+					int next = position;
+					return this.routes[index].route(request)
+							.map(this::cast)
+							.switchIfEmpty(Mono.defer(() -> route(request, candidates, next)));
+				}
+			}
+			return Mono.empty();
+		}
+
+		@SuppressWarnings("unchecked")
+		private HandlerFunction<T> cast(HandlerFunction<?> handlerFunction) {
+			return (HandlerFunction<T>) handlerFunction;
+		}
+
+		@Override
+		public void accept(Visitor visitor) {
+			this.original.accept(visitor);
+		}
+	}
+
+
 	private static class ResourcesRouterFunction extends  AbstractRouterFunction<ServerResponse> {
 
 		private final Function<ServerRequest, Mono<Resource>> lookupFunction;
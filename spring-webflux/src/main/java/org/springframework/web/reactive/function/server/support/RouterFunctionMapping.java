@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -67,9 +67,10 @@ public class RouterFunctionMapping extends AbstractHandlerMapping implements Ini
 	 * Create a {@code RouterFunctionMapping} with the given {@link RouterFunction}.
 	 * <p>If this constructor is used, no application context detection will occur.
 	 * @param routerFunction the router function to use for mapping
+	 * @see RouterFunctions#optimize(RouterFunction)
 	 */
 	public RouterFunctionMapping(RouterFunction<?> routerFunction) {
-		this.routerFunction = routerFunction;
+		this.routerFunction = RouterFunctions.optimize(routerFunction);
 	}
 
 
@@ -107,10 +108,12 @@ public class RouterFunctionMapping extends AbstractHandlerMapping implements Ini
 
 	/**
 	 * Initialized the router functions by detecting them in the application context.
+	 * @see RouterFunctions#optimize(RouterFunction)
 	 */
 	protected void initRouterFunctions() {
 		List<RouterFunction<?>> routerFunctions = routerFunctions();
-		this.routerFunction = routerFunctions.stream().reduce(RouterFunction::andOther).orElse(null);
+		RouterFunction<?> routerFunction = routerFunctions.stream().reduce(RouterFunction::andOther).orElse(null);
+		this.routerFunction = (routerFunction != null ? RouterFunctions.optimize(routerFunction) : null);
 		logRouterFunctions(routerFunctions);
 	}
 
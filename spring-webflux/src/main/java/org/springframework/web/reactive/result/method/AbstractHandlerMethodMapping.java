@@ -44,6 +44,7 @@ import org.springframework.util.ClassUtils;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.MappingPathIndex;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.AbstractHandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
@@ -311,7 +312,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	protected HandlerMethod lookupHandlerMethod(ServerWebExchange exchange) throws Exception {
 		List<Match> matches = new ArrayList<>();
-		addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		List<T> candidates = this.mappingRegistry.getMappingCandidates(exchange.getRequest().getPath());
+		if (candidates != null) {
+			addMatchingMappings(candidates, matches, exchange);
+		}
+		else {
+			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		}
 
 		if (!matches.isEmpty()) {
 			Comparator<Match> comparator = new MatchComparator(getMappingComparator(exchange));
@@ -412,6 +419,26 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	protected abstract T getMappingForMethod(Method method, Class<?> handlerType);
 
+	/**
+	 * Return the path patterns by which to index the supplied mapping, so that
+	 * it is only checked for requests whose path within the application starts
+	 * with the first segment of one of the patterns, if that segment is a literal.
+	 * <p>Implementations may only return patterns if the mapping cannot match a
+	 * request unless its path matches one of the patterns, with the semantics of
+	 * {@link org.springframework.web.util.pattern.PathPattern}. The default
+	 * implementation returns {@code null}, in which case the mapping is checked
+	 * for every request.
+	 * @param mapping the mapping to index
+	 * @return the patterns to index the mapping by, or {@code null} if the
+	 * mapping may match any path
+	 * @since 5.2.4
+	 * @see MappingPathIndex
+	 */
+	@Nullable
+	protected Set<String> getMappingPathIndexPatterns(T mapping) {
+		return null;
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -443,6 +470,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final Map<T, HandlerMethod> mappingLookup = new LinkedHashMap<>();
 
+		private final MappingPathIndex<T> pathIndex = new MappingPathIndex<>();
+
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -455,6 +484,17 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.mappingLookup;
 		}
 
+		/**
+		 * Return the mappings that may match the given request path, or {@code null}
+		 * if all mappings need to be checked. Not thread-safe.
+		 * @since 5.2.4
+		 * @see #acquireReadLock()
+		 */
+		@Nullable
+		public List<T> getMappingCandidates(RequestPath path) {
+			return this.pathIndex.getCandidates(MappingPathIndex.getFirstSegment(path.pathWithinApplication()));
+		}
+
 		/**
 		 * Return CORS configuration. Thread-safe for concurrent use.
 		 */
@@ -484,6 +524,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				HandlerMethod handlerMethod = createHandlerMethod(handler, method);
 				validateMethodMapping(handlerMethod, mapping);
 				this.mappingLookup.put(mapping, handlerMethod);
+				this.pathIndex.add(mapping, getMappingPathIndexPatterns(mapping));
 
 				CorsConfiguration corsConfig = initCorsConfiguration(handler, method, mapping);
 				if (corsConfig != null) {
@@ -517,6 +558,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				}
 
 				this.mappingLookup.remove(definition.getMapping());
+				this.pathIndex.remove(definition.getMapping());
 				this.corsLookup.remove(definition.getHandlerMethod());
 			}
 			finally {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -71,6 +71,19 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 	}
 
 
+	/**
+	 * Index mappings by the path patterns they are matched against.
+	 */
+	@Override
+	protected Set<String> getMappingPathIndexPatterns(RequestMappingInfo info) {
+		Set<PathPattern> patterns = info.getPatternsCondition().getPatterns();
+		Set<String> result = new LinkedHashSet<>(patterns.size());
+		for (PathPattern pattern : patterns) {
+			result.add(pattern.getPatternString());
+		}
+		return result;
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -205,4 +205,31 @@ public class RequestPredicatesTests {
 		assertThat(predicate.test(request)).isFalse();
 	}
 
+
+	@Test
+	public void constraints() {
+		RequestPredicates.Constraints constraints = RequestPredicates.constraints(
+				RequestPredicates.GET("/foo").or(RequestPredicates.POST("/bar")), false);
+		assertThat(constraints.patterns).containsExactly("/foo", "/bar");
+		assertThat(constraints.methods).containsExactlyInAnyOrder(HttpMethod.GET, HttpMethod.POST);
+
+		constraints = RequestPredicates.constraints(RequestPredicates.method(HttpMethod.GET)
+				.and(RequestPredicates.queryParam("foo", "bar")).and(RequestPredicates.path("/foo")), true);
+		assertThat(constraints.patterns).containsExactly("/foo");
+		assertThat(constraints.methods).containsExactly(HttpMethod.GET);
+
+		constraints = RequestPredicates.constraints(
+				RequestPredicates.path("/foo").and(RequestPredicates.path("/bar")), true);
+		assertThat(constraints.patterns).containsExactly("/foo");
+
+		constraints = RequestPredicates.constraints(
+				RequestPredicates.all().and(RequestPredicates.path("/foo")), true);
+		assertThat(constraints.patterns).isNull();
+
+		constraints = RequestPredicates.constraints(
+				RequestPredicates.GET("/foo").or(RequestPredicates.all()), false);
+		assertThat(constraints.patterns).isNull();
+		assertThat(constraints.methods).isNull();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,17 +16,21 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.net.URI;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.lang.Nullable;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.server.ResponseStatusException;
@@ -291,4 +295,41 @@ public class RouterFunctionsTests {
 		assertThat(filterInvoked.get()).isTrue();
 	}
 
+	@Test
+	public void optimize() {
+		HandlerFunction<ServerResponse> foo = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> bar = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> fallback = request -> ServerResponse.ok().build();
+		AtomicInteger customPredicateCount = new AtomicInteger();
+
+		RouterFunction<ServerResponse> routerFunction = RouterFunctions.route()
+				.GET("/foo/{id}", foo)
+				.POST("/bar", bar)
+				.route(request -> customPredicateCount.incrementAndGet() < 0, fallback)
+				.nest(RequestPredicates.path("/baz"), builder -> builder.GET("/qux", bar))
+				.GET("/{*path}", fallback)
+				.build();
+		RouterFunction<ServerResponse> optimized = RouterFunctions.optimize(routerFunction);
+		assertThat(optimized).isNotSameAs(routerFunction);
+		assertThat(optimized.toString()).isEqualTo(routerFunction.toString());
+		assertThat(RouterFunctions.optimize(optimized)).isSameAs(optimized);
+
+		assertThat(route(optimized, HttpMethod.GET, "/foo/1")).isSameAs(foo);
+		assertThat(route(optimized, HttpMethod.POST, "/bar")).isSameAs(bar);
+		assertThat(customPredicateCount.get()).isEqualTo(0);
+		assertThat(route(optimized, HttpMethod.POST, "/foo/1")).isNull();
+		assertThat(route(optimized, HttpMethod.GET, "/baz/qux")).isSameAs(bar);
+		assertThat(route(optimized, HttpMethod.GET, "/other")).isSameAs(fallback);
+		assertThat(customPredicateCount.get()).isEqualTo(3);
+	}
+
+	@Nullable
+	private static HandlerFunction<ServerResponse> route(
+			RouterFunction<ServerResponse> routerFunction, HttpMethod method, String path) {
+
+		MockServerRequest request = MockServerRequest.builder()
+				.method(method).uri(URI.create("https://example.com" + path)).build();
+		return routerFunction.route(request).block();
+	}
+
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+/**
+ * Benchmarks for looking up the handler method for a request in a
+ * {@link RequestMappingHandlerMapping} with a varying number of mappings.
+ *
+ * @since 5.2.4
+ */
+@BenchmarkMode(Mode.Throughput)
+public class RequestMappingLookupBenchmark {
+
+	@Benchmark
+	public HandlerExecutionChain directPathMatch(BenchmarkData data) throws Exception {
+		return data.handlerMapping.getHandler(new MockHttpServletRequest("GET", data.directPath));
+	}
+
+	@Benchmark
+	public HandlerExecutionChain patternMatch(BenchmarkData data) throws Exception {
+		return data.handlerMapping.getHandler(new MockHttpServletRequest("GET", data.patternPath));
+	}
+
+	@Benchmark
+	public HandlerExecutionChain noMatch(BenchmarkData data) throws Exception {
+		return data.handlerMapping.getHandler(new MockHttpServletRequest("GET", "/unknown/path"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"10", "100", "1000"})
+		public int resourceCount;
+
+		public RequestMappingHandlerMapping handlerMapping;
+
+		public String directPath;
+
+		public String patternPath;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.handlerMapping = new RequestMappingHandlerMapping();
+			this.handlerMapping.setApplicationContext(new StaticWebApplicationContext());
+			this.handlerMapping.afterPropertiesSet();
+			ResourceController controller = new ResourceController();
+			for (int i = 0; i < this.resourceCount; i++) {
+				String path = "/api/resource" + i;
+				this.handlerMapping.registerMapping(RequestMappingInfo.paths(path).methods(RequestMethod.GET).build(),
+						controller, ResourceController.class.getMethod("list"));
+				this.handlerMapping.registerMapping(RequestMappingInfo.paths(path).methods(RequestMethod.POST).build(),
+						controller, ResourceController.class.getMethod("create"));
+				this.handlerMapping.registerMapping(RequestMappingInfo.paths(path + "/{id}").methods(RequestMethod.GET).build(),
+						controller, ResourceController.class.getMethod("get"));
+			}
+			int last = this.resourceCount - 1;
+			this.directPath = "/api/resource" + last;
+			this.patternPath = "/api/resource" + last + "/42";
+		}
+	}
+
+
+	public static class ResourceController {
+
+		public void list() {
+		}
+
+		public void create() {
+		}
+
+		public void get() {
+		}
+	}
+
+}
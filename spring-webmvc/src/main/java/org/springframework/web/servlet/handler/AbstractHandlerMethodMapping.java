@@ -51,6 +51,7 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.MappingPathIndex;
 import org.springframework.web.servlet.HandlerMapping;
 
 /**
@@ -389,8 +390,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			List<T> candidates = this.mappingRegistry.getMappingCandidates(lookupPath);
+			if (candidates != null) {
+				addMatchingMappings(candidates, matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...
+				addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -503,6 +510,26 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	protected abstract Set<String> getMappingPathPatterns(T mapping);
 
+	/**
+	 * Return the URL path patterns by which to index the supplied mapping, so that
+	 * it is only checked for requests whose lookup path starts with the first
+	 * segment of one of the patterns, if that segment is a literal.
+	 * <p>Implementations may only return patterns if the mapping cannot match a
+	 * request unless its lookup path matches one of the patterns, with the
+	 * semantics of {@link org.springframework.util.AntPathMatcher}, optionally
+	 * with a suffix pattern or a trailing slash. The default implementation
+	 * returns {@code null}, in which case the mapping is checked for every request.
+	 * @param mapping the mapping to index
+	 * @return the patterns to index the mapping by, or {@code null} if the
+	 * mapping may match any lookup path
+	 * @since 5.2.4
+	 * @see MappingPathIndex
+	 */
+	@Nullable
+	protected Set<String> getMappingPathIndexPatterns(T mapping) {
+		return null;
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -535,6 +562,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final MappingPathIndex<T> pathIndex = new MappingPathIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -558,6 +587,17 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings that may match the given URL path, or {@code null}
+		 * if all mappings need to be checked. Not thread-safe.
+		 * @since 5.2.4
+		 * @see #acquireReadLock()
+		 */
+		@Nullable
+		public List<T> getMappingCandidates(String urlPath) {
+			return this.pathIndex.getCandidates(MappingPathIndex.getFirstSegment(urlPath));
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -603,6 +643,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				for (String url : directUrls) {
 					this.urlLookup.add(url, mapping);
 				}
+				this.pathIndex.add(mapping, getMappingPathIndexPatterns(mapping));
 
 				String name = null;
 				if (getNamingStrategy() != null) {
@@ -670,6 +711,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				}
 
 				this.mappingLookup.remove(definition.getMapping());
+				this.pathIndex.remove(definition.getMapping());
 
 				for (String url : definition.getDirectUrls()) {
 					List<T> list = this.urlLookup.get(url);
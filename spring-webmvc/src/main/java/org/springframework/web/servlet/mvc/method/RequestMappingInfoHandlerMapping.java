@@ -33,6 +33,8 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
@@ -84,6 +86,16 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		return info.getPatternsCondition().getPatterns();
 	}
 
+	/**
+	 * Index mappings by their URL path patterns, as long as the default
+	 * {@link AntPathMatcher} is used for matching them.
+	 */
+	@Override
+	@Nullable
+	protected Set<String> getMappingPathIndexPatterns(RequestMappingInfo info) {
+		return (getPathMatcher().getClass() == AntPathMatcher.class ? info.getPatternsCondition().getPatterns() : null);
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -108,6 +108,31 @@ public class HandlerMethodMappingTests {
 				this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo")));
 	}
 
+	@Test
+	public void patternMatchWithPathIndex() throws Exception {
+		this.mapping = new MyHandlerMethodMapping() {
+			@Override
+			protected Set<String> getMappingPathIndexPatterns(String key) {
+				return Collections.singleton(key);
+			}
+		};
+		this.mapping.registerMapping("/foo/*", this.handler, this.method1);
+		this.mapping.registerMapping("/bar/*", this.handler, this.method2);
+		this.mapping.registerMapping("/**/baz", this.handler, this.method1);
+
+		assertThat(this.mapping.getMappingRegistry().getMappingCandidates("/foo/1")).containsExactly("/foo/*", "/**/baz");
+		assertThat(this.mapping.getMappingRegistry().getMappingCandidates("/")).containsExactly("/**/baz");
+
+		HandlerMethod result = this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/bar/1"));
+		assertThat(result.getMethod()).isEqualTo(method2);
+		result = this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/qux/baz"));
+		assertThat(result.getMethod()).isEqualTo(method1);
+		assertThat(this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/qux/1"))).isNull();
+
+		this.mapping.unregisterMapping("/bar/*");
+		assertThat(this.mapping.getMappingRegistry().getMappingCandidates("/bar/1")).containsExactly("/**/baz");
+	}
+
 	@Test
 	public void detectHandlerMethodsInAncestorContexts() {
 		StaticApplicationContext cxt = new StaticApplicationContext();
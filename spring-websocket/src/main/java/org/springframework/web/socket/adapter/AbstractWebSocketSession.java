@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,8 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.AlternativeJdkIdGenerator;
 import org.springframework.util.Assert;
 import org.springframework.util.IdGenerator;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.PingMessage;
@@ -127,6 +129,72 @@ public abstract class AbstractWebSocketSession<T> implements NativeWebSocketSess
 
 	protected abstract void sendPongMessage(PongMessage message) throws IOException;
 
+	/**
+	 * Send the given message without blocking, as far as supported by the
+	 * underlying session. This is the basis for {@link AsyncWebSocketSession}
+	 * implementations which plug in the container's asynchronous send API
+	 * through {@link #sendTextMessageAsync} and {@link #sendBinaryMessageAsync}.
+	 * @param message the message to send
+	 * @return a future completed when the message has been written
+	 * @since 5.2.4
+	 */
+	public ListenableFuture<Void> sendMessageAsync(WebSocketMessage<?> message) {
+		checkNativeSessionInitialized();
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Sending async " + message + ", " + this);
+		}
+
+		SettableListenableFuture<Void> future = new SettableListenableFuture<>();
+		try {
+			if (message instanceof TextMessage) {
+				sendTextMessageAsync((TextMessage) message, future);
+			}
+			else if (message instanceof BinaryMessage) {
+				sendBinaryMessageAsync((BinaryMessage) message, future);
+			}
+			else if (message instanceof PingMessage) {
+				sendPingMessage((PingMessage) message);
+				future.set(null);
+			}
+			else if (message instanceof PongMessage) {
+				sendPongMessage((PongMessage) message);
+				future.set(null);
+			}
+			else {
+				throw new IllegalStateException("Unexpected WebSocketMessage type: " + message);
+			}
+		}
+		catch (Throwable ex) {
+			future.setException(ex);
+		}
+		return future;
+	}
+
+	/**
+	 * Send a text message, completing the given future once it has been written.
+	 * <p>The default implementation sends the message synchronously.
+	 * @since 5.2.4
+	 */
+	protected void sendTextMessageAsync(TextMessage message, SettableListenableFuture<Void> future)
+			throws IOException {
+
+		sendTextMessage(message);
+		future.set(null);
+	}
+
+	/**
+	 * Send a binary message, completing the given future once it has been written.
+	 * <p>The default implementation sends the message synchronously.
+	 * @since 5.2.4
+	 */
+	protected void sendBinaryMessageAsync(BinaryMessage message, SettableListenableFuture<Void> future)
+			throws IOException {
+
+		sendBinaryMessage(message);
+		future.set(null);
+	}
+
 
 	@Override
 	public final void close() throws IOException {
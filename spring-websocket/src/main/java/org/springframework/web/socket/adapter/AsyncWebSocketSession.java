@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.adapter;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * A {@link WebSocketSession} that can send messages without blocking the
+ * calling thread, by delegating to the asynchronous send API of the
+ * underlying WebSocket container.
+ *
+ * <p>As with {@link #sendMessage}, only one message may be in flight at a
+ * time; callers must wait for the returned future to complete before sending
+ * the next message. See
+ * {@link org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator}
+ * for a decorator that buffers messages accordingly.
+ *
+ * @since 5.2.4
+ */
+public interface AsyncWebSocketSession extends WebSocketSession {
+
+	/**
+	 * Send a WebSocket message without waiting for the underlying write to
+	 * complete. Partial, ping and pong messages may be sent synchronously
+	 * depending on the capabilities of the underlying container.
+	 * @param message the message to send
+	 * @return a future completed when the message has been written, or
+	 * completed exceptionally if the write failed
+	 */
+	ListenableFuture<Void> sendMessageAsync(WebSocketMessage<?> message);
+
+}
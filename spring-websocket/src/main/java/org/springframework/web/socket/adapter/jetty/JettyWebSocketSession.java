@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,12 +28,14 @@ import java.util.Map;
 import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketException;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.extensions.ExtensionConfig;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.PingMessage;
@@ -42,6 +44,7 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.adapter.AbstractWebSocketSession;
+import org.springframework.web.socket.adapter.AsyncWebSocketSession;
 
 /**
  * A {@link WebSocketSession} for use with the Jetty 9.4 WebSocket API.
@@ -52,7 +55,7 @@ import org.springframework.web.socket.adapter.AbstractWebSocketSession;
  * @author Juergen Hoeller
  * @since 4.0
  */
-public class JettyWebSocketSession extends AbstractWebSocketSession<Session> {
+public class JettyWebSocketSession extends AbstractWebSocketSession<Session> implements AsyncWebSocketSession {
 
 	private final String id;
 
@@ -211,6 +214,20 @@ public class JettyWebSocketSession extends AbstractWebSocketSession<Session> {
 		getRemoteEndpoint().sendBytes(message.getPayload());
 	}
 
+	@Override
+	protected void sendTextMessageAsync(TextMessage message, SettableListenableFuture<Void> future)
+			throws IOException {
+
+		getRemoteEndpoint().sendString(message.getPayload(), new FutureWriteCallback(future));
+	}
+
+	@Override
+	protected void sendBinaryMessageAsync(BinaryMessage message, SettableListenableFuture<Void> future)
+			throws IOException {
+
+		getRemoteEndpoint().sendBytes(message.getPayload(), new FutureWriteCallback(future));
+	}
+
 	@Override
 	protected void sendPingMessage(PingMessage message) throws IOException {
 		getRemoteEndpoint().sendPing(message.getPayload());
@@ -235,4 +252,27 @@ public class JettyWebSocketSession extends AbstractWebSocketSession<Session> {
 		getNativeSession().close(status.getCode(), status.getReason());
 	}
 
+
+	/**
+	 * Adapt a Jetty {@link WriteCallback} to a {@link SettableListenableFuture}.
+	 */
+	private static class FutureWriteCallback implements WriteCallback {
+
+		private final SettableListenableFuture<Void> future;
+
+		FutureWriteCallback(SettableListenableFuture<Void> future) {
+			this.future = future;
+		}
+
+		@Override
+		public void writeSuccess() {
+			this.future.set(null);
+		}
+
+		@Override
+		public void writeFailed(Throwable ex) {
+			this.future.setException(ex);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,12 +28,14 @@ import java.util.Map;
 import javax.websocket.CloseReason;
 import javax.websocket.CloseReason.CloseCodes;
 import javax.websocket.Extension;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.PingMessage;
@@ -42,6 +44,7 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.adapter.AbstractWebSocketSession;
+import org.springframework.web.socket.adapter.AsyncWebSocketSession;
 
 /**
  * A {@link WebSocketSession} for use with the standard WebSocket for Java API.
@@ -49,7 +52,7 @@ import org.springframework.web.socket.adapter.AbstractWebSocketSession;
  * @author Rossen Stoyanchev
  * @since 4.0
  */
-public class StandardWebSocketSession extends AbstractWebSocketSession<Session> {
+public class StandardWebSocketSession extends AbstractWebSocketSession<Session> implements AsyncWebSocketSession {
 
 	private final String id;
 
@@ -220,6 +223,39 @@ public class StandardWebSocketSession extends AbstractWebSocketSession<Session>
 		getNativeSession().getBasicRemote().sendBinary(message.getPayload(), message.isLast());
 	}
 
+	@Override
+	protected void sendTextMessageAsync(TextMessage message, SettableListenableFuture<Void> future)
+			throws IOException {
+
+		if (!message.isLast()) {
+			// No partial messages in RemoteEndpoint.Async
+			super.sendTextMessageAsync(message, future);
+			return;
+		}
+		getNativeSession().getAsyncRemote().sendText(message.getPayload(), result -> handleResult(result, future));
+	}
+
+	@Override
+	protected void sendBinaryMessageAsync(BinaryMessage message, SettableListenableFuture<Void> future)
+			throws IOException {
+
+		if (!message.isLast()) {
+			// No partial messages in RemoteEndpoint.Async
+			super.sendBinaryMessageAsync(message, future);
+			return;
+		}
+		getNativeSession().getAsyncRemote().sendBinary(message.getPayload(), result -> handleResult(result, future));
+	}
+
+	private void handleResult(SendResult result, SettableListenableFuture<Void> future) {
+		if (result.isOK()) {
+			future.set(null);
+		}
+		else {
+			future.setException(result.getException());
+		}
+	}
+
 	@Override
 	protected void sendPingMessage(PingMessage message) throws IOException {
 		getNativeSession().getBasicRemote().sendPing(message.getPayload());
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,9 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.HttpRequestHandler;
 import org.springframework.web.servlet.handler.AbstractHandlerMapping;
 import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.StompConflationKeyResolver;
 import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
 import org.springframework.web.socket.messaging.StompSubProtocolHandler;
 import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
@@ -77,6 +79,20 @@ public class WebMvcStompEndpointRegistry implements StompEndpointRegistry {
 		if (transportRegistration.getSendBufferSizeLimit() != null) {
 			this.subProtocolWebSocketHandler.setSendBufferSizeLimit(transportRegistration.getSendBufferSizeLimit());
 		}
+		OverflowStrategy overflowStrategy = transportRegistration.getSendBufferOverflowStrategy();
+		if (overflowStrategy != null) {
+			this.subProtocolWebSocketHandler.setSendBufferOverflowStrategy(overflowStrategy);
+		}
+		if (transportRegistration.getSendBufferConflationKeyResolver() != null) {
+			this.subProtocolWebSocketHandler.setSendBufferConflationKeyResolver(
+					transportRegistration.getSendBufferConflationKeyResolver());
+		}
+		else if (overflowStrategy == OverflowStrategy.CONFLATE) {
+			this.subProtocolWebSocketHandler.setSendBufferConflationKeyResolver(new StompConflationKeyResolver());
+		}
+		if (transportRegistration.getAsyncSend() != null) {
+			this.subProtocolWebSocketHandler.setAsyncSend(transportRegistration.getAsyncSend());
+		}
 		if (transportRegistration.getTimeToFirstMessage() != null) {
 			this.subProtocolWebSocketHandler.setTimeToFirstMessage(transportRegistration.getTimeToFirstMessage());
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.lang.Nullable;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.ConflationKeyResolver;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
 
 /**
@@ -40,6 +42,15 @@ public class WebSocketTransportRegistration {
 	@Nullable
 	private Integer sendBufferSizeLimit;
 
+	@Nullable
+	private OverflowStrategy sendBufferOverflowStrategy;
+
+	@Nullable
+	private ConflationKeyResolver sendBufferConflationKeyResolver;
+
+	@Nullable
+	private Boolean asyncSend;
+
 	@Nullable
 	private Integer timeToFirstMessage;
 
@@ -146,6 +157,73 @@ public class WebSocketTransportRegistration {
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Configure what to do when the {@code sendBufferSizeLimit} is exceeded:
+	 * terminate the session, drop the oldest buffered messages, or conflate
+	 * buffered messages so that only the latest message per subscription and
+	 * destination is kept before dropping the oldest ones.
+	 * <p>The default is {@link OverflowStrategy#TERMINATE}.
+	 * @param overflowStrategy the overflow strategy to use
+	 * @since 5.2.4
+	 * @see #setSendBufferConflationKeyResolver
+	 */
+	public WebSocketTransportRegistration setSendBufferOverflowStrategy(OverflowStrategy overflowStrategy) {
+		this.sendBufferOverflowStrategy = overflowStrategy;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected OverflowStrategy getSendBufferOverflowStrategy() {
+		return this.sendBufferOverflowStrategy;
+	}
+
+	/**
+	 * Configure how to find the key of buffered messages that supersede each
+	 * other with {@link OverflowStrategy#CONFLATE}.
+	 * <p>By default, STOMP endpoints use a
+	 * {@link org.springframework.web.socket.messaging.StompConflationKeyResolver}
+	 * that keeps the latest {@code MESSAGE} frame per subscription and destination.
+	 * @since 5.2.4
+	 */
+	public WebSocketTransportRegistration setSendBufferConflationKeyResolver(ConflationKeyResolver resolver) {
+		this.sendBufferConflationKeyResolver = resolver;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected ConflationKeyResolver getSendBufferConflationKeyResolver() {
+		return this.sendBufferConflationKeyResolver;
+	}
+
+	/**
+	 * Whether to send messages to WebSocket sessions through the asynchronous
+	 * send API of the WebSocket server, where supported (standard Java WebSocket
+	 * API and Jetty). Threads broadcasting messages then return as soon as a write
+	 * has been initiated rather than blocking on slow clients, while messages are
+	 * still buffered per session subject to the {@code sendTimeLimit} and
+	 * {@code sendBufferSizeLimit}.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2.4
+	 */
+	public WebSocketTransportRegistration setAsyncSend(boolean asyncSend) {
+		this.asyncSend = asyncSend;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected Boolean getAsyncSend() {
+		return this.asyncSend;
+	}
+
 	/**
 	 * Set the maximum time allowed in milliseconds after the WebSocket connection
 	 * is established and before the first sub-protocol message is received.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,11 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,9 +29,12 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.lang.Nullable;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.AsyncWebSocketSession;
 
 /**
  * Wrap a {@link org.springframework.web.socket.WebSocketSession WebSocketSession}
@@ -39,6 +45,12 @@ import org.springframework.web.socket.WebSocketSession;
  * At that time, the specified buffer-size limit and send-time limit will be checked
  * and the session will be closed if the limits are exceeded.
  *
+ * <p>If {@link #setAsyncSend(boolean) async send} is enabled and the delegate
+ * is an {@link AsyncWebSocketSession}, messages are written through the
+ * container's asynchronous send API instead. The sending thread then returns as
+ * soon as the write has been initiated, and each completed write continues with
+ * the next buffered message, so no sender blocks on a slow client.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0.3
@@ -54,7 +66,7 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final OverflowStrategy overflowStrategy;
 
-	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<>();
+	private final LinkedBlockingDeque<WebSocketMessage<?>> buffer = new LinkedBlockingDeque<>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
 
@@ -68,6 +80,14 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final Lock closeLock = new ReentrantLock();
 
+	@Nullable
+	private AsyncWebSocketSession asyncDelegate;
+
+	private final AtomicBoolean asyncSendInProgress = new AtomicBoolean();
+
+	@Nullable
+	private ConflationKeyResolver conflationKeyResolver;
+
 
 	/**
 	 * Basic constructor.
@@ -114,6 +134,54 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSizeLimit;
 	}
 
+	/**
+	 * Return the configured overflow strategy.
+	 * @since 5.2.4
+	 */
+	public OverflowStrategy getOverflowStrategy() {
+		return this.overflowStrategy;
+	}
+
+	/**
+	 * Whether to send messages through the asynchronous send API of the
+	 * delegate session, so that the sending thread never blocks on a write.
+	 * <p>This only takes effect if the delegate is an {@link AsyncWebSocketSession},
+	 * and must be set before the first message is sent.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2.4
+	 */
+	public void setAsyncSend(boolean asyncSend) {
+		WebSocketSession delegate = getDelegate();
+		this.asyncDelegate = (asyncSend && delegate instanceof AsyncWebSocketSession ?
+				(AsyncWebSocketSession) delegate : null);
+	}
+
+	/**
+	 * Whether messages are sent asynchronously.
+	 * @since 5.2.4
+	 */
+	public boolean isAsyncSend() {
+		return (this.asyncDelegate != null);
+	}
+
+	/**
+	 * Configure the strategy to find the conflation key of a buffered message
+	 * when using {@link OverflowStrategy#CONFLATE}.
+	 * @since 5.2.4
+	 */
+	public void setConflationKeyResolver(@Nullable ConflationKeyResolver conflationKeyResolver) {
+		this.conflationKeyResolver = conflationKeyResolver;
+	}
+
+	/**
+	 * Return the configured conflation key strategy, if any.
+	 * @since 5.2.4
+	 */
+	@Nullable
+	public ConflationKeyResolver getConflationKeyResolver() {
+		return this.conflationKeyResolver;
+	}
+
 	/**
 	 * Return the current buffer size (number of bytes).
 	 */
@@ -140,6 +208,19 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		this.buffer.add(message);
 		this.bufferSize.addAndGet(message.getPayloadLength());
 
+		AsyncWebSocketSession asyncSession = this.asyncDelegate;
+		if (asyncSession != null) {
+			if (!tryFlushMessageBufferAsync(asyncSession)) {
+				if (logger.isTraceEnabled()) {
+					logger.trace(String.format("Another async send already in progress: " +
+							"session id '%s':, \"in-progress\" send time %d (ms), buffer size %d bytes",
+							getId(), getTimeSinceSendStarted(), getBufferSize()));
+				}
+				checkSessionLimits();
+			}
+			return;
+		}
+
 		do {
 			if (!tryFlushMessageBuffer()) {
 				if (logger.isTraceEnabled()) {
@@ -181,6 +262,64 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return false;
 	}
 
+	private boolean tryFlushMessageBufferAsync(AsyncWebSocketSession session) {
+		if (this.asyncSendInProgress.compareAndSet(false, true)) {
+			flushMessageBufferAsync(session);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Send buffered messages one at a time while holding the "async send in progress"
+	 * flag. A send that completes before its callback could be handed off is followed
+	 * up in this loop rather than from the callback, avoiding deep recursion when the
+	 * container completes writes on the calling thread.
+	 */
+	private void flushMessageBufferAsync(AsyncWebSocketSession session) {
+		while (true) {
+			WebSocketMessage<?> message = this.buffer.poll();
+			if (message == null || shouldNotSend()) {
+				this.asyncSendInProgress.set(false);
+				// Re-check for messages added after the poll but before the flag was cleared
+				if (this.buffer.isEmpty() || shouldNotSend() || !this.asyncSendInProgress.compareAndSet(false, true)) {
+					return;
+				}
+				continue;
+			}
+			this.bufferSize.addAndGet(-message.getPayloadLength());
+			this.sendStartTime = System.currentTimeMillis();
+			AsyncSendCallback callback = new AsyncSendCallback(session);
+			try {
+				session.sendMessageAsync(message).addCallback(callback);
+			}
+			catch (Throwable ex) {
+				callback.onFailure(ex);
+			}
+			if (callback.handOff()) {
+				return;
+			}
+		}
+	}
+
+	private void handleAsyncSendFailure(Throwable ex) {
+		if (shouldNotSend()) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Failed to send message asynchronously in session '" + getId() + "'", ex);
+		}
+		this.limitExceeded = true;
+		try {
+			close(CloseStatus.SESSION_NOT_RELIABLE);
+		}
+		catch (Throwable closeEx) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failure while closing session '" + getId() + "'", closeEx);
+			}
+		}
+	}
+
 	private void checkSessionLimits() {
 		if (!shouldNotSend() && this.closeLock.tryLock()) {
 			try {
@@ -197,19 +336,19 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 							limitExceeded(reason);
 							break;
 						case DROP:
-							int i = 0;
-							while (getBufferSize() > getBufferSizeLimit()) {
-								WebSocketMessage<?> message = this.buffer.poll();
-								if (message == null) {
-									break;
-								}
-								this.bufferSize.addAndGet(-message.getPayloadLength());
-								i++;
-							}
+							int i = dropOldestMessages();
 							if (logger.isDebugEnabled()) {
 								logger.debug("Dropped " + i + " messages, buffer size: " + getBufferSize());
 							}
 							break;
+						case CONFLATE:
+							int conflated = conflateMessageBuffer();
+							int dropped = dropOldestMessages();
+							if (logger.isDebugEnabled()) {
+								logger.debug("Conflated " + conflated + " and dropped " + dropped +
+										" messages, buffer size: " + getBufferSize());
+							}
+							break;
 						default:
 							// Should never happen..
 							throw new IllegalStateException("Unexpected OverflowStrategy: " + this.overflowStrategy);
@@ -222,6 +361,45 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		}
 	}
 
+	private int dropOldestMessages() {
+		int count = 0;
+		while (getBufferSize() > getBufferSizeLimit()) {
+			WebSocketMessage<?> message = this.buffer.poll();
+			if (message == null) {
+				break;
+			}
+			this.bufferSize.addAndGet(-message.getPayloadLength());
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Remove buffered messages superseded by a more recent message with the same
+	 * conflation key, keeping the order of the remaining messages.
+	 * @return the number of messages removed
+	 */
+	private int conflateMessageBuffer() {
+		ConflationKeyResolver resolver = this.conflationKeyResolver;
+		if (resolver == null) {
+			return 0;
+		}
+		Set<Object> keys = new HashSet<>();
+		int count = 0;
+		Iterator<WebSocketMessage<?>> iterator = this.buffer.descendingIterator();
+		while (iterator.hasNext()) {
+			WebSocketMessage<?> message = iterator.next();
+			Object key = resolver.getConflationKey(message);
+			// The message may have been polled concurrently by an async flush,
+			// so only account for it if it was actually still in the buffer
+			if (key != null && !keys.add(key) && this.buffer.removeLastOccurrence(message)) {
+				this.bufferSize.addAndGet(-message.getPayloadLength());
+				count++;
+			}
+		}
+		return count;
+	}
+
 	private void limitExceeded(String reason) {
 		this.limitExceeded = true;
 		throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
@@ -278,7 +456,77 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		/**
 		 * Drop the oldest messages from the buffer.
 		 */
-		DROP
+		DROP,
+
+		/**
+		 * Remove buffered messages for which a more recent message with the same
+		 * key is buffered, as determined by the configured
+		 * {@link ConflationKeyResolver}, e.g. keeping only the latest message per
+		 * destination. If that is not enough, drop the oldest messages as with
+		 * {@link #DROP}.
+		 * @since 5.2.4
+		 */
+		CONFLATE
+	}
+
+
+	/**
+	 * Strategy to determine which buffered messages supersede each other
+	 * when using {@link OverflowStrategy#CONFLATE}.
+	 * @since 5.2.4
+	 */
+	@FunctionalInterface
+	public interface ConflationKeyResolver {
+
+		/**
+		 * Return the conflation key for the given message, e.g. its destination,
+		 * or {@code null} if the message must never be removed by conflation.
+		 */
+		@Nullable
+		Object getConflationKey(WebSocketMessage<?> message);
+	}
+
+
+	/**
+	 * Callback for an asynchronous send that continues flushing the buffer
+	 * once the write has completed.
+	 */
+	private class AsyncSendCallback implements ListenableFutureCallback<Void> {
+
+		private final AsyncWebSocketSession session;
+
+		private final AtomicBoolean handOff = new AtomicBoolean();
+
+		AsyncSendCallback(AsyncWebSocketSession session) {
+			this.session = session;
+		}
+
+		/**
+		 * Hand off further flushing to this callback.
+		 * @return {@code true} if the send is still in progress, or {@code false}
+		 * if it already completed and the caller should continue flushing
+		 */
+		boolean handOff() {
+			return !this.handOff.getAndSet(true);
+		}
+
+		@Override
+		public void onSuccess(@Nullable Void result) {
+			sendCompleted();
+		}
+
+		@Override
+		public void onFailure(Throwable ex) {
+			handleAsyncSendFailure(ex);
+			sendCompleted();
+		}
+
+		private void sendCompleted() {
+			sendStartTime = 0;
+			if (this.handOff.getAndSet(true)) {
+				flushMessageBufferAsync(this.session);
+			}
+		}
 	}
 
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.messaging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+/**
+ * A {@link ConcurrentWebSocketSessionDecorator.ConflationKeyResolver} for
+ * encoded STOMP frames, keeping only the latest buffered {@code MESSAGE} frame
+ * per subscription and destination when using
+ * {@link ConcurrentWebSocketSessionDecorator.OverflowStrategy#CONFLATE}.
+ *
+ * <p>All other frames, e.g. {@code RECEIPT}, {@code ERROR} and heartbeats,
+ * are never conflated.
+ *
+ * @since 5.2.4
+ */
+public class StompConflationKeyResolver implements ConcurrentWebSocketSessionDecorator.ConflationKeyResolver {
+
+	private static final byte[] MESSAGE_COMMAND = "MESSAGE".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] DESTINATION_HEADER = "destination:".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] SUBSCRIPTION_HEADER = "subscription:".getBytes(StandardCharsets.UTF_8);
+
+
+	@Override
+	@Nullable
+	public Object getConflationKey(WebSocketMessage<?> message) {
+		if (message instanceof TextMessage) {
+			byte[] bytes = ((TextMessage) message).asBytes();
+			return getConflationKey(bytes, 0, bytes.length);
+		}
+		else if (message instanceof BinaryMessage) {
+			ByteBuffer buffer = ((BinaryMessage) message).getPayload();
+			if (buffer.hasArray()) {
+				return getConflationKey(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			}
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(bytes);
+			return getConflationKey(bytes, 0, bytes.length);
+		}
+		return null;
+	}
+
+	/**
+	 * Extract the key from the raw, still escaped, header values of a
+	 * {@code MESSAGE} frame. Escaped values cannot contain a colon, so the
+	 * combined key is unambiguous.
+	 */
+	@Nullable
+	private Object getConflationKey(byte[] bytes, int offset, int length) {
+		int end = offset + length;
+		int pos = offset;
+		while (pos < end && (bytes[pos] == '\n' || bytes[pos] == '\r')) {
+			pos++;
+		}
+		int lineEnd = endOfLine(bytes, pos, end);
+		if (!regionMatches(bytes, pos, lineEnd, MESSAGE_COMMAND) || lineEnd - pos != MESSAGE_COMMAND.length) {
+			return null;
+		}
+		String destination = null;
+		String subscription = null;
+		pos = nextLine(bytes, lineEnd, end);
+		while (pos < end) {
+			lineEnd = endOfLine(bytes, pos, end);
+			if (lineEnd == pos) {
+				break;
+			}
+			if (destination == null && regionMatches(bytes, pos, lineEnd, DESTINATION_HEADER)) {
+				destination = headerValue(bytes, pos + DESTINATION_HEADER.length, lineEnd);
+			}
+			else if (subscription == null && regionMatches(bytes, pos, lineEnd, SUBSCRIPTION_HEADER)) {
+				subscription = headerValue(bytes, pos + SUBSCRIPTION_HEADER.length, lineEnd);
+			}
+			pos = nextLine(bytes, lineEnd, end);
+		}
+		if (destination == null) {
+			return null;
+		}
+		return (subscription != null ? subscription + ":" + destination : destination);
+	}
+
+	private static int endOfLine(byte[] bytes, int start, int end) {
+		int pos = start;
+		while (pos < end && bytes[pos] != '\n') {
+			pos++;
+		}
+		return (pos > start && bytes[pos - 1] == '\r' ? pos - 1 : pos);
+	}
+
+	private static int nextLine(byte[] bytes, int lineEnd, int end) {
+		int pos = lineEnd;
+		if (pos < end && bytes[pos] == '\r') {
+			pos++;
+		}
+		return (pos < end ? pos + 1 : end);
+	}
+
+	private static boolean regionMatches(byte[] bytes, int pos, int lineEnd, byte[] prefix) {
+		if (lineEnd - pos < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[pos + i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String headerValue(byte[] bytes, int pos, int lineEnd) {
+		return new String(bytes, pos, lineEnd - pos, StandardCharsets.UTF_8);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,8 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.ConflationKeyResolver;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
 import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
@@ -93,6 +95,13 @@ public class SubProtocolWebSocketHandler
 
 	private int sendBufferSizeLimit = 512 * 1024;
 
+	private OverflowStrategy sendBufferOverflowStrategy = OverflowStrategy.TERMINATE;
+
+	@Nullable
+	private ConflationKeyResolver sendBufferConflationKeyResolver;
+
+	private boolean asyncSend = false;
+
 	private int timeToFirstMessage = DEFAULT_TIME_TO_FIRST_MESSAGE;
 
 	private volatile long lastSessionCheckTime = System.currentTimeMillis();
@@ -222,6 +231,64 @@ public class SubProtocolWebSocketHandler
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Specify what to do when the buffer-size limit is exceeded.
+	 * <p>By default this is set to {@link OverflowStrategy#TERMINATE}.
+	 * @since 5.2.4
+	 * @see ConcurrentWebSocketSessionDecorator
+	 */
+	public void setSendBufferOverflowStrategy(OverflowStrategy overflowStrategy) {
+		Assert.notNull(overflowStrategy, "OverflowStrategy must not be null");
+		this.sendBufferOverflowStrategy = overflowStrategy;
+	}
+
+	/**
+	 * Return the strategy for when the buffer-size limit is exceeded.
+	 * @since 5.2.4
+	 */
+	public OverflowStrategy getSendBufferOverflowStrategy() {
+		return this.sendBufferOverflowStrategy;
+	}
+
+	/**
+	 * Specify how to find the key of buffered messages that supersede each
+	 * other when using {@link OverflowStrategy#CONFLATE}.
+	 * @since 5.2.4
+	 * @see StompConflationKeyResolver
+	 */
+	public void setSendBufferConflationKeyResolver(@Nullable ConflationKeyResolver conflationKeyResolver) {
+		this.sendBufferConflationKeyResolver = conflationKeyResolver;
+	}
+
+	/**
+	 * Return the configured conflation key strategy, if any.
+	 * @since 5.2.4
+	 */
+	@Nullable
+	public ConflationKeyResolver getSendBufferConflationKeyResolver() {
+		return this.sendBufferConflationKeyResolver;
+	}
+
+	/**
+	 * Whether to send messages through the asynchronous send API of the
+	 * underlying WebSocket session, where supported, so that threads sending
+	 * to a slow client never block on the write.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2.4
+	 * @see ConcurrentWebSocketSessionDecorator#setAsyncSend(boolean)
+	 */
+	public void setAsyncSend(boolean asyncSend) {
+		this.asyncSend = asyncSend;
+	}
+
+	/**
+	 * Whether messages are sent asynchronously where supported.
+	 * @since 5.2.4
+	 */
+	public boolean isAsyncSend() {
+		return this.asyncSend;
+	}
+
 	/**
 	 * Set the maximum time allowed in milliseconds after the WebSocket connection
 	 * is established and before the first sub-protocol message is received.
@@ -409,13 +476,19 @@ public class SubProtocolWebSocketHandler
 	 * Decorate the given {@link WebSocketSession}, if desired.
 	 * <p>The default implementation builds a {@link ConcurrentWebSocketSessionDecorator}
 	 * with the configured {@link #getSendTimeLimit() send-time limit} and
-	 * {@link #getSendBufferSizeLimit() buffer-size limit}.
+	 * {@link #getSendBufferSizeLimit() buffer-size limit}, the configured
+	 * {@link #getSendBufferOverflowStrategy() overflow strategy}, and with
+	 * {@link #isAsyncSend() async send} enabled if configured.
 	 * @param session the original {@code WebSocketSession}
 	 * @return the decorated {@code WebSocketSession}, or potentially the given session as-is
 	 * @since 4.3.13
 	 */
 	protected WebSocketSession decorateSession(WebSocketSession session) {
-		return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(
+				session, getSendTimeLimit(), getSendBufferSizeLimit(), getSendBufferOverflowStrategy());
+		decorator.setConflationKeyResolver(getSendBufferConflationKeyResolver());
+		decorator.setAsyncSend(isAsyncSend());
+		return decorator;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.messaging.SubscribableChannel;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.messaging.StompConflationKeyResolver;
 import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
 import org.springframework.web.socket.messaging.StompSubProtocolHandler;
 import org.springframework.web.socket.messaging.SubProtocolHandler;
@@ -89,6 +91,20 @@ public class WebMvcStompEndpointRegistryTests {
 		assertThat(hm.getUrlPathHelper()).isSameAs(pathHelper);
 	}
 
+	@Test
+	public void sendBufferOverflowStrategyConflate() {
+		SubscribableChannel inChannel = mock(SubscribableChannel.class);
+		SubscribableChannel outChannel = mock(SubscribableChannel.class);
+		SubProtocolWebSocketHandler handler = new SubProtocolWebSocketHandler(inChannel, outChannel);
+
+		WebSocketTransportRegistration transport = new WebSocketTransportRegistration();
+		transport.setSendBufferOverflowStrategy(OverflowStrategy.CONFLATE);
+		new WebMvcStompEndpointRegistry(handler, transport, mock(TaskScheduler.class));
+
+		assertThat(handler.getSendBufferOverflowStrategy()).isEqualTo(OverflowStrategy.CONFLATE);
+		assertThat(handler.getSendBufferConflationKeyResolver()).isInstanceOf(StompConflationKeyResolver.class);
+	}
+
 	@Test
 	public void errorHandler() throws Exception {
 		StompSubProtocolErrorHandler errorHandler = mock(StompSubProtocolErrorHandler.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -24,10 +26,13 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.AsyncWebSocketSession;
 import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -154,6 +159,166 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		assertThat(session.isOpen()).isTrue();
 	}
 
+	@Test
+	public void overflowStrategyConflate() throws IOException, InterruptedException {
+
+		BlockingSession session = new BlockingSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10*1000, 1024, OverflowStrategy.CONFLATE);
+		decorator.setConflationKeyResolver(message -> ((String) message.getPayload()).substring(0, 1));
+
+		sendBlockingMessage(decorator);
+
+		decorator.sendMessage(new TextMessage(String.format("a%399s", "1")));
+		decorator.sendMessage(new TextMessage(String.format("b%399s", "1")));
+		decorator.sendMessage(new TextMessage(String.format("a%399s", "2")));
+
+		assertThat(decorator.getBufferSize()).isEqualTo(800);
+		assertThat(session.isOpen()).isTrue();
+	}
+
+	@Test
+	public void overflowStrategyConflateWithConcurrentAsyncFlush() throws IOException {
+
+		AsyncSession session = new AsyncSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10*1000, 1024, OverflowStrategy.CONFLATE);
+		decorator.setAsyncSend(true);
+		decorator.setConflationKeyResolver(message -> {
+			String key = ((String) message.getPayload()).substring(0, 1);
+			if (key.equals("b")) {
+				// Completing the in-flight send polls the oldest buffered message
+				session.completeNext();
+			}
+			return key;
+		});
+
+		decorator.sendMessage(new TextMessage("slow message"));
+		decorator.sendMessage(new TextMessage(String.format("a%399s", "1")));
+		decorator.sendMessage(new TextMessage(String.format("b%399s", "1")));
+		decorator.sendMessage(new TextMessage(String.format("a%399s", "2")));
+
+		assertThat(session.getSentMessages().size()).isEqualTo(2);
+		assertThat(decorator.getBufferSize()).isEqualTo(800);
+
+		session.completeNext();
+		session.completeNext();
+		session.completeNext();
+		assertThat(session.getSentMessages().size()).isEqualTo(4);
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void asyncSend() throws IOException {
+
+		AsyncSession session = new AsyncSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setAsyncSend(true);
+		assertThat(decorator.isAsyncSend()).isTrue();
+
+		decorator.sendMessage(new TextMessage("1"));
+		decorator.sendMessage(new TextMessage("22"));
+		decorator.sendMessage(new TextMessage("333"));
+
+		assertThat(session.getSentMessages().size()).isEqualTo(1);
+		assertThat(decorator.getBufferSize()).isEqualTo(5);
+		assertThat(decorator.getTimeSinceSendStarted()).isGreaterThanOrEqualTo(0);
+
+		session.completeNext();
+		assertThat(session.getSentMessages().size()).isEqualTo(2);
+		assertThat(decorator.getBufferSize()).isEqualTo(3);
+
+		session.completeNext();
+		session.completeNext();
+		assertThat(session.getSentMessages().size()).isEqualTo(3);
+		assertThat(session.getSentMessages().get(2).getPayload()).isEqualTo("333");
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+		assertThat(decorator.getTimeSinceSendStarted()).isEqualTo(0);
+
+		decorator.sendMessage(new TextMessage("4444"));
+		assertThat(session.getSentMessages().size()).isEqualTo(4);
+	}
+
+	@Test
+	public void asyncSendCompletedImmediately() throws IOException {
+
+		AsyncSession session = new AsyncSession();
+		session.setOpen(true);
+		session.setCompleteImmediately(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setAsyncSend(true);
+
+		for (int i = 0; i < 10000; i++) {
+			decorator.sendMessage(new TextMessage("payload"));
+		}
+
+		assertThat(session.getSentMessages().size()).isEqualTo(10000);
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void asyncSendBufferSizeExceeded() throws IOException {
+
+		AsyncSession session = new AsyncSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10*1000, 1024);
+		decorator.setAsyncSend(true);
+
+		decorator.sendMessage(new TextMessage("slow message"));
+
+		String msg = String.format("%1023s", "a");
+		decorator.sendMessage(new TextMessage(msg));
+		assertThat(decorator.getBufferSize()).isEqualTo(1023);
+
+		assertThatExceptionOfType(SessionLimitExceededException.class).isThrownBy(() ->
+				decorator.sendMessage(new TextMessage(msg)))
+			.satisfies(ex -> assertThat(ex.getStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE));
+	}
+
+	@Test
+	public void asyncSendFailure() throws IOException {
+
+		AsyncSession session = new AsyncSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setAsyncSend(true);
+
+		decorator.sendMessage(new TextMessage("1"));
+		decorator.sendMessage(new TextMessage("2"));
+		session.failNext(new IOException("Broken pipe"));
+
+		assertThat(session.getSentMessages().size()).isEqualTo(1);
+		assertThat(session.getCloseStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+
+		decorator.sendMessage(new TextMessage("3"));
+		assertThat(session.getSentMessages().size()).isEqualTo(1);
+	}
+
+	@Test
+	public void asyncSendNotSupported() {
+		TestWebSocketSession session = new TestWebSocketSession();
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setAsyncSend(true);
+		assertThat(decorator.isAsyncSend()).isFalse();
+	}
+
 	@Test
 	public void closeStatusNormal() throws Exception {
 
@@ -252,4 +417,45 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 
 	}
 
+
+	private static class AsyncSession extends TestWebSocketSession implements AsyncWebSocketSession {
+
+		private final List<SettableListenableFuture<Void>> futures = new ArrayList<>();
+
+		private boolean completeImmediately;
+
+
+		public void setCompleteImmediately(boolean completeImmediately) {
+			this.completeImmediately = completeImmediately;
+		}
+
+		@Override
+		public ListenableFuture<Void> sendMessageAsync(WebSocketMessage<?> message) {
+			SettableListenableFuture<Void> future = new SettableListenableFuture<>();
+			try {
+				sendMessage(message);
+			}
+			catch (IOException ex) {
+				future.setException(ex);
+				return future;
+			}
+			if (this.completeImmediately) {
+				future.set(null);
+			}
+			else {
+				this.futures.add(future);
+			}
+			return future;
+		}
+
+		public void completeNext() {
+			this.futures.remove(0).set(null);
+		}
+
+		public void failNext(Throwable ex) {
+			this.futures.remove(0).setException(ex);
+		}
+
+	}
+
 }
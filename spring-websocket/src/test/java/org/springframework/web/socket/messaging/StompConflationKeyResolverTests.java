@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.messaging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link StompConflationKeyResolver}.
+ */
+public class StompConflationKeyResolverTests {
+
+	private final StompConflationKeyResolver resolver = new StompConflationKeyResolver();
+
+
+	@Test
+	public void messageFrame() {
+		TextMessage message = new TextMessage(
+				"MESSAGE\nsubscription:s1\nmessage-id:1\ndestination:/topic/a\n\n/topic/b\0");
+		assertThat(this.resolver.getConflationKey(message)).isEqualTo("s1:/topic/a");
+	}
+
+	@Test
+	public void messageFrameWithCarriageReturns() {
+		TextMessage message = new TextMessage(
+				"\r\nMESSAGE\r\ndestination:/topic/a\r\nsubscription:s1\r\n\r\npayload\0");
+		assertThat(this.resolver.getConflationKey(message)).isEqualTo("s1:/topic/a");
+	}
+
+	@Test
+	public void messageFrameWithRepeatedHeader() {
+		TextMessage message = new TextMessage(
+				"MESSAGE\ndestination:/topic/a\ndestination:/topic/b\nsubscription:s1\n\n\0");
+		assertThat(this.resolver.getConflationKey(message)).isEqualTo("s1:/topic/a");
+	}
+
+	@Test
+	public void binaryMessageFrame() {
+		byte[] bytes = "xxMESSAGE\nsubscription:s2\ndestination:/queue/q\n\n\0".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.position(2);
+		assertThat(this.resolver.getConflationKey(new BinaryMessage(buffer))).isEqualTo("s2:/queue/q");
+	}
+
+	@Test
+	public void otherFrames() {
+		assertThat(this.resolver.getConflationKey(new TextMessage("RECEIPT\nreceipt-id:1\n\n\0"))).isNull();
+		assertThat(this.resolver.getConflationKey(new TextMessage("ERROR\ndestination:/a\n\n\0"))).isNull();
+		assertThat(this.resolver.getConflationKey(new TextMessage("MESSAGES\ndestination:/a\n\n\0"))).isNull();
+		assertThat(this.resolver.getConflationKey(new TextMessage("\n"))).isNull();
+		assertThat(this.resolver.getConflationKey(new TextMessage("MESSAGE\nsubscription:s1\n\ndestination:/a\0"))).isNull();
+		assertThat(this.resolver.getConflationKey(new PingMessage())).isNull();
+	}
+
+}